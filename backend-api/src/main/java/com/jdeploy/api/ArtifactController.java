@@ -4,11 +4,16 @@ import com.jdeploy.artifact.ArtifactMetadata;
 import com.jdeploy.artifact.ArtifactExpiredException;
 import com.jdeploy.artifact.ArtifactNotFoundException;
 import com.jdeploy.artifact.ArtifactStorage;
-import com.jdeploy.artifact.StoredArtifact;
 import com.jdeploy.security.ApiRoles;
+import com.jdeploy.service.DiagramBatchService;
 import com.jdeploy.service.DiagramGenerationService;
+import com.jdeploy.service.DiagramPartitioning;
+import com.jdeploy.service.GraphManifestReader;
+import com.jdeploy.service.DiagramRenderService;
+import com.jdeploy.service.DiagramRenderUnavailableException;
 import com.jdeploy.service.ManifestContractValidator;
 import com.jdeploy.service.ManifestIngestionService;
+import com.jdeploy.service.PreconditionViolationException;
 import com.jdeploy.service.dto.DeploymentManifestDto;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -18,20 +23,28 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.constraints.NotBlank;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/api/artifacts")
@@ -39,24 +52,36 @@ import java.nio.charset.StandardCharsets;
 @SecurityRequirement(name = "basicAuth")
 public class ArtifactController {
 
+    private static final String GZIP = "gzip";
+
     private final ManifestIngestionService ingestionService;
     private final ManifestContractValidator contractValidator;
     private final DiagramGenerationService diagramGenerationService;
     private final ArtifactStorage artifactStorage;
+    private final DiagramRenderService diagramRenderService;
+    private final GraphManifestReader graphManifestReader;
+    private final DiagramBatchService diagramBatchService;
 
     public ArtifactController(ManifestIngestionService ingestionService,
                               ManifestContractValidator contractValidator,
                               DiagramGenerationService diagramGenerationService,
-                              ArtifactStorage artifactStorage) {
+                              ArtifactStorage artifactStorage,
+                              DiagramRenderService diagramRenderService,
+                              GraphManifestReader graphManifestReader,
+                              DiagramBatchService diagramBatchService) {
         this.ingestionService = ingestionService;
         this.contractValidator = contractValidator;
         this.diagramGenerationService = diagramGenerationService;
         this.artifactStorage = artifactStorage;
+        this.diagramRenderService = diagramRenderService;
+        this.graphManifestReader = graphManifestReader;
+        this.diagramBatchService = diagramBatchService;
     }
 
     @PostMapping("/generate")
     @PreAuthorize("hasAuthority('" + ApiRoles.ARTIFACT_GENERATE + "')")
-    @Operation(summary = "Generate deployment topology artifact from manifest")
+    @Operation(summary = "Generate deployment topology artifact from manifest",
+            description = "With partitionBy (subnet, routing-zone, cluster or system) the artifact is a bundle of diagrams: an overview of the partitions and the links between them, followed by one diagram per partition.")
     @io.swagger.v3.oas.annotations.parameters.RequestBody(required = true, content = @Content(mediaType = "application/x-yaml", schema = @Schema(type = "string", description = "Deployment manifest in YAML format")))
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Artifact generated successfully", content = @Content(schema = @Schema(implementation = ArtifactMetadata.class))),
@@ -64,34 +89,210 @@ public class ArtifactController {
             @ApiResponse(responseCode = "401", description = "Authentication required"),
             @ApiResponse(responseCode = "403", description = "Insufficient privileges")
     })
-    public ArtifactMetadata generate(@RequestBody @NotBlank String manifestYaml) {
+    public ArtifactMetadata generate(@RequestBody @NotBlank String manifestYaml,
+                                     @RequestParam(required = false) String partitionBy) {
+        DiagramPartitioning partitioning = partitioning(partitionBy);
         DeploymentManifestDto manifest = ingestionService.parseManifest(manifestYaml);
         contractValidator.validateForIngestion(manifest);
-        return diagramGenerationService.generateDeploymentDiagram(manifest);
+        return generate(manifest, partitioning);
+    }
+
+    @PostMapping("/generate/system/{systemName}")
+    @PreAuthorize("hasAuthority('" + ApiRoles.ARTIFACT_GENERATE + "')")
+    @Operation(summary = "Generate deployment topology artifact for one system from the stored topology",
+            description = "Covers the system's components and deployments, the nodes they deploy to with their subnets and clusters, and the links between those nodes.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Artifact generated successfully", content = @Content(schema = @Schema(implementation = ArtifactMetadata.class))),
+            @ApiResponse(responseCode = "404", description = "System was not found"),
+            @ApiResponse(responseCode = "401", description = "Authentication required"),
+            @ApiResponse(responseCode = "403", description = "Insufficient privileges")
+    })
+    public ArtifactMetadata generateForSystem(@PathVariable String systemName) {
+        DeploymentManifestDto manifest = graphManifestReader.readSystem(systemName)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "SoftwareSystem not found"));
+        return diagramGenerationService.generateSystemDeploymentDiagram(systemName, manifest);
+    }
+
+    @PostMapping("/generate/all")
+    @PreAuthorize("hasAuthority('" + ApiRoles.ARTIFACT_GENERATE + "')")
+    @Operation(summary = "Generate deployment topology artifact for the whole stored topology",
+            description = "partitionBy works as for manifest-based generation.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Artifact generated successfully", content = @Content(schema = @Schema(implementation = ArtifactMetadata.class))),
+            @ApiResponse(responseCode = "400", description = "Unsupported partitioning"),
+            @ApiResponse(responseCode = "401", description = "Authentication required"),
+            @ApiResponse(responseCode = "403", description = "Insufficient privileges")
+    })
+    public ArtifactMetadata generateForTopology(@RequestParam(required = false) String partitionBy) {
+        DiagramPartitioning partitioning = partitioning(partitionBy);
+        return generate(graphManifestReader.readAll(), partitioning);
+    }
+
+    @PostMapping("/generate/systems")
+    @PreAuthorize("hasAuthority('" + ApiRoles.ARTIFACT_GENERATE + "')")
+    @Operation(summary = "Generate system diagrams for many systems as artifacts",
+            description = "The body lists system names; an empty or missing body selects every system. Diagram context for all systems is read in one query and the diagrams are generated concurrently. The response reports the outcome and timing of each system.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Batch finished; failed systems are reported in the result", content = @Content(schema = @Schema(implementation = DiagramBatchService.BatchResult.class))),
+            @ApiResponse(responseCode = "400", description = "Blank system name"),
+            @ApiResponse(responseCode = "401", description = "Authentication required"),
+            @ApiResponse(responseCode = "403", description = "Insufficient privileges")
+    })
+    public DiagramBatchService.BatchResult generateForSystems(@RequestBody(required = false) List<String> systemNames) {
+        try {
+            return diagramBatchService.generate(systemNames == null ? List.of() : systemNames, null);
+        } catch (PreconditionViolationException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+    }
+
+    private ArtifactMetadata generate(DeploymentManifestDto manifest, DiagramPartitioning partitioning) {
+        return partitioning == null
+                ? diagramGenerationService.generateDeploymentDiagram(manifest)
+                : diagramGenerationService.generatePartitionedDeploymentDiagram(manifest, partitioning);
+    }
+
+    private static DiagramPartitioning partitioning(String partitionBy) {
+        if (partitionBy == null) {
+            return null;
+        }
+        try {
+            return DiagramPartitioning.fromParameter(partitionBy);
+        } catch (PreconditionViolationException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
     }
 
     @GetMapping("/{artifactId}")
     @PreAuthorize("hasAnyAuthority('" + ApiRoles.ARTIFACT_GENERATE + "','" + ApiRoles.READ_ONLY + "')")
     @Operation(summary = "Download generated deployment topology artifact")
     @ApiResponses({
-            @ApiResponse(responseCode = "200", description = "Artifact retrieved", content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE, schema = @Schema(type = "string", format = "binary"))),
+            @ApiResponse(responseCode = "200", description = "Artifact retrieved; gzip-encoded when stored compressed and the client accepts gzip", content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE, schema = @Schema(type = "string", format = "binary"))),
+            @ApiResponse(responseCode = "206", description = "Requested byte range of the artifact", content = @Content(mediaType = MediaType.TEXT_PLAIN_VALUE, schema = @Schema(type = "string", format = "binary"))),
+            @ApiResponse(responseCode = "304", description = "Artifact matches the If-None-Match or If-Modified-Since request header"),
             @ApiResponse(responseCode = "404", description = "Artifact was not found"),
             @ApiResponse(responseCode = "410", description = "Artifact has expired and is no longer available"),
             @ApiResponse(responseCode = "401", description = "Authentication required"),
             @ApiResponse(responseCode = "403", description = "Insufficient privileges")
     })
-    public ResponseEntity<byte[]> download(@PathVariable String artifactId) {
-        StoredArtifact artifact;
+    public ResponseEntity<Resource> download(@PathVariable String artifactId,
+                                             @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        ArtifactMetadata metadata;
         try {
-            artifact = artifactStorage.read(artifactId);
+            metadata = artifactStorage.stat(artifactId);
         } catch (ArtifactExpiredException ex) {
             throw new ResponseStatusException(HttpStatus.GONE, "Artifact has expired", ex);
         } catch (ArtifactNotFoundException ex) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Artifact not found", ex);
         }
+        // The file is streamed by Spring's resource converters, which also answer Range requests with 206 and
+        // conditional requests against the ETag and Last-Modified headers with 304.
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(metadata.artifactId()).build().toString())
+                .lastModified(metadata.lastModifiedAt());
+        if (metadata.contentEncoding() == null) {
+            if (metadata.contentHash() != null) {
+                response.eTag(metadata.contentHash());
+            }
+            return response.body(new FileSystemResource(metadata.path()));
+        }
+
+        // Stored compressed: pass the encoded bytes through when the client accepts gzip, otherwise decode while
+        // streaming. The two representations get distinct ETags.
+        if (!GZIP.equals(metadata.contentEncoding())) {
+            throw new IllegalStateException("Unsupported artifact content encoding: " + metadata.contentEncoding());
+        }
+        boolean passThrough = acceptsGzip(acceptEncoding);
+        response.varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (metadata.contentHash() != null) {
+            response.eTag(passThrough ? metadata.contentHash() + "-" + GZIP : metadata.contentHash());
+        }
+        if (passThrough) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, GZIP).body(new FileSystemResource(metadata.path()));
+        }
+        return response.body(new GzipDecodingResource(metadata.path()));
+    }
+
+    @GetMapping(value = "/{artifactId}", params = "format")
+    @PreAuthorize("hasAnyAuthority('" + ApiRoles.ARTIFACT_GENERATE + "','" + ApiRoles.READ_ONLY + "')")
+    @Operation(summary = "Render generated deployment topology artifact as SVG or PNG",
+            description = "page selects a diagram of a partitioned bundle: 0 is the overview, 1..n the partitions.")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Rendered image, served from the render cache when the same content was rendered before", content = {
+                    @Content(mediaType = "image/svg+xml", schema = @Schema(type = "string", format = "binary")),
+                    @Content(mediaType = MediaType.IMAGE_PNG_VALUE, schema = @Schema(type = "string", format = "binary"))
+            }),
+            @ApiResponse(responseCode = "304", description = "Rendered image matches the If-None-Match request header"),
+            @ApiResponse(responseCode = "400", description = "Unsupported format, or the artifact is too large to render or has no such diagram page"),
+            @ApiResponse(responseCode = "404", description = "Artifact was not found"),
+            @ApiResponse(responseCode = "410", description = "Artifact has expired and is no longer available"),
+            @ApiResponse(responseCode = "503", description = "Render pool is saturated or the render timed out; retry later", content = @Content(schema = @Schema(implementation = com.jdeploy.api.ManifestController.OperationResult.class))),
+            @ApiResponse(responseCode = "401", description = "Authentication required"),
+            @ApiResponse(responseCode = "403", description = "Insufficient privileges")
+    })
+    public ResponseEntity<Resource> render(@PathVariable String artifactId,
+                                           @RequestParam String format,
+                                           @RequestParam(defaultValue = "0") int page) {
+        DiagramRenderService.RenderedDiagram rendered;
+        try {
+            rendered = diagramRenderService.render(artifactId, DiagramRenderService.RenderFormat.fromParameter(format), page);
+        } catch (ArtifactExpiredException ex) {
+            throw new ResponseStatusException(HttpStatus.GONE, "Artifact has expired", ex);
+        } catch (ArtifactNotFoundException ex) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Artifact not found", ex);
+        } catch (PreconditionViolationException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        }
+        String extension = (rendered.page() == 0 ? "" : rendered.page() + ".") + rendered.format().extension();
         return ResponseEntity.ok()
-                .contentType(MediaType.TEXT_PLAIN)
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + artifact.metadata().artifactId() + "\"")
-                .body(artifact.content().getBytes(StandardCharsets.UTF_8));
+                .contentType(MediaType.parseMediaType(rendered.format().mediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.inline().filename(artifactId + "." + extension).build().toString())
+                .eTag(rendered.contentHash() + "-" + extension.replace('.', '-'))
+                .body(new FileSystemResource(rendered.path()));
+    }
+
+    @ExceptionHandler(DiagramRenderUnavailableException.class)
+    public ResponseEntity<ManifestController.OperationResult> renderUnavailable(DiagramRenderUnavailableException exception) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(new ManifestController.OperationResult("REJECTED", exception.getMessage()));
+    }
+
+    /**
+     * Whether an {@code Accept-Encoding} header admits gzip, either by name or through {@code *}, with a non-zero
+     * quality. An explicit {@code gzip} entry takes precedence over {@code *}.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isBlank()) {
+            return false;
+        }
+        boolean wildcard = false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            boolean accepted = quality(parts) > 0;
+            if (name.equals(GZIP) || name.equals("x-gzip")) {
+                return accepted;
+            }
+            if (name.equals("*")) {
+                wildcard = accepted;
+            }
+        }
+        return wildcard;
+    }
+
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException ex) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
     }
 }
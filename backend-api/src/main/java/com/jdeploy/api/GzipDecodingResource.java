@@ -0,0 +1,62 @@
+package com.jdeploy.api;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A gzip file served decompressed, for clients that do not accept {@code Content-Encoding: gzip}.
+ * <p>
+ * The decompressed length is read from the gzip trailer (ISIZE, the length modulo 2<sup>32</sup>), so the
+ * response can carry a {@code Content-Length} and answer range requests without inflating the file first. That
+ * holds for single-member files under 4 GiB, which is what the artifact storage writes.
+ */
+final class GzipDecodingResource extends AbstractResource {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path path;
+
+    GzipDecodingResource(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public boolean exists() {
+        return Files.isRegularFile(path);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return new GZIPInputStream(Files.newInputStream(path), BUFFER_SIZE);
+    }
+
+    @Override
+    public long contentLength() throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < 4) {
+                throw new IOException("Not a gzip file: " + path);
+            }
+            ByteBuffer trailer = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            while (trailer.hasRemaining()) {
+                if (channel.read(trailer, channel.size() - 4 + trailer.position()) < 0) {
+                    throw new IOException("Unexpected end of gzip file: " + path);
+                }
+            }
+            return Integer.toUnsignedLong(trailer.getInt(0));
+        }
+    }
+
+    @Override
+    public String getDescription() {
+        return "gzip-decoded file [" + path + "]";
+    }
+}
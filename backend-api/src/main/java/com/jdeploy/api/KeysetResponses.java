@@ -0,0 +1,71 @@
+package com.jdeploy.api;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.jdeploy.service.TopologyQueryService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Response shapes shared by the keyset-paged list endpoints: a JSON page whose continuation travels in the
+ * {@value #NEXT_CURSOR_HEADER} header, and an {@code application/x-ndjson} stream with one record per line.
+ */
+final class KeysetResponses {
+
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final ObjectWriter RECORD_WRITER = JsonMapper.builder().build().writer();
+    private static final int FLUSH_INTERVAL = 256;
+
+    private KeysetResponses() {
+    }
+
+    static int pageLimit(Integer limit) {
+        return limit == null ? TopologyQueryService.DEFAULT_PAGE_LIMIT : limit;
+    }
+
+    static <S, V> ResponseEntity<List<V>> page(TopologyQueryService.KeysetPage<S> page, Function<S, V> view) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items().stream().map(view).toList());
+    }
+
+    /**
+     * Writes every record {@code producer} emits as one JSON line. Output is flushed every
+     * {@value #FLUSH_INTERVAL} records, so the response holds a bounded amount of data regardless of the
+     * result size.
+     */
+    static <V> ResponseEntity<StreamingResponseBody> ndjson(Consumer<Consumer<V>> producer) {
+        StreamingResponseBody body = out -> {
+            int[] written = {0};
+            try {
+                producer.accept(record -> {
+                    try {
+                        out.write(RECORD_WRITER.writeValueAsBytes(record));
+                        out.write('\n');
+                        if (++written[0] % FLUSH_INTERVAL == 0) {
+                            out.flush();
+                        }
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+            out.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+}
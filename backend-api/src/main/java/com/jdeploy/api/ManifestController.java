@@ -2,7 +2,10 @@ package com.jdeploy.api;
 
 import com.jdeploy.security.ApiRoles;
 import com.jdeploy.service.GraphQualityGateService;
+import com.jdeploy.service.IngestionQueueFullException;
 import com.jdeploy.service.ManifestContractValidator;
+import com.jdeploy.service.ManifestContractViolationException;
+import com.jdeploy.service.ManifestIngestionJobService;
 import com.jdeploy.service.ManifestIngestionService;
 import com.jdeploy.service.PreconditionViolationException;
 import com.jdeploy.service.dto.DeploymentManifestDto;
@@ -14,15 +17,24 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.constraints.NotBlank;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api")
@@ -33,13 +45,16 @@ public class ManifestController {
     private final ManifestIngestionService ingestionService;
     private final ManifestContractValidator contractValidator;
     private final GraphQualityGateService graphQualityGateService;
+    private final ManifestIngestionJobService ingestionJobService;
 
     public ManifestController(ManifestIngestionService ingestionService,
                               ManifestContractValidator contractValidator,
-                              GraphQualityGateService graphQualityGateService) {
+                              GraphQualityGateService graphQualityGateService,
+                              ManifestIngestionJobService ingestionJobService) {
         this.ingestionService = ingestionService;
         this.contractValidator = contractValidator;
         this.graphQualityGateService = graphQualityGateService;
+        this.ingestionJobService = ingestionJobService;
     }
 
     @PostMapping("/manifests/ingest")
@@ -47,25 +62,61 @@ public class ManifestController {
     @Operation(summary = "Ingest manifest and synchronize graph")
     @io.swagger.v3.oas.annotations.parameters.RequestBody(required = true, content = @Content(mediaType = "application/x-yaml", schema = @Schema(type = "string", description = "Deployment manifest in YAML format")))
     @ApiResponses({
-            @ApiResponse(responseCode = "200", description = "Manifest ingested", content = @Content(schema = @Schema(implementation = OperationResult.class))),
-            @ApiResponse(responseCode = "400", description = "Manifest validation failed", content = @Content(schema = @Schema(implementation = OperationResult.class))),
+            @ApiResponse(responseCode = "200", description = "Manifest ingested, or UNCHANGED when identical to the last synchronized manifest", content = @Content(schema = @Schema(implementation = OperationResult.class))),
+            @ApiResponse(responseCode = "400", description = "Manifest validation failed", content = @Content(schema = @Schema(implementation = ContractViolationResult.class))),
             @ApiResponse(responseCode = "401", description = "Authentication required"),
             @ApiResponse(responseCode = "403", description = "Insufficient privileges")
     })
-    public OperationResult ingest(@RequestBody @NotBlank String manifestYaml) {
+    public OperationResult ingest(InputStream manifestYaml,
+                                  @RequestParam(defaultValue = "false") boolean force) {
         DeploymentManifestDto manifest = ingestionService.parseManifest(manifestYaml);
         contractValidator.validateForIngestion(manifest);
-        ingestionService.synchronize(manifest);
+        if (ingestionService.synchronize(manifest, force) == ManifestIngestionService.SynchronizationOutcome.UNCHANGED) {
+            return new OperationResult("UNCHANGED", "Manifest matches the last synchronized manifest");
+        }
         return new OperationResult("INGESTED", "Manifest accepted and synchronized");
     }
 
+    @PostMapping("/manifests/jobs")
+    @PreAuthorize("hasAuthority('" + ApiRoles.TOPOLOGY_INGEST + "')")
+    @Operation(summary = "Queue manifest for asynchronous ingestion")
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(required = true, content = @Content(mediaType = "application/x-yaml", schema = @Schema(type = "string", description = "Deployment manifest in YAML format")))
+    @ApiResponses({
+            @ApiResponse(responseCode = "202", description = "Manifest queued; identical queued manifests share one job", content = @Content(schema = @Schema(implementation = ManifestIngestionJobService.IngestionJobStatus.class))),
+            @ApiResponse(responseCode = "400", description = "Manifest payload missing", content = @Content(schema = @Schema(implementation = OperationResult.class))),
+            @ApiResponse(responseCode = "401", description = "Authentication required"),
+            @ApiResponse(responseCode = "403", description = "Insufficient privileges"),
+            @ApiResponse(responseCode = "503", description = "Ingestion queue is full", content = @Content(schema = @Schema(implementation = OperationResult.class)))
+    })
+    public ResponseEntity<ManifestIngestionJobService.IngestionJobStatus> submitIngestionJob(@RequestBody @NotBlank String manifestYaml,
+                                                                                             @RequestParam(defaultValue = "false") boolean force) {
+        ManifestIngestionJobService.IngestionJobStatus job = ingestionJobService.submit(manifestYaml, force);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/manifests/jobs/" + job.jobId()))
+                .body(job);
+    }
+
+    @GetMapping("/manifests/jobs/{jobId}")
+    @PreAuthorize("hasAuthority('" + ApiRoles.TOPOLOGY_INGEST + "')")
+    @Operation(summary = "Get asynchronous ingestion job status")
+    @ApiResponses({
+            @ApiResponse(responseCode = "200", description = "Job status with per-stage timings and error", content = @Content(schema = @Schema(implementation = ManifestIngestionJobService.IngestionJobStatus.class))),
+            @ApiResponse(responseCode = "401", description = "Authentication required"),
+            @ApiResponse(responseCode = "403", description = "Insufficient privileges"),
+            @ApiResponse(responseCode = "404", description = "Job unknown or no longer retained")
+    })
+    public ManifestIngestionJobService.IngestionJobStatus ingestionJob(@PathVariable String jobId) {
+        return ingestionJobService.status(jobId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Ingestion job not found"));
+    }
+
     @PostMapping("/quality-gates/manifest")
     @PreAuthorize("hasAuthority('" + ApiRoles.READ_ONLY + "')")
     @Operation(summary = "Validate manifest contract and deployment quality gates")
     @io.swagger.v3.oas.annotations.parameters.RequestBody(required = true, content = @Content(mediaType = "application/x-yaml", schema = @Schema(type = "string", description = "Deployment manifest in YAML format")))
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Manifest checks passed", content = @Content(schema = @Schema(implementation = OperationResult.class))),
-            @ApiResponse(responseCode = "400", description = "Manifest checks failed", content = @Content(schema = @Schema(implementation = OperationResult.class))),
+            @ApiResponse(responseCode = "400", description = "Manifest checks failed", content = @Content(schema = @Schema(implementation = ContractViolationResult.class))),
             @ApiResponse(responseCode = "401", description = "Authentication required"),
             @ApiResponse(responseCode = "403", description = "Insufficient privileges")
     })
@@ -82,7 +133,7 @@ public class ManifestController {
     @io.swagger.v3.oas.annotations.parameters.RequestBody(required = true, content = @Content(mediaType = "application/x-yaml", schema = @Schema(type = "string", description = "Deployment manifest in YAML format")))
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Deployment target checks passed", content = @Content(schema = @Schema(implementation = OperationResult.class))),
-            @ApiResponse(responseCode = "400", description = "Deployment target checks failed", content = @Content(schema = @Schema(implementation = OperationResult.class))),
+            @ApiResponse(responseCode = "400", description = "Deployment target checks failed", content = @Content(schema = @Schema(implementation = ContractViolationResult.class))),
             @ApiResponse(responseCode = "401", description = "Authentication required"),
             @ApiResponse(responseCode = "403", description = "Insufficient privileges")
     })
@@ -123,7 +174,24 @@ public class ManifestController {
         return new OperationResult("FAILED", exception.getMessage());
     }
 
+    @ExceptionHandler(ManifestContractViolationException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ContractViolationResult contractViolations(ManifestContractViolationException exception) {
+        return new ContractViolationResult("FAILED", exception.getMessage(), exception.violations());
+    }
+
+    @ExceptionHandler(IngestionQueueFullException.class)
+    public ResponseEntity<OperationResult> queueFull(IngestionQueueFullException exception) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body(new OperationResult("REJECTED", exception.getMessage()));
+    }
+
     @Schema(name = "OperationResult", description = "Standard operation outcome payload")
     public record OperationResult(String status, String message) {
     }
+
+    @Schema(name = "ContractViolationResult", description = "Manifest contract failure with every violation and its YAML path")
+    public record ContractViolationResult(String status, String message, List<ManifestContractValidator.ContractViolation> violations) {
+    }
 }
@@ -5,14 +5,20 @@ import com.jdeploy.domain.ExecutionEnvironment;
 import com.jdeploy.domain.HardwareNode;
 import com.jdeploy.security.ApiRoles;
 import com.jdeploy.service.TopologyMutationService;
+import com.jdeploy.service.TopologyQueryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import org.springframework.data.neo4j.core.Neo4jClient;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashSet;
 import java.util.List;
@@ -23,53 +29,76 @@ import java.util.List;
 public class TopologyController {
     private final Neo4jClient neo4jClient;
     private final TopologyMutationService mutationService;
+    private final TopologyQueryService topologyQueryService;
 
-    public TopologyController(Neo4jClient neo4jClient, TopologyMutationService mutationService) {
+    public TopologyController(Neo4jClient neo4jClient, TopologyMutationService mutationService, TopologyQueryService topologyQueryService) {
         this.neo4jClient = neo4jClient;
         this.mutationService = mutationService;
+        this.topologyQueryService = topologyQueryService;
     }
 
     @GetMapping("/systems")
     @PreAuthorize("hasAnyAuthority('" + ApiRoles.READ_ONLY + "','" + ApiRoles.EDITOR + "','" + ApiRoles.ADMIN + "')")
-    public List<SystemView> systems() {
-        return List.copyOf(neo4jClient.query("""
-                MATCH (s:SoftwareSystem)
-                OPTIONAL MATCH (s)-[:HAS_COMPONENT]->(c:SoftwareComponent)
-                RETURN s.name AS name, count(DISTINCT c) AS componentCount
-                ORDER BY name
-                """).fetchAs(SystemView.class).mappedBy((t, r) -> new SystemView(r.get("name").asString(), r.get("componentCount").asInt())).all());
+    public ResponseEntity<List<SystemView>> systems(@RequestParam(required = false) String after,
+            @RequestParam(required = false) @Min(1) @Max(TopologyQueryService.MAX_PAGE_LIMIT) Integer limit) {
+        if (after == null && limit == null) {
+            return ResponseEntity.ok(topologyQueryService.systems().stream().map(TopologyController::toSystemView).toList());
+        }
+        return KeysetResponses.page(topologyQueryService.systems(after, KeysetResponses.pageLimit(limit)), TopologyController::toSystemView);
+    }
+
+    @GetMapping(value = "/systems", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAnyAuthority('" + ApiRoles.READ_ONLY + "','" + ApiRoles.EDITOR + "','" + ApiRoles.ADMIN + "')")
+    public ResponseEntity<StreamingResponseBody> streamSystems(@RequestParam(required = false) String after) {
+        return KeysetResponses.<SystemView>ndjson(sink -> topologyQueryService.streamSystems(after, view -> sink.accept(toSystemView(view))));
     }
 
     @GetMapping("/hardware-nodes")
     @PreAuthorize("hasAnyAuthority('" + ApiRoles.READ_ONLY + "','" + ApiRoles.EDITOR + "','" + ApiRoles.ADMIN + "')")
-    public List<NodeView> hardwareNodes() {
-        return List.copyOf(neo4jClient.query("""
-                MATCH (n:HardwareNode)
-                OPTIONAL MATCH (s:Subnet)-[:CONTAINS_NODE]->(n)
-                RETURN n.hostname as hostname, n.ipAddress as ipAddress, n.type as type, s.cidr as subnetCidr
-                ORDER BY hostname
-                """).fetchAs(NodeView.class).mappedBy((t, r) -> new NodeView(
-                r.get("hostname").asString(), r.get("ipAddress").asString(), r.get("type").asString(), r.get("subnetCidr").isNull() ? null : r.get("subnetCidr").asString())).all());
+    public ResponseEntity<List<NodeView>> hardwareNodes(@RequestParam(required = false) String after,
+            @RequestParam(required = false) @Min(1) @Max(TopologyQueryService.MAX_PAGE_LIMIT) Integer limit) {
+        if (after == null && limit == null) {
+            return ResponseEntity.ok(topologyQueryService.hardwareNodes().stream().map(TopologyController::toNodeView).toList());
+        }
+        return KeysetResponses.page(topologyQueryService.hardwareNodes(after, KeysetResponses.pageLimit(limit)), TopologyController::toNodeView);
+    }
+
+    @GetMapping(value = "/hardware-nodes", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAnyAuthority('" + ApiRoles.READ_ONLY + "','" + ApiRoles.EDITOR + "','" + ApiRoles.ADMIN + "')")
+    public ResponseEntity<StreamingResponseBody> streamHardwareNodes(@RequestParam(required = false) String after) {
+        return KeysetResponses.<NodeView>ndjson(sink -> topologyQueryService.streamHardwareNodes(after, view -> sink.accept(toNodeView(view))));
     }
 
     @GetMapping("/subnets")
     @PreAuthorize("hasAnyAuthority('" + ApiRoles.READ_ONLY + "','" + ApiRoles.EDITOR + "','" + ApiRoles.ADMIN + "')")
-    public List<SubnetView> subnets() {
-        return List.copyOf(neo4jClient.query("""
-                MATCH (s:Subnet)
-                OPTIONAL MATCH (s)-[:CONTAINS_NODE]->(n:HardwareNode)
-                RETURN s.cidr as cidr, s.vlan as vlan, s.routingZone as routingZone, count(DISTINCT n) as nodeCount
-                ORDER BY cidr
-                """).fetchAs(SubnetView.class).mappedBy((t, r) -> new SubnetView(r.get("cidr").asString(), r.get("vlan").asString(), r.get("routingZone").asString(), r.get("nodeCount").asInt())).all());
+    public ResponseEntity<List<SubnetView>> subnets(@RequestParam(required = false) String after,
+            @RequestParam(required = false) @Min(1) @Max(TopologyQueryService.MAX_PAGE_LIMIT) Integer limit) {
+        if (after == null && limit == null) {
+            return ResponseEntity.ok(topologyQueryService.subnets().stream().map(TopologyController::toSubnetView).toList());
+        }
+        return KeysetResponses.page(topologyQueryService.subnets(after, KeysetResponses.pageLimit(limit)), TopologyController::toSubnetView);
+    }
+
+    @GetMapping(value = "/subnets", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAnyAuthority('" + ApiRoles.READ_ONLY + "','" + ApiRoles.EDITOR + "','" + ApiRoles.ADMIN + "')")
+    public ResponseEntity<StreamingResponseBody> streamSubnets(@RequestParam(required = false) String after) {
+        return KeysetResponses.<SubnetView>ndjson(sink -> topologyQueryService.streamSubnets(after, view -> sink.accept(toSubnetView(view))));
     }
 
     @GetMapping("/environments")
     @PreAuthorize("hasAnyAuthority('" + ApiRoles.READ_ONLY + "','" + ApiRoles.EDITOR + "','" + ApiRoles.ADMIN + "')")
-    public List<EnvironmentView> environments() {
-        return List.copyOf(neo4jClient.query("MATCH (e:ExecutionEnvironment) RETURN e.name as name, e.type as type ORDER BY name")
-                .fetchAs(EnvironmentView.class)
-                .mappedBy((t, r) -> new EnvironmentView(r.get("name").asString(), r.get("type").asString()))
-                .all());
+    public ResponseEntity<List<EnvironmentView>> environments(@RequestParam(required = false) String after,
+            @RequestParam(required = false) @Min(1) @Max(TopologyQueryService.MAX_PAGE_LIMIT) Integer limit) {
+        if (after == null && limit == null) {
+            return ResponseEntity.ok(topologyQueryService.environments().stream().map(TopologyController::toEnvironmentView).toList());
+        }
+        return KeysetResponses.page(topologyQueryService.environments(after, KeysetResponses.pageLimit(limit)), TopologyController::toEnvironmentView);
+    }
+
+    @GetMapping(value = "/environments", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAnyAuthority('" + ApiRoles.READ_ONLY + "','" + ApiRoles.EDITOR + "','" + ApiRoles.ADMIN + "')")
+    public ResponseEntity<StreamingResponseBody> streamEnvironments(@RequestParam(required = false) String after) {
+        return KeysetResponses.<EnvironmentView>ndjson(sink -> topologyQueryService.streamEnvironments(after, view -> sink.accept(toEnvironmentView(view))));
     }
 
     @GetMapping("/systems/{name}")
@@ -166,6 +195,22 @@ public class TopologyController {
     @PreAuthorize("hasAnyAuthority('" + ApiRoles.EDITOR + "','" + ApiRoles.ADMIN + "')")
     public void patchDeployment(@PathVariable String deploymentKey, @RequestBody @Valid TopologyUpdateDtos.DeploymentInstanceUpdateRequest request) { mutationService.updateDeploymentInstance(deploymentKey, request); }
 
+    private static SystemView toSystemView(TopologyQueryService.SystemSummary view) {
+        return new SystemView(view.name(), view.componentCount());
+    }
+
+    private static NodeView toNodeView(TopologyQueryService.NodeSummary view) {
+        return new NodeView(view.hostname(), view.ipAddress(), view.type(), view.subnetCidr());
+    }
+
+    private static SubnetView toSubnetView(TopologyQueryService.SubnetSummary view) {
+        return new SubnetView(view.cidr(), view.vlan(), view.routingZone(), view.nodeCount());
+    }
+
+    private static EnvironmentView toEnvironmentView(TopologyQueryService.EnvironmentSummary view) {
+        return new EnvironmentView(view.name(), view.type());
+    }
+
     public record SystemView(String name, Integer componentCount) {}
     public record NodeView(String hostname, String ipAddress, String type, String subnetCidr) {}
     public record SubnetView(String cidr, String vlan, String routingZone, Integer nodeCount) {}
@@ -9,14 +9,23 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import com.jdeploy.service.PreconditionViolationException;
 import com.jdeploy.service.TopologyQueryService;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -36,17 +45,32 @@ public class TopologyQueryController {
 
     @GetMapping("/deployments/subnet/{subnetId:.+}")
     @PreAuthorize("hasAuthority('" + ApiRoles.READ_ONLY + "')")
-    @Operation(summary = "List deployments in a subnet")
+    @Operation(summary = "List deployments in a subnet",
+            description = "Without 'limit' or 'after' the whole subnet is returned. With either, one page ordered by hostname and"
+                    + " deployment key is returned; pass the " + KeysetResponses.NEXT_CURSOR_HEADER
+                    + " response header as 'after' to fetch the next page. The header is absent on the last page.")
     @ApiResponses({
             @ApiResponse(responseCode = "200", description = "Deployments found", content = @Content(array = @ArraySchema(schema = @Schema(implementation = DeploymentView.class)))),
             @ApiResponse(responseCode = "401", description = "Authentication required"),
             @ApiResponse(responseCode = "403", description = "Insufficient privileges")
     })
-    public List<DeploymentView> deploymentsBySubnet(@PathVariable String subnetId) {
-        return topologyQueryService.deploymentsBySubnet(subnetId)
-                .stream()
-                .map(view -> new DeploymentView(view.hostname(), view.deploymentKey()))
-                .toList();
+    public ResponseEntity<List<DeploymentView>> deploymentsBySubnet(@PathVariable String subnetId,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) @Min(1) @Max(TopologyQueryService.MAX_PAGE_LIMIT) Integer limit) {
+        if (after == null && limit == null) {
+            return ResponseEntity.ok(allDeploymentsBySubnet(subnetId));
+        }
+        return KeysetResponses.page(topologyQueryService.deploymentsBySubnet(subnetId, after, KeysetResponses.pageLimit(limit)),
+                TopologyQueryController::toDeploymentView);
+    }
+
+    @GetMapping(value = "/deployments/subnet/{subnetId:.+}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasAuthority('" + ApiRoles.READ_ONLY + "')")
+    @Operation(summary = "Stream deployments in a subnet as newline-delimited JSON")
+    public ResponseEntity<StreamingResponseBody> streamDeploymentsBySubnet(@PathVariable String subnetId,
+            @RequestParam(required = false) String after) {
+        return KeysetResponses.<DeploymentView>ndjson(sink -> topologyQueryService.streamDeploymentsBySubnet(subnetId, after,
+                view -> sink.accept(toDeploymentView(view))));
     }
 
     @GetMapping("/subnets/{subnetId:.+}/deployments")
@@ -58,7 +82,7 @@ public class TopologyQueryController {
             @ApiResponse(responseCode = "403", description = "Insufficient privileges")
     })
     public List<DeploymentView> deploymentsInSubnet(@PathVariable String subnetId) {
-        return deploymentsBySubnet(subnetId);
+        return allDeploymentsBySubnet(subnetId);
     }
 
 
@@ -71,7 +95,7 @@ public class TopologyQueryController {
             @ApiResponse(responseCode = "403", description = "Insufficient privileges")
     })
     public List<DeploymentView> deploymentsInSubnetQuery(@RequestParam String subnetId) {
-        return deploymentsBySubnet(subnetId);
+        return allDeploymentsBySubnet(subnetId);
     }
 
     @GetMapping("/impact/node/{nodeId}")
@@ -183,6 +207,23 @@ public class TopologyQueryController {
     }
 
 
+    @ExceptionHandler(PreconditionViolationException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ManifestController.OperationResult badRequest(PreconditionViolationException exception) {
+        return new ManifestController.OperationResult("FAILED", exception.getMessage());
+    }
+
+    private List<DeploymentView> allDeploymentsBySubnet(String subnetId) {
+        return topologyQueryService.deploymentsBySubnet(subnetId)
+                .stream()
+                .map(TopologyQueryController::toDeploymentView)
+                .toList();
+    }
+
+    private static DeploymentView toDeploymentView(TopologyQueryService.DeploymentView view) {
+        return new DeploymentView(view.hostname(), view.deploymentKey());
+    }
+
     private static List<String> toStringList(Object value) {
         if (value instanceof java.util.Collection<?> collection) {
             return collection.stream().map(String::valueOf).toList();
@@ -0,0 +1,59 @@
+package com.jdeploy.artifact;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * How {@link LocalFilesystemArtifactStorage} encodes artifact files on disk, selected by
+ * {@code jdeploy.artifact.compression}.
+ */
+public enum ArtifactCompression {
+
+    NONE(null, ""),
+    GZIP("gzip", ".gz");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String contentEncoding;
+    private final String fileSuffix;
+
+    ArtifactCompression(String contentEncoding, String fileSuffix) {
+        this.contentEncoding = contentEncoding;
+        this.fileSuffix = fileSuffix;
+    }
+
+    public static ArtifactCompression fromProperty(String value) {
+        return switch (value == null ? "" : value.trim().toLowerCase(Locale.ROOT)) {
+            case "", "none" -> NONE;
+            case "gzip" -> GZIP;
+            default -> throw new IllegalArgumentException("Unsupported artifact compression: " + value);
+        };
+    }
+
+    static ArtifactCompression forContentEncoding(String contentEncoding) {
+        return GZIP.contentEncoding.equals(contentEncoding) ? GZIP : NONE;
+    }
+
+    /**
+     * HTTP content coding of files written in this mode, or {@code null} for {@link #NONE}.
+     */
+    public String contentEncoding() {
+        return contentEncoding;
+    }
+
+    String fileSuffix() {
+        return fileSuffix;
+    }
+
+    OutputStream encode(OutputStream out) throws IOException {
+        return this == GZIP ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+    }
+
+    InputStream decode(InputStream in) throws IOException {
+        return this == GZIP ? new GZIPInputStream(in, BUFFER_SIZE) : in;
+    }
+}
@@ -0,0 +1,14 @@
+package com.jdeploy.artifact;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Produces artifact content by writing it to the supplied {@link Writer}. The writer is owned by the storage and
+ * must not be closed by the callback.
+ */
+@FunctionalInterface
+public interface ArtifactContentWriter {
+
+    void writeTo(Writer out) throws IOException;
+}
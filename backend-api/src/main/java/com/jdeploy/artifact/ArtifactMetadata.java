@@ -3,12 +3,41 @@ package com.jdeploy.artifact;
 import java.nio.file.Path;
 import java.time.Instant;
 
+/**
+ * @param path            file holding the stored bytes, which are encoded as {@code contentEncoding} says
+ * @param sizeBytes       size of the stored bytes
+ * @param contentHash     lowercase hex SHA-256 of the decoded artifact content, or {@code null} when the storage
+ *                        does not track content hashes
+ * @param contentEncoding HTTP content coding of the stored bytes (such as {@code gzip}), or {@code null} when they
+ *                        are stored as is
+ */
 public record ArtifactMetadata(
         String artifactId,
         Path path,
         long sizeBytes,
         Instant createdAt,
         Instant lastModifiedAt,
-        Instant retentionUntil
+        Instant retentionUntil,
+        String contentHash,
+        String contentEncoding
 ) {
+
+    public ArtifactMetadata(String artifactId,
+                            Path path,
+                            long sizeBytes,
+                            Instant createdAt,
+                            Instant lastModifiedAt,
+                            Instant retentionUntil,
+                            String contentHash) {
+        this(artifactId, path, sizeBytes, createdAt, lastModifiedAt, retentionUntil, contentHash, null);
+    }
+
+    public ArtifactMetadata(String artifactId,
+                            Path path,
+                            long sizeBytes,
+                            Instant createdAt,
+                            Instant lastModifiedAt,
+                            Instant retentionUntil) {
+        this(artifactId, path, sizeBytes, createdAt, lastModifiedAt, retentionUntil, null, null);
+    }
 }
@@ -0,0 +1,380 @@
+package com.jdeploy.artifact;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory metadata index for {@link LocalFilesystemArtifactStorage}, persisted as an append-only journal.
+ * <p>
+ * Entries are kept sorted by artifact id for listing and by {@code retentionUntil} for expiry, so neither needs
+ * to touch the artifact directory. Every change appends one line to the journal ({@code P} for put, {@code D}
+ * for delete). Unreadable lines, which is how a write torn by a crash shows up, are skipped on replay; the
+ * owning storage then reconciles the result against the directory. The journal is rewritten as one line per
+ * live entry when dead lines outnumber live ones; the rewrite starts with an {@code E} line naming a new epoch.
+ * <p>
+ * Several processes may share the directory, such as the server and a CLI run. Appends and rewrites hold an
+ * exclusive lock on {@code .artifact-index.lock}, and {@link #refresh()} replays the records other processes
+ * appended since the last read, or the whole journal once its epoch changed, so no index loses the others'
+ * entries.
+ */
+final class ArtifactMetadataIndex {
+
+    static final String JOURNAL_FILE_NAME = ".artifact-index.journal";
+    static final String LOCK_FILE_NAME = ".artifact-index.lock";
+
+    private static final Logger log = LoggerFactory.getLogger(ArtifactMetadataIndex.class);
+    private static final int COMPACTION_SLACK = 1024;
+    private static final String NONE = "-";
+    private static final Comparator<ArtifactMetadata> BY_RETENTION = Comparator
+            .comparing(ArtifactMetadata::retentionUntil)
+            .thenComparing(ArtifactMetadata::artifactId);
+    // File locks are held per process, so indexes of one directory inside the same JVM take turns first.
+    private static final ConcurrentMap<Path, ReentrantLock> PROCESS_LOCKS = new ConcurrentHashMap<>();
+
+    private final Path basePath;
+    private final Path journalPath;
+    private final Path lockPath;
+    private final ReentrantLock processLock;
+    private final NavigableMap<String, ArtifactMetadata> byId = new TreeMap<>();
+    private final NavigableSet<ArtifactMetadata> byRetention = new TreeSet<>(BY_RETENTION);
+    private final List<ArtifactMetadata> unannounced = new ArrayList<>();
+    private long journalRecords;
+    private String journalEpoch = "";
+    private long journalOffset;
+
+    ArtifactMetadataIndex(Path basePath) {
+        this.basePath = basePath;
+        this.journalPath = basePath.resolve(JOURNAL_FILE_NAME);
+        this.lockPath = basePath.resolve(LOCK_FILE_NAME);
+        this.processLock = PROCESS_LOCKS.computeIfAbsent(journalPath.toAbsolutePath().normalize(), path -> new ReentrantLock());
+    }
+
+    /**
+     * Replays the journal into memory, replacing the current contents.
+     */
+    synchronized void load() {
+        byId.clear();
+        byRetention.clear();
+        journalRecords = 0;
+        journalEpoch = "";
+        journalOffset = 0;
+        if (Files.exists(journalPath)) {
+            withJournalLock("read", this::catchUp);
+        }
+        unannounced.clear();
+    }
+
+    /**
+     * Replays what other processes journaled since the last read and returns the entries they added or
+     * replaced, including those picked up along the way by appends and rewrites of this index.
+     */
+    synchronized List<ArtifactMetadata> refresh() {
+        if (Files.exists(journalPath)) {
+            withJournalLock("read", this::catchUp);
+        }
+        List<ArtifactMetadata> changed = List.copyOf(unannounced);
+        unannounced.clear();
+        return changed;
+    }
+
+    synchronized ArtifactMetadata get(String artifactId) {
+        return byId.get(artifactId);
+    }
+
+    synchronized Set<String> artifactIds() {
+        return Set.copyOf(byId.keySet());
+    }
+
+    synchronized List<ArtifactMetadata> list() {
+        return List.copyOf(byId.values());
+    }
+
+    /**
+     * Entries whose retention ends at or before {@code cutoff}, earliest first. Entries without retention never
+     * expire and are not returned.
+     */
+    synchronized List<ArtifactMetadata> retainedUntilAtMost(Instant cutoff) {
+        List<ArtifactMetadata> expired = new ArrayList<>();
+        for (ArtifactMetadata entry : byRetention) {
+            if (entry.retentionUntil().isAfter(cutoff)) {
+                break;
+            }
+            expired.add(entry);
+        }
+        return expired;
+    }
+
+    synchronized void put(ArtifactMetadata metadata) {
+        index(metadata);
+        append(putRecord(metadata));
+    }
+
+    synchronized boolean remove(String artifactId) {
+        if (unindex(artifactId) == null) {
+            return false;
+        }
+        append("D\t" + encode(artifactId));
+        return true;
+    }
+
+    /**
+     * Rewrites the journal as one record per live entry.
+     */
+    synchronized void compact() {
+        if (byId.isEmpty() && !Files.exists(journalPath)) {
+            return;
+        }
+        withJournalLock("compact", () -> {
+            // Records other processes appended since the last read must survive the rewrite.
+            catchUp();
+            String epoch = UUID.randomUUID().toString();
+            Path partial = Files.createTempFile(basePath, JOURNAL_FILE_NAME, ".partial");
+            try {
+                try (Writer out = Files.newBufferedWriter(partial, StandardCharsets.UTF_8)) {
+                    out.write("E\t" + epoch + "\n");
+                    for (ArtifactMetadata entry : byId.values()) {
+                        out.write(putRecord(entry));
+                        out.write('\n');
+                    }
+                }
+                try {
+                    Files.move(partial, journalPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException ex) {
+                    Files.move(partial, journalPath, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(partial);
+            }
+            journalRecords = byId.size();
+            journalEpoch = epoch;
+            journalOffset = Files.size(journalPath);
+        });
+    }
+
+    private void append(String record) {
+        withJournalLock("append to", () -> {
+            try (FileChannel journal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                long end = journal.size();
+                // A record torn by a crashed writer must not swallow this one.
+                ByteBuffer last = ByteBuffer.allocate(1);
+                boolean torn = end > 0 && journal.read(last, end - 1) == 1 && last.get(0) != '\n';
+                ByteBuffer line = StandardCharsets.UTF_8.encode((torn ? "\n" : "") + record + "\n");
+                while (line.hasRemaining()) {
+                    end += journal.write(line, end);
+                }
+            }
+        });
+        journalRecords++;
+        if (journalRecords > 2L * byId.size() + COMPACTION_SLACK) {
+            compact();
+        }
+    }
+
+    /**
+     * Replays the journal from where the last read stopped, or from the start when it has been rewritten since.
+     * Only complete lines are consumed. Must be called with the journal lock held.
+     */
+    private void catchUp() throws IOException {
+        if (!Files.exists(journalPath)) {
+            return;
+        }
+        try (FileChannel journal = FileChannel.open(journalPath, StandardOpenOption.READ)) {
+            long size = journal.size();
+            String epoch = readEpoch(journal);
+            Map<String, ArtifactMetadata> before = new HashMap<>();
+            boolean rewritten = !epoch.equals(journalEpoch) || size < journalOffset;
+            if (rewritten) {
+                before.putAll(byId);
+                byId.clear();
+                byRetention.clear();
+                journalRecords = 0;
+                journalEpoch = epoch;
+                journalOffset = 0;
+            }
+            if (size == journalOffset) {
+                return;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(size - journalOffset));
+            while (buffer.hasRemaining()) {
+                if (journal.read(buffer, journalOffset + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            int complete = buffer.position();
+            while (complete > 0 && buffer.get(complete - 1) != '\n') {
+                complete--;
+            }
+            Set<String> touched = new HashSet<>();
+            for (String line : new String(buffer.array(), 0, complete, StandardCharsets.UTF_8).split("\n")) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    String artifactId = replay(line, rewritten ? null : before);
+                    if (artifactId != null) {
+                        touched.add(artifactId);
+                    }
+                    journalRecords++;
+                } catch (RuntimeException ex) {
+                    log.warn("Skipping unreadable record after record {} of artifact index journal {}", journalRecords, journalPath);
+                }
+            }
+            journalOffset += complete;
+            for (String artifactId : touched) {
+                ArtifactMetadata current = byId.get(artifactId);
+                if (current != null && !current.equals(before.get(artifactId))) {
+                    unannounced.add(current);
+                }
+            }
+        }
+    }
+
+    private static String readEpoch(FileChannel journal) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(64);
+        journal.read(head, 0);
+        String first = new String(head.array(), 0, head.position(), StandardCharsets.UTF_8);
+        int end = first.indexOf('\n');
+        return first.startsWith("E\t") && end > 0 ? first.substring(2, end) : "";
+    }
+
+    private void withJournalLock(String action, JournalAction body) {
+        processLock.lock();
+        try {
+            Files.createDirectories(basePath);
+            try (FileChannel lockFile = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                 FileLock ignored = lockFile.lock()) {
+                body.run();
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to " + action + " artifact index journal", ex);
+        } finally {
+            processLock.unlock();
+        }
+    }
+
+    /**
+     * Applies one journal line and returns the id it put, or {@code null}. Unless {@code before} is
+     * {@code null}, an id's entry is remembered there before it first changes, so the caller can tell which
+     * entries the replay changed.
+     */
+    private String replay(String line, Map<String, ArtifactMetadata> before) {
+        String[] fields = line.split("\t", -1);
+        switch (fields[0]) {
+            case "P" -> {
+                // Records without the trailing content encoding predate compression and are stored as is.
+                if (fields.length != 7 && fields.length != 8) {
+                    throw new IllegalArgumentException("Malformed put record");
+                }
+                String artifactId = decode(fields[1]);
+                String contentEncoding = fields.length == 8 && !NONE.equals(fields[7]) ? fields[7] : null;
+                ArtifactMetadata metadata = new ArtifactMetadata(
+                        artifactId,
+                        basePath.resolve(artifactId + ArtifactCompression.forContentEncoding(contentEncoding).fileSuffix()),
+                        Long.parseLong(fields[2]),
+                        Instant.parse(fields[3]),
+                        Instant.parse(fields[4]),
+                        NONE.equals(fields[5]) ? null : Instant.parse(fields[5]),
+                        NONE.equals(fields[6]) ? null : fields[6],
+                        contentEncoding);
+                remember(before, artifactId);
+                index(metadata);
+                return artifactId;
+            }
+            case "D" -> {
+                if (fields.length != 2) {
+                    throw new IllegalArgumentException("Malformed delete record");
+                }
+                String artifactId = decode(fields[1]);
+                remember(before, artifactId);
+                unindex(artifactId);
+                return null;
+            }
+            case "E" -> {
+                if (fields.length != 2) {
+                    throw new IllegalArgumentException("Malformed epoch record");
+                }
+                return null;
+            }
+            default -> throw new IllegalArgumentException("Unknown record type " + fields[0]);
+        }
+    }
+
+    private void remember(Map<String, ArtifactMetadata> before, String artifactId) {
+        if (before != null && !before.containsKey(artifactId)) {
+            before.put(artifactId, byId.get(artifactId));
+        }
+    }
+
+    private void index(ArtifactMetadata metadata) {
+        unindex(metadata.artifactId());
+        byId.put(metadata.artifactId(), metadata);
+        if (metadata.retentionUntil() != null) {
+            byRetention.add(metadata);
+        }
+    }
+
+    private ArtifactMetadata unindex(String artifactId) {
+        ArtifactMetadata previous = byId.remove(artifactId);
+        if (previous != null && previous.retentionUntil() != null) {
+            byRetention.remove(previous);
+        }
+        return previous;
+    }
+
+    private static String putRecord(ArtifactMetadata metadata) {
+        return String.join("\t",
+                "P",
+                encode(metadata.artifactId()),
+                Long.toString(metadata.sizeBytes()),
+                metadata.createdAt().toString(),
+                metadata.lastModifiedAt().toString(),
+                metadata.retentionUntil() == null ? NONE : metadata.retentionUntil().toString(),
+                metadata.contentHash() == null ? NONE : metadata.contentHash(),
+                metadata.contentEncoding() == null ? NONE : metadata.contentEncoding());
+    }
+
+    @FunctionalInterface
+    private interface JournalAction {
+        void run() throws IOException;
+    }
+
+    private static String encode(String artifactId) {
+        return URLEncoder.encode(artifactId, StandardCharsets.UTF_8);
+    }
+
+    private static String decode(String encoded) {
+        return URLDecoder.decode(encoded, StandardCharsets.UTF_8);
+    }
+}
@@ -1,20 +1,77 @@
 package com.jdeploy.artifact;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.io.UncheckedIOException;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface ArtifactStorage {
 
     ArtifactMetadata create(String artifactName, String content, Duration retention);
 
     /**
-     * Reads an artifact by id.
+     * Creates an artifact whose content is written incrementally by {@code contentWriter}, so the caller never has
+     * to hold the whole document in memory. The artifact only becomes visible once the writer has returned; if it
+     * throws, no artifact is created.
+     * <p>
+     * The default implementation buffers the content and delegates to {@link #create}; storages that can write
+     * incrementally should override it.
+     */
+    default ArtifactMetadata createStreaming(String artifactName, Duration retention, ArtifactContentWriter contentWriter) {
+        StringWriter content = new StringWriter();
+        try {
+            contentWriter.writeTo(content);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to produce artifact content for " + artifactName, ex);
+        }
+        return create(artifactName, content.toString(), retention);
+    }
+
+    /**
+     * Reads an artifact by id. Expired artifacts are reported but not deleted; deletion is left to
+     * {@link #expire} so reads never write.
      *
      * @throws ArtifactNotFoundException when artifact is missing
      * @throws ArtifactExpiredException when artifact retention has elapsed
      */
     StoredArtifact read(String artifactId);
 
+    /**
+     * Reads an artifact unless its decoded content exceeds {@code maxContentBytes} bytes, in which case the result is
+     * empty. Applies the same retention rules as {@link #read}.
+     * <p>
+     * The default implementation reads the whole artifact before checking; storages that decode from a stream
+     * should override it to stop after {@code maxContentBytes + 1} bytes.
+     *
+     * @throws ArtifactNotFoundException when artifact is missing
+     * @throws ArtifactExpiredException when artifact retention has elapsed
+     */
+    default Optional<StoredArtifact> readBounded(String artifactId, long maxContentBytes) {
+        StoredArtifact artifact = read(artifactId);
+        return artifact.content().getBytes(StandardCharsets.UTF_8).length > maxContentBytes
+                ? Optional.empty()
+                : Optional.of(artifact);
+    }
+
+    /**
+     * Looks up an artifact's metadata without loading its content, so callers can stream the file at
+     * {@link ArtifactMetadata#path()} themselves. Applies the same retention rules as {@link #read}.
+     * <p>
+     * The default implementation reads the artifact; storages that can answer from metadata alone should
+     * override it.
+     *
+     * @throws ArtifactNotFoundException when artifact is missing
+     * @throws ArtifactExpiredException when artifact retention has elapsed
+     */
+    default ArtifactMetadata stat(String artifactId) {
+        return read(artifactId).metadata();
+    }
+
     List<ArtifactMetadata> list();
 
     boolean delete(String artifactId);
@@ -23,4 +80,24 @@ public interface ArtifactStorage {
      * Deletes artifacts whose retention has elapsed by at least {@code maxAge}.
      */
     List<String> expireOlderThan(Duration maxAge);
+
+    /**
+     * Deletes the artifact if its retention ended at or before {@code cutoff}.
+     *
+     * @return the metadata of the deleted artifact, or empty when it does not exist or is still retained
+     */
+    Optional<ArtifactMetadata> expire(String artifactId, Instant cutoff);
+
+    /**
+     * Picks up artifacts that other processes sharing this storage created since the last call and reports them
+     * to the creation listeners. Storages only this process writes to have nothing to do.
+     */
+    default void refresh() {
+    }
+
+    /**
+     * Registers a callback that receives the metadata of every artifact created from now on, once it is readable.
+     * Artifacts created by other processes are reported once {@link #refresh()} has picked them up.
+     */
+    void addCreationListener(Consumer<ArtifactMetadata> listener);
 }
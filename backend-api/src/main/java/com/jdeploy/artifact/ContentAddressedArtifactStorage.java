@@ -0,0 +1,372 @@
+package com.jdeploy.artifact;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Artifact storage that keeps each distinct content once.
+ * <p>
+ * Content is stored as a blob named by its SHA-256 under {@code blobs/<h[0..2]>/<h[2..4]>/<hash>}. Every artifact
+ * id is a small ref file under {@code refs/} that records the blob hash, size, creation time and retention.
+ * Refs are reference-counted: artifacts with identical content share one blob, and a blob is deleted when the
+ * last artifact pointing at it is deleted or expires. The ref index is loaded into memory at startup, so list and
+ * lookup do not touch the filesystem; blobs no ref points at (left by a crash between writing a blob and its ref)
+ * are removed during that load.
+ */
+@Component
+@ConditionalOnProperty(prefix = "jdeploy.artifact", name = "storage", havingValue = "content-addressed")
+public class ContentAddressedArtifactStorage implements ArtifactStorage {
+
+    private static final Logger log = LoggerFactory.getLogger(ContentAddressedArtifactStorage.class);
+    private static final String PARTIAL_SUFFIX = ".partial";
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final Path refsDir;
+    private final Path blobsDir;
+    private final Map<String, Ref> refs = new TreeMap<>();
+    private final Map<String, Integer> referenceCounts = new HashMap<>();
+    private final List<Consumer<ArtifactMetadata>> creationListeners = new CopyOnWriteArrayList<>();
+
+    public ContentAddressedArtifactStorage(@Value("${jdeploy.artifact.uml-output-path:examples/uml}") String basePath) {
+        Path base = Path.of(Objects.requireNonNull(basePath, "basePath must not be null")).normalize();
+        this.refsDir = base.resolve("refs");
+        this.blobsDir = base.resolve("blobs");
+        loadIndex();
+    }
+
+    @Override
+    public ArtifactMetadata create(String artifactName, String content, Duration retention) {
+        Objects.requireNonNull(artifactName, "artifactName must not be null");
+        Objects.requireNonNull(content, "content must not be null");
+        Objects.requireNonNull(retention, "retention must not be null");
+
+        Path refPath = refPath(artifactName);
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        String hash = HEX.formatHex(sha256().digest(bytes));
+        ArtifactMetadata metadata;
+        try {
+            synchronized (this) {
+                Path blobPath = blobPath(hash);
+                if (!Files.exists(blobPath)) {
+                    Files.createDirectories(blobPath.getParent());
+                    Path partial = Files.createTempFile(blobPath.getParent(), hash, PARTIAL_SUFFIX);
+                    try {
+                        Files.write(partial, bytes);
+                        moveIntoPlace(partial, blobPath);
+                    } finally {
+                        Files.deleteIfExists(partial);
+                    }
+                }
+                metadata = putRef(artifactName, refPath, hash, bytes.length, retention);
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to write artifact to filesystem", ex);
+        }
+        creationListeners.forEach(listener -> listener.accept(metadata));
+        return metadata;
+    }
+
+    /**
+     * Streams the content into a temporary file while hashing it, then either discards the file (when a blob with
+     * that hash already exists) or renames it into the blob store.
+     */
+    @Override
+    public ArtifactMetadata createStreaming(String artifactName, Duration retention, ArtifactContentWriter contentWriter) {
+        Objects.requireNonNull(artifactName, "artifactName must not be null");
+        Objects.requireNonNull(retention, "retention must not be null");
+        Objects.requireNonNull(contentWriter, "contentWriter must not be null");
+
+        Path refPath = refPath(artifactName);
+        Path partial = null;
+        ArtifactMetadata metadata;
+        try {
+            Files.createDirectories(blobsDir);
+            partial = Files.createTempFile(blobsDir, "stream", PARTIAL_SUFFIX);
+            MessageDigest digest = sha256();
+            try (OutputStream file = Files.newOutputStream(partial);
+                 Writer out = new OutputStreamWriter(new DigestOutputStream(file, digest), StandardCharsets.UTF_8)) {
+                contentWriter.writeTo(out);
+            }
+            String hash = HEX.formatHex(digest.digest());
+            long size = Files.size(partial);
+
+            synchronized (this) {
+                Path blobPath = blobPath(hash);
+                if (!Files.exists(blobPath)) {
+                    Files.createDirectories(blobPath.getParent());
+                    moveIntoPlace(partial, blobPath);
+                    partial = null;
+                }
+                metadata = putRef(artifactName, refPath, hash, size, retention);
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to write artifact to filesystem", ex);
+        } finally {
+            if (partial != null) {
+                deleteQuietly(partial);
+            }
+        }
+        creationListeners.forEach(listener -> listener.accept(metadata));
+        return metadata;
+    }
+
+    @Override
+    public StoredArtifact read(String artifactId) {
+        Ref ref = liveRef(artifactId);
+        try {
+            return new StoredArtifact(metadata(artifactId, ref), Files.readString(blobPath(ref.hash())));
+        } catch (NoSuchFileException ex) {
+            throw new ArtifactNotFoundException("Artifact does not exist: " + artifactId);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to read artifact " + artifactId, ex);
+        }
+    }
+
+    /**
+     * Answered from the in-memory index; the blob is not opened.
+     */
+    @Override
+    public ArtifactMetadata stat(String artifactId) {
+        return metadata(artifactId, liveRef(artifactId));
+    }
+
+    @Override
+    public synchronized List<ArtifactMetadata> list() {
+        List<ArtifactMetadata> artifacts = new ArrayList<>(refs.size());
+        refs.forEach((artifactId, ref) -> artifacts.add(metadata(artifactId, ref)));
+        return artifacts;
+    }
+
+    @Override
+    public synchronized boolean delete(String artifactId) {
+        Objects.requireNonNull(artifactId, "artifactId must not be null");
+        Path refPath = refPath(artifactId);
+        Ref ref = refs.remove(artifactId);
+        if (ref == null) {
+            return false;
+        }
+        try {
+            Files.deleteIfExists(refPath);
+            release(ref.hash());
+            return true;
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to delete artifact " + artifactId, ex);
+        }
+    }
+
+    @Override
+    public synchronized List<String> expireOlderThan(Duration maxAge) {
+        Objects.requireNonNull(maxAge, "maxAge must not be null");
+        Instant cutoff = Instant.now().minus(maxAge);
+        List<String> expired = refs.entrySet().stream()
+                .filter(entry -> !entry.getValue().retentionUntil().isAfter(cutoff))
+                .map(Map.Entry::getKey)
+                .toList();
+        expired.forEach(this::delete);
+        return expired;
+    }
+
+    @Override
+    public synchronized Optional<ArtifactMetadata> expire(String artifactId, Instant cutoff) {
+        Objects.requireNonNull(artifactId, "artifactId must not be null");
+        Objects.requireNonNull(cutoff, "cutoff must not be null");
+        Ref ref = refs.get(artifactId);
+        if (ref == null || ref.retentionUntil().isAfter(cutoff)) {
+            return Optional.empty();
+        }
+        delete(artifactId);
+        return Optional.of(metadata(artifactId, ref));
+    }
+
+    @Override
+    public void addCreationListener(Consumer<ArtifactMetadata> listener) {
+        creationListeners.add(Objects.requireNonNull(listener, "listener must not be null"));
+    }
+
+    /**
+     * Number of distinct blobs currently stored.
+     */
+    public synchronized int blobCount() {
+        return referenceCounts.size();
+    }
+
+    private Ref liveRef(String artifactId) {
+        Objects.requireNonNull(artifactId, "artifactId must not be null");
+        Ref ref;
+        synchronized (this) {
+            ref = refs.get(artifactId);
+        }
+        if (ref == null) {
+            throw new ArtifactNotFoundException("Artifact does not exist: " + artifactId);
+        }
+        if (!ref.retentionUntil().isAfter(Instant.now())) {
+            throw new ArtifactExpiredException("Artifact has expired: " + artifactId);
+        }
+        return ref;
+    }
+
+    private ArtifactMetadata putRef(String artifactId, Path refPath, String hash, long size, Duration retention) throws IOException {
+        Instant now = Instant.now();
+        Ref ref = new Ref(hash, size, now, now.plus(retention));
+        Files.createDirectories(refsDir);
+        Path partial = Files.createTempFile(refsDir, "ref", PARTIAL_SUFFIX);
+        try {
+            try (Writer out = Files.newBufferedWriter(partial, StandardCharsets.UTF_8)) {
+                ref.toProperties().store(out, null);
+            }
+            moveIntoPlace(partial, refPath);
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+
+        referenceCounts.merge(hash, 1, Integer::sum);
+        Ref previous = refs.put(artifactId, ref);
+        if (previous != null) {
+            release(previous.hash());
+        }
+        return metadata(artifactId, ref);
+    }
+
+    private void release(String hash) throws IOException {
+        Integer remaining = referenceCounts.computeIfPresent(hash, (ignored, count) -> count > 1 ? count - 1 : null);
+        if (remaining == null) {
+            Files.deleteIfExists(blobPath(hash));
+        }
+    }
+
+    private void loadIndex() {
+        if (Files.isDirectory(refsDir)) {
+            try (Stream<Path> paths = Files.list(refsDir)) {
+                paths.filter(Files::isRegularFile).forEach(path -> {
+                    String fileName = path.getFileName().toString();
+                    if (fileName.endsWith(PARTIAL_SUFFIX)) {
+                        deleteQuietly(path);
+                        return;
+                    }
+                    try (Reader in = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                        Properties properties = new Properties();
+                        properties.load(in);
+                        Ref ref = Ref.fromProperties(properties);
+                        if (Files.exists(blobPath(ref.hash()))) {
+                            refs.put(fileName, ref);
+                            referenceCounts.merge(ref.hash(), 1, Integer::sum);
+                        } else {
+                            log.warn("Dropping artifact {} whose blob {} is missing", fileName, ref.hash());
+                            deleteQuietly(path);
+                        }
+                    } catch (IOException | RuntimeException ex) {
+                        log.warn("Ignoring unreadable artifact ref {}", path, ex);
+                    }
+                });
+            } catch (IOException ex) {
+                throw new IllegalStateException("Failed to load artifact index", ex);
+            }
+        }
+
+        if (Files.isDirectory(blobsDir)) {
+            try (Stream<Path> paths = Files.walk(blobsDir)) {
+                paths.filter(Files::isRegularFile)
+                        .filter(path -> !referenceCounts.containsKey(path.getFileName().toString()))
+                        .forEach(this::deleteQuietly);
+            } catch (IOException ex) {
+                throw new IllegalStateException("Failed to scan artifact blobs", ex);
+            }
+        }
+    }
+
+    private ArtifactMetadata metadata(String artifactId, Ref ref) {
+        return new ArtifactMetadata(artifactId, blobPath(ref.hash()), ref.sizeBytes(), ref.createdAt(), ref.createdAt(),
+                ref.retentionUntil(), ref.hash());
+    }
+
+    private Path refPath(String artifactId) {
+        Path refPath = refsDir.resolve(artifactId).normalize();
+        if (!refsDir.equals(refPath.getParent()) || artifactId.endsWith(PARTIAL_SUFFIX)) {
+            throw new IllegalArgumentException("Artifact id is invalid: " + artifactId);
+        }
+        return refPath;
+    }
+
+    private Path blobPath(String hash) {
+        return blobsDir.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private static void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ex) {
+            log.warn("Failed to delete {}", path, ex);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    private record Ref(String hash, long sizeBytes, Instant createdAt, Instant retentionUntil) {
+
+        private Properties toProperties() {
+            Properties properties = new Properties();
+            properties.setProperty("hash", hash);
+            properties.setProperty("sizeBytes", Long.toString(sizeBytes));
+            properties.setProperty("createdAt", createdAt.toString());
+            properties.setProperty("retentionUntil", retentionUntil.toString());
+            return properties;
+        }
+
+        private static Ref fromProperties(Properties properties) {
+            String hash = Objects.requireNonNull(properties.getProperty("hash"), "hash");
+            if (hash.length() != 64) {
+                throw new IllegalArgumentException("Malformed blob hash: " + hash);
+            }
+            return new Ref(hash,
+                    Long.parseLong(properties.getProperty("sizeBytes")),
+                    Instant.parse(properties.getProperty("createdAt")),
+                    Instant.parse(properties.getProperty("retentionUntil")));
+        }
+    }
+}
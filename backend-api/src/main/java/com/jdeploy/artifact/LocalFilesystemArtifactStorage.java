@@ -1,96 +1,214 @@
 package com.jdeploy.artifact;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
+/**
+ * Stores each artifact as a file under the base path with a {@code .retention} sidecar holding its retention
+ * deadline.
+ * <p>
+ * Metadata is served from an {@link ArtifactMetadataIndex} journaled next to the artifacts, so listing and
+ * expiry do not scan the directory. At startup the journal is replayed and reconciled against the directory:
+ * files missing from the index, or whose size or modification time no longer match it, are re-read from disk
+ * together with their sidecar, and entries without a file are dropped. A lost or damaged journal therefore
+ * only costs one sidecar read per artifact on the next start.
+ * <p>
+ * The directory may be shared with other processes, such as a CLI {@code generate-diagrams} run next to the
+ * server. Startup only removes {@code .partial} files older than an hour, since younger ones may still be
+ * written; {@link #refresh()}, which {@link #list()} and index misses run, picks up the artifacts the others
+ * journaled, and a miss the journal cannot answer falls back to the directory.
+ * <p>
+ * With {@code jdeploy.artifact.compression=gzip} new artifacts are written gzip-compressed as
+ * {@code <artifactId>.gz} and their metadata carries {@code contentEncoding=gzip}; {@link #read} decompresses,
+ * while callers streaming {@link ArtifactMetadata#path()} get the compressed bytes. Artifacts written in the
+ * other mode stay readable, so the setting can be changed on an existing directory.
+ */
 @Component
+@ConditionalOnProperty(prefix = "jdeploy.artifact", name = "storage", havingValue = "filesystem", matchIfMissing = true)
 public class LocalFilesystemArtifactStorage implements ArtifactStorage {
 
     private static final String RETENTION_SUFFIX = ".retention";
+    private static final String PARTIAL_SUFFIX = ".partial";
+    private static final Duration STALE_PARTIAL_AGE = Duration.ofHours(1);
+    private static final HexFormat HEX = HexFormat.of();
 
     private final Path basePath;
+    private final ArtifactCompression compression;
+    private final ArtifactMetadataIndex index;
+    private final List<Consumer<ArtifactMetadata>> creationListeners = new CopyOnWriteArrayList<>();
 
-    public LocalFilesystemArtifactStorage(@Value("${jdeploy.artifact.uml-output-path:examples/uml}") String basePath) {
+    public LocalFilesystemArtifactStorage(String basePath) {
+        this(basePath, "none");
+    }
+
+    @Autowired
+    public LocalFilesystemArtifactStorage(@Value("${jdeploy.artifact.uml-output-path:examples/uml}") String basePath,
+                                          @Value("${jdeploy.artifact.compression:none}") String compression) {
         this.basePath = Path.of(Objects.requireNonNull(basePath, "basePath must not be null"));
+        this.compression = ArtifactCompression.fromProperty(compression);
+        this.index = new ArtifactMetadataIndex(this.basePath);
+        rebuildIndex();
     }
 
     @Override
     public ArtifactMetadata create(String artifactName, String content, Duration retention) {
-        Objects.requireNonNull(artifactName, "artifactName must not be null");
         Objects.requireNonNull(content, "content must not be null");
+        return createStreaming(artifactName, retention, out -> out.write(content));
+    }
+
+    /**
+     * Streams the content into a hidden {@code .partial} file next to the artifact and renames it into place once
+     * the writer returns, so readers never observe a half-written artifact.
+     */
+    @Override
+    public ArtifactMetadata createStreaming(String artifactName, Duration retention, ArtifactContentWriter contentWriter) {
+        Objects.requireNonNull(artifactName, "artifactName must not be null");
         Objects.requireNonNull(retention, "retention must not be null");
+        Objects.requireNonNull(contentWriter, "contentWriter must not be null");
 
+        Path artifactPath = storedPath(artifactName, compression);
+        Path partialPath = null;
         try {
             Files.createDirectories(basePath);
-            Path artifactPath = resolveArtifactPath(artifactName);
-            Files.writeString(artifactPath, content, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            partialPath = Files.createTempFile(artifactPath.getParent(), "." + artifactPath.getFileName(), PARTIAL_SUFFIX);
+            MessageDigest digest = sha256();
+            try (OutputStream file = compression.encode(Files.newOutputStream(partialPath));
+                 Writer out = new OutputStreamWriter(new DigestOutputStream(file, digest), StandardCharsets.UTF_8)) {
+                contentWriter.writeTo(out);
+            }
+            moveIntoPlace(partialPath, artifactPath);
+            partialPath = null;
+            for (ArtifactCompression other : ArtifactCompression.values()) {
+                if (other != compression) {
+                    Files.deleteIfExists(storedPath(artifactName, other));
+                }
+            }
 
             Instant retentionUntil = Instant.now().plus(retention);
-            Files.writeString(retentionPath(artifactPath), retentionUntil.toString(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-            return metadataFromPath(artifactPath, retentionUntil);
+            Files.writeString(retentionPath(artifactName), retentionUntil.toString(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+            ArtifactMetadata metadata = metadataFromPath(artifactName, artifactPath, retentionUntil, HEX.formatHex(digest.digest()),
+                    compression.contentEncoding());
+            index.put(metadata);
+            announce(metadata);
+            return metadata;
         } catch (IOException ex) {
             throw new IllegalStateException("Failed to write artifact to filesystem", ex);
+        } finally {
+            if (partialPath != null) {
+                deleteQuietly(partialPath);
+            }
         }
     }
 
     @Override
     public StoredArtifact read(String artifactId) {
-        Objects.requireNonNull(artifactId, "artifactId must not be null");
-        Path artifactPath = resolveArtifactPath(artifactId);
-        if (!Files.exists(artifactPath)) {
+        ArtifactMetadata metadata = liveEntry(artifactId);
+        try (InputStream in = decode(metadata)) {
+            return new StoredArtifact(metadata, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        } catch (NoSuchFileException ex) {
+            index.remove(artifactId);
             throw new ArtifactNotFoundException("Artifact does not exist: " + artifactId);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to read artifact " + artifactId, ex);
         }
+    }
 
-        try {
-            Instant retentionUntil = readRetention(artifactPath);
-            if (retentionUntil != null && !retentionUntil.isAfter(Instant.now())) {
-                delete(artifactId);
-                throw new ArtifactExpiredException("Artifact has expired: " + artifactId);
+    /**
+     * Inflates through the decoding stream and gives up after {@code maxContentBytes + 1} bytes, so a small gzip
+     * file cannot expand into an arbitrarily large string.
+     */
+    @Override
+    public Optional<StoredArtifact> readBounded(String artifactId, long maxContentBytes) {
+        ArtifactMetadata metadata = liveEntry(artifactId);
+        try (InputStream in = decode(metadata)) {
+            byte[] content = in.readNBytes((int) Math.min(maxContentBytes, Integer.MAX_VALUE - 9) + 1);
+            if (content.length > maxContentBytes || in.read() != -1) {
+                return Optional.empty();
             }
-            String content = Files.readString(artifactPath);
-            return new StoredArtifact(metadataFromPath(artifactPath, retentionUntil), content);
+            return Optional.of(new StoredArtifact(metadata, new String(content, StandardCharsets.UTF_8)));
+        } catch (NoSuchFileException ex) {
+            index.remove(artifactId);
+            throw new ArtifactNotFoundException("Artifact does not exist: " + artifactId);
         } catch (IOException ex) {
             throw new IllegalStateException("Failed to read artifact " + artifactId, ex);
         }
     }
 
+    /**
+     * Answered from the index. Artifacts recovered from disk without a journal entry are hashed on their first
+     * lookup and the hash is journaled.
+     */
     @Override
-    public List<ArtifactMetadata> list() {
-        if (!Files.isDirectory(basePath)) {
-            return List.of();
+    public ArtifactMetadata stat(String artifactId) {
+        ArtifactMetadata metadata = liveEntry(artifactId);
+        if (metadata.contentHash() != null) {
+            return metadata;
         }
-
-        try (var paths = Files.list(basePath)) {
-            return paths
-                    .filter(Files::isRegularFile)
-                    .filter(path -> !path.getFileName().toString().endsWith(RETENTION_SUFFIX))
-                    .map(path -> metadataFromPath(path, readRetention(path)))
-                    .sorted(Comparator.comparing(ArtifactMetadata::artifactId))
-                    .toList();
+        MessageDigest digest = sha256();
+        try (InputStream in = new DigestInputStream(decode(metadata), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        } catch (NoSuchFileException ex) {
+            index.remove(artifactId);
+            throw new ArtifactNotFoundException("Artifact does not exist: " + artifactId);
         } catch (IOException ex) {
-            throw new IllegalStateException("Failed to list artifacts", ex);
+            throw new IllegalStateException("Failed to hash artifact " + artifactId, ex);
         }
+        ArtifactMetadata hashed = new ArtifactMetadata(metadata.artifactId(), metadata.path(), metadata.sizeBytes(),
+                metadata.createdAt(), metadata.lastModifiedAt(), metadata.retentionUntil(), HEX.formatHex(digest.digest()),
+                metadata.contentEncoding());
+        index.put(hashed);
+        return hashed;
+    }
+
+    @Override
+    public List<ArtifactMetadata> list() {
+        refresh();
+        return index.list();
     }
 
     @Override
     public boolean delete(String artifactId) {
         Objects.requireNonNull(artifactId, "artifactId must not be null");
-        Path artifactPath = resolveArtifactPath(artifactId);
+        Path retentionPath = retentionPath(artifactId);
+        boolean indexed = index.remove(artifactId);
         try {
-            boolean deleted = Files.deleteIfExists(artifactPath);
-            Files.deleteIfExists(retentionPath(artifactPath));
-            return deleted;
+            boolean deleted = false;
+            for (ArtifactCompression stored : ArtifactCompression.values()) {
+                deleted |= Files.deleteIfExists(storedPath(artifactId, stored));
+            }
+            Files.deleteIfExists(retentionPath);
+            return deleted || indexed;
         } catch (IOException ex) {
             throw new IllegalStateException("Failed to delete artifact " + artifactId, ex);
         }
@@ -99,47 +217,202 @@ public class LocalFilesystemArtifactStorage implements ArtifactStorage {
     @Override
     public List<String> expireOlderThan(Duration maxAge) {
         Objects.requireNonNull(maxAge, "maxAge must not be null");
+        refresh();
         Instant cutoff = Instant.now().minus(maxAge);
         List<String> deleted = new ArrayList<>();
+        for (ArtifactMetadata due : index.retainedUntilAtMost(cutoff)) {
+            expire(due.artifactId(), cutoff).ifPresent(expired -> deleted.add(expired.artifactId()));
+        }
+        return deleted;
+    }
 
-        if (!Files.isDirectory(basePath)) {
-            return deleted;
-        }
-
-        try (var paths = Files.list(basePath)) {
-            paths.filter(Files::isRegularFile)
-                    .filter(path -> !path.getFileName().toString().endsWith(RETENTION_SUFFIX))
-                    .forEach(path -> {
-                        try {
-                            Instant retentionUntil = readRetention(path);
-                            if (retentionUntil != null && !retentionUntil.isAfter(cutoff) && Files.deleteIfExists(path)) {
-                                Files.deleteIfExists(retentionPath(path));
-                                deleted.add(path.getFileName().toString());
-                            }
-                        } catch (IOException ex) {
-                            throw new IllegalStateException("Failed to expire artifact " + path.getFileName(), ex);
+    @Override
+    public Optional<ArtifactMetadata> expire(String artifactId, Instant cutoff) {
+        Objects.requireNonNull(artifactId, "artifactId must not be null");
+        Objects.requireNonNull(cutoff, "cutoff must not be null");
+        ArtifactMetadata metadata = index.get(artifactId);
+        if (metadata == null || metadata.retentionUntil() == null || metadata.retentionUntil().isAfter(cutoff)) {
+            return Optional.empty();
+        }
+        return delete(artifactId) ? Optional.of(metadata) : Optional.empty();
+    }
+
+    @Override
+    public void refresh() {
+        index.refresh().forEach(this::announce);
+    }
+
+    @Override
+    public void addCreationListener(Consumer<ArtifactMetadata> listener) {
+        creationListeners.add(Objects.requireNonNull(listener, "listener must not be null"));
+    }
+
+    private void rebuildIndex() {
+        index.load();
+        Instant partialsStaleBefore = Instant.now().minus(STALE_PARTIAL_AGE);
+        Set<String> missing = new HashSet<>(index.artifactIds());
+        if (Files.isDirectory(basePath)) {
+            try (var paths = Files.list(basePath)) {
+                paths.forEach(path -> {
+                    String fileName = path.getFileName().toString();
+                    if (fileName.endsWith(PARTIAL_SUFFIX)) {
+                        if (lastModifiedBefore(path, partialsStaleBefore)) {
+                            deleteQuietly(path);
                         }
-                    });
-        } catch (IOException ex) {
-            throw new IllegalStateException("Failed to list artifacts for expiration", ex);
+                        return;
+                    }
+                    if (!isArtifactFile(path)) {
+                        return;
+                    }
+                    ArtifactCompression stored = fileName.endsWith(ArtifactCompression.GZIP.fileSuffix())
+                            ? ArtifactCompression.GZIP
+                            : ArtifactCompression.NONE;
+                    String artifactId = fileName.substring(0, fileName.length() - stored.fileSuffix().length());
+                    if (!isValidArtifactId(artifactId)) {
+                        return;
+                    }
+                    missing.remove(artifactId);
+                    ArtifactMetadata onDisk = metadataFromPath(artifactId, path, null, null, stored.contentEncoding());
+                    ArtifactMetadata indexed = index.get(artifactId);
+                    if (indexed != null && !indexed.path().equals(path) && Files.exists(indexed.path())) {
+                        // A crash while re-creating an artifact in another compression mode can leave both files;
+                        // the newer one wins.
+                        boolean indexedIsNewer = metadataFromPath(artifactId, indexed.path(), null, null, null)
+                                .lastModifiedAt().isAfter(onDisk.lastModifiedAt());
+                        deleteQuietly(indexedIsNewer ? path : indexed.path());
+                        if (indexedIsNewer) {
+                            return;
+                        }
+                        indexed = null;
+                    }
+                    if (indexed == null
+                            || !indexed.path().equals(path)
+                            || indexed.sizeBytes() != onDisk.sizeBytes()
+                            || !indexed.lastModifiedAt().equals(onDisk.lastModifiedAt())) {
+                        index.put(metadataFromPath(artifactId, path, readRetention(artifactId), null, stored.contentEncoding()));
+                    }
+                });
+            } catch (IOException ex) {
+                throw new IllegalStateException("Failed to rebuild artifact index", ex);
+            }
         }
-        return deleted;
+        missing.forEach(index::remove);
+        index.compact();
+    }
+
+    private ArtifactMetadata liveEntry(String artifactId) {
+        Objects.requireNonNull(artifactId, "artifactId must not be null");
+        resolveArtifactPath(artifactId);
+        ArtifactMetadata metadata = index.get(artifactId);
+        if (metadata == null) {
+            metadata = unindexedEntry(artifactId);
+        }
+        if (metadata.retentionUntil() != null && !metadata.retentionUntil().isAfter(Instant.now())) {
+            throw new ArtifactExpiredException("Artifact has expired: " + artifactId);
+        }
+        return metadata;
+    }
+
+    /**
+     * Looks for an artifact another process created after this index was last refreshed: in the journal first,
+     * then, for writers that have not journaled it yet, in the directory.
+     */
+    private ArtifactMetadata unindexedEntry(String artifactId) {
+        refresh();
+        ArtifactMetadata metadata = index.get(artifactId);
+        if (metadata != null) {
+            return metadata;
+        }
+        for (ArtifactCompression stored : ArtifactCompression.values()) {
+            Path path = storedPath(artifactId, stored);
+            if (Files.isRegularFile(path)) {
+                ArtifactMetadata found = metadataFromPath(artifactId, path, readRetention(artifactId), null, stored.contentEncoding());
+                index.put(found);
+                announce(found);
+                return found;
+            }
+        }
+        throw new ArtifactNotFoundException("Artifact does not exist: " + artifactId);
+    }
+
+    private void announce(ArtifactMetadata metadata) {
+        creationListeners.forEach(listener -> listener.accept(metadata));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    private InputStream decode(ArtifactMetadata metadata) throws IOException {
+        return ArtifactCompression.forContentEncoding(metadata.contentEncoding()).decode(Files.newInputStream(metadata.path()));
     }
 
     private Path resolveArtifactPath(String artifactId) {
-        Path artifactPath = basePath.resolve(artifactId).normalize();
-        if (!artifactPath.startsWith(basePath.normalize())) {
+        if (!isValidArtifactId(artifactId)) {
             throw new IllegalArgumentException("Artifact id is invalid: " + artifactId);
         }
-        return artifactPath;
+        return basePath.resolve(artifactId).normalize();
     }
 
-    private Path retentionPath(Path artifactPath) {
+    /**
+     * Ids must stay inside the base path and must not end in a suffix the storage uses for its own files.
+     */
+    private boolean isValidArtifactId(String artifactId) {
+        return basePath.resolve(artifactId).normalize().startsWith(basePath.normalize())
+                && !artifactId.endsWith(ArtifactCompression.GZIP.fileSuffix())
+                && !artifactId.endsWith(RETENTION_SUFFIX)
+                && !artifactId.endsWith(PARTIAL_SUFFIX);
+    }
+
+    private Path storedPath(String artifactId, ArtifactCompression stored) {
+        Path artifactPath = resolveArtifactPath(artifactId);
+        return artifactPath.resolveSibling(artifactPath.getFileName() + stored.fileSuffix());
+    }
+
+    private boolean isArtifactFile(Path path) {
+        String fileName = path.getFileName().toString();
+        return Files.isRegularFile(path)
+                && !fileName.endsWith(RETENTION_SUFFIX)
+                && !fileName.endsWith(PARTIAL_SUFFIX)
+                && !fileName.equals(ArtifactMetadataIndex.JOURNAL_FILE_NAME)
+                && !fileName.equals(ArtifactMetadataIndex.LOCK_FILE_NAME);
+    }
+
+    private static boolean lastModifiedBefore(Path path, Instant cutoff) {
+        try {
+            return Files.getLastModifiedTime(path).toInstant().isBefore(cutoff);
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    private void moveIntoPlace(Path partialPath, Path artifactPath) throws IOException {
+        try {
+            Files.move(partialPath, artifactPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(partialPath, artifactPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+            // Leftover files are ignored by the index and cleaned up on the next start.
+        }
+    }
+
+    private Path retentionPath(String artifactId) {
+        Path artifactPath = resolveArtifactPath(artifactId);
         return artifactPath.resolveSibling(artifactPath.getFileName() + RETENTION_SUFFIX);
     }
 
-    private Instant readRetention(Path artifactPath) {
-        Path retentionPath = retentionPath(artifactPath);
+    private Instant readRetention(String artifactId) {
+        Path retentionPath = retentionPath(artifactId);
         if (!Files.exists(retentionPath)) {
             return null;
         }
@@ -147,20 +420,23 @@ public class LocalFilesystemArtifactStorage implements ArtifactStorage {
         try {
             return Instant.parse(Files.readString(retentionPath).trim());
         } catch (IOException ex) {
-            throw new IllegalStateException("Failed reading retention for artifact " + artifactPath.getFileName(), ex);
+            throw new IllegalStateException("Failed reading retention for artifact " + artifactId, ex);
         }
     }
 
-    private ArtifactMetadata metadataFromPath(Path path, Instant retentionUntil) {
+    private ArtifactMetadata metadataFromPath(String artifactId, Path path, Instant retentionUntil, String contentHash,
+                                              String contentEncoding) {
         try {
-            var attrs = Files.readAttributes(path, java.nio.file.attribute.BasicFileAttributes.class);
+            var attrs = Files.readAttributes(path, BasicFileAttributes.class);
             return new ArtifactMetadata(
-                    path.getFileName().toString(),
+                    artifactId,
                     path,
                     attrs.size(),
                     attrs.creationTime().toInstant(),
                     attrs.lastModifiedTime().toInstant(),
-                    retentionUntil
+                    retentionUntil,
+                    contentHash,
+                    contentEncoding
             );
         } catch (IOException ex) {
             throw new IllegalStateException("Failed reading metadata for artifact " + path.getFileName(), ex);
@@ -2,6 +2,7 @@ package com.jdeploy.cli;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jdeploy.service.DiagramBatchService;
 import com.jdeploy.service.DiagramGenerationService;
 import com.jdeploy.service.ManifestIngestionService;
 import com.jdeploy.service.TopologyQueryService;
@@ -21,7 +22,8 @@ import java.util.List;
                 JDeployCliCommands.IngestManifestCommand.class,
                 JDeployCliCommands.DeploymentsBySubnetCommand.class,
                 JDeployCliCommands.ImpactByNodeCommand.class,
-                JDeployCliCommands.GenerateDiagramCommand.class
+                JDeployCliCommands.GenerateDiagramCommand.class,
+                JDeployCliCommands.GenerateDiagramsCommand.class
         })
 public class JDeployCliCommands implements Runnable {
 
@@ -42,6 +44,9 @@ public class JDeployCliCommands implements Runnable {
         @CommandLine.Option(names = "--auth-password", description = "CLI service account password")
         private String authPassword;
 
+        @CommandLine.Option(names = "--force", description = "Synchronize even when the manifest matches the last synchronized manifest")
+        private boolean force;
+
         private final ManifestIngestionService ingestionService;
         private final CliAuthenticationService authenticationService;
 
@@ -54,7 +59,10 @@ public class JDeployCliCommands implements Runnable {
         public void run() {
             authenticationService.authenticate(authUser, authPassword);
             DeploymentManifestDto manifest = ingestionService.parseManifest(file);
-            ingestionService.synchronize(manifest);
+            if (ingestionService.synchronize(manifest, force) == ManifestIngestionService.SynchronizationOutcome.UNCHANGED) {
+                System.out.println("Manifest unchanged since last synchronization: " + file.toAbsolutePath());
+                return;
+            }
             System.out.println("Manifest ingested successfully: " + file.toAbsolutePath());
         }
     }
@@ -166,6 +174,52 @@ public class JDeployCliCommands implements Runnable {
         }
     }
 
+    @CommandLine.Command(name = "generate-diagrams", description = "Generate PlantUML diagrams for many systems concurrently")
+    static class GenerateDiagramsCommand implements Runnable {
+
+        @CommandLine.Option(names = "--system", description = "System identifier; repeat for several systems, omit for all systems")
+        private List<String> systems = List.of();
+
+        @CommandLine.Option(names = "--output-dir", description = "Directory to write <system>.puml files to; omit to store the diagrams as artifacts")
+        private Path outputDir;
+
+        @CommandLine.Option(names = "--format", defaultValue = "TEXT", description = "Output format: ${COMPLETION-CANDIDATES}")
+        private CliOutputFormat format;
+
+        private final DiagramBatchService diagramBatchService;
+        private final ObjectMapper objectMapper;
+
+        GenerateDiagramsCommand(DiagramBatchService diagramBatchService, ObjectMapper objectMapper) {
+            this.diagramBatchService = diagramBatchService;
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public void run() {
+            DiagramBatchService.BatchResult result = diagramBatchService.generate(systems, outputDir);
+            if (format == CliOutputFormat.JSON) {
+                try {
+                    System.out.println(objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(result));
+                } catch (JsonProcessingException ex) {
+                    throw new IllegalStateException("Unable to render JSON output", ex);
+                }
+            } else {
+                System.out.print(CliTableFormatter.format(
+                        List.of("SYSTEM", "STATUS", "MILLIS", "OUTPUT"),
+                        result.systems().stream().map(r -> List.of(
+                                r.systemName(),
+                                r.error() == null ? "OK" : "FAILED",
+                                String.valueOf(r.durationMillis()),
+                                r.error() == null ? r.output() : r.error())).toList()));
+                System.out.println("Generated " + result.generated() + " of " + result.requested() + " diagrams in "
+                        + result.totalMillis() + " ms (query " + result.queryMillis() + " ms)");
+            }
+            if (result.failed() > 0) {
+                throw new IllegalStateException(result.failed() + " of " + result.requested() + " diagrams failed");
+            }
+        }
+    }
+
     @Component
     static class Factory implements CommandLine.IFactory {
         private final org.springframework.beans.factory.config.AutowireCapableBeanFactory beanFactory;
@@ -0,0 +1,40 @@
+package com.jdeploy.monitoring;
+
+import com.jdeploy.schema.GraphSchemaMigrations;
+import com.jdeploy.schema.GraphSchemaMigrator;
+import com.jdeploy.schema.SchemaElement;
+import org.springframework.boot.health.contributor.AbstractHealthIndicator;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Reports drift between the declared graph schema migrations and the constraints and indexes that exist
+ * in Neo4j. Missing elements only slow merge-key lookups down to label scans, so the indicator stays {@code UP}
+ * and reports them as {@code drift} and {@code missing} details; it is also kept out of the liveness and
+ * readiness groups, since restarting or unrouting the pod would not create them.
+ */
+@Component("graphSchema")
+public class GraphSchemaHealthIndicator extends AbstractHealthIndicator {
+
+    private final GraphSchemaMigrator migrator;
+
+    public GraphSchemaHealthIndicator(GraphSchemaMigrator migrator) {
+        super("Graph schema verification failed");
+        this.migrator = migrator;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        List<SchemaElement> missing = migrator.missingElements();
+        builder.withDetail("expectedVersion", GraphSchemaMigrations.latestVersion())
+                .withDetail("appliedVersion", migrator.appliedVersion())
+                .withDetail("drift", !missing.isEmpty())
+                .withDetail("missing", missing.stream().map(SchemaElement::name).toList());
+        if (migrator.lastFailure() != null) {
+            builder.withDetail("lastMigrationFailure", migrator.lastFailure());
+        }
+        builder.up();
+    }
+}
@@ -0,0 +1,22 @@
+package com.jdeploy.monitoring;
+
+import com.jdeploy.service.TopologyReadCache;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+@Component
+@Endpoint(id = "topologyCache")
+public class TopologyCacheEndpoint {
+
+    private final TopologyReadCache topologyReadCache;
+
+    public TopologyCacheEndpoint(TopologyReadCache topologyReadCache) {
+        this.topologyReadCache = topologyReadCache;
+    }
+
+    @ReadOperation
+    public TopologyReadCache.CacheStats stats() {
+        return topologyReadCache.stats();
+    }
+}
@@ -0,0 +1,44 @@
+package com.jdeploy.schema;
+
+import java.util.List;
+
+/**
+ * Catalog of graph schema migrations covering every key used by {@code MERGE} and {@code MATCH} lookups.
+ */
+public final class GraphSchemaMigrations {
+
+    private static final List<SchemaMigration> MIGRATIONS = List.of(
+            new SchemaMigration(1, "Uniqueness constraints for manifest merge keys", List.of(
+                    SchemaElement.unique("hardware_node_hostname_unique", "HardwareNode", "hostname"),
+                    SchemaElement.unique("subnet_cidr_unique", "Subnet", "cidr"),
+                    SchemaElement.unique("execution_environment_name_unique", "ExecutionEnvironment", "name"),
+                    SchemaElement.unique("software_system_name_unique", "SoftwareSystem", "name"),
+                    SchemaElement.unique("software_component_name_version_unique", "SoftwareComponent", "name", "version"),
+                    SchemaElement.unique("deployment_instance_key_unique", "DeploymentInstance", "deploymentKey"),
+                    SchemaElement.unique("network_link_key_unique", "NetworkLink", "linkKey"),
+                    SchemaElement.unique("grid_cluster_name_unique", "GridCluster", "name"),
+                    SchemaElement.unique("kubernetes_cluster_name_unique", "KubernetesCluster", "name"),
+                    SchemaElement.unique("kubernetes_namespace_name_unique", "KubernetesNamespace", "name"),
+                    SchemaElement.unique("manifest_sync_state_id_unique", "ManifestSyncState", "id"))),
+            new SchemaMigration(2, "Range indexes for secondary lookups", List.of(
+                    SchemaElement.rangeIndex("hardware_node_ip_address_index", "HardwareNode", "ipAddress"),
+                    SchemaElement.rangeIndex("site_name_index", "Site", "name"))),
+            new SchemaMigration(3, "Uniqueness constraint for the shared topology generation counter", List.of(
+                    SchemaElement.unique("topology_state_id_unique", "TopologyState", "id")))
+    );
+
+    private GraphSchemaMigrations() {
+    }
+
+    public static List<SchemaMigration> all() {
+        return MIGRATIONS;
+    }
+
+    public static int latestVersion() {
+        return MIGRATIONS.getLast().version();
+    }
+
+    public static List<SchemaElement> expectedElements() {
+        return MIGRATIONS.stream().flatMap(migration -> migration.elements().stream()).toList();
+    }
+}
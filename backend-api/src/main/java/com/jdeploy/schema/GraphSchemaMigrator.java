@@ -0,0 +1,124 @@
+package com.jdeploy.schema;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Applies pending {@link GraphSchemaMigrations} when the application starts, before command line runners
+ * execute, and records the applied version on a singleton {@code GraphSchemaState} node.
+ * <p>
+ * Every statement uses {@code IF NOT EXISTS}, so re-running a migration against a database that already has
+ * the element is harmless. Failures are logged and exposed through {@link #lastFailure()} unless
+ * {@code jdeploy.schema.migration.fail-on-error} is set, in which case startup is aborted.
+ */
+@Component
+public class GraphSchemaMigrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(GraphSchemaMigrator.class);
+    private static final String STATE_ID = "graph-schema";
+
+    private final Neo4jClient neo4jClient;
+    private final boolean enabled;
+    private final boolean failOnError;
+    private volatile String lastFailure;
+
+    public GraphSchemaMigrator(Neo4jClient neo4jClient,
+                               @Value("${jdeploy.schema.migration.enabled:true}") boolean enabled,
+                               @Value("${jdeploy.schema.migration.fail-on-error:false}") boolean failOnError) {
+        this.neo4jClient = Objects.requireNonNull(neo4jClient, "neo4jClient must not be null");
+        this.enabled = enabled;
+        this.failOnError = failOnError;
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    void migrateOnStartup() {
+        if (!enabled) {
+            logger.info("Graph schema migration disabled");
+            return;
+        }
+        try {
+            migrate();
+        } catch (RuntimeException ex) {
+            lastFailure = ex.getMessage();
+            if (failOnError) {
+                throw ex;
+            }
+            logger.error("Graph schema migration failed; lookups may fall back to label scans", ex);
+        }
+    }
+
+    /**
+     * Applies every migration newer than the recorded schema version and returns the resulting version.
+     */
+    public int migrate() {
+        int currentVersion = appliedVersion();
+        for (SchemaMigration migration : GraphSchemaMigrations.all()) {
+            if (migration.version() <= currentVersion) {
+                continue;
+            }
+            for (SchemaElement element : migration.elements()) {
+                neo4jClient.query(element.createStatement()).run();
+            }
+            recordVersion(migration.version());
+            currentVersion = migration.version();
+            logger.info("Applied graph schema migration v{}: {}", migration.version(), migration.description());
+        }
+        lastFailure = null;
+        return currentVersion;
+    }
+
+    public int appliedVersion() {
+        return neo4jClient.query("""
+                        MATCH (s:GraphSchemaState {id: $id})
+                        RETURN s.version AS version
+                        """)
+                .bind(STATE_ID).to("id")
+                .fetchAs(Integer.class)
+                .mappedBy((typeSystem, record) -> record.get("version").isNull() ? 0 : record.get("version").asInt())
+                .one()
+                .orElse(0);
+    }
+
+    /**
+     * Returns the expected schema elements that are not present in the database, ordered as declared.
+     */
+    public List<SchemaElement> missingElements() {
+        Set<String> present = new HashSet<>();
+        present.addAll(names("SHOW CONSTRAINTS YIELD name RETURN name"));
+        present.addAll(names("SHOW INDEXES YIELD name RETURN name"));
+        return GraphSchemaMigrations.expectedElements().stream()
+                .filter(element -> !present.contains(element.name()))
+                .toList();
+    }
+
+    public String lastFailure() {
+        return lastFailure;
+    }
+
+    private void recordVersion(int version) {
+        neo4jClient.query("""
+                        MERGE (s:GraphSchemaState {id: $id})
+                        SET s.version = $version
+                        """)
+                .bind(STATE_ID).to("id")
+                .bind(version).to("version")
+                .run();
+    }
+
+    private List<String> names(String cypher) {
+        return List.copyOf(neo4jClient.query(cypher)
+                .fetchAs(String.class)
+                .mappedBy((typeSystem, record) -> record.get("name").asString())
+                .all());
+    }
+}
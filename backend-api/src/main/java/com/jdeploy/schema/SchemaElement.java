@@ -0,0 +1,50 @@
+package com.jdeploy.schema;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * A named Neo4j constraint or index over one or more properties of a node label.
+ */
+public record SchemaElement(String name, Kind kind, String label, List<String> properties) {
+
+    public SchemaElement {
+        if (name == null || name.isBlank() || label == null || label.isBlank()) {
+            throw new IllegalArgumentException("Schema element name and label are required");
+        }
+        if (properties == null || properties.isEmpty()) {
+            throw new IllegalArgumentException("Schema element " + name + " must cover at least one property");
+        }
+        properties = List.copyOf(properties);
+    }
+
+    public static SchemaElement unique(String name, String label, String... properties) {
+        return new SchemaElement(name, Kind.UNIQUENESS_CONSTRAINT, label, List.of(properties));
+    }
+
+    public static SchemaElement rangeIndex(String name, String label, String... properties) {
+        return new SchemaElement(name, Kind.RANGE_INDEX, label, List.of(properties));
+    }
+
+    public String createStatement() {
+        return switch (kind) {
+            case UNIQUENESS_CONSTRAINT -> "CREATE CONSTRAINT %s IF NOT EXISTS FOR (n:%s) REQUIRE %s IS UNIQUE"
+                    .formatted(name, label, propertyTuple());
+            case RANGE_INDEX -> "CREATE RANGE INDEX %s IF NOT EXISTS FOR (n:%s) ON (%s)"
+                    .formatted(name, label, propertyList());
+        };
+    }
+
+    private String propertyTuple() {
+        return properties.size() == 1 ? "n." + properties.getFirst() : "(" + propertyList() + ")";
+    }
+
+    private String propertyList() {
+        return properties.stream().map(property -> "n." + property).collect(Collectors.joining(", "));
+    }
+
+    public enum Kind {
+        UNIQUENESS_CONSTRAINT,
+        RANGE_INDEX
+    }
+}
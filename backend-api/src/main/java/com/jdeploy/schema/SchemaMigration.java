@@ -0,0 +1,17 @@
+package com.jdeploy.schema;
+
+import java.util.List;
+
+/**
+ * An ordered, versioned set of schema elements. Versions are applied in ascending order and never edited
+ * once released; new constraints or indexes go into a new version.
+ */
+public record SchemaMigration(int version, String description, List<SchemaElement> elements) {
+
+    public SchemaMigration {
+        if (version < 1) {
+            throw new IllegalArgumentException("Schema migration version must be positive");
+        }
+        elements = List.copyOf(elements);
+    }
+}
@@ -0,0 +1,136 @@
+package com.jdeploy.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Moves access-log output off the request thread.
+ * <p>
+ * Request threads publish finished log lines into a fixed-size ring buffer by claiming a sequence number with a
+ * single CAS; one background thread drains the ring in sequence order and hands each line to the
+ * {@code ACCESS_LOG} logger. When the writer falls behind and the ring is full, new lines are dropped rather
+ * than blocking requests, and counted in {@code jdeploy.access.log.dropped}.
+ */
+public class AccessLogWriter implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger("ACCESS_LOG");
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicReferenceArray<String> ring;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final Thread drainer;
+    private volatile boolean running = true;
+
+    public AccessLogWriter(int capacity, MeterRegistry meterRegistry) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("capacity must be at least 2");
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.ring = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+
+        if (meterRegistry != null) {
+            FunctionCounter.builder("jdeploy.access.log.dropped", dropped, AtomicLong::doubleValue)
+                    .description("Access log lines discarded because the log buffer was full")
+                    .register(meterRegistry);
+            FunctionCounter.builder("jdeploy.access.log.written", written, AtomicLong::doubleValue)
+                    .description("Access log lines handed to the access logger")
+                    .register(meterRegistry);
+            Gauge.builder("jdeploy.access.log.pending", this, AccessLogWriter::pending)
+                    .description("Access log lines waiting in the log buffer")
+                    .register(meterRegistry);
+        }
+
+        this.drainer = Thread.ofPlatform()
+                .name("access-log-writer")
+                .daemon(true)
+                .start(this::drain);
+    }
+
+    /**
+     * Queues {@code line} without blocking. Returns {@code false} when the buffer is full and the line was dropped.
+     */
+    public boolean submit(String line) {
+        if (line == null) {
+            return false;
+        }
+        while (true) {
+            long sequence = tail.get();
+            if (sequence - head.get() >= ring.length()) {
+                dropped.incrementAndGet();
+                return false;
+            }
+            if (tail.compareAndSet(sequence, sequence + 1)) {
+                ring.set((int) sequence & mask, line);
+                return true;
+            }
+        }
+    }
+
+    public long pending() {
+        return Math.max(0, tail.get() - head.get());
+    }
+
+    public long dropped() {
+        return dropped.get();
+    }
+
+    public int capacity() {
+        return ring.length();
+    }
+
+    /**
+     * Stops the background writer once it has written whatever is still buffered, waiting up to five seconds.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain() {
+        while (running || pending() > 0) {
+            if (!drainOne()) {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private boolean drainOne() {
+        long sequence = head.get();
+        if (sequence == tail.get()) {
+            return false;
+        }
+        int slot = (int) sequence & mask;
+        String line = ring.get(slot);
+        if (line == null) {
+            // Claimed by a producer that has not stored its line yet.
+            return false;
+        }
+        ring.lazySet(slot, null);
+        head.lazySet(sequence + 1);
+        try {
+            logger.info(line);
+            written.incrementAndGet();
+        } catch (RuntimeException ex) {
+            dropped.incrementAndGet();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,190 @@
+package com.jdeploy.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+
+/**
+ * Username/password authentication that runs the slow password check once per credential pair and TTL.
+ * <p>
+ * Successful verifications are remembered under an HMAC-SHA256 of the submitted credentials, keyed with a
+ * random per-process secret, so the cache never holds a reusable password or unsalted digest. A hit is only
+ * honoured while the user's stored password hash and account flags are unchanged; rotating a password in the
+ * {@link UserDetailsService} therefore invalidates every entry for that user on its next use. Failed attempts are
+ * never cached and always pay the full password check.
+ */
+public class CachedCredentialAuthenticationProvider implements AuthenticationProvider {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final AuthenticationProvider delegate;
+    private final UserDetailsService userDetailsService;
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final SecretKeySpec cacheKey;
+    private final ThreadLocal<Mac> macs;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final LinkedHashMap<String, Entry> entries;
+
+    public CachedCredentialAuthenticationProvider(AuthenticationProvider delegate,
+                                                  UserDetailsService userDetailsService,
+                                                  int maxEntries,
+                                                  Duration ttl,
+                                                  MeterRegistry meterRegistry) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate must not be null");
+        this.userDetailsService = Objects.requireNonNull(userDetailsService, "userDetailsService must not be null");
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("ttl must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        this.cacheKey = new SecretKeySpec(secret, HMAC_ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > CachedCredentialAuthenticationProvider.this.maxEntries;
+            }
+        };
+
+        if (meterRegistry != null) {
+            FunctionCounter.builder("jdeploy.security.authentication.cache.hits", hits, AtomicLong::doubleValue)
+                    .description("Basic authentications answered without re-running the password check")
+                    .register(meterRegistry);
+            FunctionCounter.builder("jdeploy.security.authentication.cache.misses", misses, AtomicLong::doubleValue)
+                    .description("Basic authentications that ran the password check")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        String username = authentication.getName();
+        Object credentials = authentication.getCredentials();
+        if (username == null || !(credentials instanceof String password)) {
+            return delegate.authenticate(authentication);
+        }
+
+        String key = credentialKey(username, password);
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null) {
+            UserDetails current = currentUser(username);
+            if (System.nanoTime() - entry.verifiedAtNanos() <= ttlNanos && current != null && entry.matches(current)) {
+                hits.incrementAndGet();
+                UsernamePasswordAuthenticationToken result = UsernamePasswordAuthenticationToken.authenticated(
+                        current, null, current.getAuthorities());
+                result.setDetails(authentication.getDetails());
+                return result;
+            }
+            synchronized (entries) {
+                entries.remove(key);
+            }
+        }
+
+        misses.incrementAndGet();
+        Authentication result = delegate.authenticate(authentication);
+        if (result != null && result.isAuthenticated() && result.getPrincipal() instanceof UserDetails user) {
+            synchronized (entries) {
+                entries.put(key, new Entry(user.getUsername(), user.getPassword(), user.isEnabled(),
+                        user.isAccountNonLocked(), user.isAccountNonExpired(), user.isCredentialsNonExpired(), System.nanoTime()));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+
+    /**
+     * Drops every cached verification for {@code username}, for callers that rotate credentials outside the
+     * {@link UserDetailsService}.
+     */
+    public void invalidate(String username) {
+        synchronized (entries) {
+            entries.values().removeIf(entry -> entry.username().equals(username));
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private UserDetails currentUser(String username) {
+        try {
+            return userDetailsService.loadUserByUsername(username);
+        } catch (UsernameNotFoundException ex) {
+            return null;
+        }
+    }
+
+    private String credentialKey(String username, String password) {
+        Mac mac = macs.get();
+        mac.update(username.getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) 0);
+        return Base64.getEncoder().withoutPadding().encodeToString(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(cacheKey);
+            return mac;
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", ex);
+        }
+    }
+
+    private record Entry(String username,
+                         String storedPassword,
+                         boolean enabled,
+                         boolean accountNonLocked,
+                         boolean accountNonExpired,
+                         boolean credentialsNonExpired,
+                         long verifiedAtNanos) {
+
+        private boolean matches(UserDetails current) {
+            return Objects.equals(storedPassword, current.getPassword())
+                    && current.isEnabled() == enabled
+                    && current.isAccountNonLocked() == accountNonLocked
+                    && current.isAccountNonExpired() == accountNonExpired
+                    && current.isCredentialsNonExpired() == credentialsNonExpired;
+        }
+    }
+}
@@ -5,8 +5,8 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.time.Instant;
 import java.time.ZoneId;
-import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,6 +21,23 @@ public class CommonLogFormatAccessFilter extends OncePerRequestFilter {
     private static final Logger logger = LoggerFactory.getLogger("ACCESS_LOG");
     static final DateTimeFormatter COMMON_LOG_DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MMM/yyyy:HH:mm:ss Z");
 
+    private static final int MAX_RETAINED_BUFFER = 4096;
+    private static final ThreadLocal<StringBuilder> ENTRY_BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+    private static volatile CachedTimestamp cachedTimestamp = new CachedTimestamp(Long.MIN_VALUE, "");
+
+    private final AccessLogWriter writer;
+
+    public CommonLogFormatAccessFilter() {
+        this(null);
+    }
+
+    /**
+     * @param writer asynchronous sink for finished lines, or {@code null} to log on the request thread
+     */
+    public CommonLogFormatAccessFilter(AccessLogWriter writer) {
+        this.writer = writer;
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
@@ -28,79 +45,120 @@ public class CommonLogFormatAccessFilter extends OncePerRequestFilter {
         try {
             filterChain.doFilter(request, response);
         } finally {
-            logger.info(buildCommonLogEntry(request, response));
+            String entry = buildCommonLogEntry(request, response);
+            if (writer != null) {
+                writer.submit(entry);
+            } else {
+                logger.info(entry);
+            }
         }
     }
 
-    static String buildCommonLogEntry(HttpServletRequest request, HttpServletResponse response) {
-        String remoteHost = sanitizeForLog(request.getRemoteAddr());
-        String authUser = currentUser(request);
-        String requestLine = sanitizeForLog(buildRequestLine(request));
-        String timestamp = ZonedDateTime.now(ZoneId.systemDefault()).format(COMMON_LOG_DATE_FORMAT);
-        String bytesSent = contentLength(response);
-
-        return String.format("%s - %s [%s] \"%s\" %d %s",
-                remoteHost,
-                authUser,
-                timestamp,
-                requestLine,
-                response.getStatus(),
-                bytesSent);
+    /**
+     * Formats the Common Log Format line for a finished exchange, as the filter writes it. Public so the line
+     * format can be exercised and benchmarked on its own, without a filter chain or access logger.
+     */
+    public static String buildCommonLogEntry(HttpServletRequest request, HttpServletResponse response) {
+        StringBuilder entry = ENTRY_BUFFER.get();
+        entry.setLength(0);
+
+        appendSanitized(entry, request.getRemoteAddr());
+        entry.append(" - ");
+        appendCurrentUser(entry, request);
+        entry.append(" [").append(timestamp(System.currentTimeMillis())).append("] \"");
+        appendRequestLine(entry, request);
+        entry.append("\" ").append(response.getStatus()).append(' ');
+        appendContentLength(entry, response);
+
+        String line = entry.toString();
+        if (entry.capacity() > MAX_RETAINED_BUFFER) {
+            ENTRY_BUFFER.remove();
+        }
+        return line;
     }
 
-    private static String contentLength(HttpServletResponse response) {
-        String value = response.getHeader(HttpHeaders.CONTENT_LENGTH);
-        if (value == null || value.isBlank()) {
-            return "-";
+    /**
+     * Formats the log timestamp at most once per wall-clock second; every other request in that second reuses the
+     * cached text.
+     */
+    static String timestamp(long epochMillis) {
+        long epochSecond = Math.floorDiv(epochMillis, 1000L);
+        CachedTimestamp cached = cachedTimestamp;
+        if (cached.epochSecond() != epochSecond) {
+            cached = new CachedTimestamp(epochSecond,
+                    COMMON_LOG_DATE_FORMAT.format(Instant.ofEpochSecond(epochSecond).atZone(ZoneId.systemDefault())));
+            cachedTimestamp = cached;
         }
+        return cached.text();
+    }
 
-        String digitsOnly = value.replaceAll("\\D", "");
-        return digitsOnly.isBlank() ? "-" : digitsOnly;
+    private static void appendContentLength(StringBuilder entry, HttpServletResponse response) {
+        String value = response.getHeader(HttpHeaders.CONTENT_LENGTH);
+        int start = entry.length();
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                char current = value.charAt(i);
+                if (current >= '0' && current <= '9') {
+                    entry.append(current);
+                }
+            }
+        }
+        if (entry.length() == start) {
+            entry.append('-');
+        }
     }
 
-    private static String buildRequestLine(HttpServletRequest request) {
+    private static void appendRequestLine(StringBuilder entry, HttpServletRequest request) {
+        appendSanitizedPart(entry, request.getMethod());
+        entry.append(' ');
+        appendSanitizedPart(entry, request.getRequestURI());
         String query = request.getQueryString();
-        String pathWithQuery = query == null ? request.getRequestURI() : request.getRequestURI() + "?" + query;
-        return request.getMethod() + " " + pathWithQuery + " " + request.getProtocol();
+        if (query != null) {
+            entry.append('?');
+            appendSanitizedPart(entry, query);
+        }
+        entry.append(' ');
+        appendSanitizedPart(entry, request.getProtocol());
     }
 
-    private static String currentUser(HttpServletRequest request) {
+    private static void appendCurrentUser(StringBuilder entry, HttpServletRequest request) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication != null && authentication.isAuthenticated() && !(authentication instanceof AnonymousAuthenticationToken)) {
-            return sanitizeForLog(authentication.getName());
+            appendSanitized(entry, authentication.getName());
+            return;
         }
 
         if (isLoginAttempt(request)) {
-            return sanitizeForLog(request.getParameter("username"));
+            appendSanitized(entry, request.getParameter("username"));
+            return;
         }
 
-        return "-";
+        entry.append('-');
     }
 
     private static boolean isLoginAttempt(HttpServletRequest request) {
         return "POST".equalsIgnoreCase(request.getMethod()) && "/login".equals(request.getRequestURI());
     }
 
-    private static String defaultValue(String value) {
-        return (value == null || value.isBlank()) ? "-" : value;
+    private static void appendSanitized(StringBuilder entry, String value) {
+        if (value == null || value.isBlank()) {
+            entry.append('-');
+            return;
+        }
+        appendSanitizedPart(entry, value);
     }
 
-    private static String sanitizeForLog(String value) {
-        String normalized = defaultValue(value);
-        if ("-".equals(normalized)) {
-            return normalized;
+    private static void appendSanitizedPart(StringBuilder entry, String value) {
+        if (value == null) {
+            entry.append("null");
+            return;
         }
-
-        StringBuilder sanitized = new StringBuilder(normalized.length());
-        for (int i = 0; i < normalized.length(); i++) {
-            char current = normalized.charAt(i);
-            if (current == '\r' || current == '\n' || Character.isISOControl(current)) {
-                sanitized.append(' ');
-            } else {
-                sanitized.append(current);
-            }
+        for (int i = 0; i < value.length(); i++) {
+            char current = value.charAt(i);
+            entry.append(Character.isISOControl(current) ? ' ' : current);
         }
+    }
 
-        return sanitized.toString();
+    private record CachedTimestamp(long epochSecond, String text) {
     }
 }
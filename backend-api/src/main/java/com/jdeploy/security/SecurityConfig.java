@@ -1,10 +1,14 @@
 package com.jdeploy.security;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -22,6 +26,12 @@ import org.springframework.security.web.authentication.www.BasicAuthenticationFi
 @EnableConfigurationProperties({SecurityCredentialsProperties.class, CredentialDebugLoggingProperties.class})
 public class SecurityConfig {
 
+    private final ObjectProvider<AccessLogWriter> accessLogWriterProvider;
+
+    public SecurityConfig(ObjectProvider<AccessLogWriter> accessLogWriterProvider) {
+        this.accessLogWriterProvider = accessLogWriterProvider;
+    }
+
     @Bean
     SecurityFilterChain securityFilterChain(HttpSecurity http,
                                             ObjectProvider<CredentialDebugLoggingFilter> credentialDebugLoggingFilterProvider) throws Exception {
@@ -29,7 +39,7 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/swagger-ui/**", "/swagger-ui.html", "/v3/api-docs/**", "/openapi.json", "/actuator/health", "/actuator/health/**", "/actuator/info").permitAll()
-                        .requestMatchers("/api/manifests/ingest").hasAuthority(ApiRoles.TOPOLOGY_INGEST)
+                        .requestMatchers("/api/manifests/ingest", "/api/manifests/jobs", "/api/manifests/jobs/**").hasAuthority(ApiRoles.TOPOLOGY_INGEST)
                         .requestMatchers("/api/artifacts/**").hasAnyAuthority(ApiRoles.ARTIFACT_GENERATE, ApiRoles.READ_ONLY)
                         .requestMatchers(org.springframework.http.HttpMethod.PUT, "/api/topology/**").hasAnyAuthority(ApiRoles.EDITOR, ApiRoles.ADMIN)
                         .requestMatchers(org.springframework.http.HttpMethod.PATCH, "/api/topology/**").hasAnyAuthority(ApiRoles.EDITOR, ApiRoles.ADMIN)
@@ -48,7 +58,14 @@ public class SecurityConfig {
 
     @Bean
     CommonLogFormatAccessFilter commonLogFormatAccessFilter() {
-        return new CommonLogFormatAccessFilter();
+        return new CommonLogFormatAccessFilter(accessLogWriterProvider.getIfAvailable());
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "jdeploy.access-log", name = "async", havingValue = "true", matchIfMissing = true)
+    AccessLogWriter accessLogWriter(@Value("${jdeploy.access-log.buffer-capacity:8192}") int bufferCapacity,
+                                    ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        return new AccessLogWriter(bufferCapacity, meterRegistryProvider.getIfAvailable());
     }
 
     @Bean
@@ -57,13 +74,34 @@ public class SecurityConfig {
         return new CredentialDebugLoggingFilter();
     }
 
+    @Bean
+    PasswordEncoder passwordEncoder() {
+        return PasswordEncoderFactories.createDelegatingPasswordEncoder();
+    }
+
+    @Bean
+    AuthenticationProvider authenticationProvider(UserDetailsService userDetailsService,
+                                                  PasswordEncoder passwordEncoder,
+                                                  SecurityCredentialsProperties properties,
+                                                  ObjectProvider<MeterRegistry> meterRegistryProvider) {
+        DaoAuthenticationProvider passwordCheck = new DaoAuthenticationProvider(userDetailsService);
+        passwordCheck.setPasswordEncoder(passwordEncoder);
+
+        SecurityCredentialsProperties.AuthenticationCache cache = properties.getAuthenticationCache();
+        if (!cache.isEnabled()) {
+            return passwordCheck;
+        }
+        return new CachedCredentialAuthenticationProvider(passwordCheck, userDetailsService,
+                cache.getMaxEntries(), cache.getTtl(), meterRegistryProvider.getIfAvailable());
+    }
+
     @Bean
     UserDetailsService userDetailsService(SecurityCredentialsProperties properties,
+                                          PasswordEncoder encoder,
                                           SecurityCredentialPolicyValidator ignoredValidatorDependency) {
 
         SecurityCredentialsProperties.Users users = properties.getUsers();
 
-        PasswordEncoder encoder = PasswordEncoderFactories.createDelegatingPasswordEncoder();
         UserDetails ingest = User.withUsername(users.getIngest().getUsername())
                 .password(encoder.encode(users.getIngest().getPassword()))
                 .authorities(ApiRoles.ADMIN, ApiRoles.EDITOR, ApiRoles.TOPOLOGY_INGEST, ApiRoles.ARTIFACT_GENERATE, ApiRoles.READ_ONLY)
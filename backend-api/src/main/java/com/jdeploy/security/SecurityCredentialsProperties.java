@@ -7,6 +7,8 @@ import jakarta.validation.constraints.NotBlank;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.validation.annotation.Validated;
 
+import java.time.Duration;
+
 @ConfigurationProperties(prefix = "jdeploy.security")
 @Validated
 public class SecurityCredentialsProperties {
@@ -17,6 +19,9 @@ public class SecurityCredentialsProperties {
     @Valid
     private final PasswordPolicy passwordPolicy = new PasswordPolicy();
 
+    @Valid
+    private final AuthenticationCache authenticationCache = new AuthenticationCache();
+
     public Users getUsers() {
         return users;
     }
@@ -25,6 +30,10 @@ public class SecurityCredentialsProperties {
         return passwordPolicy;
     }
 
+    public AuthenticationCache getAuthenticationCache() {
+        return authenticationCache;
+    }
+
     public static class Users {
 
         @Valid
@@ -110,4 +119,38 @@ public class SecurityCredentialsProperties {
             this.minCharacterClasses = minCharacterClasses;
         }
     }
+
+    public static class AuthenticationCache {
+
+        private boolean enabled = true;
+
+        @Min(value = 1, message = "must be >= 1")
+        private int maxEntries = 1024;
+
+        private Duration ttl = Duration.ofMinutes(1);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+    }
 }
@@ -1,6 +1,12 @@
 package com.jdeploy.service;
 
+import com.jdeploy.artifact.ArtifactMetadata;
 import com.jdeploy.artifact.ArtifactStorage;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -8,28 +14,140 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Deletes artifacts once their retention ends.
+ * <p>
+ * Retention deadlines are held in a priority queue that is seeded from the storage index at startup and fed by
+ * the storage's creation callback afterwards, so each tick only looks at the head of the queue. Each tick first
+ * refreshes the storage, so artifacts created by other processes, such as CLI runs, get queued too. Due deadlines
+ * (allowing for {@code retention-grace-period}) are taken in batches of at most {@code batch-size} and expired
+ * one by one through {@link ArtifactStorage#expire}, which re-checks the artifact's current retention. Deadlines
+ * left behind by artifacts that were deleted or re-created with a later retention are therefore dropped without
+ * effect.
+ */
 @Service
 public class ArtifactRetentionCleanupService {
 
     private static final Logger log = LoggerFactory.getLogger(ArtifactRetentionCleanupService.class);
+    private static final Comparator<Deadline> EARLIEST_FIRST = Comparator
+            .comparing(Deadline::retentionUntil)
+            .thenComparing(Deadline::artifactId);
 
     private final ArtifactStorage artifactStorage;
     private final Duration retentionGracePeriod;
+    private final int batchSize;
+    private final PriorityQueue<Deadline> deadlines = new PriorityQueue<>(EARLIEST_FIRST);
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong bytesReclaimed = new AtomicLong();
+    private final Timer deletionLag;
 
     public ArtifactRetentionCleanupService(ArtifactStorage artifactStorage,
-                                           @Value("${jdeploy.artifact.cleanup.retention-grace-period:PT0S}") Duration retentionGracePeriod) {
-        this.artifactStorage = artifactStorage;
+                                           MeterRegistry meterRegistry,
+                                           @Value("${jdeploy.artifact.cleanup.retention-grace-period:PT0S}") Duration retentionGracePeriod,
+                                           @Value("${jdeploy.artifact.cleanup.batch-size:100}") int batchSize) {
+        this.artifactStorage = Objects.requireNonNull(artifactStorage, "artifactStorage must not be null");
+        Objects.requireNonNull(meterRegistry, "meterRegistry must not be null");
+        if (retentionGracePeriod == null || retentionGracePeriod.isNegative()) {
+            throw new PreconditionViolationException("jdeploy.artifact.cleanup.retention-grace-period must not be negative");
+        }
+        if (batchSize < 1) {
+            throw new PreconditionViolationException("jdeploy.artifact.cleanup.batch-size must be positive");
+        }
         this.retentionGracePeriod = retentionGracePeriod;
+        this.batchSize = batchSize;
+
+        Gauge.builder("jdeploy.artifact.expiry.pending", this, ArtifactRetentionCleanupService::pending)
+                .description("Artifact retention deadlines waiting in the expiry queue")
+                .register(meterRegistry);
+        FunctionCounter.builder("jdeploy.artifact.expiry.deleted", expired, AtomicLong::doubleValue)
+                .description("Artifacts deleted because their retention ended")
+                .register(meterRegistry);
+        FunctionCounter.builder("jdeploy.artifact.expiry.reclaimed", bytesReclaimed, AtomicLong::doubleValue)
+                .description("Size of the artifacts deleted because their retention ended")
+                .baseUnit(BaseUnits.BYTES)
+                .register(meterRegistry);
+        this.deletionLag = Timer.builder("jdeploy.artifact.expiry.lag")
+                .description("Time between an artifact's retention deadline and its deletion, including the grace period")
+                .register(meterRegistry);
+
+        artifactStorage.addCreationListener(this::schedule);
+        artifactStorage.list().forEach(this::schedule);
     }
 
-    @Scheduled(fixedDelayString = "${jdeploy.artifact.cleanup.interval:PT15M}",
-            initialDelayString = "${jdeploy.artifact.cleanup.initial-delay:PT1M}")
+    @Scheduled(fixedDelayString = "${jdeploy.artifact.cleanup.interval:PT5S}",
+            initialDelayString = "${jdeploy.artifact.cleanup.initial-delay:PT5S}")
     public void cleanupExpiredArtifacts() {
-        List<String> deleted = artifactStorage.expireOlderThan(retentionGracePeriod);
+        artifactStorage.refresh();
+        List<String> deleted = expireDue(Instant.now());
         if (!deleted.isEmpty()) {
             log.info("Expired {} artifact(s): {}", deleted.size(), deleted);
         }
     }
+
+    /**
+     * Number of retention deadlines still queued, including deadlines of artifacts that have since been deleted
+     * or replaced.
+     */
+    public int pending() {
+        synchronized (deadlines) {
+            return deadlines.size();
+        }
+    }
+
+    void schedule(ArtifactMetadata metadata) {
+        if (metadata.retentionUntil() == null) {
+            return;
+        }
+        synchronized (deadlines) {
+            deadlines.add(new Deadline(metadata.artifactId(), metadata.retentionUntil()));
+        }
+    }
+
+    List<String> expireDue(Instant now) {
+        Instant cutoff = now.minus(retentionGracePeriod);
+        List<String> deleted = new ArrayList<>();
+        List<Deadline> failed = new ArrayList<>();
+        for (List<Deadline> batch = takeDue(cutoff); !batch.isEmpty(); batch = takeDue(cutoff)) {
+            for (Deadline deadline : batch) {
+                try {
+                    artifactStorage.expire(deadline.artifactId(), cutoff).ifPresent(metadata -> {
+                        deleted.add(metadata.artifactId());
+                        expired.incrementAndGet();
+                        bytesReclaimed.addAndGet(metadata.sizeBytes());
+                        deletionLag.record(Duration.between(metadata.retentionUntil(), now));
+                    });
+                } catch (RuntimeException ex) {
+                    log.warn("Failed to expire artifact {}; retrying on the next run", deadline.artifactId(), ex);
+                    failed.add(deadline);
+                }
+            }
+        }
+        if (!failed.isEmpty()) {
+            synchronized (deadlines) {
+                deadlines.addAll(failed);
+            }
+        }
+        return deleted;
+    }
+
+    private List<Deadline> takeDue(Instant cutoff) {
+        List<Deadline> batch = new ArrayList<>();
+        synchronized (deadlines) {
+            while (batch.size() < batchSize && !deadlines.isEmpty() && !deadlines.peek().retentionUntil().isAfter(cutoff)) {
+                batch.add(deadlines.poll());
+            }
+        }
+        return batch;
+    }
+
+    private record Deadline(String artifactId, Instant retentionUntil) {
+    }
 }
@@ -0,0 +1,194 @@
+package com.jdeploy.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates system diagrams for many systems in one pass, for nightly regeneration.
+ * <p>
+ * The diagram context of every requested system is read with one aggregated query
+ * ({@link TopologyQueryService#systemDiagrams}), then the diagrams are built and written concurrently on a bounded
+ * worker pool, either as files in an output directory or as artifacts. A semaphore sized to the pool and its queue
+ * makes callers wait for room rather than overflow the queue, so batches of any size run without rejections.
+ * Failures are reported per system and do not stop the batch.
+ */
+@Service
+public class DiagramBatchService {
+
+    private final TopologyQueryService topologyQueryService;
+    private final DiagramGenerationService diagramGenerationService;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore capacity;
+    private final Timer systemTimer;
+
+    public DiagramBatchService(TopologyQueryService topologyQueryService,
+                               DiagramGenerationService diagramGenerationService,
+                               MeterRegistry meterRegistry,
+                               @Value("${jdeploy.artifact.batch.workers:4}") int workers,
+                               @Value("${jdeploy.artifact.batch.queue-capacity:32}") int queueCapacity) {
+        this.topologyQueryService = Objects.requireNonNull(topologyQueryService, "topologyQueryService must not be null");
+        this.diagramGenerationService = Objects.requireNonNull(diagramGenerationService, "diagramGenerationService must not be null");
+        Objects.requireNonNull(meterRegistry, "meterRegistry must not be null");
+        if (workers < 1 || queueCapacity < 1) {
+            throw new PreconditionViolationException("jdeploy.artifact.batch workers and queue-capacity must be positive");
+        }
+        // A finishing task releases its permit before its worker is free again, so the queue holds the permits of
+        // the running tasks too.
+        this.capacity = new Semaphore(workers + queueCapacity);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(workers + queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "diagram-batch-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.systemTimer = Timer.builder("jdeploy.artifact.batch.system.duration")
+                .description("Time spent building and writing one system diagram of a batch")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Generates the system diagram of each of {@code systemNames}, or of every system when it is empty. With an
+     * {@code outputDirectory} each diagram is written to {@code <system>.puml} there; otherwise it is stored as an
+     * artifact.
+     */
+    public BatchResult generate(Collection<String> systemNames, Path outputDirectory) {
+        Objects.requireNonNull(systemNames, "systemNames must not be null");
+        long started = System.nanoTime();
+        Set<String> requested = new LinkedHashSet<>();
+        for (String systemName : systemNames) {
+            if (systemName == null || systemName.isBlank()) {
+                throw new PreconditionViolationException("system names must not be blank");
+            }
+            requested.add(systemName.trim());
+        }
+        if (outputDirectory != null) {
+            try {
+                Files.createDirectories(outputDirectory);
+            } catch (IOException ex) {
+                throw new IllegalStateException("Unable to create diagram output directory " + outputDirectory, ex);
+            }
+        }
+
+        List<TopologyQueryService.SystemDiagramView> views = topologyQueryService.systemDiagrams(requested);
+        long queryMillis = millisSince(started);
+
+        List<Future<SystemResult>> pending = new ArrayList<>(views.size());
+        Set<String> fileNames = new HashSet<>();
+        try {
+            for (TopologyQueryService.SystemDiagramView view : views) {
+                Path outputFile = outputDirectory == null ? null : outputDirectory.resolve(uniqueFileName(view.systemName(), fileNames));
+                capacity.acquire();
+                try {
+                    pending.add(executor.submit(() -> {
+                        try {
+                            return generate(view, outputFile);
+                        } finally {
+                            capacity.release();
+                        }
+                    }));
+                } catch (RuntimeException ex) {
+                    capacity.release();
+                    throw ex;
+                }
+            }
+            List<SystemResult> results = new ArrayList<>(requested.size());
+            for (Future<SystemResult> future : pending) {
+                results.add(future.get());
+            }
+            Set<String> found = new HashSet<>();
+            views.forEach(view -> found.add(view.systemName()));
+            for (String systemName : requested) {
+                if (!found.contains(systemName)) {
+                    results.add(new SystemResult(systemName, null, 0, "SoftwareSystem not found"));
+                }
+            }
+            int failed = (int) results.stream().filter(result -> result.error() != null).count();
+            return new BatchResult(results.size(), results.size() - failed, failed, queryMillis, millisSince(started), List.copyOf(results));
+        } catch (InterruptedException ex) {
+            // Diagrams already submitted still finish and release their permits; only their results are dropped.
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Diagram batch was interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Diagram batch failed", ex.getCause());
+        }
+    }
+
+    private SystemResult generate(TopologyQueryService.SystemDiagramView view, Path outputFile) {
+        long started = System.nanoTime();
+        try {
+            String output;
+            if (outputFile == null) {
+                output = diagramGenerationService.generateSystemDiagram(view).artifactId();
+            } else {
+                Files.writeString(outputFile, diagramGenerationService.buildSystemPlantUml(view));
+                output = outputFile.toString();
+            }
+            return new SystemResult(view.systemName(), output, millisSince(started), null);
+        } catch (IOException | RuntimeException ex) {
+            return new SystemResult(view.systemName(), null, millisSince(started), String.valueOf(ex.getMessage()));
+        } finally {
+            systemTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Distinct system names can map to the same file name once unsafe characters are replaced; later ones get a
+     * numeric suffix.
+     */
+    private static String uniqueFileName(String systemName, Set<String> taken) {
+        String base = DiagramGenerationService.fileNameSegment(systemName);
+        String candidate = base + ".puml";
+        for (int suffix = 2; !taken.add(candidate.toLowerCase(Locale.ROOT)); suffix++) {
+            candidate = base + "_" + suffix + ".puml";
+        }
+        return candidate;
+    }
+
+    private static long millisSince(long startedNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * @param queryMillis time spent reading the diagram context of all systems
+     * @param totalMillis time for the whole batch
+     */
+    public record BatchResult(int requested, int generated, int failed, long queryMillis, long totalMillis, List<SystemResult> systems) {
+    }
+
+    /**
+     * @param output artifact id or file path; {@code null} when generation failed
+     * @param error  failure message; {@code null} on success
+     */
+    public record SystemResult(String systemName, String output, long durationMillis, String error) {
+    }
+}
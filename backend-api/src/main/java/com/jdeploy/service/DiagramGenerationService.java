@@ -1,5 +1,6 @@
 package com.jdeploy.service;
 
+import com.jdeploy.artifact.ArtifactContentWriter;
 import com.jdeploy.artifact.ArtifactMetadata;
 import com.jdeploy.artifact.ArtifactStorage;
 import com.jdeploy.service.dto.DeploymentManifestDto;
@@ -7,20 +8,32 @@ import io.micrometer.observation.Observation;
 import io.micrometer.observation.ObservationRegistry;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 
 @Service
 public class DiagramGenerationService {
 
+    private static final String TITLE = "JDeploy Deployment Topology";
+    private static final Pattern ARTIFACT_NAME_UNSAFE = Pattern.compile("[^A-Za-z0-9._-]");
+
     private final ArtifactStorage artifactStorage;
     private final OperationMetricsService operationMetricsService;
     private final ObservationRegistry observationRegistry;
     private final TopologyQueryService topologyQueryService;
+    private final AtomicLong artifactSequence = new AtomicLong();
 
     public DiagramGenerationService(ArtifactStorage artifactStorage,
                                     ObservationRegistry observationRegistry,
@@ -36,12 +49,88 @@ public class DiagramGenerationService {
         if (manifest == null) {
             throw new PreconditionViolationException("manifest is required");
         }
+        return generate("", out -> writePlantUml(manifest, out));
+    }
+
+    /**
+     * Generates the deployment diagram of one software system, typically read from the graph by
+     * {@link GraphManifestReader#readSystem}. The artifact id and title name the system.
+     */
+    public ArtifactMetadata generateSystemDeploymentDiagram(String systemName, DeploymentManifestDto manifest) {
+        if (systemName == null || systemName.isBlank()) {
+            throw new PreconditionViolationException("systemName is required");
+        }
+        if (manifest == null) {
+            throw new PreconditionViolationException("manifest is required");
+        }
+        return generate("-system-" + fileNameSegment(systemName), out -> writeDiagram(manifest, TITLE + " - system " + systemName, out));
+    }
+
+    /**
+     * Stores the system diagram of {@link #buildSystemPlantUml(TopologyQueryService.SystemDiagramView)} as an
+     * artifact.
+     */
+    public ArtifactMetadata generateSystemDiagram(TopologyQueryService.SystemDiagramView systemDiagram) {
+        if (systemDiagram == null) {
+            throw new PreconditionViolationException("systemDiagram is required");
+        }
+        return generate("-system-summary-" + fileNameSegment(systemDiagram.systemName()),
+                out -> out.append(buildSystemPlantUml(systemDiagram)));
+    }
+
+    /**
+     * {@code name} with every character that is unsafe in an artifact or file name replaced by {@code _}.
+     */
+    static String fileNameSegment(String name) {
+        return ARTIFACT_NAME_UNSAFE.matcher(name.trim()).replaceAll("_");
+    }
+
+    /**
+     * {@code value} made safe to write into a PlantUML line. Line breaks and other control characters become spaces,
+     * so a manifest string cannot start a line of its own, and with it a preprocessor directive such as
+     * {@code !include}; double quotes become single quotes, so it cannot close a quoted label early.
+     */
+    static String text(String value) {
+        if (value == null) {
+            return "null";
+        }
+        StringBuilder escaped = null;
+        for (int index = 0; index < value.length(); index++) {
+            char c = value.charAt(index);
+            char replacement = c == '"' ? '\''
+                    : Character.isISOControl(c) || c == '\u2028' || c == '\u2029' ? ' '
+                    : c;
+            if (replacement != c && escaped == null) {
+                escaped = new StringBuilder(value.length()).append(value, 0, index);
+            }
+            if (escaped != null) {
+                escaped.append(replacement);
+            }
+        }
+        return escaped == null ? value : escaped.toString();
+    }
+
+    /**
+     * Generates a partitioned deployment diagram and stores it as one artifact. See
+     * {@link #writePartitionedPlantUml}.
+     */
+    public ArtifactMetadata generatePartitionedDeploymentDiagram(DeploymentManifestDto manifest, DiagramPartitioning partitioning) {
+        if (manifest == null) {
+            throw new PreconditionViolationException("manifest is required");
+        }
+        if (partitioning == null) {
+            throw new PreconditionViolationException("partitioning is required");
+        }
+        return generate("-by-" + partitioning.parameter(), out -> writePartitionedPlantUml(manifest, partitioning, out));
+    }
+
+    private ArtifactMetadata generate(String artifactSuffix, ArtifactContentWriter contentWriter) {
         try {
             return Observation.createNotStarted("jdeploy.artifact.generate", observationRegistry)
                     .observe(() -> {
-                        String plantUml = buildPlantUml(manifest);
-                        String artifactId = "deployment-topology-" + Instant.now().toEpochMilli() + ".puml";
-                        ArtifactMetadata metadata = artifactStorage.create(artifactId, plantUml, Duration.ofDays(7));
+                        String artifactId = "deployment-topology-" + Instant.now().toEpochMilli() + "-" + artifactSequence.incrementAndGet()
+                                + artifactSuffix + ".puml";
+                        ArtifactMetadata metadata = artifactStorage.createStreaming(artifactId, Duration.ofDays(7), contentWriter);
                         if (metadata == null) {
                             throw new PostconditionViolationException("Artifact storage returned null metadata for generated deployment diagram");
                         }
@@ -55,15 +144,103 @@ public class DiagramGenerationService {
     }
 
     public String buildPlantUml(DeploymentManifestDto manifest) {
+        StringBuilder builder = new StringBuilder();
+        try {
+            writePlantUml(manifest, builder);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to render deployment diagram", ex);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Writes the deployment diagram for {@code manifest} to {@code out} as it is generated, without assembling the
+     * document in memory first. Apart from the output itself, memory held during a render grows with the number of
+     * distinct identifiers (the alias table), not with the size of the diagram.
+     */
+    public void writePlantUml(DeploymentManifestDto manifest, Appendable out) throws IOException {
         if (manifest == null) {
             throw new PreconditionViolationException("manifest is required");
         }
+        writeDiagram(manifest, TITLE, out);
+    }
 
+    public String buildPartitionedPlantUml(DeploymentManifestDto manifest, DiagramPartitioning partitioning) {
         StringBuilder builder = new StringBuilder();
-        builder.append("@startuml\n");
-        builder.append("title JDeploy Deployment Topology\n\n");
-        builder.append("skinparam shadowing false\n");
-        builder.append("left to right direction\n\n");
+        try {
+            writePartitionedPlantUml(manifest, partitioning, builder);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to render partitioned deployment diagram", ex);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Writes the topology as a bundle of diagrams in one PlantUML document: an overview with one element per
+     * partition and the links between partitions, followed by one diagram per partition in the same layout as
+     * {@link #writePlantUml}. Each overview element links to its partition's page ({@code ?format=svg&page=n}), so
+     * rendered overviews can be navigated. Layout cost grows super-linearly with diagram size, so several small
+     * pages render far faster than one large diagram.
+     * <p>
+     * Partition diagrams are generated in parallel and buffered, so unlike {@link #writePlantUml} this holds the
+     * whole document in memory before writing it.
+     */
+    public void writePartitionedPlantUml(DeploymentManifestDto manifest, DiagramPartitioning partitioning, Appendable out) throws IOException {
+        if (manifest == null) {
+            throw new PreconditionViolationException("manifest is required");
+        }
+        if (partitioning == null) {
+            throw new PreconditionViolationException("partitioning is required");
+        }
+        DiagramPartitioner.Plan plan = DiagramPartitioner.plan(manifest, partitioning);
+        List<DiagramPartitioner.Partition> partitions = plan.partitions();
+        List<String> pages = IntStream.range(0, partitions.size())
+                .parallel()
+                .mapToObj(index -> {
+                    StringBuilder page = new StringBuilder();
+                    try {
+                        writeDiagram(partitions.get(index).manifest(), TITLE + " - " + partitions.get(index).label(), page);
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                    return page.toString();
+                })
+                .toList();
+
+        PlantUmlAliases aliases = new PlantUmlAliases();
+        out.append("@startuml\n");
+        out.append("title ").append(TITLE).append(" - overview by ").append(partitioning.parameter()).append("\n\n");
+        out.append("skinparam shadowing false\n");
+        out.append("left to right direction\n\n");
+        for (int index = 0; index < partitions.size(); index++) {
+            DiagramPartitioner.Partition partition = partitions.get(index);
+            out.append("rectangle \"").append(text(partition.label())).append("\\n")
+                    .append(String.valueOf(partition.nodeCount())).append(" nodes, ")
+                    .append(String.valueOf(partition.componentCount())).append(" components\" as ")
+                    .append(aliases.alias(PlantUmlAliases.Kind.PARTITION, String.valueOf(index)))
+                    .append(" [[?format=svg&page=").append(String.valueOf(index + 1)).append("]]\n");
+        }
+        out.append("\n");
+        for (DiagramPartitioner.PartitionEdge edge : plan.edges()) {
+            out.append(aliases.alias(PlantUmlAliases.Kind.PARTITION, String.valueOf(edge.from())))
+                    .append(" --> ")
+                    .append(aliases.alias(PlantUmlAliases.Kind.PARTITION, String.valueOf(edge.to())))
+                    .append(" : ").append(String.valueOf(edge.links())).append(edge.links() == 1 ? " link, " : " links, ")
+                    .append(String.valueOf(edge.minBandwidthMbps())).append("Mbps min/")
+                    .append(String.valueOf(edge.maxLatencyMs())).append("ms max\n");
+        }
+        out.append("@enduml\n");
+        for (String page : pages) {
+            out.append("\n").append(page);
+        }
+    }
+
+    private void writeDiagram(DeploymentManifestDto manifest, String title, Appendable out) throws IOException {
+        PlantUmlAliases aliases = new PlantUmlAliases();
+        out.append("@startuml\n");
+        out.append("title ").append(text(title)).append("\n\n");
+        out.append("skinparam shadowing false\n");
+        out.append("left to right direction\n\n");
 
         Map<String, DeploymentManifestDto.ClusterDto> clustersByNode = new HashMap<>();
         for (DeploymentManifestDto.ClusterDto cluster : manifest.clusters()) {
@@ -73,119 +250,126 @@ public class DiagramGenerationService {
         }
 
         for (DeploymentManifestDto.SubnetDto subnet : manifest.subnets()) {
-            builder.append("frame \"").append(subnet.cidr()).append(" [VLAN ").append(subnet.vlan())
-                    .append("]\" as subnet_").append(alias(subnet.cidr())).append(" {\n");
-            Map<String, StringBuilder> nodesByCluster = new HashMap<>();
-            for (DeploymentManifestDto.HardwareNodeDto node : subnet.nodes()) {
-                String nodeAlias = nodeAlias(node.hostname());
-                StringBuilder nodeLine = new StringBuilder();
-                nodeLine.append("    ").append(nodeKeyword(node.type())).append(" \"")
-                        .append(node.hostname()).append("\\n")
-                        .append(node.ipAddress()).append("\" as ")
-                        .append(nodeAlias)
-                        .append(" <<").append(nodeStereotype(node.type())).append(">>\n");
+            out.append("frame \"").append(text(subnet.cidr())).append(" [VLAN ").append(text(subnet.vlan()))
+                    .append("]\" as ").append(aliases.alias(PlantUmlAliases.Kind.SUBNET, subnet.cidr())).append(" {\n");
 
+            // Unclustered nodes are written as they come; clustered ones are collected per cluster and grouped afterwards.
+            Map<String, ClusterNodes> subnetClusters = new LinkedHashMap<>();
+            for (DeploymentManifestDto.HardwareNodeDto node : subnet.nodes()) {
                 DeploymentManifestDto.ClusterDto cluster = clustersByNode.get(node.hostname());
                 if (cluster == null) {
-                    builder.append(nodeLine);
-                    continue;
+                    appendNode(out, aliases, node);
+                } else {
+                    subnetClusters.computeIfAbsent(clusterKey(cluster), key -> new ClusterNodes(cluster, new ArrayList<>()))
+                            .nodes().add(node);
                 }
-
-                String clusterKey = cluster.type() + ":" + cluster.name();
-                nodesByCluster.computeIfAbsent(clusterKey,
-                                key -> new StringBuilder("  package \"")
-                                        .append(cluster.name())
-                                        .append(" [")
-                                        .append(cluster.type())
-                                        .append("]\" as cluster_")
-                                        .append(alias(cluster.name()))
-                                        .append(" {\n"))
-                        .append(nodeLine);
             }
-            for (StringBuilder clusterNodes : nodesByCluster.values()) {
-                builder.append(clusterNodes).append("  }\n");
+            for (ClusterNodes clusterNodes : subnetClusters.values()) {
+                DeploymentManifestDto.ClusterDto cluster = clusterNodes.cluster();
+                out.append("  package \"").append(text(cluster.name())).append(" [").append(text(cluster.type()))
+                        .append("]\" as ").append(aliases.alias(PlantUmlAliases.Kind.CLUSTER, cluster.name())).append(" {\n");
+                for (DeploymentManifestDto.HardwareNodeDto node : clusterNodes.nodes()) {
+                    appendNode(out, aliases, node);
+                }
+                out.append("  }\n");
             }
-            builder.append("}\n\n");
+            out.append("}\n\n");
         }
 
         for (DeploymentManifestDto.SoftwareSystemDto system : manifest.systems()) {
-            builder.append("package \"").append(system.name()).append("\" as system_")
-                    .append(alias(system.name())).append(" {\n");
+            out.append("package \"").append(text(system.name())).append("\" as ")
+                    .append(aliases.alias(PlantUmlAliases.Kind.SYSTEM, system.name())).append(" {\n");
             for (DeploymentManifestDto.SoftwareComponentDto component : system.components()) {
-                String componentAlias = "component_" + alias(system.name() + "_" + component.name());
-                String artifactAlias = "artifact_" + alias(system.name() + "_" + component.name() + "_" + component.version());
+                String componentAlias = aliases.alias(PlantUmlAliases.Kind.COMPONENT, system.name(), component.name());
+                String artifactAlias = aliases.alias(PlantUmlAliases.Kind.ARTIFACT, system.name(), component.name(),
+                        component.version());
 
-                builder.append("  component \"").append(component.name()).append("\" as ")
+                out.append("  component \"").append(text(component.name())).append("\" as ")
                         .append(componentAlias).append("\n");
-                builder.append("  artifact \"").append(component.name()).append(":")
-                        .append(component.version()).append("\" as ")
+                out.append("  artifact \"").append(text(component.name())).append(":")
+                        .append(text(component.version())).append("\" as ")
                         .append(artifactAlias).append("\n");
-                builder.append("  ").append(componentAlias).append(" --> ")
+                out.append("  ").append(componentAlias).append(" --> ")
                         .append(artifactAlias).append(" : packaged as\n");
 
                 for (DeploymentManifestDto.DeploymentTargetDto deployment : component.deployments()) {
-                    builder.append("  ").append(artifactAlias).append(" --> ")
-                            .append(nodeAlias(deployment.hostname()))
-                            .append(" : deploy@").append(deployment.environment()).append("\n");
+                    String targetAlias = aliases.node(deployment.hostname());
+                    out.append("  ").append(artifactAlias).append(" --> ")
+                            .append(targetAlias)
+                            .append(" : deploy@").append(text(deployment.environment())).append("\n");
                     if (deployment.namespace() != null && !deployment.namespace().isBlank()) {
-                        builder.append("  note right of ").append(nodeAlias(deployment.hostname()))
-                                .append(" : ns/").append(deployment.namespace())
-                                .append(" in ").append(deployment.cluster())
+                        out.append("  note right of ").append(targetAlias)
+                                .append(" : ns/").append(text(deployment.namespace()))
+                                .append(" in ").append(text(deployment.cluster()))
                                 .append("\n");
                     }
                 }
             }
-            builder.append("}\n\n");
+            out.append("}\n\n");
         }
 
         for (DeploymentManifestDto.NetworkLinkDto link : manifest.links()) {
-            builder.append(nodeAlias(link.fromHostname()))
+            out.append(aliases.node(link.fromHostname()))
                     .append(" --> ")
-                    .append(nodeAlias(link.toHostname()))
+                    .append(aliases.node(link.toHostname()))
                     .append(" : ")
-                    .append(link.bandwidthMbps()).append("Mbps/")
-                    .append(link.latencyMs()).append("ms\n");
-        }
-
-        builder.append("\nlegend left\n");
-        builder.append("  <<physical>> Physical node\n");
-        builder.append("  <<vm>> Virtual machine\n");
-        builder.append("  <<grid>> Grid/cluster node\n");
-        builder.append("  <<k8s>> Kubernetes worker/control-plane\n");
-        builder.append("  <<storage>> Storage appliance\n");
-        builder.append("  <<switch>> Network switch\n");
-        builder.append("endlegend\n");
-        builder.append("@enduml\n");
-        return builder.toString();
+                    .append(String.valueOf(link.bandwidthMbps())).append("Mbps/")
+                    .append(String.valueOf(link.latencyMs())).append("ms\n");
+        }
+
+        out.append("\nlegend left\n");
+        out.append("  <<physical>> Physical node\n");
+        out.append("  <<vm>> Virtual machine\n");
+        out.append("  <<grid>> Grid/cluster node\n");
+        out.append("  <<k8s>> Kubernetes worker/control-plane\n");
+        out.append("  <<storage>> Storage appliance\n");
+        out.append("  <<switch>> Network switch\n");
+        out.append("endlegend\n");
+        out.append("@enduml\n");
+    }
+
+    private void appendNode(Appendable out, PlantUmlAliases aliases, DeploymentManifestDto.HardwareNodeDto node) throws IOException {
+        out.append("    ").append(nodeKeyword(node.type())).append(" \"")
+                .append(text(node.hostname())).append("\\n")
+                .append(text(node.ipAddress())).append("\" as ")
+                .append(aliases.node(node.hostname()))
+                .append(" <<").append(nodeStereotype(node.type())).append(">>\n");
     }
 
+    private static String clusterKey(DeploymentManifestDto.ClusterDto cluster) {
+        return cluster.type() + ":" + cluster.name();
+    }
+
+    private record ClusterNodes(DeploymentManifestDto.ClusterDto cluster,
+                                List<DeploymentManifestDto.HardwareNodeDto> nodes) {
+    }
 
     public String buildSystemPlantUml(String systemId) {
-        TopologyQueryService.SystemDiagramView systemDiagram = topologyQueryService.systemDiagram(systemId);
+        return buildSystemPlantUml(topologyQueryService.systemDiagram(systemId));
+    }
+
+    public String buildSystemPlantUml(TopologyQueryService.SystemDiagramView systemDiagram) {
+        PlantUmlAliases aliases = new PlantUmlAliases();
         StringBuilder builder = new StringBuilder();
         builder.append("@startuml\n");
-        builder.append("title System Deployment: ").append(systemDiagram.systemName()).append("\n\n");
+        builder.append("title System Deployment: ").append(text(systemDiagram.systemName())).append("\n\n");
         builder.append("left to right direction\n\n");
 
-        builder.append("rectangle \"System: ").append(systemDiagram.systemName()).append("\" as system\n");
+        builder.append("rectangle \"System: ").append(text(systemDiagram.systemName())).append("\" as system\n");
         for (String component : systemDiagram.components()) {
-            String alias = "component_" + alias(component);
-            builder.append("component \"" ).append(component).append("\" as ").append(alias).append("\n");
+            String alias = aliases.alias(PlantUmlAliases.Kind.COMPONENT, component);
+            builder.append("component \"" ).append(text(component)).append("\" as ").append(alias).append("\n");
             builder.append("system --> ").append(alias).append("\n");
         }
 
         builder.append("\ncloud \"Target Nodes\" as nodes {\n");
         for (String node : systemDiagram.targetNodes()) {
-            builder.append("  node \"" ).append(node).append("\" as node_").append(alias(node)).append("\n");
+            builder.append("  node \"" ).append(text(node)).append("\" as ").append(aliases.node(node)).append("\n");
         }
         builder.append("}\n\n@enduml\n");
         return builder.toString();
     }
 
-    private String nodeAlias(String hostname) {
-        return "node_" + alias(hostname);
-    }
-
     private String nodeKeyword(String nodeType) {
         return switch (normalizedType(nodeType)) {
             case "SWITCH" -> "queue";
@@ -209,8 +393,4 @@ public class DiagramGenerationService {
     private String normalizedType(String nodeType) {
         return nodeType == null ? "" : nodeType.trim().toUpperCase(Locale.ROOT);
     }
-
-    private String alias(String raw) {
-        return raw.replaceAll("[^a-zA-Z0-9_]", "_");
-    }
 }
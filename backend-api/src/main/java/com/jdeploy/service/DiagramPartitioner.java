@@ -0,0 +1,249 @@
+package com.jdeploy.service;
+
+import com.jdeploy.service.dto.DeploymentManifestDto;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Splits a manifest into partitions for a partitioned deployment diagram.
+ * <p>
+ * Each partition is a manifest restricted to the partition's nodes: subnets and clusters keep only those nodes,
+ * components keep only deployments onto them, and only links between two of them remain. Every node has one
+ * home partition, the first it was assigned to; links whose endpoints live in different partitions (and that no
+ * single partition contains) are aggregated into {@link PartitionEdge}s for the overview diagram. Partitions
+ * appear in manifest order.
+ * <p>
+ * Once nodes are assigned, one pass over the manifest drops every node, deployment and link into the buckets
+ * of the partitions holding its hosts, so the work grows with the manifest rather than with partitions times
+ * manifest. The partition manifests are then assembled from their buckets in parallel.
+ */
+final class DiagramPartitioner {
+
+    private DiagramPartitioner() {
+    }
+
+    static Plan plan(DeploymentManifestDto manifest, DiagramPartitioning partitioning) {
+        Map<String, PartitionBuilder> builders = new LinkedHashMap<>();
+        Map<String, List<PartitionBuilder>> partitionsByHostname = new HashMap<>();
+
+        if (partitioning == DiagramPartitioning.SYSTEM) {
+            List<DeploymentManifestDto.SoftwareSystemDto> systems = manifest.systems();
+            for (int systemIndex = 0; systemIndex < systems.size(); systemIndex++) {
+                DeploymentManifestDto.SoftwareSystemDto system = systems.get(systemIndex);
+                PartitionBuilder builder = builder(builders, "system:" + system.name(), "system " + system.name());
+                builder.systemIndexes.add(systemIndex);
+                for (DeploymentManifestDto.SoftwareComponentDto component : system.components()) {
+                    for (DeploymentManifestDto.DeploymentTargetDto deployment : component.deployments()) {
+                        assign(builder, deployment.hostname(), partitionsByHostname);
+                    }
+                }
+            }
+            for (DeploymentManifestDto.SubnetDto subnet : manifest.subnets()) {
+                for (DeploymentManifestDto.HardwareNodeDto node : subnet.nodes()) {
+                    if (!partitionsByHostname.containsKey(node.hostname())) {
+                        assign(builder(builders, "unassigned", "nodes without deployments"), node.hostname(), partitionsByHostname);
+                    }
+                }
+            }
+        } else {
+            Map<String, DeploymentManifestDto.ClusterDto> clustersByNode = new HashMap<>();
+            for (DeploymentManifestDto.ClusterDto cluster : manifest.clusters()) {
+                for (String hostname : cluster.nodes()) {
+                    clustersByNode.put(hostname, cluster);
+                }
+            }
+            for (DeploymentManifestDto.SubnetDto subnet : manifest.subnets()) {
+                for (DeploymentManifestDto.HardwareNodeDto node : subnet.nodes()) {
+                    PartitionBuilder builder = switch (partitioning) {
+                        case SUBNET -> builder(builders, subnet.cidr(), "subnet " + subnet.cidr() + " [VLAN " + subnet.vlan() + "]");
+                        case ROUTING_ZONE -> subnet.routingZone() == null || subnet.routingZone().isBlank()
+                                ? builder(builders, "", "no routing zone")
+                                : builder(builders, subnet.routingZone(), "routing zone " + subnet.routingZone());
+                        case CLUSTER -> {
+                            DeploymentManifestDto.ClusterDto cluster = clustersByNode.get(node.hostname());
+                            yield cluster == null
+                                    ? builder(builders, "", "unclustered nodes")
+                                    : builder(builders, cluster.type() + ":" + cluster.name(), "cluster " + cluster.name() + " [" + cluster.type() + "]");
+                        }
+                        case SYSTEM -> throw new IllegalStateException("System partitions are assigned from deployments");
+                    };
+                    assign(builder, node.hostname(), partitionsByHostname);
+                }
+            }
+        }
+
+        List<PartitionBuilder> ordered = List.copyOf(builders.values());
+        bucket(manifest, partitionsByHostname);
+        boolean bySystem = partitioning == DiagramPartitioning.SYSTEM;
+        List<Partition> partitions = ordered.parallelStream()
+                .map(builder -> builder.build(manifest, bySystem))
+                .toList();
+        return new Plan(partitions, edges(manifest, ordered, partitionsByHostname));
+    }
+
+    /**
+     * Hands every subnet node, cluster member, deployment and link to the partitions holding its hosts. Buckets
+     * are filled in manifest order, which keeps each partition manifest in manifest order.
+     */
+    private static void bucket(DeploymentManifestDto manifest, Map<String, List<PartitionBuilder>> partitionsByHostname) {
+        List<DeploymentManifestDto.SubnetDto> subnets = manifest.subnets();
+        for (int subnetIndex = 0; subnetIndex < subnets.size(); subnetIndex++) {
+            for (DeploymentManifestDto.HardwareNodeDto node : subnets.get(subnetIndex).nodes()) {
+                for (PartitionBuilder partition : partitionsOf(node.hostname(), partitionsByHostname)) {
+                    partition.subnetNodes.computeIfAbsent(subnetIndex, ignored -> new ArrayList<>()).add(node);
+                }
+            }
+        }
+
+        List<DeploymentManifestDto.ClusterDto> clusters = manifest.clusters();
+        for (int clusterIndex = 0; clusterIndex < clusters.size(); clusterIndex++) {
+            for (String hostname : clusters.get(clusterIndex).nodes()) {
+                for (PartitionBuilder partition : partitionsOf(hostname, partitionsByHostname)) {
+                    partition.clusterNodes.computeIfAbsent(clusterIndex, ignored -> new ArrayList<>()).add(hostname);
+                }
+            }
+        }
+
+        List<DeploymentManifestDto.SoftwareSystemDto> systems = manifest.systems();
+        for (int systemIndex = 0; systemIndex < systems.size(); systemIndex++) {
+            List<DeploymentManifestDto.SoftwareComponentDto> components = systems.get(systemIndex).components();
+            for (int componentIndex = 0; componentIndex < components.size(); componentIndex++) {
+                for (DeploymentManifestDto.DeploymentTargetDto deployment : components.get(componentIndex).deployments()) {
+                    for (PartitionBuilder partition : partitionsOf(deployment.hostname(), partitionsByHostname)) {
+                        partition.deployments
+                                .computeIfAbsent(systemIndex, ignored -> new LinkedHashMap<>())
+                                .computeIfAbsent(componentIndex, ignored -> new ArrayList<>())
+                                .add(deployment);
+                    }
+                }
+            }
+        }
+
+        for (DeploymentManifestDto.NetworkLinkDto link : manifest.links()) {
+            for (PartitionBuilder partition : partitionsOf(link.fromHostname(), partitionsByHostname)) {
+                if (partition.hostnames.contains(link.toHostname())) {
+                    partition.links.add(link);
+                }
+            }
+        }
+    }
+
+    private static List<PartitionBuilder> partitionsOf(String hostname, Map<String, List<PartitionBuilder>> partitionsByHostname) {
+        return partitionsByHostname.getOrDefault(hostname, List.of());
+    }
+
+    private static List<PartitionEdge> edges(DeploymentManifestDto manifest,
+                                             List<PartitionBuilder> partitions,
+                                             Map<String, List<PartitionBuilder>> partitionsByHostname) {
+        Map<List<Integer>, PartitionEdge> edges = new LinkedHashMap<>();
+        for (DeploymentManifestDto.NetworkLinkDto link : manifest.links()) {
+            Integer from = home(link.fromHostname(), partitionsByHostname);
+            Integer to = home(link.toHostname(), partitionsByHostname);
+            if (from == null || to == null || from.equals(to)
+                    || partitions.get(from).hostnames.contains(link.toHostname())
+                    || partitions.get(to).hostnames.contains(link.fromHostname())) {
+                continue;
+            }
+            edges.merge(List.of(from, to),
+                    new PartitionEdge(from, to, 1, link.bandwidthMbps(), link.latencyMs()),
+                    (existing, added) -> new PartitionEdge(from, to, existing.links() + 1,
+                            Math.min(existing.minBandwidthMbps(), added.minBandwidthMbps()),
+                            Math.max(existing.maxLatencyMs(), added.maxLatencyMs())));
+        }
+        return List.copyOf(edges.values());
+    }
+
+    private static PartitionBuilder builder(Map<String, PartitionBuilder> builders, String key, String label) {
+        return builders.computeIfAbsent(key, ignored -> new PartitionBuilder(builders.size(), label));
+    }
+
+    /**
+     * Adds the host to the partition. The first partition a host is added to is its home partition.
+     */
+    private static void assign(PartitionBuilder builder, String hostname, Map<String, List<PartitionBuilder>> partitionsByHostname) {
+        if (builder.hostnames.add(hostname)) {
+            partitionsByHostname.computeIfAbsent(hostname, ignored -> new ArrayList<>()).add(builder);
+        }
+    }
+
+    private static Integer home(String hostname, Map<String, List<PartitionBuilder>> partitionsByHostname) {
+        List<PartitionBuilder> partitions = partitionsByHostname.get(hostname);
+        return partitions == null ? null : partitions.getFirst().index;
+    }
+
+    /**
+     * @param partitions sub-diagrams in page order
+     * @param edges      aggregated links between partitions, indexed into {@code partitions}
+     */
+    record Plan(List<Partition> partitions, List<PartitionEdge> edges) {
+    }
+
+    record Partition(String label, DeploymentManifestDto manifest, int nodeCount, int componentCount) {
+    }
+
+    record PartitionEdge(int from, int to, int links, int minBandwidthMbps, int maxLatencyMs) {
+    }
+
+    private static final class PartitionBuilder {
+
+        private final int index;
+        private final String label;
+        private final Set<String> hostnames = new LinkedHashSet<>();
+        private final List<Integer> systemIndexes = new ArrayList<>();
+        private final Map<Integer, List<DeploymentManifestDto.HardwareNodeDto>> subnetNodes = new LinkedHashMap<>();
+        private final Map<Integer, List<String>> clusterNodes = new LinkedHashMap<>();
+        private final Map<Integer, Map<Integer, List<DeploymentManifestDto.DeploymentTargetDto>>> deployments = new LinkedHashMap<>();
+        private final List<DeploymentManifestDto.NetworkLinkDto> links = new ArrayList<>();
+
+        private PartitionBuilder(int index, String label) {
+            this.index = index;
+            this.label = label;
+        }
+
+        /**
+         * With {@code bySystem}, the partition holds its systems' components whether or not they are deployed;
+         * otherwise it holds the components deployed onto its nodes.
+         */
+        private Partition build(DeploymentManifestDto manifest, boolean bySystem) {
+            List<DeploymentManifestDto.SubnetDto> subnets = new ArrayList<>();
+            subnetNodes.forEach((subnetIndex, nodes) -> {
+                DeploymentManifestDto.SubnetDto subnet = manifest.subnets().get(subnetIndex);
+                subnets.add(new DeploymentManifestDto.SubnetDto(subnet.cidr(), subnet.vlan(), subnet.routingZone(), nodes));
+            });
+
+            List<DeploymentManifestDto.ClusterDto> clusters = new ArrayList<>();
+            clusterNodes.forEach((clusterIndex, nodes) -> {
+                DeploymentManifestDto.ClusterDto cluster = manifest.clusters().get(clusterIndex);
+                clusters.add(new DeploymentManifestDto.ClusterDto(cluster.name(), cluster.type(), nodes, cluster.namespaces()));
+            });
+
+            List<DeploymentManifestDto.SoftwareSystemDto> systemDtos = new ArrayList<>();
+            int componentCount = 0;
+            for (int systemIndex : bySystem ? systemIndexes : deployments.keySet()) {
+                DeploymentManifestDto.SoftwareSystemDto system = manifest.systems().get(systemIndex);
+                Map<Integer, List<DeploymentManifestDto.DeploymentTargetDto>> deployed = deployments.getOrDefault(systemIndex, Map.of());
+                List<DeploymentManifestDto.SoftwareComponentDto> components = new ArrayList<>();
+                for (int componentIndex = 0; componentIndex < system.components().size(); componentIndex++) {
+                    List<DeploymentManifestDto.DeploymentTargetDto> targets = deployed.getOrDefault(componentIndex, List.of());
+                    if (bySystem || !targets.isEmpty()) {
+                        DeploymentManifestDto.SoftwareComponentDto component = system.components().get(componentIndex);
+                        components.add(new DeploymentManifestDto.SoftwareComponentDto(component.name(), component.version(), targets));
+                    }
+                }
+                if (!components.isEmpty()) {
+                    systemDtos.add(new DeploymentManifestDto.SoftwareSystemDto(system.name(), components));
+                    componentCount += components.size();
+                }
+            }
+
+            DeploymentManifestDto partitionManifest = new DeploymentManifestDto(subnets, clusters, manifest.environments(), systemDtos, links);
+            return new Partition(label, partitionManifest, hostnames.size(), componentCount);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.jdeploy.service;
+
+import java.util.Locale;
+
+/**
+ * How a partitioned deployment diagram splits the topology into sub-diagrams.
+ */
+public enum DiagramPartitioning {
+
+    /** One sub-diagram per subnet. */
+    SUBNET("subnet"),
+    /** One sub-diagram per subnet routing zone. */
+    ROUTING_ZONE("routing-zone"),
+    /** One sub-diagram per cluster, plus one for nodes outside any cluster. */
+    CLUSTER("cluster"),
+    /** One sub-diagram per software system with the nodes it deploys to, plus one for nodes without deployments. */
+    SYSTEM("system");
+
+    private final String parameter;
+
+    DiagramPartitioning(String parameter) {
+        this.parameter = parameter;
+    }
+
+    public static DiagramPartitioning fromParameter(String value) {
+        String normalized = value == null ? "" : value.trim().toLowerCase(Locale.ROOT).replace('_', '-');
+        for (DiagramPartitioning partitioning : values()) {
+            if (partitioning.parameter.equals(normalized)) {
+                return partitioning;
+            }
+        }
+        throw new PreconditionViolationException("Unsupported diagram partitioning: " + value
+                + " (expected subnet, routing-zone, cluster or system)");
+    }
+
+    public String parameter() {
+        return parameter;
+    }
+}
@@ -0,0 +1,393 @@
+package com.jdeploy.service;
+
+import com.jdeploy.artifact.ArtifactMetadata;
+import com.jdeploy.artifact.ArtifactStorage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import net.sourceforge.plantuml.FileFormat;
+import net.sourceforge.plantuml.FileFormatOption;
+import net.sourceforge.plantuml.SourceStringReader;
+import net.sourceforge.plantuml.security.SecurityProfile;
+import net.sourceforge.plantuml.security.SecurityUtils;
+import net.sourceforge.plantuml.core.DiagramDescription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Renders stored PlantUML artifacts to SVG or PNG on a bounded worker pool.
+ * <p>
+ * Rendered images are cached under {@code jdeploy.artifact.render.cache-path} as {@code <contentHash>.<format>}
+ * ({@code <contentHash>.<page>.<format>} for later pages of multi-diagram documents), so an artifact is rendered
+ * once per distinct content, page and format no matter how often it is requested, and
+ * concurrent requests for the same image share one render. Images of content no live artifact references any
+ * more are swept periodically.
+ * <p>
+ * Renders are guarded so that one oversized diagram cannot take the service down: sources whose decoded content
+ * exceeds {@code max-source-size} are refused, compressed ones without inflating more than that, a render only starts while at least {@code min-free-heap} of heap is
+ * available, and callers stop waiting after {@code timeout}. A timed-out render keeps running, because other
+ * callers may share it, and a retry for the same image joins it instead of starting another. When every
+ * worker is busy and the queue is full, or a guard trips, rendering fails with
+ * {@link DiagramRenderUnavailableException} instead of blocking the caller. PNG dimensions are additionally
+ * capped by PlantUML's own {@code PLANTUML_LIMIT_SIZE}.
+ * <p>
+ * Diagrams embed manifest strings, so PlantUML runs with its {@code SANDBOX} security profile: {@code !include},
+ * {@code !includeurl} and the other directives that read local files or URLs are refused.
+ */
+@Service
+public class DiagramRenderService {
+
+    private static final Logger log = LoggerFactory.getLogger(DiagramRenderService.class);
+    private static final String PARTIAL_SUFFIX = ".partial";
+
+    private final ArtifactStorage artifactStorage;
+    private final Path cachePath;
+    private final Duration timeout;
+    private final long maxSourceBytes;
+    private final long minFreeHeapBytes;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, RenderTask> inFlight = new ConcurrentHashMap<>();
+    private final Map<RenderFormat, Timer> renderTimers = new EnumMap<>(RenderFormat.class);
+    private final Counter cacheHits;
+    private final Counter rejected;
+
+    public DiagramRenderService(ArtifactStorage artifactStorage,
+                                MeterRegistry meterRegistry,
+                                @Value("${jdeploy.artifact.render.cache-path:${jdeploy.artifact.uml-output-path:examples/uml}/.rendered}") String cachePath,
+                                @Value("${jdeploy.artifact.render.workers:2}") int workers,
+                                @Value("${jdeploy.artifact.render.queue-capacity:8}") int queueCapacity,
+                                @Value("${jdeploy.artifact.render.timeout:PT60S}") Duration timeout,
+                                @Value("${jdeploy.artifact.render.max-source-size:8MB}") DataSize maxSourceSize,
+                                @Value("${jdeploy.artifact.render.min-free-heap:256MB}") DataSize minFreeHeap) {
+        this.artifactStorage = Objects.requireNonNull(artifactStorage, "artifactStorage must not be null");
+        Objects.requireNonNull(meterRegistry, "meterRegistry must not be null");
+        this.cachePath = Path.of(Objects.requireNonNull(cachePath, "cachePath must not be null"));
+        if (workers < 1 || queueCapacity < 1) {
+            throw new PreconditionViolationException("jdeploy.artifact.render workers and queue-capacity must be positive");
+        }
+        if (timeout == null || timeout.isNegative() || timeout.isZero()) {
+            throw new PreconditionViolationException("jdeploy.artifact.render.timeout must be positive");
+        }
+        if (maxSourceSize == null || maxSourceSize.toBytes() < 1 || minFreeHeap == null || minFreeHeap.isNegative()) {
+            throw new PreconditionViolationException("jdeploy.artifact.render.max-source-size must be positive and min-free-heap must not be negative");
+        }
+        sandboxPlantUml();
+        this.timeout = timeout;
+        this.maxSourceBytes = maxSourceSize.toBytes();
+        this.minFreeHeapBytes = minFreeHeap.toBytes();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "diagram-render-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.cacheHits = Counter.builder("jdeploy.artifact.render.cache.hits")
+                .description("Diagram render requests answered from the render cache")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("jdeploy.artifact.render.rejected")
+                .description("Diagram render requests refused because the render pool was saturated, heap was low or the render timed out")
+                .register(meterRegistry);
+        for (RenderFormat format : RenderFormat.values()) {
+            renderTimers.put(format, Timer.builder("jdeploy.artifact.render.duration")
+                    .description("Time spent rendering PlantUML artifacts to images")
+                    .tag("format", format.extension())
+                    .register(meterRegistry));
+        }
+        Gauge.builder("jdeploy.artifact.render.queued", executor, pool -> pool.getQueue().size())
+                .description("Diagram renders waiting for a render worker")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the first diagram of the artifact rendered in {@code format}.
+     *
+     * @see #render(String, RenderFormat, int)
+     */
+    public RenderedDiagram render(String artifactId, RenderFormat format) {
+        return render(artifactId, format, 0);
+    }
+
+    /**
+     * Returns diagram {@code page} (zero-based, for documents with several {@code @startuml} blocks) of the artifact
+     * rendered in {@code format}, rendering it first unless an image of the same content is cached.
+     *
+     * @throws com.jdeploy.artifact.ArtifactNotFoundException when the artifact is missing
+     * @throws com.jdeploy.artifact.ArtifactExpiredException when the artifact's retention has elapsed
+     * @throws PreconditionViolationException when the artifact is too large or holds no such diagram
+     * @throws DiagramRenderUnavailableException when the render is refused or times out; retrying later may succeed
+     */
+    public RenderedDiagram render(String artifactId, RenderFormat format, int page) {
+        Objects.requireNonNull(artifactId, "artifactId must not be null");
+        Objects.requireNonNull(format, "format must not be null");
+        if (page < 0) {
+            throw new PreconditionViolationException("page must not be negative");
+        }
+        ArtifactMetadata metadata = artifactStorage.stat(artifactId);
+        if (metadata.contentHash() != null) {
+            Path cached = cachedPath(metadata.contentHash(), format, page);
+            if (Files.isRegularFile(cached)) {
+                cacheHits.increment();
+                return new RenderedDiagram(artifactId, metadata.contentHash(), format, page, cached);
+            }
+        }
+        // Only unencoded files store the decoded size; encoded ones are bounded while they are read.
+        if (metadata.contentEncoding() == null && metadata.sizeBytes() > maxSourceBytes) {
+            throw tooLarge(artifactId);
+        }
+
+        String key = (metadata.contentHash() == null ? "id:" + artifactId : metadata.contentHash()) + "." + page + "." + format.extension();
+        RenderTask task;
+        synchronized (inFlight) {
+            task = inFlight.get(key);
+            if (task == null) {
+                task = new RenderTask(key, artifactId, format, page);
+                inFlight.put(key, task);
+                try {
+                    executor.execute(task);
+                } catch (RejectedExecutionException ex) {
+                    inFlight.remove(key, task);
+                    rejected.increment();
+                    throw new DiagramRenderUnavailableException("Diagram render queue is full; retry later");
+                }
+            }
+        }
+        return await(task);
+    }
+
+    /**
+     * Deletes cached images whose content no live artifact has any more.
+     */
+    @Scheduled(fixedDelayString = "${jdeploy.artifact.render.cache-sweep-interval:PT10M}",
+            initialDelayString = "${jdeploy.artifact.render.cache-sweep-interval:PT10M}")
+    public void sweepCache() {
+        int deleted = evictUnreferenced();
+        if (deleted > 0) {
+            log.info("Evicted {} cached diagram render(s) of deleted artifacts", deleted);
+        }
+    }
+
+    int evictUnreferenced() {
+        if (!Files.isDirectory(cachePath)) {
+            return 0;
+        }
+        Set<String> liveHashes = artifactStorage.list().stream()
+                .map(ArtifactMetadata::contentHash)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        int deleted = 0;
+        try (Stream<Path> paths = Files.list(cachePath)) {
+            for (Path path : paths.toList()) {
+                String fileName = path.getFileName().toString();
+                int extension = fileName.indexOf('.');
+                if (extension <= 0 || fileName.endsWith(PARTIAL_SUFFIX) || liveHashes.contains(fileName.substring(0, extension))) {
+                    continue;
+                }
+                if (Files.deleteIfExists(path)) {
+                    deleted++;
+                }
+            }
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to sweep diagram render cache", ex);
+        }
+        return deleted;
+    }
+
+    public int queuedRenders() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private RenderedDiagram await(RenderTask task) {
+        try {
+            return task.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            rejected.increment();
+            throw new DiagramRenderUnavailableException("Rendering " + task.artifactId + " did not finish within " + timeout + "; retry later");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new DiagramRenderUnavailableException("Interrupted while rendering " + task.artifactId);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Failed to render artifact " + task.artifactId, ex.getCause());
+        }
+    }
+
+    private RenderedDiagram renderToCache(String artifactId, RenderFormat format, int page) throws IOException {
+        Runtime runtime = Runtime.getRuntime();
+        long availableHeap = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+        if (availableHeap < minFreeHeapBytes) {
+            rejected.increment();
+            throw new DiagramRenderUnavailableException("Not enough free heap to render " + artifactId + "; retry later");
+        }
+        String source = artifactStorage.readBounded(artifactId, maxSourceBytes)
+                .orElseThrow(() -> tooLarge(artifactId))
+                .content();
+        // Keyed by the content actually rendered, which differs from the looked-up hash if the artifact was
+        // replaced in between.
+        String contentHash = sha256(source);
+        Path target = cachedPath(contentHash, format, page);
+        if (Files.isRegularFile(target)) {
+            return new RenderedDiagram(artifactId, contentHash, format, page, target);
+        }
+
+        Files.createDirectories(cachePath);
+        Path partial = Files.createTempFile(cachePath, "." + contentHash, PARTIAL_SUFFIX);
+        long started = System.nanoTime();
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(partial))) {
+                DiagramDescription description = new SourceStringReader(source).outputImage(out, page, new FileFormatOption(format.fileFormat()));
+                if (description == null) {
+                    throw new PreconditionViolationException(page == 0
+                            ? "Artifact " + artifactId + " does not contain a PlantUML diagram"
+                            : "Artifact " + artifactId + " has no diagram page " + page);
+                }
+            }
+            moveIntoPlace(partial, target);
+        } finally {
+            renderTimers.get(format).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            Files.deleteIfExists(partial);
+        }
+        return new RenderedDiagram(artifactId, contentHash, format, page, target);
+    }
+
+    /**
+     * PlantUML reads its security profile once per JVM, so this must run before the first render.
+     */
+    private static void sandboxPlantUml() {
+        System.setProperty("PLANTUML_SECURITY_PROFILE", SecurityProfile.SANDBOX.name());
+        if (SecurityUtils.getSecurityProfile() != SecurityProfile.SANDBOX) {
+            throw new IllegalStateException("PlantUML already runs with security profile " + SecurityUtils.getSecurityProfile()
+                    + "; diagrams cannot be rendered in the SANDBOX profile");
+        }
+    }
+
+    private Path cachedPath(String contentHash, RenderFormat format, int page) {
+        return cachePath.resolve(contentHash + (page == 0 ? "" : "." + page) + "." + format.extension());
+    }
+
+    private PreconditionViolationException tooLarge(String artifactId) {
+        return new PreconditionViolationException("Artifact " + artifactId + " exceeds the render limit of " + maxSourceBytes + " bytes");
+    }
+
+    private static void moveIntoPlace(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static String sha256(String content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    public enum RenderFormat {
+        SVG("svg", "image/svg+xml", FileFormat.SVG),
+        PNG("png", "image/png", FileFormat.PNG);
+
+        private final String extension;
+        private final String mediaType;
+        private final FileFormat fileFormat;
+
+        RenderFormat(String extension, String mediaType, FileFormat fileFormat) {
+            this.extension = extension;
+            this.mediaType = mediaType;
+            this.fileFormat = fileFormat;
+        }
+
+        public static RenderFormat fromParameter(String value) {
+            String normalized = value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+            for (RenderFormat format : values()) {
+                if (format.extension.equals(normalized)) {
+                    return format;
+                }
+            }
+            throw new PreconditionViolationException("Unsupported render format: " + value + " (expected svg or png)");
+        }
+
+        public String extension() {
+            return extension;
+        }
+
+        public String mediaType() {
+            return mediaType;
+        }
+
+        FileFormat fileFormat() {
+            return fileFormat;
+        }
+    }
+
+    /**
+     * A rendered image of an artifact. {@code contentHash} identifies the artifact content that was rendered.
+     */
+    public record RenderedDiagram(String artifactId, String contentHash, RenderFormat format, int page, Path path) {
+    }
+
+    private final class RenderTask extends FutureTask<RenderedDiagram> {
+
+        private final String key;
+        private final String artifactId;
+
+        private RenderTask(String key, String artifactId, RenderFormat format, int page) {
+            super(() -> renderToCache(artifactId, format, page));
+            this.key = key;
+            this.artifactId = artifactId;
+        }
+
+        @Override
+        protected void done() {
+            inFlight.remove(key, this);
+        }
+    }
+}
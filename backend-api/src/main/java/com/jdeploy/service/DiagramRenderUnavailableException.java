@@ -0,0 +1,8 @@
+package com.jdeploy.service;
+
+public class DiagramRenderUnavailableException extends RuntimeException {
+
+    public DiagramRenderUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,198 @@
+package com.jdeploy.service;
+
+import com.jdeploy.service.dto.DeploymentManifestDto;
+import org.neo4j.driver.Value;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Reads the stored topology back as a {@link DeploymentManifestDto}, so diagrams can be generated from the graph
+ * without a YAML round trip.
+ * <p>
+ * Each manifest section is one aggregated query that collects its children per row (nodes per subnet, deployments
+ * per component, and so on), so a read costs five queries regardless of topology size. For a single system, the
+ * system query runs first and the remaining sections are restricted to the nodes its components deploy to.
+ */
+@Service
+public class GraphManifestReader {
+
+    private static final String SYSTEMS = """
+            MATCH (s:SoftwareSystem)
+            WHERE $all OR s.name = $systemName
+            OPTIONAL MATCH (s)-[:HAS_COMPONENT]->(c:SoftwareComponent)
+            OPTIONAL MATCH (c)-[:HAS_DEPLOYMENT]->(d:DeploymentInstance)-[:TARGET_NODE]->(n:HardwareNode)
+            OPTIONAL MATCH (d)-[:TARGET_ENVIRONMENT]->(e:ExecutionEnvironment)
+            OPTIONAL MATCH (d)-[:TARGET_NAMESPACE]->(ns:KubernetesNamespace)
+            OPTIONAL MATCH (ns)-[:BELONGS_TO]->(kc:KubernetesCluster)
+            WITH s, c, d, n, e, ns, min(kc.name) AS clusterName
+            ORDER BY d.deploymentKey
+            WITH s, c, collect(CASE WHEN d IS NULL THEN null
+                                    ELSE {environment: e.name, hostname: n.hostname, cluster: clusterName, namespace: ns.name} END) AS deployments
+            ORDER BY c.name, c.version
+            WITH s, collect(CASE WHEN c IS NULL THEN null
+                                 ELSE {name: c.name, version: c.version, deployments: deployments} END) AS components
+            RETURN s.name AS name, components
+            ORDER BY name
+            """;
+
+    private static final String SUBNETS = """
+            MATCH (s:Subnet)
+            OPTIONAL MATCH (s)-[:CONTAINS_NODE]->(n:HardwareNode)
+            WHERE $all OR n.hostname IN $hostnames
+            WITH s, n
+            ORDER BY n.hostname
+            WITH s, collect(n) AS nodes
+            WHERE $all OR size(nodes) > 0
+            RETURN s.cidr AS cidr, s.vlan AS vlan, s.routingZone AS routingZone,
+                   [node IN nodes | {hostname: node.hostname, ipAddress: node.ipAddress, type: node.type, roles: coalesce(node.roles, [])}] AS nodes
+            ORDER BY cidr
+            """;
+
+    private static final String CLUSTERS = """
+            MATCH (c)
+            WHERE c:GridCluster OR c:KubernetesCluster
+            OPTIONAL MATCH (c)-[:HAS_NODE]->(n:HardwareNode)
+            WHERE $all OR n.hostname IN $hostnames
+            WITH c, n
+            ORDER BY n.hostname
+            WITH c, collect(DISTINCT n.hostname) AS nodes
+            WHERE $all OR size(nodes) > 0
+            OPTIONAL MATCH (ns:KubernetesNamespace)-[:BELONGS_TO]->(c)
+            WITH c, nodes, ns
+            ORDER BY ns.name
+            RETURN c.name AS name,
+                   coalesce(c.type, CASE WHEN c:KubernetesCluster THEN 'KUBERNETES' ELSE 'GRID' END) AS type,
+                   nodes,
+                   collect(DISTINCT ns.name) AS namespaces
+            ORDER BY name
+            """;
+
+    private static final String ENVIRONMENTS = """
+            MATCH (e:ExecutionEnvironment)
+            RETURN e.name AS name, e.type AS type
+            ORDER BY name
+            """;
+
+    private static final String LINKS = """
+            MATCH (from:HardwareNode)<-[:CONNECTS_FROM]-(l:NetworkLink)-[:CONNECTS_TO]->(to:HardwareNode)
+            WHERE $all OR (from.hostname IN $hostnames AND to.hostname IN $hostnames)
+            RETURN from.hostname AS fromHostname, to.hostname AS toHostname, l.bandwidthMbps AS bandwidthMbps, l.latencyMs AS latencyMs
+            ORDER BY fromHostname, toHostname
+            """;
+
+    private final Neo4jClient neo4jClient;
+
+    public GraphManifestReader(Neo4jClient neo4jClient) {
+        this.neo4jClient = Objects.requireNonNull(neo4jClient, "neo4jClient must not be null");
+    }
+
+    /**
+     * Reads the whole topology.
+     */
+    public DeploymentManifestDto readAll() {
+        return read(readSystems(true, ""), true, List.of());
+    }
+
+    /**
+     * Reads one software system with the nodes it deploys to, their subnets and clusters, and the links between
+     * those nodes. Empty when no system has that name.
+     */
+    public Optional<DeploymentManifestDto> readSystem(String systemName) {
+        if (systemName == null || systemName.isBlank()) {
+            throw new PreconditionViolationException("systemName is required");
+        }
+        List<DeploymentManifestDto.SoftwareSystemDto> systems = readSystems(false, systemName);
+        if (systems.isEmpty()) {
+            return Optional.empty();
+        }
+        Set<String> hostnames = new LinkedHashSet<>();
+        for (DeploymentManifestDto.SoftwareSystemDto system : systems) {
+            for (DeploymentManifestDto.SoftwareComponentDto component : system.components()) {
+                for (DeploymentManifestDto.DeploymentTargetDto deployment : component.deployments()) {
+                    hostnames.add(deployment.hostname());
+                }
+            }
+        }
+        return Optional.of(read(systems, false, List.copyOf(hostnames)));
+    }
+
+    private DeploymentManifestDto read(List<DeploymentManifestDto.SoftwareSystemDto> systems, boolean all, List<String> hostnames) {
+        List<DeploymentManifestDto.SubnetDto> subnets = List.copyOf(neo4jClient.query(SUBNETS)
+                .bind(all).to("all")
+                .bind(hostnames).to("hostnames")
+                .fetchAs(DeploymentManifestDto.SubnetDto.class)
+                .mappedBy((typeSystem, record) -> new DeploymentManifestDto.SubnetDto(
+                        string(record.get("cidr")),
+                        string(record.get("vlan")),
+                        string(record.get("routingZone")),
+                        record.get("nodes").asList(node -> new DeploymentManifestDto.HardwareNodeDto(
+                                string(node.get("hostname")),
+                                string(node.get("ipAddress")),
+                                string(node.get("type")),
+                                node.get("roles").asList(Value::asString)))))
+                .all());
+
+        List<DeploymentManifestDto.ClusterDto> clusters = List.copyOf(neo4jClient.query(CLUSTERS)
+                .bind(all).to("all")
+                .bind(hostnames).to("hostnames")
+                .fetchAs(DeploymentManifestDto.ClusterDto.class)
+                .mappedBy((typeSystem, record) -> new DeploymentManifestDto.ClusterDto(
+                        string(record.get("name")),
+                        string(record.get("type")),
+                        record.get("nodes").asList(Value::asString),
+                        record.get("namespaces").asList(Value::asString)))
+                .all());
+
+        List<DeploymentManifestDto.ExecutionEnvironmentDto> environments = List.copyOf(neo4jClient.query(ENVIRONMENTS)
+                .fetchAs(DeploymentManifestDto.ExecutionEnvironmentDto.class)
+                .mappedBy((typeSystem, record) -> new DeploymentManifestDto.ExecutionEnvironmentDto(
+                        string(record.get("name")),
+                        string(record.get("type"))))
+                .all());
+
+        List<DeploymentManifestDto.NetworkLinkDto> links = List.copyOf(neo4jClient.query(LINKS)
+                .bind(all).to("all")
+                .bind(hostnames).to("hostnames")
+                .fetchAs(DeploymentManifestDto.NetworkLinkDto.class)
+                .mappedBy((typeSystem, record) -> new DeploymentManifestDto.NetworkLinkDto(
+                        string(record.get("fromHostname")),
+                        string(record.get("toHostname")),
+                        integer(record.get("bandwidthMbps")),
+                        integer(record.get("latencyMs"))))
+                .all());
+
+        return new DeploymentManifestDto(subnets, clusters, environments, systems, links);
+    }
+
+    private List<DeploymentManifestDto.SoftwareSystemDto> readSystems(boolean all, String systemName) {
+        return List.copyOf(neo4jClient.query(SYSTEMS)
+                .bind(all).to("all")
+                .bind(systemName).to("systemName")
+                .fetchAs(DeploymentManifestDto.SoftwareSystemDto.class)
+                .mappedBy((typeSystem, record) -> new DeploymentManifestDto.SoftwareSystemDto(
+                        string(record.get("name")),
+                        record.get("components").asList(component -> new DeploymentManifestDto.SoftwareComponentDto(
+                                string(component.get("name")),
+                                string(component.get("version")),
+                                component.get("deployments").asList(deployment -> new DeploymentManifestDto.DeploymentTargetDto(
+                                        string(deployment.get("environment")),
+                                        string(deployment.get("hostname")),
+                                        string(deployment.get("cluster")),
+                                        string(deployment.get("namespace"))))))))
+                .all());
+    }
+
+    private static String string(Value value) {
+        return value == null || value.isNull() ? null : value.asString();
+    }
+
+    private static int integer(Value value) {
+        return value == null || value.isNull() ? 0 : value.asInt();
+    }
+}
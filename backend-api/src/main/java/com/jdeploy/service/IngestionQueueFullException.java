@@ -0,0 +1,8 @@
+package com.jdeploy.service;
+
+public class IngestionQueueFullException extends RuntimeException {
+
+    public IngestionQueueFullException(String message) {
+        super(message);
+    }
+}
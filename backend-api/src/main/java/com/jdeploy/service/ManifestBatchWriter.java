@@ -0,0 +1,274 @@
+package com.jdeploy.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Writes a {@link ManifestChangeSet} to Neo4j as {@code UNWIND} parameter lists, issuing at most
+ * {@code ceil(rows / batchSize)} statements per section instead of one round trip per entity.
+ */
+@Service
+public class ManifestBatchWriter {
+
+    private static final String KUBERNETES_CLUSTER = "KubernetesCluster";
+    private static final String GRID_CLUSTER = "GridCluster";
+
+    private final Neo4jClient neo4jClient;
+    private final int batchSize;
+
+    public ManifestBatchWriter(Neo4jClient neo4jClient,
+                               @Value("${jdeploy.ingestion.batch-size:500}") int batchSize) {
+        this.neo4jClient = Objects.requireNonNull(neo4jClient, "neo4jClient must not be null");
+        if (batchSize < 1) {
+            throw new PreconditionViolationException("jdeploy.ingestion.batch-size must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    public int batchSize() {
+        return batchSize;
+    }
+
+    public void write(ManifestChangeSet changeSet) {
+        if (changeSet == null) {
+            throw new PreconditionViolationException("changeSet is required");
+        }
+        upsertEnvironments(changeSet);
+        upsertSubnetsAndNodes(changeSet);
+        upsertClusters(changeSet);
+        upsertSystemsComponentsAndDeployments(changeSet);
+        upsertNetworkLinks(changeSet);
+    }
+
+    private void upsertEnvironments(ManifestChangeSet changeSet) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (var environment : changeSet.environments()) {
+            rows.add(row("name", environment.name(), "type", environment.type()));
+        }
+        runBatched("""
+                UNWIND $rows AS row
+                MERGE (e:ExecutionEnvironment {name: row.name})
+                SET e.type = row.type
+                """, rows);
+    }
+
+    private void upsertSubnetsAndNodes(ManifestChangeSet changeSet) {
+        List<Map<String, Object>> subnetRows = new ArrayList<>();
+        for (var subnet : changeSet.subnets()) {
+            subnetRows.add(row("cidr", subnet.cidr(), "vlan", subnet.vlan(), "routingZone", subnet.routingZone()));
+        }
+        List<Map<String, Object>> nodeRows = new ArrayList<>();
+        for (ManifestChangeSet.NodePlacement placement : changeSet.nodes()) {
+            nodeRows.add(row(
+                    "cidr", placement.cidr(),
+                    "hostname", placement.node().hostname(),
+                    "ipAddress", placement.node().ipAddress(),
+                    "type", placement.node().type(),
+                    "roles", placement.node().roles()));
+        }
+
+        runBatched("""
+                UNWIND $rows AS row
+                MERGE (s:Subnet {cidr: row.cidr})
+                SET s.vlan = row.vlan,
+                    s.routingZone = row.routingZone
+                WITH s
+                OPTIONAL MATCH (s)-[r:CONTAINS_NODE]->(:HardwareNode)
+                DELETE r
+                """, subnetRows);
+
+        runBatched("""
+                UNWIND $rows AS row
+                MERGE (n:HardwareNode {hostname: row.hostname})
+                SET n.ipAddress = row.ipAddress,
+                    n.type = row.type,
+                    n.roles = row.roles
+                WITH n, row
+                MATCH (s:Subnet {cidr: row.cidr})
+                MERGE (s)-[:CONTAINS_NODE]->(n)
+                """, nodeRows);
+    }
+
+    private void upsertClusters(ManifestChangeSet changeSet) {
+        for (String label : List.of(GRID_CLUSTER, KUBERNETES_CLUSTER)) {
+            List<Map<String, Object>> clusterRows = new ArrayList<>();
+            List<Map<String, Object>> memberRows = new ArrayList<>();
+            for (var cluster : changeSet.clusters()) {
+                if (!label.equals(ManifestChangeSet.clusterLabel(cluster))) {
+                    continue;
+                }
+                clusterRows.add(row("clusterName", cluster.name(), "clusterType", cluster.type()));
+                for (String hostname : cluster.nodes()) {
+                    memberRows.add(row("clusterName", cluster.name(), "hostname", hostname));
+                }
+            }
+
+            runBatched("""
+                    UNWIND $rows AS row
+                    MERGE (c:%s {name: row.clusterName})
+                    SET c.type = row.clusterType
+                    WITH c
+                    OPTIONAL MATCH (c)-[r:HAS_NODE]->(:HardwareNode)
+                    DELETE r
+                    """.formatted(label), clusterRows);
+
+            runBatched("""
+                    UNWIND $rows AS row
+                    MATCH (c:%s {name: row.clusterName}), (n:HardwareNode {hostname: row.hostname})
+                    MERGE (c)-[:HAS_NODE]->(n)
+                    """.formatted(label), memberRows);
+        }
+
+        List<Map<String, Object>> namespaceRows = new ArrayList<>();
+        for (var cluster : changeSet.clusters()) {
+            if (KUBERNETES_CLUSTER.equals(ManifestChangeSet.clusterLabel(cluster))) {
+                for (String namespace : cluster.namespaces()) {
+                    namespaceRows.add(row("namespace", namespace, "clusterName", cluster.name()));
+                }
+            }
+        }
+        runBatched("""
+                UNWIND $rows AS row
+                MERGE (ns:KubernetesNamespace {name: row.namespace})
+                WITH ns, row
+                MATCH (c:KubernetesCluster {name: row.clusterName})
+                MERGE (ns)-[:BELONGS_TO]->(c)
+                """, namespaceRows);
+    }
+
+    private void upsertSystemsComponentsAndDeployments(ManifestChangeSet changeSet) {
+        List<Map<String, Object>> systemRows = new ArrayList<>();
+        List<Map<String, Object>> componentRows = new ArrayList<>();
+        for (var system : changeSet.systems()) {
+            systemRows.add(row("name", system.name()));
+            for (var component : system.components()) {
+                componentRows.add(row("systemName", system.name(), "name", component.name(), "version", component.version()));
+            }
+        }
+
+        List<Map<String, Object>> ownerRows = new ArrayList<>();
+        for (var component : changeSet.components()) {
+            ownerRows.add(row("name", component.name(), "version", component.version()));
+        }
+
+        List<Map<String, Object>> deploymentRows = new ArrayList<>();
+        List<Map<String, Object>> namespaceRows = new ArrayList<>();
+        for (ManifestChangeSet.DeploymentPlacement placement : changeSet.deployments()) {
+            deploymentRows.add(row(
+                    "deploymentKey", placement.deploymentKey(),
+                    "componentName", placement.component().name(),
+                    "version", placement.component().version(),
+                    "environmentName", placement.target().environment(),
+                    "hostname", placement.target().hostname(),
+                    "owned", placement.owned()));
+            if (placement.namespace() != null) {
+                namespaceRows.add(row(
+                        "deploymentKey", placement.deploymentKey(),
+                        "namespace", placement.namespace(),
+                        "cluster", placement.cluster()));
+            }
+        }
+
+        runBatched("""
+                UNWIND $rows AS row
+                MERGE (s:SoftwareSystem {name: row.name})
+                WITH s
+                OPTIONAL MATCH (s)-[r:HAS_COMPONENT]->(:SoftwareComponent)
+                DELETE r
+                """, systemRows);
+
+        runBatched("""
+                UNWIND $rows AS row
+                MERGE (c:SoftwareComponent {name: row.name, version: row.version})
+                WITH c, row
+                MATCH (s:SoftwareSystem {name: row.systemName})
+                MERGE (s)-[:HAS_COMPONENT]->(c)
+                """, componentRows);
+
+        runBatched("""
+                UNWIND $rows AS row
+                MATCH (c:SoftwareComponent {name: row.name, version: row.version})-[r:HAS_DEPLOYMENT]->(:DeploymentInstance)
+                DELETE r
+                """, ownerRows);
+
+        runBatched("""
+                UNWIND $rows AS row
+                MERGE (d:DeploymentInstance {deploymentKey: row.deploymentKey})
+                WITH d, row
+                OPTIONAL MATCH (d)-[r:TARGET_ENVIRONMENT|TARGET_NODE|TARGETS|TARGET_NAMESPACE]->()
+                DELETE r
+                WITH DISTINCT d, row
+                MATCH (c:SoftwareComponent {name: row.componentName, version: row.version}),
+                      (e:ExecutionEnvironment {name: row.environmentName}),
+                      (n:HardwareNode {hostname: row.hostname})
+                FOREACH (_ IN CASE WHEN row.owned THEN [1] ELSE [] END | MERGE (c)-[:HAS_DEPLOYMENT]->(d))
+                MERGE (d)-[:TARGET_ENVIRONMENT]->(e)
+                MERGE (d)-[:TARGET_NODE]->(n)
+                MERGE (d)-[:TARGETS]->(e)
+                MERGE (d)-[:TARGETS]->(n)
+                """, deploymentRows);
+
+        runBatched("""
+                UNWIND $rows AS row
+                MERGE (ns:KubernetesNamespace {name: row.namespace})
+                WITH ns, row
+                MATCH (d:DeploymentInstance {deploymentKey: row.deploymentKey})
+                MERGE (d)-[:TARGET_NAMESPACE]->(ns)
+                MERGE (d)-[:TARGETS]->(ns)
+                WITH ns, row
+                WHERE row.cluster IS NOT NULL
+                MERGE (kc:KubernetesCluster {name: row.cluster})
+                MERGE (ns)-[:BELONGS_TO]->(kc)
+                """, namespaceRows);
+    }
+
+    private void upsertNetworkLinks(ManifestChangeSet changeSet) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (var link : changeSet.links()) {
+            rows.add(row(
+                    "fromHostname", link.fromHostname(),
+                    "toHostname", link.toHostname(),
+                    "linkKey", ManifestIngestionService.linkKey(link),
+                    "bandwidthMbps", link.bandwidthMbps(),
+                    "latencyMs", link.latencyMs()));
+        }
+        runBatched("""
+                UNWIND $rows AS row
+                MATCH (from:HardwareNode {hostname: row.fromHostname}),
+                      (to:HardwareNode {hostname: row.toHostname})
+                MERGE (l:NetworkLink {linkKey: row.linkKey})
+                SET l.bandwidthMbps = row.bandwidthMbps,
+                    l.latencyMs = row.latencyMs
+                WITH l, from, to
+                OPTIONAL MATCH (l)-[old:CONNECTS_FROM|CONNECTS_TO]->()
+                DELETE old
+                WITH DISTINCT l, from, to
+                MERGE (l)-[:CONNECTS_FROM]->(from)
+                MERGE (l)-[:CONNECTS_TO]->(to)
+                """, rows);
+    }
+
+    private void runBatched(String cypher, List<Map<String, Object>> rows) {
+        for (int start = 0; start < rows.size(); start += batchSize) {
+            List<Map<String, Object>> batch = rows.subList(start, Math.min(rows.size(), start + batchSize));
+            neo4jClient.query(cypher)
+                    .bind(List.copyOf(batch)).to("rows")
+                    .run();
+        }
+    }
+
+    private static Map<String, Object> row(Object... keysAndValues) {
+        Map<String, Object> row = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            row.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return row;
+    }
+}
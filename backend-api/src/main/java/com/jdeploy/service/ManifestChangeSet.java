@@ -0,0 +1,144 @@
+package com.jdeploy.service;
+
+import com.jdeploy.service.dto.DeploymentManifestDto;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Manifest entities that must be written to the graph during synchronization.
+ * <p>
+ * Each list describes one write unit of {@link ManifestBatchWriter}: {@code subnets}, {@code clusters},
+ * {@code systems} and {@code components} have their owned relationships replaced, while {@code nodes},
+ * {@code deployments}, {@code environments} and {@code links} are merged with their properties and targets.
+ */
+public record ManifestChangeSet(
+        List<DeploymentManifestDto.ExecutionEnvironmentDto> environments,
+        List<DeploymentManifestDto.SubnetDto> subnets,
+        List<NodePlacement> nodes,
+        List<DeploymentManifestDto.ClusterDto> clusters,
+        List<DeploymentManifestDto.SoftwareSystemDto> systems,
+        List<DeploymentManifestDto.SoftwareComponentDto> components,
+        List<DeploymentPlacement> deployments,
+        List<DeploymentManifestDto.NetworkLinkDto> links
+) {
+    public ManifestChangeSet {
+        environments = List.copyOf(environments);
+        subnets = List.copyOf(subnets);
+        nodes = List.copyOf(nodes);
+        clusters = List.copyOf(clusters);
+        systems = List.copyOf(systems);
+        components = List.copyOf(components);
+        deployments = List.copyOf(deployments);
+        links = List.copyOf(links);
+    }
+
+    /**
+     * Builds the change set that rewrites every manifest entity.
+     * <p>
+     * Entries are deduplicated by merge key with the last occurrence winning, which is the graph that
+     * sequential delete-then-merge statements leave behind for repeated keys.
+     */
+    public static ManifestChangeSet full(DeploymentManifestDto manifest) {
+        List<DeploymentManifestDto.SubnetDto> subnets = List.copyOf(
+                lastByKey(manifest.subnets(), DeploymentManifestDto.SubnetDto::cidr).values());
+        List<NodePlacement> nodes = new ArrayList<>();
+        for (DeploymentManifestDto.SubnetDto subnet : subnets) {
+            for (DeploymentManifestDto.HardwareNodeDto node : subnet.nodes()) {
+                nodes.add(new NodePlacement(subnet.cidr(), node));
+            }
+        }
+
+        List<DeploymentManifestDto.ClusterDto> clusters = List.copyOf(
+                lastByKey(manifest.clusters(), cluster -> clusterLabel(cluster) + ":" + cluster.name()).values());
+
+        List<DeploymentManifestDto.SoftwareSystemDto> systems = List.copyOf(
+                lastByKey(manifest.systems(), DeploymentManifestDto.SoftwareSystemDto::name).values());
+        Map<String, DeploymentManifestDto.SoftwareComponentDto> owners = lastByKey(
+                systems.stream().flatMap(system -> system.components().stream()).toList(),
+                ManifestChangeSet::componentKey);
+
+        Map<String, DeploymentPlacement> deployments = new LinkedHashMap<>();
+        for (DeploymentManifestDto.SoftwareSystemDto system : systems) {
+            for (DeploymentManifestDto.SoftwareComponentDto component : system.components()) {
+                boolean owned = component.equals(owners.get(componentKey(component)));
+                for (DeploymentManifestDto.DeploymentTargetDto target : component.deployments()) {
+                    DeploymentPlacement placement = new DeploymentPlacement(component, target, owned);
+                    deployments.remove(placement.deploymentKey());
+                    deployments.put(placement.deploymentKey(), placement);
+                }
+            }
+        }
+
+        return new ManifestChangeSet(
+                manifest.environments(),
+                subnets,
+                nodes,
+                clusters,
+                systems,
+                List.copyOf(owners.values()),
+                List.copyOf(deployments.values()),
+                manifest.links());
+    }
+
+    public int size() {
+        return environments.size() + subnets.size() + nodes.size() + clusters.size()
+                + systems.size() + components.size() + deployments.size() + links.size();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    static String clusterLabel(DeploymentManifestDto.ClusterDto cluster) {
+        return "KUBERNETES".equalsIgnoreCase(cluster.type()) ? "KubernetesCluster" : "GridCluster";
+    }
+
+    static String componentKey(DeploymentManifestDto.SoftwareComponentDto component) {
+        return component.name() + ":" + component.version();
+    }
+
+    private static <T> Map<String, T> lastByKey(List<T> values, Function<T, String> keyExtractor) {
+        Map<String, T> byKey = new LinkedHashMap<>();
+        for (T value : values) {
+            String key = keyExtractor.apply(value);
+            byKey.remove(key);
+            byKey.put(key, value);
+        }
+        return byKey;
+    }
+
+    /**
+     * A hardware node together with the subnet that contains it.
+     */
+    public record NodePlacement(String cidr, DeploymentManifestDto.HardwareNodeDto node) {
+    }
+
+    /**
+     * A deployment target of a component. {@code owned} is false when a later manifest entry for the
+     * same component replaced its {@code HAS_DEPLOYMENT} relationships.
+     */
+    public record DeploymentPlacement(DeploymentManifestDto.SoftwareComponentDto component,
+                                      DeploymentManifestDto.DeploymentTargetDto target,
+                                      boolean owned) {
+
+        public String deploymentKey() {
+            return ManifestIngestionService.deploymentKey(component, target);
+        }
+
+        public String namespace() {
+            return isBlank(target.namespace()) ? null : target.namespace();
+        }
+
+        public String cluster() {
+            return isBlank(target.cluster()) ? null : target.cluster();
+        }
+
+        private static boolean isBlank(String value) {
+            return value == null || value.isBlank();
+        }
+    }
+}
@@ -1,103 +1,190 @@
 package com.jdeploy.service;
 
 import com.jdeploy.service.dto.DeploymentManifestDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.stream.IntStream;
 
+/**
+ * Checks manifest identifiers and cross-references before ingestion.
+ * <p>
+ * Environment, hostname, IP, cluster, namespace, system and component indexes are built in one pass over
+ * the manifest; deployments and links are then resolved against those indexes. Every violation is collected
+ * with the YAML path of the offending value, so a manifest can be fixed in a single round trip. Systems are
+ * checked in parallel when {@code jdeploy.validation.parallel-systems} is enabled; the reported order is the
+ * document order either way.
+ */
 @Service
 public class ManifestContractValidator {
 
+    private final boolean parallelSystems;
+
+    public ManifestContractValidator() {
+        this(false);
+    }
+
+    @Autowired
+    public ManifestContractValidator(@Value("${jdeploy.validation.parallel-systems:false}") boolean parallelSystems) {
+        this.parallelSystems = parallelSystems;
+    }
+
     public void validateForIngestion(DeploymentManifestDto manifest) {
+        List<ContractViolation> violations = validate(manifest);
+        if (!violations.isEmpty()) {
+            throw new ManifestContractViolationException(violations);
+        }
+    }
+
+    /**
+     * Returns every contract violation in the manifest, or an empty list when it can be ingested.
+     */
+    public List<ContractViolation> validate(DeploymentManifestDto manifest) {
         if (manifest == null) {
             throw new PreconditionViolationException("Manifest payload is required");
         }
+        List<ContractViolation> violations = new ArrayList<>();
         if (manifest.systems().isEmpty()) {
-            throw new PreconditionViolationException("Manifest must include at least one software system");
+            violations.add(new ContractViolation("systems", "Manifest must include at least one software system"));
         }
 
-        Set<String> environments = new HashSet<>();
-        for (DeploymentManifestDto.ExecutionEnvironmentDto env : manifest.environments()) {
-            if (!environments.add(env.name())) {
-                throw new PreconditionViolationException("Conflicting environment identifier: " + env.name());
+        ManifestIndex index = new ManifestIndex(manifest, violations);
+
+        IntStream systemIndexes = IntStream.range(0, manifest.systems().size());
+        if (parallelSystems) {
+            systemIndexes = systemIndexes.parallel();
+        }
+        systemIndexes.mapToObj(i -> index.checkSystem(i, manifest.systems().get(i)))
+                .forEachOrdered(violations::addAll);
+
+        for (int i = 0; i < manifest.links().size(); i++) {
+            DeploymentManifestDto.NetworkLinkDto link = manifest.links().get(i);
+            String path = "links[" + i + "]";
+            if (!index.hostnames.contains(link.fromHostname())) {
+                violations.add(new ContractViolation(path + ".fromHostname", "Missing network link source host: " + link.fromHostname()));
+            }
+            if (!index.hostnames.contains(link.toHostname())) {
+                violations.add(new ContractViolation(path + ".toHostname", "Missing network link destination host: " + link.toHostname()));
             }
         }
+        return List.copyOf(violations);
+    }
 
-        Set<String> hostnames = new HashSet<>();
-        Set<String> ips = new HashSet<>();
-        Set<String> clusterNames = new HashSet<>();
-        Set<String> namespaces = new HashSet<>();
-        for (DeploymentManifestDto.SubnetDto subnet : manifest.subnets()) {
-            for (DeploymentManifestDto.HardwareNodeDto node : subnet.nodes()) {
-                if (!hostnames.add(node.hostname())) {
-                    throw new PreconditionViolationException("Conflicting hardware node identifier: " + node.hostname());
-                }
-                if (!ips.add(node.ipAddress())) {
-                    throw new PreconditionViolationException("Duplicate IP address detected: " + node.ipAddress());
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    /**
+     * A single contract violation. {@code path} locates the offending value in the manifest, for example
+     * {@code systems[2].components[0].deployments[1].hostname}.
+     */
+    public record ContractViolation(String path, String message) {
+    }
+
+    private static final class ManifestIndex {
+
+        private final Set<String> environments = new HashSet<>();
+        private final Set<String> hostnames = new HashSet<>();
+        private final Set<String> clusterNames = new HashSet<>();
+        private final Set<String> namespaces = new HashSet<>();
+        private final Map<String, String> componentOwners = new HashMap<>();
+
+        private ManifestIndex(DeploymentManifestDto manifest, List<ContractViolation> violations) {
+            for (int i = 0; i < manifest.environments().size(); i++) {
+                DeploymentManifestDto.ExecutionEnvironmentDto env = manifest.environments().get(i);
+                if (!environments.add(env.name())) {
+                    violations.add(new ContractViolation("environments[" + i + "].name", "Conflicting environment identifier: " + env.name()));
                 }
             }
-        }
 
-        for (DeploymentManifestDto.ClusterDto cluster : manifest.clusters()) {
-            if (!clusterNames.add(cluster.name())) {
-                throw new PreconditionViolationException("Conflicting cluster identifier: " + cluster.name());
+            Set<String> ips = new HashSet<>();
+            for (int i = 0; i < manifest.subnets().size(); i++) {
+                List<DeploymentManifestDto.HardwareNodeDto> nodes = manifest.subnets().get(i).nodes();
+                for (int j = 0; j < nodes.size(); j++) {
+                    DeploymentManifestDto.HardwareNodeDto node = nodes.get(j);
+                    String path = "subnets[" + i + "].nodes[" + j + "]";
+                    if (!hostnames.add(node.hostname())) {
+                        violations.add(new ContractViolation(path + ".hostname", "Conflicting hardware node identifier: " + node.hostname()));
+                    }
+                    if (!ips.add(node.ipAddress())) {
+                        violations.add(new ContractViolation(path + ".ipAddress", "Duplicate IP address detected: " + node.ipAddress()));
+                    }
+                }
             }
-            for (String hostname : cluster.nodes()) {
-                if (!hostnames.contains(hostname)) {
-                    throw new PreconditionViolationException("Missing cluster member host: " + hostname);
+
+            for (int i = 0; i < manifest.clusters().size(); i++) {
+                DeploymentManifestDto.ClusterDto cluster = manifest.clusters().get(i);
+                String path = "clusters[" + i + "]";
+                if (!clusterNames.add(cluster.name())) {
+                    violations.add(new ContractViolation(path + ".name", "Conflicting cluster identifier: " + cluster.name()));
+                }
+                for (int j = 0; j < cluster.nodes().size(); j++) {
+                    String hostname = cluster.nodes().get(j);
+                    if (!hostnames.contains(hostname)) {
+                        violations.add(new ContractViolation(path + ".nodes[" + j + "]", "Missing cluster member host: " + hostname));
+                    }
+                }
+                for (int j = 0; j < cluster.namespaces().size(); j++) {
+                    String namespace = cluster.namespaces().get(j);
+                    if (!namespaces.add(namespace)) {
+                        violations.add(new ContractViolation(path + ".namespaces[" + j + "]", "Conflicting kubernetes namespace identifier: " + namespace));
+                    }
                 }
             }
-            for (String namespace : cluster.namespaces()) {
-                if (!namespaces.add(namespace)) {
-                    throw new PreconditionViolationException("Conflicting kubernetes namespace identifier: " + namespace);
+
+            Set<String> systems = new HashSet<>();
+            for (int i = 0; i < manifest.systems().size(); i++) {
+                DeploymentManifestDto.SoftwareSystemDto system = manifest.systems().get(i);
+                if (isBlank(system.name())) {
+                    violations.add(new ContractViolation("systems[" + i + "].name", "Missing software system identifier"));
+                } else if (!systems.add(system.name())) {
+                    violations.add(new ContractViolation("systems[" + i + "].name", "Conflicting software system identifier: " + system.name()));
+                }
+                for (DeploymentManifestDto.SoftwareComponentDto component : system.components()) {
+                    componentOwners.putIfAbsent(component.name() + ":" + component.version(), system.name());
                 }
             }
         }
 
-        Set<String> systems = new HashSet<>();
-        Map<String, String> componentOwners = new HashMap<>();
-        for (DeploymentManifestDto.SoftwareSystemDto system : manifest.systems()) {
-            if (!systems.add(system.name())) {
-                throw new PreconditionViolationException("Conflicting software system identifier: " + system.name());
-            }
-            for (DeploymentManifestDto.SoftwareComponentDto component : system.components()) {
+        private List<ContractViolation> checkSystem(int systemIndex, DeploymentManifestDto.SoftwareSystemDto system) {
+            List<ContractViolation> violations = new ArrayList<>();
+            for (int i = 0; i < system.components().size(); i++) {
+                DeploymentManifestDto.SoftwareComponentDto component = system.components().get(i);
+                String componentPath = "systems[" + systemIndex + "].components[" + i + "]";
                 String componentKey = component.name() + ":" + component.version();
-                String existingOwner = componentOwners.putIfAbsent(componentKey, system.name());
-                if (existingOwner != null && !existingOwner.equals(system.name())) {
-                    throw new PreconditionViolationException("Conflicting component identifier across systems: " + componentKey);
+                if (!Objects.equals(system.name(), componentOwners.get(componentKey))) {
+                    violations.add(new ContractViolation(componentPath, "Conflicting component identifier across systems: " + componentKey));
                 }
-                for (DeploymentManifestDto.DeploymentTargetDto deployment : component.deployments()) {
+                for (int j = 0; j < component.deployments().size(); j++) {
+                    DeploymentManifestDto.DeploymentTargetDto deployment = component.deployments().get(j);
+                    String path = componentPath + ".deployments[" + j + "]";
                     if (!environments.contains(deployment.environment())) {
-                        throw new PreconditionViolationException("Missing target environment: " + deployment.environment());
+                        violations.add(new ContractViolation(path + ".environment", "Missing target environment: " + deployment.environment()));
                     }
                     if (!hostnames.contains(deployment.hostname())) {
-                        throw new PreconditionViolationException("Missing target host: " + deployment.hostname());
+                        violations.add(new ContractViolation(path + ".hostname", "Missing target host: " + deployment.hostname()));
                     }
-                    if (deployment.cluster() != null && !deployment.cluster().isBlank() && !clusterNames.contains(deployment.cluster())) {
-                        throw new PreconditionViolationException("Missing target cluster: " + deployment.cluster());
+                    if (!isBlank(deployment.cluster()) && !clusterNames.contains(deployment.cluster())) {
+                        violations.add(new ContractViolation(path + ".cluster", "Missing target cluster: " + deployment.cluster()));
                     }
-                    if (deployment.namespace() != null && !deployment.namespace().isBlank()) {
-                        if (deployment.cluster() == null || deployment.cluster().isBlank()) {
-                            throw new PreconditionViolationException("Namespace-scoped deployments must define a cluster: " + deployment.namespace());
-                        }
-                        if (!namespaces.contains(deployment.namespace())) {
-                            throw new PreconditionViolationException("Missing target namespace: " + deployment.namespace());
+                    if (!isBlank(deployment.namespace())) {
+                        if (isBlank(deployment.cluster())) {
+                            violations.add(new ContractViolation(path + ".namespace", "Namespace-scoped deployments must define a cluster: " + deployment.namespace()));
+                        } else if (!namespaces.contains(deployment.namespace())) {
+                            violations.add(new ContractViolation(path + ".namespace", "Missing target namespace: " + deployment.namespace()));
                         }
                     }
                 }
             }
-        }
-
-        for (DeploymentManifestDto.NetworkLinkDto link : manifest.links()) {
-            if (!hostnames.contains(link.fromHostname())) {
-                throw new PreconditionViolationException("Missing network link source host: " + link.fromHostname());
-            }
-            if (!hostnames.contains(link.toHostname())) {
-                throw new PreconditionViolationException("Missing network link destination host: " + link.toHostname());
-            }
+            return violations;
         }
     }
 }
@@ -0,0 +1,27 @@
+package com.jdeploy.service;
+
+import java.util.List;
+
+/**
+ * Raised when a manifest fails contract validation. Carries every violation found, not only the first.
+ */
+public class ManifestContractViolationException extends PreconditionViolationException {
+
+    private final List<ManifestContractValidator.ContractViolation> violations;
+
+    public ManifestContractViolationException(List<ManifestContractValidator.ContractViolation> violations) {
+        super(summarize(violations));
+        this.violations = List.copyOf(violations);
+    }
+
+    public List<ManifestContractValidator.ContractViolation> violations() {
+        return violations;
+    }
+
+    private static String summarize(List<ManifestContractValidator.ContractViolation> violations) {
+        if (violations.size() == 1) {
+            return violations.getFirst().message();
+        }
+        return violations.size() + " manifest contract violations, first: " + violations.getFirst().message();
+    }
+}
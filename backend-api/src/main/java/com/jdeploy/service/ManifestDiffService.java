@@ -0,0 +1,347 @@
+package com.jdeploy.service;
+
+import com.jdeploy.service.dto.DeploymentManifestDto;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Computes the {@link ManifestChangeSet} between the persisted graph and an incoming manifest.
+ * <p>
+ * The graph is read as a compact fingerprint restricted to the keys that appear in the manifest: scalar
+ * properties plus the key sets of the relationships each write unit owns. Entities whose fingerprint already
+ * matches what a full synchronization would write are left out of the change set.
+ */
+@Service
+public class ManifestDiffService {
+
+    private final Neo4jClient neo4jClient;
+
+    public ManifestDiffService(Neo4jClient neo4jClient) {
+        this.neo4jClient = Objects.requireNonNull(neo4jClient, "neo4jClient must not be null");
+    }
+
+    public ManifestChangeSet diff(DeploymentManifestDto manifest) {
+        if (manifest == null) {
+            throw new PreconditionViolationException("manifest is required");
+        }
+        ManifestChangeSet full = ManifestChangeSet.full(manifest);
+
+        List<DeploymentManifestDto.ExecutionEnvironmentDto> environments = changedEnvironments(full);
+        List<DeploymentManifestDto.SubnetDto> subnets = changedSubnets(full);
+        List<ManifestChangeSet.NodePlacement> nodes = changedNodes(full, subnets);
+        List<DeploymentManifestDto.ClusterDto> clusters = changedClusters(full);
+        List<DeploymentManifestDto.SoftwareSystemDto> systems = changedSystems(full);
+        List<DeploymentManifestDto.SoftwareComponentDto> components = changedComponents(full);
+        List<ManifestChangeSet.DeploymentPlacement> deployments = changedDeployments(full, components);
+        List<DeploymentManifestDto.NetworkLinkDto> links = changedLinks(full);
+
+        return new ManifestChangeSet(environments, subnets, nodes, clusters, systems, components, deployments, links);
+    }
+
+    private List<DeploymentManifestDto.ExecutionEnvironmentDto> changedEnvironments(ManifestChangeSet full) {
+        Map<String, String> types = new HashMap<>();
+        for (Map<String, Object> row : neo4jClient.query("""
+                        MATCH (e:ExecutionEnvironment)
+                        WHERE e.name IN $names
+                        RETURN e.name AS name, e.type AS type
+                        """)
+                .bind(full.environments().stream().map(DeploymentManifestDto.ExecutionEnvironmentDto::name).toList()).to("names")
+                .fetch()
+                .all()) {
+            types.put((String) row.get("name"), String.valueOf(row.get("type")));
+        }
+        return full.environments().stream()
+                .filter(environment -> !String.valueOf(environment.type()).equals(types.get(environment.name())))
+                .toList();
+    }
+
+    private List<DeploymentManifestDto.SubnetDto> changedSubnets(ManifestChangeSet full) {
+        Map<String, SubnetState> persisted = new HashMap<>();
+        for (Map<String, Object> row : neo4jClient.query("""
+                        MATCH (s:Subnet)
+                        WHERE s.cidr IN $cidrs
+                        OPTIONAL MATCH (s)-[:CONTAINS_NODE]->(n:HardwareNode)
+                        RETURN s.cidr AS cidr, s.vlan AS vlan, s.routingZone AS routingZone, collect(n.hostname) AS members
+                        """)
+                .bind(full.subnets().stream().map(DeploymentManifestDto.SubnetDto::cidr).toList()).to("cidrs")
+                .fetch()
+                .all()) {
+            persisted.put((String) row.get("cidr"), new SubnetState(
+                    (String) row.get("vlan"),
+                    (String) row.get("routingZone"),
+                    toStringSet(row.get("members"))));
+        }
+        return full.subnets().stream()
+                .filter(subnet -> !new SubnetState(
+                        subnet.vlan(),
+                        subnet.routingZone(),
+                        subnet.nodes().stream().map(DeploymentManifestDto.HardwareNodeDto::hostname).collect(Collectors.toSet()))
+                        .equals(persisted.get(subnet.cidr())))
+                .toList();
+    }
+
+    private List<ManifestChangeSet.NodePlacement> changedNodes(ManifestChangeSet full,
+                                                              List<DeploymentManifestDto.SubnetDto> changedSubnets) {
+        Map<String, NodeState> persisted = new HashMap<>();
+        for (Map<String, Object> row : neo4jClient.query("""
+                        MATCH (n:HardwareNode)
+                        WHERE n.hostname IN $hostnames
+                        OPTIONAL MATCH (s:Subnet)-[:CONTAINS_NODE]->(n)
+                        RETURN n.hostname AS hostname, n.ipAddress AS ipAddress, n.type AS type, n.roles AS roles,
+                               collect(s.cidr) AS subnets
+                        """)
+                .bind(full.nodes().stream().map(placement -> placement.node().hostname()).distinct().toList()).to("hostnames")
+                .fetch()
+                .all()) {
+            persisted.put((String) row.get("hostname"), new NodeState(
+                    (String) row.get("ipAddress"),
+                    (String) row.get("type"),
+                    toStringList(row.get("roles")),
+                    toStringSet(row.get("subnets"))));
+        }
+
+        Map<String, DeploymentManifestDto.HardwareNodeDto> effectiveNodes = new HashMap<>();
+        Map<String, Set<String>> expectedSubnets = new HashMap<>();
+        for (ManifestChangeSet.NodePlacement placement : full.nodes()) {
+            effectiveNodes.put(placement.node().hostname(), placement.node());
+            expectedSubnets.computeIfAbsent(placement.node().hostname(), hostname -> new HashSet<>()).add(placement.cidr());
+        }
+
+        Set<String> rewrittenSubnets = new HashSet<>();
+        changedSubnets.forEach(subnet -> rewrittenSubnets.add(subnet.cidr()));
+        Set<String> changedHostnames = new HashSet<>();
+        for (ManifestChangeSet.NodePlacement placement : full.nodes()) {
+            String hostname = placement.node().hostname();
+            NodeState state = persisted.get(hostname);
+            DeploymentManifestDto.HardwareNodeDto expected = effectiveNodes.get(hostname);
+            boolean unchanged = state != null
+                    && Objects.equals(state.ipAddress(), expected.ipAddress())
+                    && Objects.equals(state.type(), expected.type())
+                    && state.roles().equals(expected.roles())
+                    && state.subnets().containsAll(expectedSubnets.get(hostname));
+            if (!unchanged || rewrittenSubnets.contains(placement.cidr())) {
+                changedHostnames.add(hostname);
+            }
+        }
+        return full.nodes().stream()
+                .filter(placement -> changedHostnames.contains(placement.node().hostname()))
+                .toList();
+    }
+
+    private List<DeploymentManifestDto.ClusterDto> changedClusters(ManifestChangeSet full) {
+        Map<String, ClusterState> persisted = new HashMap<>();
+        for (Map<String, Object> row : neo4jClient.query("""
+                        MATCH (c)
+                        WHERE (c:GridCluster OR c:KubernetesCluster) AND c.name IN $names
+                        OPTIONAL MATCH (c)-[:HAS_NODE]->(n:HardwareNode)
+                        OPTIONAL MATCH (ns:KubernetesNamespace)-[:BELONGS_TO]->(c)
+                        RETURN CASE WHEN c:KubernetesCluster THEN 'KubernetesCluster' ELSE 'GridCluster' END AS label,
+                               c.name AS name, c.type AS type,
+                               collect(DISTINCT n.hostname) AS members,
+                               collect(DISTINCT ns.name) AS namespaces
+                        """)
+                .bind(full.clusters().stream().map(DeploymentManifestDto.ClusterDto::name).distinct().toList()).to("names")
+                .fetch()
+                .all()) {
+            persisted.put(row.get("label") + ":" + row.get("name"), new ClusterState(
+                    (String) row.get("type"),
+                    toStringSet(row.get("members")),
+                    toStringSet(row.get("namespaces"))));
+        }
+        return full.clusters().stream()
+                .filter(cluster -> {
+                    ClusterState state = persisted.get(ManifestChangeSet.clusterLabel(cluster) + ":" + cluster.name());
+                    boolean namespacesPresent = !"KubernetesCluster".equals(ManifestChangeSet.clusterLabel(cluster))
+                            || (state != null && state.namespaces().containsAll(cluster.namespaces()));
+                    return state == null
+                            || !Objects.equals(state.type(), cluster.type())
+                            || !state.members().equals(new HashSet<>(cluster.nodes()))
+                            || !namespacesPresent;
+                })
+                .toList();
+    }
+
+    private List<DeploymentManifestDto.SoftwareSystemDto> changedSystems(ManifestChangeSet full) {
+        Map<String, Set<String>> persisted = new HashMap<>();
+        for (Map<String, Object> row : neo4jClient.query("""
+                        MATCH (s:SoftwareSystem)
+                        WHERE s.name IN $names
+                        OPTIONAL MATCH (s)-[:HAS_COMPONENT]->(c:SoftwareComponent)
+                        RETURN s.name AS name, collect(c.name + ':' + c.version) AS components
+                        """)
+                .bind(full.systems().stream().map(DeploymentManifestDto.SoftwareSystemDto::name).toList()).to("names")
+                .fetch()
+                .all()) {
+            persisted.put((String) row.get("name"), toStringSet(row.get("components")));
+        }
+        return full.systems().stream()
+                .filter(system -> !system.components().stream()
+                        .map(ManifestChangeSet::componentKey)
+                        .collect(Collectors.toSet())
+                        .equals(persisted.get(system.name())))
+                .toList();
+    }
+
+    private List<DeploymentManifestDto.SoftwareComponentDto> changedComponents(ManifestChangeSet full) {
+        List<Map<String, Object>> keys = full.components().stream()
+                .map(component -> Map.<String, Object>of("name", component.name(), "version", component.version()))
+                .toList();
+        Map<String, Set<String>> persisted = new HashMap<>();
+        for (Map<String, Object> row : neo4jClient.query("""
+                        UNWIND $keys AS key
+                        MATCH (c:SoftwareComponent {name: key.name, version: key.version})
+                        OPTIONAL MATCH (c)-[:HAS_DEPLOYMENT]->(d:DeploymentInstance)
+                        RETURN c.name + ':' + c.version AS component, collect(d.deploymentKey) AS deployments
+                        """)
+                .bind(keys).to("keys")
+                .fetch()
+                .all()) {
+            persisted.put((String) row.get("component"), toStringSet(row.get("deployments")));
+        }
+
+        Map<String, Set<String>> expected = new HashMap<>();
+        for (ManifestChangeSet.DeploymentPlacement placement : full.deployments()) {
+            if (placement.owned()) {
+                expected.computeIfAbsent(ManifestChangeSet.componentKey(placement.component()), key -> new HashSet<>())
+                        .add(placement.deploymentKey());
+            }
+        }
+        return full.components().stream()
+                .filter(component -> {
+                    String componentKey = ManifestChangeSet.componentKey(component);
+                    return !expected.getOrDefault(componentKey, Set.of()).equals(persisted.get(componentKey));
+                })
+                .toList();
+    }
+
+    private List<ManifestChangeSet.DeploymentPlacement> changedDeployments(ManifestChangeSet full,
+                                                                          List<DeploymentManifestDto.SoftwareComponentDto> changedComponents) {
+        Map<String, DeploymentState> persisted = new HashMap<>();
+        for (Map<String, Object> row : neo4jClient.query("""
+                        UNWIND $keys AS key
+                        MATCH (d:DeploymentInstance {deploymentKey: key})
+                        OPTIONAL MATCH (d)-[r:TARGET_ENVIRONMENT|TARGET_NODE|TARGETS|TARGET_NAMESPACE]->(t)
+                        OPTIONAL MATCH (d)-[:TARGET_NAMESPACE]->(:KubernetesNamespace)-[:BELONGS_TO]->(kc:KubernetesCluster)
+                        RETURN d.deploymentKey AS deploymentKey,
+                               collect(DISTINCT type(r) + '>' + labels(t)[0] + ':' + coalesce(t.hostname, t.name)) AS targets,
+                               collect(DISTINCT kc.name) AS clusters
+                        """)
+                .bind(full.deployments().stream().map(ManifestChangeSet.DeploymentPlacement::deploymentKey).toList()).to("keys")
+                .fetch()
+                .all()) {
+            persisted.put((String) row.get("deploymentKey"), new DeploymentState(
+                    toStringSet(row.get("targets")),
+                    toStringSet(row.get("clusters"))));
+        }
+
+        Set<String> rewrittenComponents = new HashSet<>();
+        changedComponents.forEach(component -> rewrittenComponents.add(ManifestChangeSet.componentKey(component)));
+        return full.deployments().stream()
+                .filter(placement -> {
+                    if (placement.owned() && rewrittenComponents.contains(ManifestChangeSet.componentKey(placement.component()))) {
+                        return true;
+                    }
+                    DeploymentState state = persisted.get(placement.deploymentKey());
+                    return state == null
+                            || !state.targets().equals(expectedTargets(placement))
+                            || (placement.namespace() != null && placement.cluster() != null
+                            && !state.clusters().contains(placement.cluster()));
+                })
+                .toList();
+    }
+
+    private List<DeploymentManifestDto.NetworkLinkDto> changedLinks(ManifestChangeSet full) {
+        Map<String, LinkState> persisted = new HashMap<>();
+        for (Map<String, Object> row : neo4jClient.query("""
+                        UNWIND $keys AS key
+                        MATCH (l:NetworkLink {linkKey: key})
+                        OPTIONAL MATCH (l)-[:CONNECTS_FROM]->(source:HardwareNode)
+                        OPTIONAL MATCH (l)-[:CONNECTS_TO]->(target:HardwareNode)
+                        RETURN l.linkKey AS linkKey, l.bandwidthMbps AS bandwidthMbps, l.latencyMs AS latencyMs,
+                               collect(DISTINCT source.hostname) AS sources,
+                               collect(DISTINCT target.hostname) AS targets
+                        """)
+                .bind(full.links().stream().map(ManifestIngestionService::linkKey).distinct().toList()).to("keys")
+                .fetch()
+                .all()) {
+            persisted.put((String) row.get("linkKey"), new LinkState(
+                    toLong(row.get("bandwidthMbps")),
+                    toLong(row.get("latencyMs")),
+                    toStringSet(row.get("sources")),
+                    toStringSet(row.get("targets"))));
+        }
+
+        Map<String, DeploymentManifestDto.NetworkLinkDto> effective = new LinkedHashMap<>();
+        for (DeploymentManifestDto.NetworkLinkDto link : full.links()) {
+            effective.put(ManifestIngestionService.linkKey(link), link);
+        }
+        Set<String> changedKeys = new LinkedHashSet<>();
+        effective.forEach((key, link) -> {
+            LinkState expected = new LinkState((long) link.bandwidthMbps(), (long) link.latencyMs(),
+                    Set.of(link.fromHostname()), Set.of(link.toHostname()));
+            if (!expected.equals(persisted.get(key))) {
+                changedKeys.add(key);
+            }
+        });
+        return full.links().stream()
+                .filter(link -> changedKeys.contains(ManifestIngestionService.linkKey(link)))
+                .toList();
+    }
+
+    private static Set<String> expectedTargets(ManifestChangeSet.DeploymentPlacement placement) {
+        Set<String> targets = new HashSet<>();
+        String environment = "ExecutionEnvironment:" + placement.target().environment();
+        String node = "HardwareNode:" + placement.target().hostname();
+        targets.add("TARGET_ENVIRONMENT>" + environment);
+        targets.add("TARGETS>" + environment);
+        targets.add("TARGET_NODE>" + node);
+        targets.add("TARGETS>" + node);
+        if (placement.namespace() != null) {
+            String namespace = "KubernetesNamespace:" + placement.namespace();
+            targets.add("TARGET_NAMESPACE>" + namespace);
+            targets.add("TARGETS>" + namespace);
+        }
+        return targets;
+    }
+
+    private static Long toLong(Object value) {
+        return value instanceof Number number ? number.longValue() : null;
+    }
+
+    private static List<String> toStringList(Object value) {
+        if (value instanceof Collection<?> collection) {
+            return collection.stream().map(String::valueOf).toList();
+        }
+        return List.of();
+    }
+
+    private static Set<String> toStringSet(Object value) {
+        return new HashSet<>(toStringList(value));
+    }
+
+    private record SubnetState(String vlan, String routingZone, Set<String> members) {
+    }
+
+    private record NodeState(String ipAddress, String type, List<String> roles, Set<String> subnets) {
+    }
+
+    private record ClusterState(String type, Set<String> members, Set<String> namespaces) {
+    }
+
+    private record DeploymentState(Set<String> targets, Set<String> clusters) {
+    }
+
+    private record LinkState(Long bandwidthMbps, Long latencyMs, Set<String> sources, Set<String> targets) {
+    }
+}
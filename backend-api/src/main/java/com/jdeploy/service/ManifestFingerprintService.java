@@ -0,0 +1,107 @@
+package com.jdeploy.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.jdeploy.service.dto.DeploymentManifestDto;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Tracks the canonical hash of the last successfully synchronized manifest on a singleton
+ * {@code ManifestSyncState} node, so repeated ingestion of an identical manifest can be skipped.
+ */
+@Service
+public class ManifestFingerprintService {
+
+    private static final String STATE_ID = "manifest-sync";
+
+    private final Neo4jClient neo4jClient;
+    private final ObjectMapper canonicalMapper;
+
+    public ManifestFingerprintService(Neo4jClient neo4jClient) {
+        this.neo4jClient = Objects.requireNonNull(neo4jClient, "neo4jClient must not be null");
+        this.canonicalMapper = JsonMapper.builder()
+                .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+                .build();
+    }
+
+    /**
+     * Returns the SHA-256 hex digest of the manifest serialized as JSON with sorted property names.
+     */
+    public String fingerprint(DeploymentManifestDto manifest) {
+        if (manifest == null) {
+            throw new PreconditionViolationException("manifest is required");
+        }
+        try {
+            byte[] canonical = canonicalMapper.writeValueAsBytes(manifest);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(canonical));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Unable to serialize manifest for fingerprinting", ex);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    /**
+     * Write-locks the sync state node until the current transaction ends, so manifest synchronizations of all
+     * processes sharing the graph run one after another. Must be the first write of the transaction.
+     */
+    public void lockSyncState() {
+        neo4jClient.query("""
+                        MERGE (m:ManifestSyncState {id: $id})
+                        SET m.lockedAt = $lockedAt
+                        """)
+                .bindAll(Map.of("id", STATE_ID, "lockedAt", Instant.now().toEpochMilli()))
+                .run();
+    }
+
+    public Optional<String> lastSynchronizedFingerprint() {
+        return neo4jClient.query("""
+                        MATCH (m:ManifestSyncState {id: $id})
+                        RETURN m.manifestHash AS manifestHash
+                        """)
+                .bind(STATE_ID).to("id")
+                .fetchAs(String.class)
+                .mappedBy((typeSystem, record) -> record.get("manifestHash").isNull() ? null : record.get("manifestHash").asString())
+                .one();
+    }
+
+    public void recordSynchronized(String fingerprint) {
+        if (fingerprint == null || fingerprint.isBlank()) {
+            throw new PreconditionViolationException("fingerprint is required");
+        }
+        neo4jClient.query("""
+                        MERGE (m:ManifestSyncState {id: $id})
+                        SET m.manifestHash = $manifestHash,
+                            m.synchronizedAt = $synchronizedAt
+                        """)
+                .bindAll(Map.of(
+                        "id", STATE_ID,
+                        "manifestHash", fingerprint,
+                        "synchronizedAt", Instant.now().toEpochMilli()))
+                .run();
+    }
+
+    /**
+     * Forgets the stored fingerprint so the next ingestion runs in full. Called whenever the graph is
+     * changed outside of manifest synchronization.
+     */
+    public void invalidate() {
+        neo4jClient.query("""
+                        MATCH (m:ManifestSyncState {id: $id})
+                        REMOVE m.manifestHash
+                        """)
+                .bind(STATE_ID).to("id")
+                .run();
+    }
+}
@@ -0,0 +1,228 @@
+package com.jdeploy.service;
+
+import com.jdeploy.service.dto.DeploymentManifestDto;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Runs the parse, validate and synchronize pipeline for submitted manifests on a bounded worker pool.
+ * <p>
+ * Submissions whose YAML and {@code force} flag match a job that is still queued are coalesced onto that job.
+ * When every worker is busy and the queue is full, submission fails with
+ * {@link IngestionQueueFullException} instead of blocking the caller. Finished jobs are retained for status
+ * polling up to {@code jdeploy.ingestion.jobs.retained}, oldest first out.
+ * <p>
+ * Additional workers only parse and validate concurrently: {@link ManifestIngestionService#synchronize} runs one
+ * synchronization at a time, for jobs and direct callers alike.
+ */
+@Service
+public class ManifestIngestionJobService {
+
+    private final ManifestIngestionService ingestionService;
+    private final ManifestContractValidator contractValidator;
+    private final OperationMetricsService operationMetricsService;
+    private final ThreadPoolExecutor executor;
+    private final int retainedJobs;
+
+    private final Map<String, IngestionJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, IngestionJob> queuedByContent = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<String> finishedJobIds = new ConcurrentLinkedQueue<>();
+
+    public ManifestIngestionJobService(ManifestIngestionService ingestionService,
+                                       ManifestContractValidator contractValidator,
+                                       OperationMetricsService operationMetricsService,
+                                       @Value("${jdeploy.ingestion.jobs.workers:1}") int workers,
+                                       @Value("${jdeploy.ingestion.jobs.queue-capacity:16}") int queueCapacity,
+                                       @Value("${jdeploy.ingestion.jobs.retained:500}") int retainedJobs) {
+        this.ingestionService = Objects.requireNonNull(ingestionService, "ingestionService must not be null");
+        this.contractValidator = Objects.requireNonNull(contractValidator, "contractValidator must not be null");
+        this.operationMetricsService = Objects.requireNonNull(operationMetricsService, "operationMetricsService must not be null");
+        if (workers < 1 || queueCapacity < 1 || retainedJobs < 1) {
+            throw new PreconditionViolationException("jdeploy.ingestion.jobs workers, queue-capacity and retained must be positive");
+        }
+        this.retainedJobs = retainedJobs;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "manifest-ingestion-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Queues the manifest for ingestion and returns the job that will process it, which is an already queued
+     * job when an identical submission is waiting.
+     */
+    public IngestionJobStatus submit(String manifestYaml, boolean force) {
+        if (manifestYaml == null || manifestYaml.isBlank()) {
+            throw new PreconditionViolationException("manifest is required");
+        }
+        String contentKey = contentHash(manifestYaml) + (force ? ":force" : "");
+        synchronized (queuedByContent) {
+            IngestionJob queued = queuedByContent.get(contentKey);
+            if (queued != null) {
+                queued.coalescedSubmissions.incrementAndGet();
+                operationMetricsService.recordIngestionJobCoalesced();
+                return queued.status();
+            }
+            IngestionJob job = new IngestionJob(UUID.randomUUID().toString(), contentKey);
+            try {
+                executor.execute(() -> run(job, manifestYaml, force));
+            } catch (RejectedExecutionException ex) {
+                operationMetricsService.recordIngestionJobRejected();
+                throw new IngestionQueueFullException("Ingestion queue is full; retry later");
+            }
+            jobs.put(job.id, job);
+            queuedByContent.put(contentKey, job);
+            return job.status();
+        }
+    }
+
+    public Optional<IngestionJobStatus> status(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId)).map(IngestionJob::status);
+    }
+
+    public int queuedJobs() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void run(IngestionJob job, String manifestYaml, boolean force) {
+        synchronized (queuedByContent) {
+            queuedByContent.remove(job.contentKey, job);
+        }
+        job.start();
+        try {
+            DeploymentManifestDto manifest = job.stage("parse", () -> ingestionService.parseManifest(manifestYaml));
+            job.stage("validate", () -> {
+                contractValidator.validateForIngestion(manifest);
+                return null;
+            });
+            ManifestIngestionService.SynchronizationOutcome outcome =
+                    job.stage("synchronize", () -> ingestionService.synchronize(manifest, force));
+            job.finish(outcome == ManifestIngestionService.SynchronizationOutcome.UNCHANGED ? JobState.UNCHANGED : JobState.SUCCEEDED, null);
+        } catch (RuntimeException ex) {
+            job.finish(JobState.FAILED, ex.getMessage());
+        } catch (Error ex) {
+            job.finish(JobState.FAILED, ex.toString());
+            throw ex;
+        } finally {
+            retire(job.id);
+        }
+    }
+
+    private void retire(String jobId) {
+        finishedJobIds.add(jobId);
+        while (finishedJobIds.size() > retainedJobs) {
+            String evicted = finishedJobIds.poll();
+            if (evicted != null) {
+                jobs.remove(evicted);
+            }
+        }
+    }
+
+    private static String contentHash(String manifestYaml) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(manifestYaml.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    public enum JobState {
+        QUEUED,
+        RUNNING,
+        SUCCEEDED,
+        UNCHANGED,
+        FAILED
+    }
+
+    /**
+     * Point-in-time view of an ingestion job. {@code stageMillis} lists completed or failed stages in
+     * execution order.
+     */
+    public record IngestionJobStatus(String jobId,
+                                     JobState state,
+                                     Instant submittedAt,
+                                     Instant startedAt,
+                                     Instant finishedAt,
+                                     Map<String, Long> stageMillis,
+                                     int coalescedSubmissions,
+                                     String error) {
+    }
+
+    private static final class IngestionJob {
+
+        private final String id;
+        private final String contentKey;
+        private final Instant submittedAt = Instant.now();
+        private final Map<String, Long> stageMillis = new LinkedHashMap<>();
+        private final AtomicInteger coalescedSubmissions = new AtomicInteger();
+        private JobState state = JobState.QUEUED;
+        private Instant startedAt;
+        private Instant finishedAt;
+        private String error;
+
+        private IngestionJob(String id, String contentKey) {
+            this.id = id;
+            this.contentKey = contentKey;
+        }
+
+        private synchronized void start() {
+            state = JobState.RUNNING;
+            startedAt = Instant.now();
+        }
+
+        private <T> T stage(String name, Supplier<T> work) {
+            long started = System.nanoTime();
+            try {
+                return work.get();
+            } finally {
+                long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+                synchronized (this) {
+                    stageMillis.put(name, elapsedMillis);
+                }
+            }
+        }
+
+        private synchronized void finish(JobState finalState, String failure) {
+            state = finalState;
+            error = failure;
+            finishedAt = Instant.now();
+        }
+
+        private synchronized IngestionJobStatus status() {
+            return new IngestionJobStatus(id, state, submittedAt, startedAt, finishedAt,
+                    Collections.unmodifiableMap(new LinkedHashMap<>(stageMillis)), coalescedSubmissions.get(), error);
+        }
+    }
+}
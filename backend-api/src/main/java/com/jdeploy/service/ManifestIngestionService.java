@@ -3,13 +3,16 @@ package com.jdeploy.service;
 import com.jdeploy.service.dto.DeploymentManifestDto;
 import io.micrometer.observation.Observation;
 import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.neo4j.core.Neo4jClient;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
 
 @Service
@@ -17,17 +20,37 @@ public class ManifestIngestionService {
 
     private final ManifestParserService parserService;
     private final Neo4jClient neo4jClient;
+    private final ManifestBatchWriter batchWriter;
+    private final ManifestDiffService diffService;
+    private final ManifestFingerprintService fingerprintService;
+    private final IngestionMode ingestionMode;
     private final OperationMetricsService operationMetricsService;
     private final ObservationRegistry observationRegistry;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Object synchronizeLock = new Object();
 
     public ManifestIngestionService(ManifestParserService parserService,
                                     Neo4jClient neo4jClient,
+                                    ManifestBatchWriter batchWriter,
+                                    ManifestDiffService diffService,
+                                    ManifestFingerprintService fingerprintService,
                                     ObservationRegistry observationRegistry,
-                                    OperationMetricsService operationMetricsService) {
+                                    OperationMetricsService operationMetricsService,
+                                    ApplicationEventPublisher eventPublisher,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${jdeploy.ingestion.mode:FULL}") IngestionMode ingestionMode) {
         this.parserService = Objects.requireNonNull(parserService, "parserService must not be null");
         this.neo4jClient = Objects.requireNonNull(neo4jClient, "neo4jClient must not be null");
+        this.batchWriter = Objects.requireNonNull(batchWriter, "batchWriter must not be null");
+        this.diffService = Objects.requireNonNull(diffService, "diffService must not be null");
+        this.fingerprintService = Objects.requireNonNull(fingerprintService, "fingerprintService must not be null");
+        this.ingestionMode = Objects.requireNonNull(ingestionMode, "ingestionMode must not be null");
         this.observationRegistry = Objects.requireNonNull(observationRegistry, "observationRegistry must not be null");
         this.operationMetricsService = Objects.requireNonNull(operationMetricsService, "operationMetricsService must not be null");
+        this.eventPublisher = Objects.requireNonNull(eventPublisher, "eventPublisher must not be null");
+        this.transactionTemplate = new TransactionTemplate(
+                Objects.requireNonNull(transactionManager, "transactionManager must not be null"));
     }
 
     public DeploymentManifestDto parseManifest(String yamlText) {
@@ -38,6 +61,14 @@ public class ManifestIngestionService {
         return manifest;
     }
 
+    public DeploymentManifestDto parseManifest(InputStream yamlStream) {
+        DeploymentManifestDto manifest = parserService.parseManifest(yamlStream);
+        if (manifest == null) {
+            throw new PostconditionViolationException("Manifest parser returned null for YAML stream");
+        }
+        return manifest;
+    }
+
     public DeploymentManifestDto parseManifest(Path manifestPath) {
         DeploymentManifestDto manifest = parserService.parseManifest(manifestPath);
         if (manifest == null) {
@@ -46,30 +77,58 @@ public class ManifestIngestionService {
         return manifest;
     }
 
-    @Transactional
-    public void synchronize(DeploymentManifestDto manifest) {
+    public SynchronizationOutcome synchronize(DeploymentManifestDto manifest) {
+        return synchronize(manifest, false);
+    }
+
+    /**
+     * Synchronizes the graph with the manifest. Unless {@code force} is set, a manifest whose canonical hash
+     * matches the last successfully synchronized manifest is skipped and reported as
+     * {@link SynchronizationOutcome#UNCHANGED}.
+     * <p>
+     * Synchronizations run one at a time, since concurrent ones over overlapping manifests deadlock in Neo4j and
+     * prune each other's entities. Callers in this process queue on a lock held until the transaction has
+     * committed; other processes sharing the graph, such as a CLI {@code ingest-manifest} run, queue on the
+     * write lock the transaction takes on the sync state node before anything else.
+     */
+    public SynchronizationOutcome synchronize(DeploymentManifestDto manifest, boolean force) {
         if (manifest == null) {
             throw new PreconditionViolationException("manifest is required");
         }
 
         operationMetricsService.recordIngestionRequest();
         try {
-            Observation.createNotStarted("jdeploy.manifest.synchronize", observationRegistry)
-                    .observe(() -> synchronizeManifest(manifest));
-            operationMetricsService.recordIngestionSuccess();
+            synchronized (synchronizeLock) {
+                return transactionTemplate.execute(status -> synchronizeInTransaction(manifest, force));
+            }
         } catch (RuntimeException ex) {
             operationMetricsService.recordIngestionError();
             throw ex;
         }
     }
 
+    private SynchronizationOutcome synchronizeInTransaction(DeploymentManifestDto manifest, boolean force) {
+        fingerprintService.lockSyncState();
+        String fingerprint = fingerprintService.fingerprint(manifest);
+        if (!force && fingerprintService.lastSynchronizedFingerprint().filter(fingerprint::equals).isPresent()) {
+            operationMetricsService.recordIngestionUnchanged();
+            return SynchronizationOutcome.UNCHANGED;
+        }
+        Observation.createNotStarted("jdeploy.manifest.synchronize", observationRegistry)
+                .observe(() -> synchronizeManifest(manifest));
+        fingerprintService.recordSynchronized(fingerprint);
+        eventPublisher.publishEvent(new TopologyChangedEvent("synchronize"));
+        operationMetricsService.recordIngestionSuccess();
+        return SynchronizationOutcome.INGESTED;
+    }
+
     private void synchronizeManifest(DeploymentManifestDto manifest) {
         backfillImplicitClusterSemantics();
-        upsertEnvironments(manifest);
-        upsertSubnetsAndNodes(manifest);
-        upsertClusters(manifest);
-        upsertSystemsComponentsAndDeployments(manifest);
-        upsertNetworkLinks(manifest);
+        ManifestChangeSet changeSet = ingestionMode == IngestionMode.INCREMENTAL
+                ? diffService.diff(manifest)
+                : ManifestChangeSet.full(manifest);
+        batchWriter.write(changeSet);
+        operationMetricsService.recordIngestionChanges(changeSet.size());
         pruneObsoleteArtifacts(manifest);
     }
 
@@ -107,242 +166,11 @@ public class ManifestIngestionService {
                 .run();
     }
 
-    private void upsertEnvironments(DeploymentManifestDto manifest) {
-        for (DeploymentManifestDto.ExecutionEnvironmentDto environment : manifest.environments()) {
-            neo4jClient.query("""
-                    MERGE (e:ExecutionEnvironment {name: $name})
-                    SET e.type = $type
-                    """)
-                    .bindAll(Map.of("name", environment.name(), "type", environment.type()))
-                    .run();
-        }
-    }
-
-    private void upsertSubnetsAndNodes(DeploymentManifestDto manifest) {
-        for (DeploymentManifestDto.SubnetDto subnet : manifest.subnets()) {
-            neo4jClient.query("""
-                    MERGE (s:Subnet {cidr: $cidr})
-                    SET s.vlan = $vlan,
-                        s.routingZone = $routingZone
-                    """)
-                    .bindAll(Map.of(
-                            "cidr", subnet.cidr(),
-                            "vlan", subnet.vlan(),
-                            "routingZone", subnet.routingZone()
-                    ))
-                    .run();
-
-            neo4jClient.query("""
-                    MATCH (s:Subnet {cidr: $cidr})-[r:CONTAINS_NODE]->(:HardwareNode)
-                    DELETE r
-                    """)
-                    .bind(subnet.cidr()).to("cidr")
-                    .run();
-
-            for (DeploymentManifestDto.HardwareNodeDto node : subnet.nodes()) {
-                neo4jClient.query("""
-                        MERGE (n:HardwareNode {hostname: $hostname})
-                        SET n.ipAddress = $ipAddress,
-                            n.type = $type,
-                            n.roles = $roles
-                        """)
-                        .bindAll(Map.of(
-                                "hostname", node.hostname(),
-                                "ipAddress", node.ipAddress(),
-                                "type", node.type(),
-                                "roles", node.roles()
-                        ))
-                        .run();
-
-                neo4jClient.query("""
-                        MATCH (s:Subnet {cidr: $cidr}), (n:HardwareNode {hostname: $hostname})
-                        MERGE (s)-[:CONTAINS_NODE]->(n)
-                        """)
-                        .bindAll(Map.of("cidr", subnet.cidr(), "hostname", node.hostname()))
-                        .run();
-            }
-        }
-    }
-
-    private void upsertClusters(DeploymentManifestDto manifest) {
-        for (DeploymentManifestDto.ClusterDto cluster : manifest.clusters()) {
-            String clusterLabel = "KUBERNETES".equalsIgnoreCase(cluster.type()) ? "KubernetesCluster" : "GridCluster";
-
-            neo4jClient.query("""
-                    MERGE (c:%s {name: $clusterName})
-                    SET c.type = $clusterType
-                    """.formatted(clusterLabel))
-                    .bindAll(Map.of("clusterName", cluster.name(), "clusterType", cluster.type()))
-                    .run();
-
-            neo4jClient.query("""
-                    MATCH (c:%s {name: $clusterName})-[r:HAS_NODE]->(:HardwareNode)
-                    DELETE r
-                    """.formatted(clusterLabel))
-                    .bind(cluster.name()).to("clusterName")
-                    .run();
-
-            for (String hostname : cluster.nodes()) {
-                neo4jClient.query("""
-                        MATCH (c:%s {name: $clusterName}), (n:HardwareNode {hostname: $hostname})
-                        MERGE (c)-[:HAS_NODE]->(n)
-                        """.formatted(clusterLabel))
-                        .bindAll(Map.of("clusterName", cluster.name(), "hostname", hostname))
-                        .run();
-            }
-
-            if ("KUBERNETES".equalsIgnoreCase(cluster.type())) {
-                for (String namespace : cluster.namespaces()) {
-                    neo4jClient.query("""
-                            MERGE (ns:KubernetesNamespace {name: $namespace})
-                            WITH ns
-                            MATCH (c:KubernetesCluster {name: $clusterName})
-                            MERGE (ns)-[:BELONGS_TO]->(c)
-                            """)
-                            .bindAll(Map.of("namespace", namespace, "clusterName", cluster.name()))
-                            .run();
-                }
-            }
-        }
-    }
-
-    private void upsertSystemsComponentsAndDeployments(DeploymentManifestDto manifest) {
-        for (DeploymentManifestDto.SoftwareSystemDto system : manifest.systems()) {
-            neo4jClient.query("""
-                    MERGE (s:SoftwareSystem {name: $name})
-                    """)
-                    .bind(system.name()).to("name")
-                    .run();
-
-            neo4jClient.query("""
-                    MATCH (s:SoftwareSystem {name: $name})-[r:HAS_COMPONENT]->(:SoftwareComponent)
-                    DELETE r
-                    """)
-                    .bind(system.name()).to("name")
-                    .run();
-
-            for (DeploymentManifestDto.SoftwareComponentDto component : system.components()) {
-                neo4jClient.query("""
-                        MERGE (c:SoftwareComponent {name: $name, version: $version})
-                        """)
-                        .bindAll(Map.of("name", component.name(), "version", component.version()))
-                        .run();
-
-                neo4jClient.query("""
-                        MATCH (s:SoftwareSystem {name: $systemName}), (c:SoftwareComponent {name: $name, version: $version})
-                        MERGE (s)-[:HAS_COMPONENT]->(c)
-                        """)
-                        .bindAll(Map.of(
-                                "systemName", system.name(),
-                                "name", component.name(),
-                                "version", component.version()
-                        ))
-                        .run();
-
-                neo4jClient.query("""
-                        MATCH (c:SoftwareComponent {name: $name, version: $version})-[r:HAS_DEPLOYMENT]->(:DeploymentInstance)
-                        DELETE r
-                        """)
-                        .bindAll(Map.of("name", component.name(), "version", component.version()))
-                        .run();
-
-                for (DeploymentManifestDto.DeploymentTargetDto deployment : component.deployments()) {
-                    String deploymentKey = deployment.environment() + "@" + deployment.hostname() + ":" + component.name() + ":" + component.version();
-                    neo4jClient.query("""
-                            MERGE (d:DeploymentInstance {deploymentKey: $deploymentKey})
-                            """)
-                            .bind(deploymentKey).to("deploymentKey")
-                            .run();
-
-                    neo4jClient.query("""
-                            MATCH (d:DeploymentInstance {deploymentKey: $deploymentKey})-[r:TARGET_ENVIRONMENT|TARGET_NODE|TARGETS|TARGET_NAMESPACE]->()
-                            DELETE r
-                            """)
-                            .bind(deploymentKey).to("deploymentKey")
-                            .run();
-
-                    neo4jClient.query("""
-                            MATCH (c:SoftwareComponent {name: $componentName, version: $version}),
-                                  (d:DeploymentInstance {deploymentKey: $deploymentKey}),
-                                  (e:ExecutionEnvironment {name: $environmentName}),
-                                  (n:HardwareNode {hostname: $hostname})
-                            MERGE (c)-[:HAS_DEPLOYMENT]->(d)
-                            MERGE (d)-[:TARGET_ENVIRONMENT]->(e)
-                            MERGE (d)-[:TARGET_NODE]->(n)
-                            MERGE (d)-[:TARGETS]->(e)
-                            MERGE (d)-[:TARGETS]->(n)
-                            """)
-                            .bindAll(Map.of(
-                                    "componentName", component.name(),
-                                    "version", component.version(),
-                                    "deploymentKey", deploymentKey,
-                                    "environmentName", deployment.environment(),
-                                    "hostname", deployment.hostname()
-                            ))
-                            .run();
-
-                    if (deployment.namespace() != null && !deployment.namespace().isBlank()) {
-                        neo4jClient.query("""
-                                MERGE (ns:KubernetesNamespace {name: $namespace})
-                                """)
-                                .bind(deployment.namespace()).to("namespace")
-                                .run();
-
-                        neo4jClient.query("""
-                                MATCH (d:DeploymentInstance {deploymentKey: $deploymentKey}),
-                                      (ns:KubernetesNamespace {name: $namespace})
-                                MERGE (d)-[:TARGET_NAMESPACE]->(ns)
-                                MERGE (d)-[:TARGETS]->(ns)
-                                """)
-                                .bindAll(Map.of("deploymentKey", deploymentKey, "namespace", deployment.namespace()))
-                                .run();
-
-                        if (deployment.cluster() != null && !deployment.cluster().isBlank()) {
-                            neo4jClient.query("""
-                                    MATCH (ns:KubernetesNamespace {name: $namespace})
-                                    MERGE (kc:KubernetesCluster {name: $cluster})
-                                    MERGE (ns)-[:BELONGS_TO]->(kc)
-                                    """)
-                                    .bindAll(Map.of("namespace", deployment.namespace(), "cluster", deployment.cluster()))
-                                    .run();
-                        }
-                    }
-                }
-            }
-        }
-    }
-
-    private void upsertNetworkLinks(DeploymentManifestDto manifest) {
-        for (DeploymentManifestDto.NetworkLinkDto link : manifest.links()) {
-            String linkKey = link.fromHostname() + "->" + link.toHostname();
-            neo4jClient.query("""
-                    MATCH (from:HardwareNode {hostname: $fromHostname}),
-                          (to:HardwareNode {hostname: $toHostname})
-                    MERGE (l:NetworkLink {linkKey: $linkKey})
-                    SET l.bandwidthMbps = $bandwidthMbps,
-                        l.latencyMs = $latencyMs
-                    WITH l, from, to
-                    MATCH (l)-[old:CONNECTS_FROM|CONNECTS_TO]->()
-                    DELETE old
-                    MERGE (l)-[:CONNECTS_FROM]->(from)
-                    MERGE (l)-[:CONNECTS_TO]->(to)
-                    """)
-                    .bindAll(Map.of(
-                            "fromHostname", link.fromHostname(),
-                            "toHostname", link.toHostname(),
-                            "linkKey", linkKey,
-                            "bandwidthMbps", link.bandwidthMbps(),
-                            "latencyMs", link.latencyMs()
-                    ))
-                    .run();
-        }
-    }
-
     private void pruneObsoleteArtifacts(DeploymentManifestDto manifest) {
         List<String> deploymentKeys = manifest.systems().stream()
                 .flatMap(system -> system.components().stream()
                         .flatMap(component -> component.deployments().stream()
-                                .map(target -> target.environment() + "@" + target.hostname() + ":" + component.name() + ":" + component.version())))
+                                .map(target -> deploymentKey(component, target))))
                 .toList();
         neo4jClient.query("""
                 MATCH (d:DeploymentInstance)
@@ -353,7 +181,7 @@ public class ManifestIngestionService {
                 .run();
 
         List<String> linkKeys = manifest.links().stream()
-                .map(link -> link.fromHostname() + "->" + link.toHostname())
+                .map(ManifestIngestionService::linkKey)
                 .toList();
         neo4jClient.query("""
                 MATCH (l:NetworkLink)
@@ -363,4 +191,27 @@ public class ManifestIngestionService {
                 .bind(linkKeys).to("linkKeys")
                 .run();
     }
+
+    public enum SynchronizationOutcome {
+        INGESTED,
+        UNCHANGED
+    }
+
+    /**
+     * {@code FULL} rewrites every manifest entity on each ingest; {@code INCREMENTAL} diffs the manifest
+     * against the persisted graph and writes only the entities that changed.
+     */
+    public enum IngestionMode {
+        FULL,
+        INCREMENTAL
+    }
+
+    static String deploymentKey(DeploymentManifestDto.SoftwareComponentDto component,
+                                DeploymentManifestDto.DeploymentTargetDto deployment) {
+        return deployment.environment() + "@" + deployment.hostname() + ":" + component.name() + ":" + component.version();
+    }
+
+    static String linkKey(DeploymentManifestDto.NetworkLinkDto link) {
+        return link.fromHostname() + "->" + link.toHostname();
+    }
 }
@@ -1,8 +1,11 @@
 package com.jdeploy.service;
 
 import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.jdeploy.service.dto.DeploymentManifestDto;
 import io.micrometer.core.instrument.Counter;
@@ -12,9 +15,15 @@ import io.micrometer.observation.ObservationRegistry;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
 public class ManifestParserService {
@@ -62,14 +71,100 @@ public class ManifestParserService {
         if (manifestPath == null) {
             throw new PreconditionViolationException("manifestPath is required");
         }
-        try {
-            return parseManifest(Files.readString(manifestPath));
+        try (InputStream yamlStream = Files.newInputStream(manifestPath)) {
+            return parseManifest(yamlStream);
         } catch (IOException ex) {
             ingestionErrorCounter.increment();
             throw new IllegalArgumentException("Unable to read deployment manifest file", ex);
         }
     }
 
+    /**
+     * Parses a manifest from a stream without buffering the document text. Entries are bound one at a time
+     * from the YAML token stream; only the resulting DTOs are retained.
+     */
+    public DeploymentManifestDto parseManifest(InputStream yamlStream) {
+        CollectingSectionHandler collector = new CollectingSectionHandler();
+        parseManifest(yamlStream, collector);
+        return collector.manifest();
+    }
+
+    /**
+     * Streams manifest entries section by section to {@code handler}. Each subnet, cluster, environment, system
+     * and link is bound and handed over as soon as its YAML node has been read, so callers that do not keep
+     * entries hold at most one entry in memory. A section that appears twice is rejected with a
+     * {@link ManifestContractViolationException}, since its first occurrence has already been handed over and
+     * cannot be replaced. The stream is not closed.
+     */
+    public void parseManifest(InputStream yamlStream, ManifestSectionHandler handler) {
+        if (yamlStream == null) {
+            throw new PreconditionViolationException("yamlStream is required");
+        }
+        if (handler == null) {
+            throw new PreconditionViolationException("handler is required");
+        }
+        try {
+            Observation.createNotStarted("jdeploy.manifest.parse", observationRegistry)
+                    .observeChecked(() -> {
+                        streamSections(yamlStream, handler);
+                        return null;
+                    });
+        } catch (PreconditionViolationException ex) {
+            ingestionErrorCounter.increment();
+            throw ex;
+        } catch (JsonProcessingException ex) {
+            ingestionErrorCounter.increment();
+            throw new IllegalArgumentException(buildParseMessage(ex), ex);
+        } catch (Exception ex) {
+            ingestionErrorCounter.increment();
+            throw new IllegalArgumentException("Unable to parse deployment manifest yaml", ex);
+        }
+    }
+
+    private void streamSections(InputStream yamlStream, ManifestSectionHandler handler) throws IOException {
+        try (JsonParser parser = yamlMapper.getFactory().createParser(yamlStream)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                throw new PreconditionViolationException("yamlStream must not be blank");
+            }
+            if (token != JsonToken.START_OBJECT) {
+                throw MismatchedInputException.from(parser, DeploymentManifestDto.class, "Manifest root must be a mapping");
+            }
+            Set<String> seenSections = new HashSet<>();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String section = parser.currentName();
+                if (!seenSections.add(section)) {
+                    throw new ManifestContractViolationException(List.of(new ManifestContractValidator.ContractViolation(
+                            section, "Duplicate manifest section \"" + section + "\"")));
+                }
+                parser.nextToken();
+                switch (section) {
+                    case "subnets" -> readSection(parser, DeploymentManifestDto.SubnetDto.class, handler::subnet);
+                    case "clusters" -> readSection(parser, DeploymentManifestDto.ClusterDto.class, handler::cluster);
+                    case "environments" -> readSection(parser, DeploymentManifestDto.ExecutionEnvironmentDto.class, handler::environment);
+                    case "systems" -> readSection(parser, DeploymentManifestDto.SoftwareSystemDto.class, handler::system);
+                    case "links" -> readSection(parser, DeploymentManifestDto.NetworkLinkDto.class, handler::link);
+                    default -> throw MismatchedInputException.from(parser, DeploymentManifestDto.class,
+                            "Unrecognized manifest section \"" + section + "\"");
+                }
+            }
+        }
+    }
+
+    private <T> void readSection(JsonParser parser, Class<T> entryType, Consumer<T> sink) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return;
+        }
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw MismatchedInputException.from(parser, entryType,
+                    "Manifest section \"" + parser.currentName() + "\" must be a list");
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            sink.accept(yamlMapper.readValue(parser, entryType));
+        }
+    }
+
     private String buildParseMessage(JsonProcessingException ex) {
         JsonLocation location = ex.getLocation();
         if (location == null) {
@@ -78,4 +173,42 @@ public class ManifestParserService {
         return "Malformed manifest yaml at line %d, column %d: %s"
                 .formatted(location.getLineNr(), location.getColumnNr(), ex.getOriginalMessage());
     }
+
+    private static final class CollectingSectionHandler implements ManifestSectionHandler {
+
+        private final List<DeploymentManifestDto.SubnetDto> subnets = new ArrayList<>();
+        private final List<DeploymentManifestDto.ClusterDto> clusters = new ArrayList<>();
+        private final List<DeploymentManifestDto.ExecutionEnvironmentDto> environments = new ArrayList<>();
+        private final List<DeploymentManifestDto.SoftwareSystemDto> systems = new ArrayList<>();
+        private final List<DeploymentManifestDto.NetworkLinkDto> links = new ArrayList<>();
+
+        @Override
+        public void subnet(DeploymentManifestDto.SubnetDto subnet) {
+            subnets.add(subnet);
+        }
+
+        @Override
+        public void cluster(DeploymentManifestDto.ClusterDto cluster) {
+            clusters.add(cluster);
+        }
+
+        @Override
+        public void environment(DeploymentManifestDto.ExecutionEnvironmentDto environment) {
+            environments.add(environment);
+        }
+
+        @Override
+        public void system(DeploymentManifestDto.SoftwareSystemDto system) {
+            systems.add(system);
+        }
+
+        @Override
+        public void link(DeploymentManifestDto.NetworkLinkDto link) {
+            links.add(link);
+        }
+
+        private DeploymentManifestDto manifest() {
+            return new DeploymentManifestDto(subnets, clusters, environments, systems, links);
+        }
+    }
 }
@@ -0,0 +1,25 @@
+package com.jdeploy.service;
+
+import com.jdeploy.service.dto.DeploymentManifestDto;
+
+/**
+ * Receives manifest entries one at a time, in document order, from
+ * {@link ManifestParserService#parseManifest(java.io.InputStream, ManifestSectionHandler)}.
+ */
+public interface ManifestSectionHandler {
+
+    default void subnet(DeploymentManifestDto.SubnetDto subnet) {
+    }
+
+    default void cluster(DeploymentManifestDto.ClusterDto cluster) {
+    }
+
+    default void environment(DeploymentManifestDto.ExecutionEnvironmentDto environment) {
+    }
+
+    default void system(DeploymentManifestDto.SoftwareSystemDto system) {
+    }
+
+    default void link(DeploymentManifestDto.NetworkLinkDto link) {
+    }
+}
@@ -17,6 +17,10 @@ public class OperationMetricsService {
     private final Counter ingestionRequestsCounter;
     private final Counter ingestionSuccessCounter;
     private final Counter ingestionErrorCounter;
+    private final Counter ingestionChangesCounter;
+    private final Counter ingestionUnchangedCounter;
+    private final Counter ingestionJobCoalescedCounter;
+    private final Counter ingestionJobRejectedCounter;
     private final Counter artifactGenerationSuccessCounter;
     private final Counter artifactGenerationErrorCounter;
 
@@ -36,6 +40,22 @@ public class OperationMetricsService {
                 .description("Number of manifest ingestion and parsing errors")
                 .register(meterRegistry);
 
+        this.ingestionChangesCounter = Counter.builder("jdeploy.ingestion.changes")
+                .description("Number of manifest entities written to the graph during synchronization")
+                .register(meterRegistry);
+
+        this.ingestionUnchangedCounter = Counter.builder("jdeploy.ingestion.unchanged")
+                .description("Number of manifest ingestion requests skipped because the manifest was already synchronized")
+                .register(meterRegistry);
+
+        this.ingestionJobCoalescedCounter = Counter.builder("jdeploy.ingestion.jobs.coalesced")
+                .description("Number of asynchronous ingestion submissions merged into an identical queued job")
+                .register(meterRegistry);
+
+        this.ingestionJobRejectedCounter = Counter.builder("jdeploy.ingestion.jobs.rejected")
+                .description("Number of asynchronous ingestion submissions rejected because the job queue was full")
+                .register(meterRegistry);
+
         this.artifactGenerationSuccessCounter = Counter.builder("jdeploy.artifacts.generated")
                 .description("Number of generated deployment diagram artifacts")
                 .register(meterRegistry);
@@ -65,6 +85,14 @@ public class OperationMetricsService {
         ingestionErrorCounter.increment();
     }
 
+    public void recordIngestionChanges(int entityCount) {
+        ingestionChangesCounter.increment(entityCount);
+    }
+
+    public void recordIngestionUnchanged() {
+        ingestionUnchangedCounter.increment();
+    }
+
     public void recordArtifactGenerationSuccess() {
         artifactGenerationSuccessCounter.increment();
         lastArtifactGenerationSuccessEpochMillis.set(Instant.now().toEpochMilli());
@@ -74,11 +102,23 @@ public class OperationMetricsService {
         artifactGenerationErrorCounter.increment();
     }
 
+    public void recordIngestionJobCoalesced() {
+        ingestionJobCoalescedCounter.increment();
+    }
+
+    public void recordIngestionJobRejected() {
+        ingestionJobRejectedCounter.increment();
+    }
+
     public Map<String, Object> snapshot() {
         Map<String, Object> snapshot = new LinkedHashMap<>();
         snapshot.put("ingestionRequests", ingestionRequestsCounter.count());
         snapshot.put("ingestionSuccess", ingestionSuccessCounter.count());
         snapshot.put("ingestionErrors", ingestionErrorCounter.count());
+        snapshot.put("ingestionChanges", ingestionChangesCounter.count());
+        snapshot.put("ingestionUnchanged", ingestionUnchangedCounter.count());
+        snapshot.put("ingestionJobsCoalesced", ingestionJobCoalescedCounter.count());
+        snapshot.put("ingestionJobsRejected", ingestionJobRejectedCounter.count());
         snapshot.put("artifactGenerationSuccess", artifactGenerationSuccessCounter.count());
         snapshot.put("artifactGenerationErrors", artifactGenerationErrorCounter.count());
         snapshot.put("lastIngestionSuccessEpochMillis", lastIngestionSuccessEpochMillis.get());
@@ -0,0 +1,111 @@
+package com.jdeploy.service;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * PlantUML alias table for a single render. Each identifier is sanitized once and its alias reused for every
+ * later reference.
+ * <p>
+ * Characters outside {@code [A-Za-z0-9_]} become {@code _}, so distinct identifiers such as {@code a.b} and
+ * {@code a_b} can sanitize to the same alias. The identifier seen first keeps the plain alias; later ones get
+ * the lowest free numeric suffix ({@code node_a_b_2}). Renders walk the manifest in a fixed order, so the same
+ * input always yields the same aliases.
+ * <p>
+ * Identifiers made of several names, such as a component within its system, are keyed on the tuple of names
+ * rather than on a joined string, since any separator may also occur inside a name.
+ * <p>
+ * The class and {@link #node} are public so node aliasing can be benchmarked on its own; the remaining members
+ * stay internal to diagram generation.
+ */
+public final class PlantUmlAliases {
+
+    enum Kind {
+        SUBNET("subnet_"),
+        CLUSTER("cluster_"),
+        NODE("node_"),
+        SYSTEM("system_"),
+        COMPONENT("component_"),
+        ARTIFACT("artifact_"),
+        PARTITION("partition_");
+
+        private final String prefix;
+
+        Kind(String prefix) {
+            this.prefix = prefix;
+        }
+    }
+
+    private final Map<Kind, Map<Object, String>> aliases = new EnumMap<>(Kind.class);
+    private final Set<String> taken = new HashSet<>();
+
+    public PlantUmlAliases() {
+    }
+
+    String alias(Kind kind, String identifier) {
+        return aliasFor(kind, identifier, identifier);
+    }
+
+    /**
+     * Alias for the tuple {@code names}; {@code ("a_b", "c")} and {@code ("a", "b_c")} get different aliases.
+     */
+    String alias(Kind kind, String... names) {
+        return aliasFor(kind, Arrays.asList(names), String.join("_", names));
+    }
+
+    public String node(String hostname) {
+        return alias(Kind.NODE, hostname);
+    }
+
+    private String aliasFor(Kind kind, Object key, String identifier) {
+        Map<Object, String> byKey = aliases.computeIfAbsent(kind, ignored -> new HashMap<>());
+        String alias = byKey.get(key);
+        if (alias == null) {
+            alias = claim(kind.prefix + sanitize(identifier));
+            byKey.put(key, alias);
+        }
+        return alias;
+    }
+
+    private String claim(String base) {
+        if (taken.add(base)) {
+            return base;
+        }
+        for (int suffix = 2; ; suffix++) {
+            String candidate = base + "_" + suffix;
+            if (taken.add(candidate)) {
+                return candidate;
+            }
+        }
+    }
+
+    /**
+     * Replaces every code point outside {@code [A-Za-z0-9_]} with {@code _}. Returns {@code raw} itself when it is
+     * already a valid alias.
+     */
+    static String sanitize(String raw) {
+        int length = raw.length();
+        int first = 0;
+        while (first < length && isAliasChar(raw.charAt(first))) {
+            first++;
+        }
+        if (first == length) {
+            return raw;
+        }
+        StringBuilder sanitized = new StringBuilder(length).append(raw, 0, first);
+        for (int i = first; i < length; ) {
+            int codePoint = raw.codePointAt(i);
+            sanitized.append(isAliasChar(codePoint) ? (char) codePoint : '_');
+            i += Character.charCount(codePoint);
+        }
+        return sanitized.toString();
+    }
+
+    private static boolean isAliasChar(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+}
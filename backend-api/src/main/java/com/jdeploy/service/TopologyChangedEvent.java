@@ -0,0 +1,8 @@
+package com.jdeploy.service;
+
+/**
+ * Published after the topology graph has been written, either by manifest synchronization or by a
+ * {@link TopologyMutationService} update. {@code source} names the operation for diagnostics.
+ */
+public record TopologyChangedEvent(String source) {
+}
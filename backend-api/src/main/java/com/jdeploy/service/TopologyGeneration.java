@@ -0,0 +1,101 @@
+package com.jdeploy.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic version of the topology graph, as seen by this process. Anything derived from generation {@code n} is
+ * stale once {@link #current()} no longer returns {@code n}.
+ * <p>
+ * Every {@link TopologyChangedEvent} increments a counter on the singleton {@code TopologyState} node inside the
+ * writing transaction and advances the generation once that transaction has committed. Other processes writing
+ * to the same graph, such as a CLI {@code ingest-manifest} run, only show up in the counter, so {@link #current()}
+ * re-reads it at most every {@code jdeploy.topology.generation.poll-interval} and advances the generation when it
+ * moved: their writes become visible here within one poll interval.
+ */
+@Component
+public class TopologyGeneration {
+
+    private static final Logger log = LoggerFactory.getLogger(TopologyGeneration.class);
+    private static final String STATE_ID = "topology";
+    private static final long UNOBSERVED = Long.MIN_VALUE;
+
+    private final Neo4jClient neo4jClient;
+    private final long pollIntervalNanos;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong nextPollNanos;
+    private long observedCounter = UNOBSERVED;
+
+    public TopologyGeneration(Neo4jClient neo4jClient,
+                              @Value("${jdeploy.topology.generation.poll-interval:PT2S}") Duration pollInterval) {
+        this.neo4jClient = Objects.requireNonNull(neo4jClient, "neo4jClient must not be null");
+        if (pollInterval == null || pollInterval.isNegative()) {
+            throw new PreconditionViolationException("jdeploy.topology.generation.poll-interval must not be negative");
+        }
+        this.pollIntervalNanos = pollInterval.toNanos();
+        this.nextPollNanos = new AtomicLong(System.nanoTime());
+    }
+
+    public long current() {
+        long now = System.nanoTime();
+        long due = nextPollNanos.get();
+        // One caller polls per interval; the others keep using the generation they have.
+        if (now - due >= 0 && nextPollNanos.compareAndSet(due, now + pollIntervalNanos)) {
+            poll();
+        }
+        return generation.get();
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    void recordTopologyChange(TopologyChangedEvent event) {
+        neo4jClient.query("""
+                        MERGE (t:TopologyState {id: $id})
+                        SET t.generation = coalesce(t.generation, 0) + 1
+                        """)
+                .bind(STATE_ID).to("id")
+                .run();
+    }
+
+    /**
+     * Advances the generation for a write of this process. The counter is left to the next poll, which advances
+     * the generation once more; observing it here could swallow a write another process committed meanwhile.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @TransactionalEventListener(fallbackExecution = true)
+    void onTopologyChanged(TopologyChangedEvent event) {
+        generation.incrementAndGet();
+    }
+
+    private void poll() {
+        long counter;
+        try {
+            counter = neo4jClient.query("MATCH (t:TopologyState {id: $id}) RETURN t.generation AS generation")
+                    .bind(STATE_ID).to("id")
+                    .fetchAs(Long.class)
+                    .mappedBy((typeSystem, record) -> record.get("generation").isNull() ? 0L : record.get("generation").asLong())
+                    .one()
+                    .orElse(0L);
+        } catch (RuntimeException ex) {
+            log.warn("Unable to read the topology generation counter; keeping generation {}", generation.get(), ex);
+            return;
+        }
+        synchronized (this) {
+            if (observedCounter != UNOBSERVED && observedCounter != counter) {
+                generation.incrementAndGet();
+            }
+            observedCounter = counter;
+        }
+    }
+}
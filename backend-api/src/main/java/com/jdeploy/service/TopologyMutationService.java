@@ -1,6 +1,7 @@
 package com.jdeploy.service;
 
 import com.jdeploy.api.dto.TopologyUpdateDtos;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.neo4j.core.Neo4jClient;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
@@ -12,15 +13,22 @@ import java.util.Objects;
 public class TopologyMutationService {
 
     private final Neo4jClient neo4jClient;
+    private final ManifestFingerprintService fingerprintService;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public TopologyMutationService(Neo4jClient neo4jClient) {
+    public TopologyMutationService(Neo4jClient neo4jClient,
+                                   ManifestFingerprintService fingerprintService,
+                                   ApplicationEventPublisher eventPublisher) {
         this.neo4jClient = neo4jClient;
+        this.fingerprintService = fingerprintService;
+        this.eventPublisher = eventPublisher;
     }
 
     public void updateSoftwareSystem(String existingName, TopologyUpdateDtos.SoftwareSystemUpdateRequest request) {
         ensureExists("MATCH (s:SoftwareSystem {name: $name}) RETURN count(s) > 0 AS found", "name", existingName, "SoftwareSystem not found");
         ensureUnique("MATCH (s:SoftwareSystem {name: $name}) WHERE $name <> $current RETURN count(s) = 0 AS unique", request.name(), existingName, "System name already exists");
         mutate("MATCH (s:SoftwareSystem {name: $current}) SET s.name = $name", existingName, request.name());
+        topologyChanged("updateSoftwareSystem");
     }
 
     public void updateSoftwareComponent(String currentName, String currentVersion, TopologyUpdateDtos.SoftwareComponentUpdateRequest request) {
@@ -54,6 +62,7 @@ public class TopologyMutationService {
                 .bind(request.name()).to("name")
                 .bind(request.version()).to("version")
                 .run();
+        topologyChanged("updateSoftwareComponent");
     }
 
     public void updateHardwareNode(String currentHostname, TopologyUpdateDtos.HardwareNodeUpdateRequest request) {
@@ -71,6 +80,7 @@ public class TopologyMutationService {
                 .bind(request.ipAddress()).to("ip")
                 .bind(request.roles()).to("roles")
                 .run();
+        topologyChanged("updateHardwareNode");
     }
 
     public void updateSubnet(String currentCidr, TopologyUpdateDtos.SubnetUpdateRequest request) {
@@ -82,6 +92,7 @@ public class TopologyMutationService {
                 .bind(request.vlan()).to("vlan")
                 .bind(request.routingZone()).to("routingZone")
                 .run();
+        topologyChanged("updateSubnet");
     }
 
     public void updateExecutionEnvironment(String currentName, TopologyUpdateDtos.ExecutionEnvironmentUpdateRequest request) {
@@ -92,6 +103,7 @@ public class TopologyMutationService {
                 .bind(request.name()).to("name")
                 .bind(request.type().name()).to("type")
                 .run();
+        topologyChanged("updateExecutionEnvironment");
     }
 
     public void updateDeploymentInstance(String currentDeploymentKey, TopologyUpdateDtos.DeploymentInstanceUpdateRequest request) {
@@ -132,6 +144,12 @@ public class TopologyMutationService {
                 .bind(request.targetHostname()).to("hostname")
                 .bind(newKey).to("newKey")
                 .run();
+        topologyChanged("updateDeploymentInstance");
+    }
+
+    private void topologyChanged(String operation) {
+        fingerprintService.invalidate();
+        eventPublisher.publishEvent(new TopologyChangedEvent(operation));
     }
 
     private DeploymentKeyParts loadDeploymentKeyParts(String currentDeploymentKey) {
@@ -1,26 +1,119 @@
 package com.jdeploy.service;
 
+import org.neo4j.driver.Result;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.neo4j.core.Neo4jClient;
 import org.springframework.stereotype.Service;
 
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 @Service
 public class TopologyQueryService {
 
+    public static final int DEFAULT_PAGE_LIMIT = 100;
+    public static final int MAX_PAGE_LIMIT = 1000;
+    private static final char CURSOR_SEPARATOR = '|';
+
+    private static final KeysetQuery<SystemSummary> SYSTEMS_PAGE = KeysetQuery.bySortKey("""
+            MATCH (s:SoftwareSystem)
+            WHERE s.name > $after
+            WITH s ORDER BY s.name LIMIT $limit
+            OPTIONAL MATCH (s)-[:HAS_COMPONENT]->(c:SoftwareComponent)
+            RETURN s.name AS name, count(DISTINCT c) AS componentCount
+            ORDER BY name
+            """,
+            SystemSummary.class,
+            r -> new SystemSummary(r.get("name").asString(), r.get("componentCount").asInt()),
+            SystemSummary::name);
+
+    private static final KeysetQuery<NodeSummary> HARDWARE_NODES_PAGE = new KeysetQuery<>("""
+            MATCH (n:HardwareNode)
+            WHERE n.hostname >= $afterHostname
+            OPTIONAL MATCH (s:Subnet)-[:CONTAINS_NODE]->(n)
+            WITH n, s.cidr AS subnetCidr
+            WHERE n.hostname > $afterHostname OR coalesce(subnetCidr, '') > $afterSubnetCidr
+            RETURN n.hostname as hostname, n.ipAddress as ipAddress, n.type as type, subnetCidr
+            ORDER BY hostname, subnetCidr
+            LIMIT $limit
+            """,
+            NodeSummary.class,
+            TopologyQueryService::nodeSummary,
+            TopologyQueryService::nodeCursor,
+            TopologyQueryService::nodeCursorParameters,
+            TopologyQueryService::nodeFollows);
+
+    private static final KeysetQuery<SubnetSummary> SUBNETS_PAGE = KeysetQuery.bySortKey("""
+            MATCH (s:Subnet)
+            WHERE s.cidr > $after
+            WITH s ORDER BY s.cidr LIMIT $limit
+            OPTIONAL MATCH (s)-[:CONTAINS_NODE]->(n:HardwareNode)
+            RETURN s.cidr as cidr, s.vlan as vlan, s.routingZone as routingZone, count(DISTINCT n) as nodeCount
+            ORDER BY cidr
+            """,
+            SubnetSummary.class,
+            r -> new SubnetSummary(r.get("cidr").asString(), r.get("vlan").asString(), r.get("routingZone").asString(), r.get("nodeCount").asInt()),
+            SubnetSummary::cidr);
+
+    private static final KeysetQuery<EnvironmentSummary> ENVIRONMENTS_PAGE = KeysetQuery.bySortKey("""
+            MATCH (e:ExecutionEnvironment)
+            WHERE e.name > $after
+            RETURN e.name as name, e.type as type
+            ORDER BY name
+            LIMIT $limit
+            """,
+            EnvironmentSummary.class,
+            r -> new EnvironmentSummary(r.get("name").asString(), r.get("type").asString()),
+            EnvironmentSummary::name);
+
+    private static final KeysetQuery<DeploymentView> DEPLOYMENTS_BY_SUBNET_PAGE = new KeysetQuery<>("""
+            MATCH (s:Subnet {cidr: $subnetId})-[:CONTAINS_NODE]->(n:HardwareNode)
+            MATCH (d:DeploymentInstance)-[:TARGETS]->(n)
+            WHERE n.hostname > $afterHostname
+               OR (n.hostname = $afterHostname AND d.deploymentKey > $afterDeploymentKey)
+            RETURN n.hostname as hostname, d.deploymentKey as deploymentKey
+            ORDER BY hostname, deploymentKey
+            LIMIT $limit
+            """,
+            DeploymentView.class,
+            r -> new DeploymentView(r.get("hostname").asString(), r.get("deploymentKey").asString()),
+            TopologyQueryService::deploymentCursor,
+            TopologyQueryService::deploymentCursorParameters,
+            TopologyQueryService::deploymentFollows);
+
     private final Neo4jClient neo4jClient;
+    private final TopologySnapshotService snapshotService;
+    private final TopologyReadCache readCache;
+    private final ReadSource readSource;
 
-    public TopologyQueryService(Neo4jClient neo4jClient) {
+    public TopologyQueryService(Neo4jClient neo4jClient,
+                                TopologySnapshotService snapshotService,
+                                TopologyReadCache readCache,
+                                @Value("${jdeploy.topology.read-source:NEO4J}") ReadSource readSource) {
         this.neo4jClient = Objects.requireNonNull(neo4jClient, "neo4jClient must not be null");
+        this.snapshotService = Objects.requireNonNull(snapshotService, "snapshotService must not be null");
+        this.readCache = Objects.requireNonNull(readCache, "readCache must not be null");
+        this.readSource = Objects.requireNonNull(readSource, "readSource must not be null");
     }
 
     public List<DeploymentView> deploymentsBySubnet(String subnetId) {
-        if (subnetId == null || subnetId.isBlank()) {
-            throw new PreconditionViolationException("subnetId is required");
+        requireSubnetId(subnetId);
+        if (readSource == ReadSource.SNAPSHOT) {
+            return snapshotService.current().deploymentsBySubnet(subnetId);
         }
+        return readCache.get("deploymentsBySubnet", subnetId, () -> loadDeploymentsBySubnet(subnetId));
+    }
 
+    private List<DeploymentView> loadDeploymentsBySubnet(String subnetId) {
         return List.copyOf(neo4jClient.query("""
                 MATCH (s:Subnet {cidr: $subnetId})-[:CONTAINS_NODE]->(n:HardwareNode)
                 MATCH (d:DeploymentInstance)-[:TARGETS]->(n)
@@ -37,7 +130,13 @@ public class TopologyQueryService {
         if (nodeId == null || nodeId.isBlank()) {
             throw new PreconditionViolationException("nodeId is required");
         }
+        if (readSource == ReadSource.SNAPSHOT) {
+            return snapshotService.current().impactByNode(nodeId);
+        }
+        return readCache.get("impactByNode", nodeId, () -> loadImpactByNode(nodeId));
+    }
 
+    private List<ImpactView> loadImpactByNode(String nodeId) {
         return neo4jClient.query("""
                 MATCH (n:HardwareNode {hostname: $nodeId})<-[:TARGETS]-(d:DeploymentInstance)<-[:HAS_DEPLOYMENT]-(c:SoftwareComponent)
                 OPTIONAL MATCH (sourceCluster)-[:HAS_NODE]->(n)
@@ -67,7 +166,13 @@ public class TopologyQueryService {
         if (systemId == null || systemId.isBlank()) {
             throw new PreconditionViolationException("systemId is required");
         }
+        if (readSource == ReadSource.SNAPSHOT) {
+            return snapshotService.current().systemDiagram(systemId);
+        }
+        return readCache.get("systemDiagram", systemId, () -> loadSystemDiagram(systemId));
+    }
 
+    private SystemDiagramView loadSystemDiagram(String systemId) {
         List<String> components = List.copyOf(neo4jClient.query("""
                 MATCH (s:SoftwareSystem {name: $systemId})-[:HAS_COMPONENT]->(c:SoftwareComponent)
                 RETURN c.name + ':' + c.version as component
@@ -91,6 +196,314 @@ public class TopologyQueryService {
         return new SystemDiagramView(systemId, components, nodes);
     }
 
+    /**
+     * Diagram context for many systems at once, in one aggregated query rather than two per system. An empty
+     * {@code systemIds} selects every system. Systems that do not exist are left out; results are ordered by name.
+     */
+    public List<SystemDiagramView> systemDiagrams(Collection<String> systemIds) {
+        Objects.requireNonNull(systemIds, "systemIds must not be null");
+        if (readSource == ReadSource.SNAPSHOT) {
+            TopologySnapshot snapshot = snapshotService.current();
+            Set<String> requested = new HashSet<>(systemIds);
+            return snapshot.systems().stream()
+                    .map(SystemSummary::name)
+                    .filter(name -> requested.isEmpty() || requested.contains(name))
+                    .map(snapshot::systemDiagram)
+                    .toList();
+        }
+        return List.copyOf(neo4jClient.query("""
+                MATCH (s:SoftwareSystem)
+                WHERE $all OR s.name IN $systemIds
+                OPTIONAL MATCH (s)-[:HAS_COMPONENT]->(c:SoftwareComponent)
+                OPTIONAL MATCH (c)-[:HAS_DEPLOYMENT]->(:DeploymentInstance)-[:TARGETS]->(n:HardwareNode)
+                RETURN s.name AS systemName,
+                       collect(DISTINCT c.name + ':' + c.version) AS components,
+                       collect(DISTINCT n.hostname) AS targetNodes
+                ORDER BY systemName
+                """)
+                .bind(systemIds.isEmpty()).to("all")
+                .bind(List.copyOf(systemIds)).to("systemIds")
+                .fetchAs(SystemDiagramView.class)
+                .mappedBy((typeSystem, record) -> new SystemDiagramView(
+                        record.get("systemName").asString(),
+                        record.get("components").asList(org.neo4j.driver.Value::asString).stream().sorted().toList(),
+                        record.get("targetNodes").asList(org.neo4j.driver.Value::asString).stream().sorted().toList()))
+                .all());
+    }
+
+    public List<SystemSummary> systems() {
+        if (readSource == ReadSource.SNAPSHOT) {
+            return snapshotService.current().systems();
+        }
+        return readCache.get("systems", null, this::loadSystems);
+    }
+
+    private List<SystemSummary> loadSystems() {
+        return List.copyOf(neo4jClient.query("""
+                MATCH (s:SoftwareSystem)
+                OPTIONAL MATCH (s)-[:HAS_COMPONENT]->(c:SoftwareComponent)
+                RETURN s.name AS name, count(DISTINCT c) AS componentCount
+                ORDER BY name
+                """).fetchAs(SystemSummary.class).mappedBy((t, r) -> new SystemSummary(r.get("name").asString(), r.get("componentCount").asInt())).all());
+    }
+
+    public List<NodeSummary> hardwareNodes() {
+        if (readSource == ReadSource.SNAPSHOT) {
+            return snapshotService.current().hardwareNodes();
+        }
+        return readCache.get("hardwareNodes", null, this::loadHardwareNodes);
+    }
+
+    private List<NodeSummary> loadHardwareNodes() {
+        return List.copyOf(neo4jClient.query("""
+                MATCH (n:HardwareNode)
+                OPTIONAL MATCH (s:Subnet)-[:CONTAINS_NODE]->(n)
+                RETURN n.hostname as hostname, n.ipAddress as ipAddress, n.type as type, s.cidr as subnetCidr
+                ORDER BY hostname, subnetCidr
+                """).fetchAs(NodeSummary.class).mappedBy((t, r) -> nodeSummary(r)).all());
+    }
+
+    public List<SubnetSummary> subnets() {
+        if (readSource == ReadSource.SNAPSHOT) {
+            return snapshotService.current().subnets();
+        }
+        return readCache.get("subnets", null, this::loadSubnets);
+    }
+
+    private List<SubnetSummary> loadSubnets() {
+        return List.copyOf(neo4jClient.query("""
+                MATCH (s:Subnet)
+                OPTIONAL MATCH (s)-[:CONTAINS_NODE]->(n:HardwareNode)
+                RETURN s.cidr as cidr, s.vlan as vlan, s.routingZone as routingZone, count(DISTINCT n) as nodeCount
+                ORDER BY cidr
+                """).fetchAs(SubnetSummary.class).mappedBy((t, r) -> new SubnetSummary(r.get("cidr").asString(), r.get("vlan").asString(), r.get("routingZone").asString(), r.get("nodeCount").asInt())).all());
+    }
+
+    public List<EnvironmentSummary> environments() {
+        if (readSource == ReadSource.SNAPSHOT) {
+            return snapshotService.current().environments();
+        }
+        return readCache.get("environments", null, this::loadEnvironments);
+    }
+
+    private List<EnvironmentSummary> loadEnvironments() {
+        return List.copyOf(neo4jClient.query("MATCH (e:ExecutionEnvironment) RETURN e.name as name, e.type as type ORDER BY name")
+                .fetchAs(EnvironmentSummary.class)
+                .mappedBy((t, r) -> new EnvironmentSummary(r.get("name").asString(), r.get("type").asString()))
+                .all());
+    }
+
+    /**
+     * One page of deployments in a subnet ordered by hostname and deployment key. {@code after} is the
+     * {@link KeysetPage#nextCursor()} of the previous page, or {@code null} for the first page.
+     */
+    public KeysetPage<DeploymentView> deploymentsBySubnet(String subnetId, String after, int limit) {
+        requireSubnetId(subnetId);
+        requireLimit(limit);
+        if (readSource == ReadSource.SNAPSHOT) {
+            return pageOf(DEPLOYMENTS_BY_SUBNET_PAGE, snapshotService.current().deploymentsBySubnet(subnetId), after, limit);
+        }
+        return readCache.get("deploymentsBySubnetPage", pageArgument(limit, after, subnetId),
+                () -> fetchPage(DEPLOYMENTS_BY_SUBNET_PAGE, Map.of("subnetId", subnetId), after, limit));
+    }
+
+    public KeysetPage<SystemSummary> systems(String after, int limit) {
+        requireLimit(limit);
+        if (readSource == ReadSource.SNAPSHOT) {
+            return pageOf(SYSTEMS_PAGE, snapshotService.current().systems(), after, limit);
+        }
+        return readCache.get("systemsPage", pageArgument(limit, after), () -> fetchPage(SYSTEMS_PAGE, Map.of(), after, limit));
+    }
+
+    public KeysetPage<NodeSummary> hardwareNodes(String after, int limit) {
+        requireLimit(limit);
+        if (readSource == ReadSource.SNAPSHOT) {
+            return pageOf(HARDWARE_NODES_PAGE, snapshotService.current().hardwareNodes(), after, limit);
+        }
+        return readCache.get("hardwareNodesPage", pageArgument(limit, after), () -> fetchPage(HARDWARE_NODES_PAGE, Map.of(), after, limit));
+    }
+
+    public KeysetPage<SubnetSummary> subnets(String after, int limit) {
+        requireLimit(limit);
+        if (readSource == ReadSource.SNAPSHOT) {
+            return pageOf(SUBNETS_PAGE, snapshotService.current().subnets(), after, limit);
+        }
+        return readCache.get("subnetsPage", pageArgument(limit, after), () -> fetchPage(SUBNETS_PAGE, Map.of(), after, limit));
+    }
+
+    public KeysetPage<EnvironmentSummary> environments(String after, int limit) {
+        requireLimit(limit);
+        if (readSource == ReadSource.SNAPSHOT) {
+            return pageOf(ENVIRONMENTS_PAGE, snapshotService.current().environments(), after, limit);
+        }
+        return readCache.get("environmentsPage", pageArgument(limit, after), () -> fetchPage(ENVIRONMENTS_PAGE, Map.of(), after, limit));
+    }
+
+    /**
+     * Hands every deployment in the subnet following {@code after} to {@code sink} as it is read from the
+     * result cursor, in page order. Nothing is collected, so memory does not grow with the subnet size.
+     */
+    public void streamDeploymentsBySubnet(String subnetId, String after, Consumer<? super DeploymentView> sink) {
+        requireSubnetId(subnetId);
+        if (readSource == ReadSource.SNAPSHOT) {
+            streamOf(DEPLOYMENTS_BY_SUBNET_PAGE, snapshotService.current().deploymentsBySubnet(subnetId), after, sink);
+            return;
+        }
+        streamQuery(DEPLOYMENTS_BY_SUBNET_PAGE, Map.of("subnetId", subnetId), after, sink);
+    }
+
+    public void streamSystems(String after, Consumer<? super SystemSummary> sink) {
+        if (readSource == ReadSource.SNAPSHOT) {
+            streamOf(SYSTEMS_PAGE, snapshotService.current().systems(), after, sink);
+            return;
+        }
+        streamQuery(SYSTEMS_PAGE, Map.of(), after, sink);
+    }
+
+    public void streamHardwareNodes(String after, Consumer<? super NodeSummary> sink) {
+        if (readSource == ReadSource.SNAPSHOT) {
+            streamOf(HARDWARE_NODES_PAGE, snapshotService.current().hardwareNodes(), after, sink);
+            return;
+        }
+        streamQuery(HARDWARE_NODES_PAGE, Map.of(), after, sink);
+    }
+
+    public void streamSubnets(String after, Consumer<? super SubnetSummary> sink) {
+        if (readSource == ReadSource.SNAPSHOT) {
+            streamOf(SUBNETS_PAGE, snapshotService.current().subnets(), after, sink);
+            return;
+        }
+        streamQuery(SUBNETS_PAGE, Map.of(), after, sink);
+    }
+
+    public void streamEnvironments(String after, Consumer<? super EnvironmentSummary> sink) {
+        if (readSource == ReadSource.SNAPSHOT) {
+            streamOf(ENVIRONMENTS_PAGE, snapshotService.current().environments(), after, sink);
+            return;
+        }
+        streamQuery(ENVIRONMENTS_PAGE, Map.of(), after, sink);
+    }
+
+    private <T> KeysetPage<T> fetchPage(KeysetQuery<T> query, Map<String, Object> parameters, String after, int limit) {
+        List<T> rows = List.copyOf(neo4jClient.query(query.cypher())
+                .bindAll(query.parameters(parameters, after, limit + 1L))
+                .fetchAs(query.type())
+                .mappedBy((typeSystem, record) -> query.mapper().apply(record))
+                .all());
+        return KeysetPage.of(rows, limit, query.cursor());
+    }
+
+    private <T> void streamQuery(KeysetQuery<T> query, Map<String, Object> parameters, String after, Consumer<? super T> sink) {
+        Map<String, Object> bound = query.parameters(parameters, after, Long.MAX_VALUE);
+        neo4jClient.delegateTo(runner -> {
+            Result result = runner.run(query.cypher(), bound);
+            while (result.hasNext()) {
+                sink.accept(query.mapper().apply(result.next()));
+            }
+            return Optional.empty();
+        }).run();
+    }
+
+    private static <T> KeysetPage<T> pageOf(KeysetQuery<T> query, List<T> sorted, String after, int limit) {
+        int from = firstFollowing(query, sorted, after);
+        int to = (int) Math.min(sorted.size(), from + limit + 1L);
+        return KeysetPage.of(sorted.subList(from, to), limit, query.cursor());
+    }
+
+    private static <T> void streamOf(KeysetQuery<T> query, List<T> sorted, String after, Consumer<? super T> sink) {
+        for (int i = firstFollowing(query, sorted, after); i < sorted.size(); i++) {
+            sink.accept(sorted.get(i));
+        }
+    }
+
+    private static <T> int firstFollowing(KeysetQuery<T> query, List<T> sorted, String after) {
+        if (after == null) {
+            return 0;
+        }
+        // Rows are in cursor order, so the rows following the cursor form a suffix.
+        int low = 0;
+        int high = sorted.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (query.follows(sorted.get(mid), after)) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+
+    private static void requireSubnetId(String subnetId) {
+        if (subnetId == null || subnetId.isBlank()) {
+            throw new PreconditionViolationException("subnetId is required");
+        }
+    }
+
+    private static void requireLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_LIMIT) {
+            throw new PreconditionViolationException("limit must be between 1 and " + MAX_PAGE_LIMIT);
+        }
+    }
+
+    private static String pageArgument(int limit, String after, String... scope) {
+        return limit + "\n" + Objects.toString(after, "") + "\n" + String.join("\n", scope);
+    }
+
+    private static Map<String, Object> sortKeyParameters(String after) {
+        return Map.of("after", after == null ? "" : after);
+    }
+
+    private static String deploymentCursor(DeploymentView view) {
+        return view.hostname() + CURSOR_SEPARATOR + view.deploymentKey();
+    }
+
+    private static Map<String, Object> deploymentCursorParameters(String after) {
+        return pairCursorParameters(after, "deployment", "afterHostname", "afterDeploymentKey");
+    }
+
+    private static boolean deploymentFollows(DeploymentView view, String after) {
+        Map<String, Object> cursor = deploymentCursorParameters(after);
+        return pairFollows(view.hostname(), view.deploymentKey(), cursor.get("afterHostname"), cursor.get("afterDeploymentKey"));
+    }
+
+    private static NodeSummary nodeSummary(org.neo4j.driver.Record r) {
+        return new NodeSummary(r.get("hostname").asString(), r.get("ipAddress").asString(), r.get("type").asString(),
+                r.get("subnetCidr").isNull() ? null : r.get("subnetCidr").asString());
+    }
+
+    /**
+     * A node is listed once per subnet containing it, so its cursor pairs the hostname with the subnet; a node in
+     * no subnet has a single row with an empty subnet part.
+     */
+    private static String nodeCursor(NodeSummary node) {
+        return node.hostname() + CURSOR_SEPARATOR + Objects.toString(node.subnetCidr(), "");
+    }
+
+    private static Map<String, Object> nodeCursorParameters(String after) {
+        return pairCursorParameters(after, "hardware node", "afterHostname", "afterSubnetCidr");
+    }
+
+    private static boolean nodeFollows(NodeSummary node, String after) {
+        Map<String, Object> cursor = nodeCursorParameters(after);
+        return pairFollows(node.hostname(), Objects.toString(node.subnetCidr(), ""), cursor.get("afterHostname"), cursor.get("afterSubnetCidr"));
+    }
+
+    private static Map<String, Object> pairCursorParameters(String after, String kind, String firstName, String secondName) {
+        if (after == null) {
+            return Map.of(firstName, "", secondName, "");
+        }
+        int separator = after.indexOf(CURSOR_SEPARATOR);
+        if (separator < 0) {
+            throw new PreconditionViolationException("Malformed " + kind + " cursor: " + after);
+        }
+        return Map.of(firstName, after.substring(0, separator), secondName, after.substring(separator + 1));
+    }
+
+    private static boolean pairFollows(String first, String second, Object afterFirst, Object afterSecond) {
+        int byFirst = first.compareTo((String) afterFirst);
+        return byFirst > 0 || (byFirst == 0 && second.compareTo((String) afterSecond) > 0);
+    }
 
     private static List<String> toStringList(Object value) {
         if (value instanceof Collection<?> collection) {
@@ -111,4 +524,67 @@ public class TopologyQueryService {
 
     public record SystemDiagramView(String systemName, List<String> components, List<String> targetNodes) {
     }
+
+    public record SystemSummary(String name, int componentCount) {
+    }
+
+    public record NodeSummary(String hostname, String ipAddress, String type, String subnetCidr) {
+    }
+
+    public record SubnetSummary(String cidr, String vlan, String routingZone, int nodeCount) {
+    }
+
+    public record EnvironmentSummary(String name, String type) {
+    }
+
+    /**
+     * A bounded slice of an ordered result. {@code nextCursor} is {@code null} on the last page.
+     */
+    public record KeysetPage<T>(List<T> items, String nextCursor) {
+
+        private static <T> KeysetPage<T> of(List<T> rows, int limit, Function<T, String> cursor) {
+            if (rows.size() <= limit) {
+                return new KeysetPage<>(List.copyOf(rows), null);
+            }
+            List<T> items = List.copyOf(rows.subList(0, limit));
+            return new KeysetPage<>(items, cursor.apply(items.getLast()));
+        }
+    }
+
+    /**
+     * A keyset-paged read: {@code cypher} binds the cursor parameters and {@code $limit}, and returns rows in
+     * cursor order; {@code follows} applies the same ordering to already materialized rows.
+     */
+    private record KeysetQuery<T>(String cypher,
+                                  Class<T> type,
+                                  Function<org.neo4j.driver.Record, T> mapper,
+                                  Function<T, String> cursor,
+                                  Function<String, Map<String, Object>> cursorParameters,
+                                  BiPredicate<T, String> follows) {
+
+        private static <T> KeysetQuery<T> bySortKey(String cypher, Class<T> type, Function<org.neo4j.driver.Record, T> mapper, Function<T, String> sortKey) {
+            return new KeysetQuery<>(cypher, type, mapper, sortKey, TopologyQueryService::sortKeyParameters,
+                    (item, after) -> sortKey.apply(item).compareTo(after) > 0);
+        }
+
+        private boolean follows(T item, String after) {
+            return follows.test(item, after);
+        }
+
+        private Map<String, Object> parameters(Map<String, Object> base, String after, long limit) {
+            Map<String, Object> parameters = new HashMap<>(base);
+            parameters.putAll(cursorParameters.apply(after));
+            parameters.put("limit", limit);
+            return parameters;
+        }
+    }
+
+    /**
+     * Where topology reads are answered: {@code NEO4J} queries the database on every call, {@code SNAPSHOT}
+     * serves them from the in-memory {@link TopologySnapshot}.
+     */
+    public enum ReadSource {
+        NEO4J,
+        SNAPSHOT
+    }
 }
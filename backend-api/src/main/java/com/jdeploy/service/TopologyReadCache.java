@@ -0,0 +1,188 @@
+package com.jdeploy.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache for topology read results.
+ * <p>
+ * Every entry records the {@link TopologyGeneration} it was loaded under and is only served while that
+ * generation is current and the entry is younger than {@code jdeploy.topology.cache.ttl}. Results loaded
+ * while the generation moved are returned but not cached, so a cached value never predates a committed write.
+ */
+@Service
+public class TopologyReadCache {
+
+    private final TopologyGeneration generation;
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long ttlNanos;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final LinkedHashMap<Key, Entry> entries;
+
+    public TopologyReadCache(TopologyGeneration generation,
+                             MeterRegistry meterRegistry,
+                             @Value("${jdeploy.topology.cache.enabled:true}") boolean enabled,
+                             @Value("${jdeploy.topology.cache.max-entries:1000}") int maxEntries,
+                             @Value("${jdeploy.topology.cache.ttl:PT5M}") Duration ttl) {
+        this.generation = Objects.requireNonNull(generation, "generation must not be null");
+        Objects.requireNonNull(meterRegistry, "meterRegistry must not be null");
+        if (maxEntries < 1) {
+            throw new PreconditionViolationException("jdeploy.topology.cache.max-entries must be positive");
+        }
+        if (ttl == null || ttl.isNegative() || ttl.isZero()) {
+            throw new PreconditionViolationException("jdeploy.topology.cache.ttl must be positive");
+        }
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > TopologyReadCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        FunctionCounter.builder("jdeploy.topology.cache.hits", hits, AtomicLong::doubleValue)
+                .description("Topology reads answered from the read cache")
+                .register(meterRegistry);
+        FunctionCounter.builder("jdeploy.topology.cache.misses", misses, AtomicLong::doubleValue)
+                .description("Topology reads that had to query the graph")
+                .register(meterRegistry);
+        FunctionCounter.builder("jdeploy.topology.cache.evictions", evictions, AtomicLong::doubleValue)
+                .description("Topology read cache entries dropped for size or age")
+                .register(meterRegistry);
+        FunctionCounter.builder("jdeploy.topology.cache.invalidations", invalidations, AtomicLong::doubleValue)
+                .description("Topology read cache entries dropped because the topology changed")
+                .register(meterRegistry);
+        Gauge.builder("jdeploy.topology.cache.size", this, TopologyReadCache::size)
+                .description("Current number of topology read cache entries")
+                .register(meterRegistry);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String query, String argument, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        Key key = new Key(query, argument);
+        long loadGeneration = generation.current();
+        long now = System.nanoTime();
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && entry.generation != loadGeneration) {
+                entries.remove(key);
+                invalidations.incrementAndGet();
+                entry = null;
+            } else if (entry != null && now - entry.createdAtNanos > ttlNanos) {
+                entries.remove(key);
+                evictions.incrementAndGet();
+                entry = null;
+            }
+        }
+        if (entry != null) {
+            entry.hits.incrementAndGet();
+            hits.incrementAndGet();
+            return (T) entry.value;
+        }
+
+        misses.incrementAndGet();
+        T value = loader.get();
+        long loadNanos = System.nanoTime() - now;
+        if (generation.current() == loadGeneration) {
+            synchronized (entries) {
+                entries.put(key, new Entry(value, loadGeneration, System.nanoTime(), loadNanos));
+            }
+        }
+        return value;
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public CacheStats stats() {
+        long now = System.nanoTime();
+        List<EntryStats> entryStats = new ArrayList<>();
+        synchronized (entries) {
+            entries.forEach((key, entry) -> entryStats.add(new EntryStats(
+                    key.query(),
+                    key.argument(),
+                    entry.generation,
+                    entry.hits.get(),
+                    Duration.ofNanos(now - entry.createdAtNanos).toMillis(),
+                    Duration.ofNanos(entry.loadNanos).toMillis())));
+        }
+        return new CacheStats(enabled, generation.current(), maxEntries, hits.get(), misses.get(),
+                evictions.get(), invalidations.get(), List.copyOf(entryStats));
+    }
+
+    /**
+     * Drops entries of superseded generations so they do not hold memory until their key is read again.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    void onTopologyChanged(TopologyChangedEvent event) {
+        long current = generation.current();
+        synchronized (entries) {
+            int before = entries.size();
+            entries.values().removeIf(entry -> entry.generation < current);
+            invalidations.addAndGet(before - entries.size());
+        }
+    }
+
+    private record Key(String query, String argument) {
+    }
+
+    private static final class Entry {
+
+        private final Object value;
+        private final long generation;
+        private final long createdAtNanos;
+        private final long loadNanos;
+        private final AtomicLong hits = new AtomicLong();
+
+        private Entry(Object value, long generation, long createdAtNanos, long loadNanos) {
+            this.value = value;
+            this.generation = generation;
+            this.createdAtNanos = createdAtNanos;
+            this.loadNanos = loadNanos;
+        }
+    }
+
+    public record CacheStats(boolean enabled,
+                             long generation,
+                             int maxEntries,
+                             long hits,
+                             long misses,
+                             long evictions,
+                             long invalidations,
+                             List<EntryStats> entries) {
+    }
+
+    public record EntryStats(String query, String argument, long generation, long hits, long ageMillis, long loadMillis) {
+    }
+}
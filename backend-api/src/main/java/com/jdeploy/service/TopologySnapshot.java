@@ -0,0 +1,445 @@
+package com.jdeploy.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable in-process copy of the topology graph used to answer read queries without a Neo4j round trip.
+ * <p>
+ * Each label is stored as parallel property arrays and referenced by its int position; relationships are
+ * stored as compressed adjacency arrays (offsets into one shared target array) in both directions where a
+ * query walks them backwards. Query methods mirror the Cypher in {@link TopologyQueryService}.
+ */
+public final class TopologySnapshot {
+
+    private final long generation;
+
+    private final String[] hostnames;
+    private final String[] nodeIpAddresses;
+    private final String[] nodeTypes;
+    private final String[] subnetCidrs;
+    private final String[] subnetVlans;
+    private final String[] subnetRoutingZones;
+    private final String[] systemNames;
+    private final String[] componentNames;
+    private final String[] componentVersions;
+    private final String[] deploymentKeys;
+    private final String[] environmentNames;
+    private final String[] environmentTypes;
+    private final String[] clusterLabels;
+    private final String[] clusterNames;
+
+    private final Map<String, Integer> nodeByHostname;
+    private final Map<String, Integer> subnetByCidr;
+    private final Map<String, Integer> systemByName;
+
+    private final Adjacency systemComponents;
+    private final Adjacency deploymentComponents;
+    private final Adjacency componentDeployments;
+    private final Adjacency nodeDeployments;
+    private final Adjacency deploymentNodes;
+    private final Adjacency subnetNodes;
+    private final Adjacency nodeSubnets;
+    private final Adjacency nodeClusters;
+    private final Adjacency nodeOutgoingLinks;
+    private final Adjacency linkTargets;
+
+    private TopologySnapshot(Builder builder, long generation) {
+        this.generation = generation;
+        this.hostnames = builder.hostnames.toArray(String[]::new);
+        this.nodeIpAddresses = builder.nodeIpAddresses.toArray(String[]::new);
+        this.nodeTypes = builder.nodeTypes.toArray(String[]::new);
+        this.subnetCidrs = builder.subnetCidrs.toArray(String[]::new);
+        this.subnetVlans = builder.subnetVlans.toArray(String[]::new);
+        this.subnetRoutingZones = builder.subnetRoutingZones.toArray(String[]::new);
+        this.systemNames = builder.systemNames.toArray(String[]::new);
+        this.componentNames = builder.componentNames.toArray(String[]::new);
+        this.componentVersions = builder.componentVersions.toArray(String[]::new);
+        this.deploymentKeys = builder.deploymentKeys.toArray(String[]::new);
+        this.environmentNames = builder.environmentNames.toArray(String[]::new);
+        this.environmentTypes = builder.environmentTypes.toArray(String[]::new);
+        this.clusterLabels = builder.clusterLabels.toArray(String[]::new);
+        this.clusterNames = builder.clusterNames.toArray(String[]::new);
+
+        this.nodeByHostname = indexByValue(hostnames);
+        this.subnetByCidr = indexByValue(subnetCidrs);
+        this.systemByName = indexByValue(systemNames);
+
+        this.systemComponents = Adjacency.of(systemNames.length, builder.hasComponent, false);
+        this.componentDeployments = Adjacency.of(componentNames.length, builder.hasDeployment, false);
+        this.deploymentComponents = Adjacency.of(deploymentKeys.length, builder.hasDeployment, true);
+        this.deploymentNodes = Adjacency.of(deploymentKeys.length, builder.targetsNode, false);
+        this.nodeDeployments = Adjacency.of(hostnames.length, builder.targetsNode, true);
+        this.subnetNodes = Adjacency.of(subnetCidrs.length, builder.containsNode, false);
+        this.nodeSubnets = Adjacency.of(hostnames.length, builder.containsNode, true);
+        this.nodeClusters = Adjacency.of(hostnames.length, builder.hasNode, true);
+        this.nodeOutgoingLinks = Adjacency.of(hostnames.length, builder.connectsFrom, true);
+        this.linkTargets = Adjacency.of(builder.linkCount, builder.connectsTo, false);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public long generation() {
+        return generation;
+    }
+
+    public List<TopologyQueryService.DeploymentView> deploymentsBySubnet(String subnetId) {
+        Integer subnet = subnetByCidr.get(subnetId);
+        if (subnet == null) {
+            return List.of();
+        }
+        int[] nodes = subnetNodes.targets(subnet);
+        sortBy(nodes, hostnames);
+        List<TopologyQueryService.DeploymentView> views = new ArrayList<>();
+        for (int node : nodes) {
+            int[] deployments = nodeDeployments.targets(node);
+            sortBy(deployments, deploymentKeys);
+            for (int deployment : deployments) {
+                views.add(new TopologyQueryService.DeploymentView(hostnames[node], deploymentKeys[deployment]));
+            }
+        }
+        return List.copyOf(views);
+    }
+
+    public List<TopologyQueryService.ImpactView> impactByNode(String nodeId) {
+        Integer node = nodeByHostname.get(nodeId);
+        if (node == null) {
+            return List.of();
+        }
+        Set<String> peerNodes = new LinkedHashSet<>();
+        Set<String> peerClusters = new LinkedHashSet<>();
+        for (int k = nodeOutgoingLinks.start(node); k < nodeOutgoingLinks.end(node); k++) {
+            int link = nodeOutgoingLinks.target(k);
+            for (int p = linkTargets.start(link); p < linkTargets.end(link); p++) {
+                int peer = linkTargets.target(p);
+                peerNodes.add(hostnames[peer]);
+                peerClusters.addAll(clustersOf(peer));
+            }
+        }
+        List<String> sourceClusters = List.copyOf(clustersOf(node));
+
+        Map<List<String>, TopologyQueryService.ImpactView> views = new LinkedHashMap<>();
+        for (int k = nodeDeployments.start(node); k < nodeDeployments.end(node); k++) {
+            int deployment = nodeDeployments.target(k);
+            for (int c = deploymentComponents.start(deployment); c < deploymentComponents.end(deployment); c++) {
+                String componentName = componentNames[deploymentComponents.target(c)];
+                views.putIfAbsent(List.of(String.valueOf(componentName), deploymentKeys[deployment]),
+                        new TopologyQueryService.ImpactView(componentName, deploymentKeys[deployment],
+                                List.copyOf(peerNodes), sourceClusters, List.copyOf(peerClusters)));
+            }
+        }
+        return List.copyOf(views.values());
+    }
+
+    public TopologyQueryService.SystemDiagramView systemDiagram(String systemId) {
+        Integer system = systemByName.get(systemId);
+        if (system == null) {
+            return new TopologyQueryService.SystemDiagramView(systemId, List.of(), List.of());
+        }
+        List<String> components = new ArrayList<>();
+        Set<String> nodes = new LinkedHashSet<>();
+        for (int k = systemComponents.start(system); k < systemComponents.end(system); k++) {
+            int component = systemComponents.target(k);
+            components.add(componentNames[component] + ":" + componentVersions[component]);
+            for (int d = componentDeployments.start(component); d < componentDeployments.end(component); d++) {
+                int deployment = componentDeployments.target(d);
+                for (int n = deploymentNodes.start(deployment); n < deploymentNodes.end(deployment); n++) {
+                    nodes.add(hostnames[deploymentNodes.target(n)]);
+                }
+            }
+        }
+        components.sort(Comparator.naturalOrder());
+        return new TopologyQueryService.SystemDiagramView(systemId, List.copyOf(components), nodes.stream().sorted().toList());
+    }
+
+    public List<TopologyQueryService.SystemSummary> systems() {
+        int[] order = sortedIndexes(systemNames);
+        List<TopologyQueryService.SystemSummary> views = new ArrayList<>(order.length);
+        for (int system : order) {
+            views.add(new TopologyQueryService.SystemSummary(systemNames[system], distinctCount(systemComponents, system)));
+        }
+        return List.copyOf(views);
+    }
+
+    public List<TopologyQueryService.NodeSummary> hardwareNodes() {
+        int[] order = sortedIndexes(hostnames);
+        List<TopologyQueryService.NodeSummary> views = new ArrayList<>(order.length);
+        for (int node : order) {
+            if (nodeSubnets.start(node) == nodeSubnets.end(node)) {
+                views.add(new TopologyQueryService.NodeSummary(hostnames[node], nodeIpAddresses[node], nodeTypes[node], null));
+            }
+            // Same row order as the Neo4j reads: by hostname, then subnet.
+            int[] subnets = new int[nodeSubnets.end(node) - nodeSubnets.start(node)];
+            for (int k = 0; k < subnets.length; k++) {
+                subnets[k] = nodeSubnets.target(nodeSubnets.start(node) + k);
+            }
+            sortBy(subnets, subnetCidrs);
+            for (int subnet : subnets) {
+                views.add(new TopologyQueryService.NodeSummary(hostnames[node], nodeIpAddresses[node], nodeTypes[node],
+                        subnetCidrs[subnet]));
+            }
+        }
+        return List.copyOf(views);
+    }
+
+    public List<TopologyQueryService.SubnetSummary> subnets() {
+        int[] order = sortedIndexes(subnetCidrs);
+        List<TopologyQueryService.SubnetSummary> views = new ArrayList<>(order.length);
+        for (int subnet : order) {
+            views.add(new TopologyQueryService.SubnetSummary(subnetCidrs[subnet], subnetVlans[subnet], subnetRoutingZones[subnet],
+                    distinctCount(subnetNodes, subnet)));
+        }
+        return List.copyOf(views);
+    }
+
+    public List<TopologyQueryService.EnvironmentSummary> environments() {
+        int[] order = sortedIndexes(environmentNames);
+        List<TopologyQueryService.EnvironmentSummary> views = new ArrayList<>(order.length);
+        for (int environment : order) {
+            views.add(new TopologyQueryService.EnvironmentSummary(environmentNames[environment], environmentTypes[environment]));
+        }
+        return List.copyOf(views);
+    }
+
+    private List<String> clustersOf(int node) {
+        List<String> clusters = new ArrayList<>();
+        for (int k = nodeClusters.start(node); k < nodeClusters.end(node); k++) {
+            int cluster = nodeClusters.target(k);
+            String key = clusterLabels[cluster] + ":" + clusterNames[cluster];
+            if (!clusters.contains(key)) {
+                clusters.add(key);
+            }
+        }
+        return clusters;
+    }
+
+    private static int distinctCount(Adjacency adjacency, int source) {
+        return (int) Arrays.stream(adjacency.targets(source)).distinct().count();
+    }
+
+    private static int[] sortedIndexes(String[] values) {
+        int[] indexes = new int[values.length];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = i;
+        }
+        sortBy(indexes, values);
+        return indexes;
+    }
+
+    private static void sortBy(int[] indexes, String[] values) {
+        Comparator<String> nullsLast = Comparator.nullsLast(Comparator.naturalOrder());
+        int[] sorted = Arrays.stream(indexes).boxed()
+                .sorted((left, right) -> nullsLast.compare(values[left], values[right]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        System.arraycopy(sorted, 0, indexes, 0, indexes.length);
+    }
+
+    private static Map<String, Integer> indexByValue(String[] values) {
+        Map<String, Integer> index = new HashMap<>(values.length * 2);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                index.putIfAbsent(values[i], i);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Compressed sparse row adjacency: the targets of source {@code i} are {@code targets[offsets[i]..offsets[i + 1])}.
+     */
+    private static final class Adjacency {
+
+        private final int[] offsets;
+        private final int[] targets;
+
+        private Adjacency(int[] offsets, int[] targets) {
+            this.offsets = offsets;
+            this.targets = targets;
+        }
+
+        private static Adjacency of(int sourceCount, EdgeList edges, boolean reversed) {
+            int[] sources = reversed ? edges.targets : edges.sources;
+            int[] destinations = reversed ? edges.sources : edges.targets;
+            int[] offsets = new int[sourceCount + 1];
+            for (int e = 0; e < edges.size; e++) {
+                offsets[sources[e] + 1]++;
+            }
+            for (int i = 0; i < sourceCount; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+            int[] cursor = Arrays.copyOf(offsets, sourceCount);
+            int[] targets = new int[edges.size];
+            for (int e = 0; e < edges.size; e++) {
+                targets[cursor[sources[e]]++] = destinations[e];
+            }
+            return new Adjacency(offsets, targets);
+        }
+
+        private int start(int source) {
+            return offsets[source];
+        }
+
+        private int end(int source) {
+            return offsets[source + 1];
+        }
+
+        private int target(int position) {
+            return targets[position];
+        }
+
+        private int[] targets(int source) {
+            return Arrays.copyOfRange(targets, offsets[source], offsets[source + 1]);
+        }
+    }
+
+    private static final class EdgeList {
+
+        private int[] sources = new int[16];
+        private int[] targets = new int[16];
+        private int size;
+
+        private void add(int source, int target) {
+            if (size == sources.length) {
+                sources = Arrays.copyOf(sources, size * 2);
+                targets = Arrays.copyOf(targets, size * 2);
+            }
+            sources[size] = source;
+            targets[size] = target;
+            size++;
+        }
+    }
+
+    /**
+     * Collects graph elements keyed by Neo4j element id. Relationships whose endpoints were not added, or
+     * whose endpoints have unexpected labels, are ignored, matching the label filters of the Cypher queries.
+     */
+    public static final class Builder {
+
+        private enum Kind { NODE, SUBNET, SYSTEM, COMPONENT, DEPLOYMENT, ENVIRONMENT, CLUSTER, LINK }
+
+        private record Ref(Kind kind, int index) {
+        }
+
+        private final Map<String, Ref> elements = new HashMap<>();
+        private final List<String> hostnames = new ArrayList<>();
+        private final List<String> nodeIpAddresses = new ArrayList<>();
+        private final List<String> nodeTypes = new ArrayList<>();
+        private final List<String> subnetCidrs = new ArrayList<>();
+        private final List<String> subnetVlans = new ArrayList<>();
+        private final List<String> subnetRoutingZones = new ArrayList<>();
+        private final List<String> systemNames = new ArrayList<>();
+        private final List<String> componentNames = new ArrayList<>();
+        private final List<String> componentVersions = new ArrayList<>();
+        private final List<String> deploymentKeys = new ArrayList<>();
+        private final List<String> environmentNames = new ArrayList<>();
+        private final List<String> environmentTypes = new ArrayList<>();
+        private final List<String> clusterLabels = new ArrayList<>();
+        private final List<String> clusterNames = new ArrayList<>();
+        private int linkCount;
+
+        private final EdgeList hasComponent = new EdgeList();
+        private final EdgeList hasDeployment = new EdgeList();
+        private final EdgeList targetsNode = new EdgeList();
+        private final EdgeList containsNode = new EdgeList();
+        private final EdgeList hasNode = new EdgeList();
+        private final EdgeList connectsFrom = new EdgeList();
+        private final EdgeList connectsTo = new EdgeList();
+
+        private Builder() {
+        }
+
+        public Builder hardwareNode(String elementId, String hostname, String ipAddress, String type) {
+            elements.put(elementId, new Ref(Kind.NODE, hostnames.size()));
+            hostnames.add(hostname);
+            nodeIpAddresses.add(ipAddress);
+            nodeTypes.add(type);
+            return this;
+        }
+
+        public Builder subnet(String elementId, String cidr, String vlan, String routingZone) {
+            elements.put(elementId, new Ref(Kind.SUBNET, subnetCidrs.size()));
+            subnetCidrs.add(cidr);
+            subnetVlans.add(vlan);
+            subnetRoutingZones.add(routingZone);
+            return this;
+        }
+
+        public Builder system(String elementId, String name) {
+            elements.put(elementId, new Ref(Kind.SYSTEM, systemNames.size()));
+            systemNames.add(name);
+            return this;
+        }
+
+        public Builder component(String elementId, String name, String version) {
+            elements.put(elementId, new Ref(Kind.COMPONENT, componentNames.size()));
+            componentNames.add(name);
+            componentVersions.add(version);
+            return this;
+        }
+
+        public Builder deployment(String elementId, String deploymentKey) {
+            elements.put(elementId, new Ref(Kind.DEPLOYMENT, deploymentKeys.size()));
+            deploymentKeys.add(deploymentKey);
+            return this;
+        }
+
+        public Builder environment(String elementId, String name, String type) {
+            elements.put(elementId, new Ref(Kind.ENVIRONMENT, environmentNames.size()));
+            environmentNames.add(name);
+            environmentTypes.add(type);
+            return this;
+        }
+
+        public Builder cluster(String elementId, String label, String name) {
+            elements.put(elementId, new Ref(Kind.CLUSTER, clusterNames.size()));
+            clusterLabels.add(label);
+            clusterNames.add(name);
+            return this;
+        }
+
+        public Builder networkLink(String elementId) {
+            elements.put(elementId, new Ref(Kind.LINK, linkCount++));
+            return this;
+        }
+
+        public Builder relationship(String type, String sourceElementId, String targetElementId) {
+            Ref source = elements.get(sourceElementId);
+            Ref target = elements.get(targetElementId);
+            if (source == null || target == null) {
+                return this;
+            }
+            switch (type) {
+                case "HAS_COMPONENT" -> addIf(hasComponent, source, Kind.SYSTEM, target, Kind.COMPONENT);
+                case "HAS_DEPLOYMENT" -> addIf(hasDeployment, source, Kind.COMPONENT, target, Kind.DEPLOYMENT);
+                case "TARGETS" -> addIf(targetsNode, source, Kind.DEPLOYMENT, target, Kind.NODE);
+                case "CONTAINS_NODE" -> addIf(containsNode, source, Kind.SUBNET, target, Kind.NODE);
+                case "HAS_NODE" -> addIf(hasNode, source, Kind.CLUSTER, target, Kind.NODE);
+                case "CONNECTS_FROM" -> addIf(connectsFrom, source, Kind.LINK, target, Kind.NODE);
+                case "CONNECTS_TO" -> addIf(connectsTo, source, Kind.LINK, target, Kind.NODE);
+                default -> {
+                }
+            }
+            return this;
+        }
+
+        public TopologySnapshot build(long generation) {
+            return new TopologySnapshot(this, generation);
+        }
+
+        private static void addIf(EdgeList edges, Ref source, Kind sourceKind, Ref target, Kind targetKind) {
+            if (source.kind() == sourceKind && target.kind() == targetKind) {
+                edges.add(source.index(), target.index());
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.jdeploy.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Holds the current {@link TopologySnapshot}. When the {@link TopologyGeneration} has moved past the
+ * snapshot's generation, which includes writes of other processes once the generation has polled them, the next
+ * read rebuilds it and gets the new snapshot. Reads that arrive while that rebuild runs are served the previous
+ * snapshot instead of waiting for it; only the very first build blocks every reader.
+ *
+ * <p>A snapshot is read in a single read-only transaction, so a write that commits while it is built is either
+ * entirely in it or entirely absent from it.
+ */
+@Service
+public class TopologySnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TopologySnapshotService.class);
+
+    private final Neo4jClient neo4jClient;
+    private final TopologyGeneration generation;
+    private final TransactionTemplate readOnlyTransaction;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private volatile TopologySnapshot snapshot;
+
+    public TopologySnapshotService(Neo4jClient neo4jClient, TopologyGeneration generation,
+                                   PlatformTransactionManager transactionManager) {
+        this.neo4jClient = Objects.requireNonNull(neo4jClient, "neo4jClient must not be null");
+        this.generation = Objects.requireNonNull(generation, "generation must not be null");
+        this.readOnlyTransaction = new TransactionTemplate(
+                Objects.requireNonNull(transactionManager, "transactionManager must not be null"));
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public TopologySnapshot current() {
+        long target = generation.current();
+        TopologySnapshot current = snapshot;
+        if (current != null && current.generation() == target) {
+            return current;
+        }
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    snapshot = load(target);
+                }
+                return snapshot;
+            }
+        }
+        if (!rebuilding.compareAndSet(false, true)) {
+            return current;
+        }
+        try {
+            TopologySnapshot rebuilt = load(target);
+            snapshot = rebuilt;
+            return rebuilt;
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    TopologySnapshot load(long targetGeneration) {
+        return readOnlyTransaction.execute(status -> read(targetGeneration));
+    }
+
+    private TopologySnapshot read(long targetGeneration) {
+        long started = System.nanoTime();
+        TopologySnapshot.Builder builder = TopologySnapshot.builder();
+        neo4jClient.query("MATCH (n:HardwareNode) RETURN elementId(n) AS id, n.hostname AS hostname, n.ipAddress AS ipAddress, n.type AS type")
+                .fetch().all()
+                .forEach(row -> builder.hardwareNode(id(row.get("id")), string(row.get("hostname")), string(row.get("ipAddress")), string(row.get("type"))));
+        neo4jClient.query("MATCH (s:Subnet) RETURN elementId(s) AS id, s.cidr AS cidr, s.vlan AS vlan, s.routingZone AS routingZone")
+                .fetch().all()
+                .forEach(row -> builder.subnet(id(row.get("id")), string(row.get("cidr")), string(row.get("vlan")), string(row.get("routingZone"))));
+        neo4jClient.query("MATCH (s:SoftwareSystem) RETURN elementId(s) AS id, s.name AS name")
+                .fetch().all()
+                .forEach(row -> builder.system(id(row.get("id")), string(row.get("name"))));
+        neo4jClient.query("MATCH (c:SoftwareComponent) RETURN elementId(c) AS id, c.name AS name, c.version AS version")
+                .fetch().all()
+                .forEach(row -> builder.component(id(row.get("id")), string(row.get("name")), string(row.get("version"))));
+        neo4jClient.query("MATCH (d:DeploymentInstance) RETURN elementId(d) AS id, d.deploymentKey AS deploymentKey")
+                .fetch().all()
+                .forEach(row -> builder.deployment(id(row.get("id")), string(row.get("deploymentKey"))));
+        neo4jClient.query("MATCH (e:ExecutionEnvironment) RETURN elementId(e) AS id, e.name AS name, e.type AS type")
+                .fetch().all()
+                .forEach(row -> builder.environment(id(row.get("id")), string(row.get("name")), string(row.get("type"))));
+        neo4jClient.query("""
+                        MATCH (c)
+                        WHERE c:GridCluster OR c:KubernetesCluster
+                        RETURN elementId(c) AS id, labels(c)[0] AS label, c.name AS name
+                        """)
+                .fetch().all()
+                .forEach(row -> builder.cluster(id(row.get("id")), string(row.get("label")), string(row.get("name"))));
+        neo4jClient.query("MATCH (l:NetworkLink) RETURN elementId(l) AS id")
+                .fetch().all()
+                .forEach(row -> builder.networkLink(id(row.get("id"))));
+        neo4jClient.query("""
+                        MATCH (a)-[r:HAS_COMPONENT|HAS_DEPLOYMENT|TARGETS|CONTAINS_NODE|HAS_NODE|CONNECTS_FROM|CONNECTS_TO]->(b)
+                        RETURN type(r) AS type, elementId(a) AS source, elementId(b) AS target
+                        """)
+                .fetch().all()
+                .forEach(row -> builder.relationship(string(row.get("type")), id(row.get("source")), id(row.get("target"))));
+        TopologySnapshot loaded = builder.build(targetGeneration);
+        logger.debug("Built topology snapshot generation {} in {} ms", targetGeneration, (System.nanoTime() - started) / 1_000_000);
+        return loaded;
+    }
+
+    private static String id(Object value) {
+        return String.valueOf(value);
+    }
+
+    private static String string(Object value) {
+        return value == null ? null : String.valueOf(value);
+    }
+}
@@ -1,49 +1,345 @@
 package com.jdeploy.api;
 
 import com.jdeploy.artifact.ArtifactExpiredException;
+import com.jdeploy.artifact.ArtifactMetadata;
 import com.jdeploy.artifact.ArtifactStorage;
+import com.jdeploy.artifact.LocalFilesystemArtifactStorage;
 import com.jdeploy.security.ApiRoles;
+import com.jdeploy.service.DiagramBatchService;
 import com.jdeploy.service.DiagramGenerationService;
+import com.jdeploy.service.DiagramPartitioning;
+import com.jdeploy.service.DiagramRenderService;
+import com.jdeploy.service.DiagramRenderUnavailableException;
+import com.jdeploy.service.GraphManifestReader;
 import com.jdeploy.service.ManifestContractValidator;
 import com.jdeploy.service.ManifestIngestionService;
+import com.jdeploy.service.PreconditionViolationException;
+import com.jdeploy.service.dto.DeploymentManifestDto;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.ByteArrayInputStream;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 class ArtifactControllerTest {
 
+    private static final String DIAGRAM = "@startuml\nnode app01\n@enduml\n";
+
+    @TempDir
+    Path tempDir;
+
     @Test
     void downloadReturnsGoneForExpiredArtifacts() {
         ArtifactStorage storage = mock(ArtifactStorage.class);
-        when(storage.read("expired.puml")).thenThrow(new ArtifactExpiredException("Artifact expired"));
+        when(storage.stat("expired.puml")).thenThrow(new ArtifactExpiredException("Artifact expired"));
 
         ArtifactController controller = new ArtifactController(
                 mock(ManifestIngestionService.class),
                 mock(ManifestContractValidator.class),
                 mock(DiagramGenerationService.class),
-                storage
+                storage,
+                mock(DiagramRenderService.class),
+                mock(GraphManifestReader.class),
+                mock(DiagramBatchService.class)
         );
 
         ResponseStatusException ex = assertThrows(ResponseStatusException.class,
-                () -> controller.download("expired.puml"));
+                () -> controller.download("expired.puml", null));
         assertEquals(HttpStatus.GONE, ex.getStatusCode());
     }
 
+    @Test
+    void downloadStreamsArtifactWithValidators() throws Exception {
+        MockMvc mockMvc = mockMvc(storedDiagram());
+
+        mockMvc.perform(get("/api/artifacts/diagram.puml"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + sha256(DIAGRAM) + "\""))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"diagram.puml\""))
+                .andExpect(content().string(DIAGRAM));
+    }
+
+    @Test
+    void downloadServesRequestedByteRange() throws Exception {
+        MockMvc mockMvc = mockMvc(storedDiagram());
+
+        mockMvc.perform(get("/api/artifacts/diagram.puml").header(HttpHeaders.RANGE, "bytes=0-8"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 0-8/" + DIAGRAM.length()))
+                .andExpect(content().string("@startuml"));
+    }
+
+    @Test
+    void downloadAnswersMatchingIfNoneMatchWithNotModified() throws Exception {
+        MockMvc mockMvc = mockMvc(storedDiagram());
+
+        mockMvc.perform(get("/api/artifacts/diagram.puml").header(HttpHeaders.IF_NONE_MATCH, "\"" + sha256(DIAGRAM) + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void downloadPassesCompressedArtifactsThroughToClientsAcceptingGzip() throws Exception {
+        MockMvc mockMvc = mockMvc(storedDiagram("gzip"));
+
+        byte[] body = mockMvc.perform(get("/api/artifacts/diagram.puml").header(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.8"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + sha256(DIAGRAM) + "-gzip\""))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertEquals(DIAGRAM, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void downloadDecompressesForClientsNotAcceptingGzip() throws Exception {
+        MockMvc mockMvc = mockMvc(storedDiagram("gzip"));
+
+        mockMvc.perform(get("/api/artifacts/diagram.puml").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, *"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + sha256(DIAGRAM) + "\""))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, DIAGRAM.length()))
+                .andExpect(content().string(DIAGRAM));
+        mockMvc.perform(get("/api/artifacts/diagram.puml").header(HttpHeaders.RANGE, "bytes=10-19"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().string(DIAGRAM.substring(10, 20)));
+    }
+
+    @Test
+    void acceptsGzipHonoursQualityValuesAndWildcards() {
+        assertTrue(ArtifactController.acceptsGzip("gzip, deflate"));
+        assertTrue(ArtifactController.acceptsGzip("deflate, *;q=0.1"));
+        assertTrue(ArtifactController.acceptsGzip("X-GZIP"));
+        assertFalse(ArtifactController.acceptsGzip(null));
+        assertFalse(ArtifactController.acceptsGzip("identity"));
+        assertFalse(ArtifactController.acceptsGzip("gzip;q=0"));
+        assertFalse(ArtifactController.acceptsGzip("*, gzip;q=0"));
+    }
+
     @Test
     void downloadAuthorizationAllowsGeneratorAndReaderRoles() throws NoSuchMethodException {
-        Method downloadMethod = ArtifactController.class.getMethod("download", String.class);
+        Method downloadMethod = ArtifactController.class.getMethod("download", String.class, String.class);
         PreAuthorize preAuthorize = downloadMethod.getAnnotation(PreAuthorize.class);
 
         assertNotNull(preAuthorize);
         assertEquals("hasAnyAuthority('" + ApiRoles.ARTIFACT_GENERATE + "','" + ApiRoles.READ_ONLY + "')", preAuthorize.value());
     }
+
+    @Test
+    void renderServesTheCachedImageWithAFormatSpecificETag() throws Exception {
+        Path svg = Files.writeString(tempDir.resolve("rendered.svg"), "<svg/>");
+        DiagramRenderService renderService = mock(DiagramRenderService.class);
+        when(renderService.render("diagram.puml", DiagramRenderService.RenderFormat.SVG, 0))
+                .thenReturn(new DiagramRenderService.RenderedDiagram("diagram.puml", "abc", DiagramRenderService.RenderFormat.SVG, 0, svg));
+        MockMvc mockMvc = mockMvc(mock(ArtifactStorage.class), renderService);
+
+        mockMvc.perform(get("/api/artifacts/diagram.puml").param("format", "svg"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/svg+xml"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"abc-svg\""))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"diagram.puml.svg\""))
+                .andExpect(content().string("<svg/>"));
+        mockMvc.perform(get("/api/artifacts/diagram.puml").param("format", "svg").header(HttpHeaders.IF_NONE_MATCH, "\"abc-svg\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void renderServesPartitionPagesUnderTheirOwnETag() throws Exception {
+        Path svg = Files.writeString(tempDir.resolve("rendered.2.svg"), "<svg/>");
+        DiagramRenderService renderService = mock(DiagramRenderService.class);
+        when(renderService.render("diagram.puml", DiagramRenderService.RenderFormat.SVG, 2))
+                .thenReturn(new DiagramRenderService.RenderedDiagram("diagram.puml", "abc", DiagramRenderService.RenderFormat.SVG, 2, svg));
+        MockMvc mockMvc = mockMvc(mock(ArtifactStorage.class), renderService);
+
+        mockMvc.perform(get("/api/artifacts/diagram.puml").param("format", "svg").param("page", "2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"abc-2-svg\""))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"diagram.puml.2.svg\""));
+    }
+
+    @Test
+    void generateRejectsUnsupportedPartitioning() {
+        ArtifactController controller = new ArtifactController(
+                mock(ManifestIngestionService.class),
+                mock(ManifestContractValidator.class),
+                mock(DiagramGenerationService.class),
+                mock(ArtifactStorage.class),
+                mock(DiagramRenderService.class),
+                mock(GraphManifestReader.class),
+                mock(DiagramBatchService.class)
+        );
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> controller.generate("subnets: []", "datacenter"));
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+    }
+
+    @Test
+    void generateForSystemReadsTheSystemFromTheGraph() {
+        GraphManifestReader graphManifestReader = mock(GraphManifestReader.class);
+        DiagramGenerationService diagramGenerationService = mock(DiagramGenerationService.class);
+        DeploymentManifestDto manifest = new DeploymentManifestDto(List.of(), List.of(), List.of(), List.of(), List.of());
+        ArtifactMetadata metadata = new ArtifactMetadata("billing.puml", tempDir.resolve("billing.puml"), 1, Instant.now(), Instant.now(), null);
+        when(graphManifestReader.readSystem("Billing")).thenReturn(Optional.of(manifest));
+        when(graphManifestReader.readSystem("Unknown")).thenReturn(Optional.empty());
+        when(diagramGenerationService.generateSystemDeploymentDiagram("Billing", manifest)).thenReturn(metadata);
+        ArtifactController controller = new ArtifactController(
+                mock(ManifestIngestionService.class),
+                mock(ManifestContractValidator.class),
+                diagramGenerationService,
+                mock(ArtifactStorage.class),
+                mock(DiagramRenderService.class),
+                graphManifestReader,
+                mock(DiagramBatchService.class)
+        );
+
+        assertEquals(metadata, controller.generateForSystem("Billing"));
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> controller.generateForSystem("Unknown"));
+        assertEquals(HttpStatus.NOT_FOUND, ex.getStatusCode());
+    }
+
+    @Test
+    void generateForTopologyPartitionsTheWholeGraphOnRequest() {
+        GraphManifestReader graphManifestReader = mock(GraphManifestReader.class);
+        DiagramGenerationService diagramGenerationService = mock(DiagramGenerationService.class);
+        DeploymentManifestDto manifest = new DeploymentManifestDto(List.of(), List.of(), List.of(), List.of(), List.of());
+        when(graphManifestReader.readAll()).thenReturn(manifest);
+        ArtifactController controller = new ArtifactController(
+                mock(ManifestIngestionService.class),
+                mock(ManifestContractValidator.class),
+                diagramGenerationService,
+                mock(ArtifactStorage.class),
+                mock(DiagramRenderService.class),
+                graphManifestReader,
+                mock(DiagramBatchService.class)
+        );
+
+        controller.generateForTopology(null);
+        controller.generateForTopology("cluster");
+
+        verify(diagramGenerationService).generateDeploymentDiagram(manifest);
+        verify(diagramGenerationService).generatePartitionedDeploymentDiagram(manifest, DiagramPartitioning.CLUSTER);
+    }
+
+    @Test
+    void generateForSystemsStoresEverySystemWhenNoneAreListed() {
+        DiagramBatchService diagramBatchService = mock(DiagramBatchService.class);
+        DiagramBatchService.BatchResult result = new DiagramBatchService.BatchResult(1, 1, 0, 3, 9,
+                List.of(new DiagramBatchService.SystemResult("Billing", "billing.puml", 6, null)));
+        when(diagramBatchService.generate(List.of(), null)).thenReturn(result);
+        when(diagramBatchService.generate(List.of(" "), null)).thenThrow(new PreconditionViolationException("system names must not be blank"));
+        ArtifactController controller = new ArtifactController(
+                mock(ManifestIngestionService.class),
+                mock(ManifestContractValidator.class),
+                mock(DiagramGenerationService.class),
+                mock(ArtifactStorage.class),
+                mock(DiagramRenderService.class),
+                mock(GraphManifestReader.class),
+                diagramBatchService
+        );
+
+        assertEquals(result, controller.generateForSystems(null));
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> controller.generateForSystems(List.of(" ")));
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+    }
+
+    @Test
+    void graphGenerationRequiresGeneratorRole() throws NoSuchMethodException {
+        for (Method method : List.of(ArtifactController.class.getMethod("generateForSystem", String.class),
+                ArtifactController.class.getMethod("generateForTopology", String.class),
+                ArtifactController.class.getMethod("generateForSystems", List.class))) {
+            PreAuthorize preAuthorize = method.getAnnotation(PreAuthorize.class);
+
+            assertNotNull(preAuthorize);
+            assertEquals("hasAuthority('" + ApiRoles.ARTIFACT_GENERATE + "')", preAuthorize.value());
+        }
+    }
+
+    @Test
+    void renderRejectsUnsupportedFormatsAndReportsSaturation() throws Exception {
+        DiagramRenderService renderService = mock(DiagramRenderService.class);
+        when(renderService.render("busy.puml", DiagramRenderService.RenderFormat.PNG, 0))
+                .thenThrow(new DiagramRenderUnavailableException("Diagram render queue is full; retry later"));
+        MockMvc mockMvc = mockMvc(mock(ArtifactStorage.class), renderService);
+
+        mockMvc.perform(get("/api/artifacts/diagram.puml").param("format", "gif"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/artifacts/busy.puml").param("format", "png"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "5"));
+    }
+
+    @Test
+    void renderAuthorizationAllowsGeneratorAndReaderRoles() throws NoSuchMethodException {
+        Method renderMethod = ArtifactController.class.getMethod("render", String.class, String.class, int.class);
+        PreAuthorize preAuthorize = renderMethod.getAnnotation(PreAuthorize.class);
+
+        assertNotNull(preAuthorize);
+        assertEquals("hasAnyAuthority('" + ApiRoles.ARTIFACT_GENERATE + "','" + ApiRoles.READ_ONLY + "')", preAuthorize.value());
+    }
+
+    private ArtifactStorage storedDiagram() {
+        return storedDiagram("none");
+    }
+
+    private ArtifactStorage storedDiagram(String compression) {
+        ArtifactStorage storage = new LocalFilesystemArtifactStorage(tempDir.toString(), compression);
+        storage.create("diagram.puml", DIAGRAM, Duration.ofDays(1));
+        return storage;
+    }
+
+    private MockMvc mockMvc(ArtifactStorage storage) {
+        return mockMvc(storage, mock(DiagramRenderService.class));
+    }
+
+    private MockMvc mockMvc(ArtifactStorage storage, DiagramRenderService renderService) {
+        return MockMvcBuilders.standaloneSetup(new ArtifactController(
+                mock(ManifestIngestionService.class),
+                mock(ManifestContractValidator.class),
+                mock(DiagramGenerationService.class),
+                storage,
+                renderService,
+                mock(GraphManifestReader.class),
+                mock(DiagramBatchService.class)
+        )).build();
+    }
+
+    private static String sha256(String content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
 }
@@ -0,0 +1,123 @@
+package com.jdeploy.artifact;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArtifactMetadataIndexTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void retentionScanReturnsEntriesDueByTheCutoffEarliestFirst() {
+        ArtifactMetadataIndex index = new ArtifactMetadataIndex(tempDir);
+        index.put(entry("late.puml", NOW.plusSeconds(30)));
+        index.put(entry("due.puml", NOW));
+        index.put(entry("early.puml", NOW.minusSeconds(30)));
+        index.put(entry("forever.puml", null));
+
+        assertEquals(List.of("early.puml", "due.puml"), ids(index.retainedUntilAtMost(NOW)));
+
+        index.put(entry("early.puml", NOW.plusSeconds(60)));
+        assertEquals(List.of("due.puml"), ids(index.retainedUntilAtMost(NOW)));
+        assertEquals(List.of("due.puml", "early.puml", "forever.puml", "late.puml"), ids(index.list()));
+    }
+
+    @Test
+    void journalReplayRestoresPutsAndDeletes() {
+        ArtifactMetadataIndex index = new ArtifactMetadataIndex(tempDir);
+        ArtifactMetadata unusualId = entry("tab\tand space %.puml", NOW);
+        index.put(unusualId);
+        index.put(entry("deleted.puml", NOW));
+        assertTrue(index.remove("deleted.puml"));
+        assertFalse(index.remove("deleted.puml"));
+
+        ArtifactMetadataIndex replayed = new ArtifactMetadataIndex(tempDir);
+        replayed.load();
+
+        assertEquals(List.of(unusualId), replayed.list());
+        assertNull(replayed.get("deleted.puml"));
+
+        replayed.compact();
+        ArtifactMetadataIndex compacted = new ArtifactMetadataIndex(tempDir);
+        compacted.load();
+        assertEquals(List.of(unusualId), compacted.list());
+    }
+
+    @Test
+    void journalReplayAcceptsRecordsWithoutContentEncoding() throws Exception {
+        Files.writeString(tempDir.resolve(ArtifactMetadataIndex.JOURNAL_FILE_NAME),
+                "P\tlegacy.puml\t42\t" + NOW + "\t" + NOW + "\t-\t-\n");
+        ArtifactMetadataIndex index = new ArtifactMetadataIndex(tempDir);
+        index.load();
+
+        assertEquals(List.of(new ArtifactMetadata("legacy.puml", tempDir.resolve("legacy.puml"), 42, NOW, NOW, null, null)), index.list());
+
+        ArtifactMetadata compressed = new ArtifactMetadata("c.puml", tempDir.resolve("c.puml.gz"), 7, NOW, NOW, null, "ab".repeat(32), "gzip");
+        index.put(compressed);
+        ArtifactMetadataIndex replayed = new ArtifactMetadataIndex(tempDir);
+        replayed.load();
+        assertEquals(compressed, replayed.get("c.puml"));
+    }
+
+    @Test
+    void indexesSharingAJournalSeeEachOthersRecordsAcrossCompaction() {
+        ArtifactMetadataIndex server = new ArtifactMetadataIndex(tempDir);
+        server.load();
+        ArtifactMetadataIndex cli = new ArtifactMetadataIndex(tempDir);
+        cli.load();
+
+        ArtifactMetadata fromCli = entry("cli.puml", NOW);
+        cli.put(fromCli);
+        assertEquals(List.of(fromCli), server.refresh());
+        assertEquals(List.of(), server.refresh());
+
+        ArtifactMetadata fromServer = entry("server.puml", null);
+        server.put(fromServer);
+        cli.put(entry("later.puml", NOW));
+        server.compact();
+        assertEquals(List.of("later.puml"), ids(server.refresh()));
+
+        cli.put(entry("after-compaction.puml", NOW));
+        assertEquals(List.of("after-compaction.puml"), ids(server.refresh()));
+        assertEquals(List.of(fromServer), cli.refresh());
+
+        ArtifactMetadataIndex restarted = new ArtifactMetadataIndex(tempDir);
+        restarted.load();
+        assertEquals(List.of("after-compaction.puml", "cli.puml", "later.puml", "server.puml"), ids(restarted.list()));
+        assertEquals(server.list(), cli.list());
+    }
+
+    @Test
+    void recordTornByACrashedWriterIsSkippedWithoutLosingTheNextOne() throws Exception {
+        ArtifactMetadataIndex index = new ArtifactMetadataIndex(tempDir);
+        index.put(entry("a.puml", NOW));
+        Files.writeString(tempDir.resolve(ArtifactMetadataIndex.JOURNAL_FILE_NAME), "P\ttorn", StandardOpenOption.APPEND);
+        index.put(entry("b.puml", NOW));
+
+        ArtifactMetadataIndex replayed = new ArtifactMetadataIndex(tempDir);
+        replayed.load();
+        assertEquals(List.of("a.puml", "b.puml"), ids(replayed.list()));
+    }
+
+    private ArtifactMetadata entry(String artifactId, Instant retentionUntil) {
+        return new ArtifactMetadata(artifactId, tempDir.resolve(artifactId), 42, NOW, NOW, retentionUntil, "ab".repeat(32));
+    }
+
+    private static List<String> ids(List<ArtifactMetadata> entries) {
+        return entries.stream().map(ArtifactMetadata::artifactId).toList();
+    }
+}
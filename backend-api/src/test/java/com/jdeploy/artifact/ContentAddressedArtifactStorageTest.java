@@ -0,0 +1,132 @@
+package com.jdeploy.artifact;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContentAddressedArtifactStorageTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void identicalContentSharesOneBlobUntilTheLastReferenceIsDeleted() {
+        ContentAddressedArtifactStorage storage = new ContentAddressedArtifactStorage(tempDir.toString());
+
+        ArtifactMetadata first = storage.create("first.puml", "@startuml\nA->B\n@enduml", Duration.ofDays(1));
+        ArtifactMetadata second = storage.createStreaming("second.puml", Duration.ofDays(1), out -> out.write("@startuml\nA->B\n@enduml"));
+
+        assertEquals(first.contentHash(), second.contentHash());
+        assertEquals(first.path(), second.path());
+        assertEquals(1, storage.blobCount());
+        assertEquals(List.of("first.puml", "second.puml"), storage.list().stream().map(ArtifactMetadata::artifactId).toList());
+
+        assertTrue(storage.delete("first.puml"));
+        assertTrue(Files.exists(second.path()));
+        assertEquals("@startuml\nA->B\n@enduml", storage.read("second.puml").content());
+
+        assertTrue(storage.delete("second.puml"));
+        assertFalse(Files.exists(second.path()));
+        assertEquals(0, storage.blobCount());
+    }
+
+    @Test
+    void statAnswersFromTheIndexAndAppliesRetention() {
+        ContentAddressedArtifactStorage storage = new ContentAddressedArtifactStorage(tempDir.toString());
+        ArtifactMetadata created = storage.create("diagram.puml", "@startuml\n@enduml", Duration.ofDays(1));
+        storage.create("expired.puml", "@startuml\nA->B\n@enduml", Duration.ZERO);
+
+        assertEquals(created, storage.stat("diagram.puml"));
+        assertThrows(ArtifactExpiredException.class, () -> storage.stat("expired.puml"));
+        assertThrows(ArtifactExpiredException.class, () -> storage.stat("expired.puml"));
+    }
+
+    @Test
+    void expireDeletesOnlyArtifactsDueByTheCutoff() {
+        ContentAddressedArtifactStorage storage = new ContentAddressedArtifactStorage(tempDir.toString());
+        ArtifactMetadata due = storage.create("due.puml", "due", Duration.ofMinutes(-1));
+        storage.create("active.puml", "active", Duration.ofDays(1));
+        List<ArtifactMetadata> created = new ArrayList<>();
+        storage.addCreationListener(created::add);
+
+        assertEquals(Optional.of(due), storage.expire("due.puml", Instant.now()));
+        assertEquals(Optional.empty(), storage.expire("due.puml", Instant.now()));
+        assertEquals(Optional.empty(), storage.expire("active.puml", Instant.now()));
+        assertFalse(Files.exists(due.path()));
+
+        ArtifactMetadata later = storage.createStreaming("later.puml", Duration.ofDays(1), out -> out.write("later"));
+        assertEquals(List.of(later), created);
+    }
+
+    @Test
+    void blobsAreShardedBySha256() {
+        ContentAddressedArtifactStorage storage = new ContentAddressedArtifactStorage(tempDir.toString());
+
+        ArtifactMetadata metadata = storage.create("empty.puml", "", Duration.ofDays(1));
+
+        String hash = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+        assertEquals(hash, metadata.contentHash());
+        assertEquals(tempDir.resolve("blobs/e3/b0/" + hash), metadata.path());
+    }
+
+    @Test
+    void replacingAnArtifactReleasesItsPreviousBlob() {
+        ContentAddressedArtifactStorage storage = new ContentAddressedArtifactStorage(tempDir.toString());
+        ArtifactMetadata original = storage.create("diagram.puml", "v1", Duration.ofDays(1));
+
+        storage.create("diagram.puml", "v2", Duration.ofDays(1));
+
+        assertFalse(Files.exists(original.path()));
+        assertEquals("v2", storage.read("diagram.puml").content());
+        assertEquals(1, storage.blobCount());
+    }
+
+    @Test
+    void expiryDropsReferencesAndUnreferencedBlobs() {
+        ContentAddressedArtifactStorage storage = new ContentAddressedArtifactStorage(tempDir.toString());
+        ArtifactMetadata expired = storage.create("expired.puml", "old", Duration.ofMillis(-1));
+        storage.create("shared-expired.puml", "shared", Duration.ofMillis(-1));
+        storage.create("shared-active.puml", "shared", Duration.ofDays(1));
+
+        List<String> deleted = storage.expireOlderThan(Duration.ZERO);
+
+        assertEquals(List.of("expired.puml", "shared-expired.puml"), deleted);
+        assertFalse(Files.exists(expired.path()));
+        assertEquals("shared", storage.read("shared-active.puml").content());
+        assertThrows(ArtifactNotFoundException.class, () -> storage.read("expired.puml"));
+    }
+
+    @Test
+    void indexIsRebuiltFromRefsAndOrphanBlobsAreCollected() throws Exception {
+        ContentAddressedArtifactStorage storage = new ContentAddressedArtifactStorage(tempDir.toString());
+        storage.create("kept.puml", "kept", Duration.ofDays(1));
+        ArtifactMetadata orphan = storage.create("orphan.puml", "orphan", Duration.ofDays(1));
+        Files.delete(tempDir.resolve("refs/orphan.puml"));
+
+        ContentAddressedArtifactStorage reloaded = new ContentAddressedArtifactStorage(tempDir.toString());
+
+        assertEquals(List.of("kept.puml"), reloaded.list().stream().map(ArtifactMetadata::artifactId).toList());
+        assertEquals("kept", reloaded.read("kept.puml").content());
+        assertFalse(Files.exists(orphan.path()));
+    }
+
+    @Test
+    void rejectsIdsThatEscapeTheRefDirectory() {
+        ContentAddressedArtifactStorage storage = new ContentAddressedArtifactStorage(tempDir.toString());
+
+        assertThrows(IllegalArgumentException.class, () -> storage.create("../escape.puml", "x", Duration.ofDays(1)));
+        assertThrows(IllegalArgumentException.class, () -> storage.create("nested/diagram.puml", "x", Duration.ofDays(1)));
+    }
+}
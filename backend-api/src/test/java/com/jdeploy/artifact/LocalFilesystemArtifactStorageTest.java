@@ -5,9 +5,13 @@ import org.junit.jupiter.api.io.TempDir;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -35,29 +39,43 @@ class LocalFilesystemArtifactStorageTest {
     }
 
     @Test
-    void readRejectsExpiredArtifactsAndDeletesArtifactAndRetentionSidecar() throws Exception {
+    void readRejectsExpiredArtifactsAndLeavesDeletionToExpire() {
         LocalFilesystemArtifactStorage storage = new LocalFilesystemArtifactStorage(tempDir.toString());
-        storage.create("expired.puml", "@startuml\nA->B\n@enduml", Duration.ofDays(1));
+        ArtifactMetadata created = storage.create("expired.puml", "@startuml\nA->B\n@enduml", Duration.ofMinutes(-1));
 
         Path artifactPath = tempDir.resolve("expired.puml");
         Path retentionPath = tempDir.resolve("expired.puml.retention");
-        Files.writeString(retentionPath, Instant.now().minus(Duration.ofMinutes(1)).toString());
 
         assertThrows(ArtifactExpiredException.class, () -> storage.read("expired.puml"));
+        assertTrue(Files.exists(artifactPath));
+
+        assertEquals(Optional.empty(), storage.expire("expired.puml", created.retentionUntil().minusMillis(1)));
+        assertEquals(Optional.of(created), storage.expire("expired.puml", Instant.now()));
         assertFalse(Files.exists(artifactPath));
         assertFalse(Files.exists(retentionPath));
+        assertEquals(Optional.empty(), storage.expire("expired.puml", Instant.now()));
+    }
+
+    @Test
+    void creationListenersReceiveEveryCreatedArtifact() {
+        LocalFilesystemArtifactStorage storage = new LocalFilesystemArtifactStorage(tempDir.toString());
+        List<ArtifactMetadata> created = new ArrayList<>();
+        storage.addCreationListener(created::add);
+
+        ArtifactMetadata first = storage.create("first.puml", "first", Duration.ofDays(1));
+        ArtifactMetadata second = storage.createStreaming("second.puml", Duration.ofDays(1), out -> out.write("second"));
+
+        assertEquals(List.of(first, second), created);
     }
 
     @Test
     void expireOlderThanUsesRetentionUntilAndDeletesOnlyExpiredArtifacts() throws Exception {
         LocalFilesystemArtifactStorage storage = new LocalFilesystemArtifactStorage(tempDir.toString());
-        storage.create("expired-by-retention.puml", "expired", Duration.ofDays(1));
-        storage.create("active-by-retention.puml", "active", Duration.ofDays(1));
+        storage.create("expired-by-retention.puml", "expired", Duration.ofMinutes(-5));
+        storage.create("active-by-retention.puml", "active", Duration.ofMinutes(30));
 
         Path expiredRetention = tempDir.resolve("expired-by-retention.puml.retention");
         Path activeRetention = tempDir.resolve("active-by-retention.puml.retention");
-        Files.writeString(expiredRetention, Instant.now().minus(Duration.ofMinutes(5)).toString());
-        Files.writeString(activeRetention, Instant.now().plus(Duration.ofMinutes(30)).toString());
 
         List<String> deleted = storage.expireOlderThan(Duration.ZERO);
 
@@ -68,4 +86,191 @@ class LocalFilesystemArtifactStorageTest {
         assertTrue(Files.exists(activeRetention));
         assertDoesNotThrow(() -> storage.read("active-by-retention.puml"));
     }
+
+    @Test
+    void createStreamingRenamesCompletedContentIntoPlace() throws Exception {
+        LocalFilesystemArtifactStorage storage = new LocalFilesystemArtifactStorage(tempDir.toString());
+
+        ArtifactMetadata created = storage.createStreaming("streamed.puml", Duration.ofDays(1), out -> {
+            out.write("@startuml\n");
+            for (int i = 0; i < 1_000; i++) {
+                out.write("node n" + i + "\n");
+            }
+            out.write("@enduml\n");
+        });
+
+        assertEquals("streamed.puml", created.artifactId());
+        assertTrue(storage.read("streamed.puml").content().contains("node n999"));
+        assertEquals(List.of("streamed.puml"), storage.list().stream().map(ArtifactMetadata::artifactId).toList());
+        try (var files = Files.list(tempDir)) {
+            assertTrue(files.noneMatch(path -> path.getFileName().toString().endsWith(".partial")));
+        }
+    }
+
+    @Test
+    void createStreamingLeavesNothingBehindWhenTheWriterFails() throws Exception {
+        LocalFilesystemArtifactStorage storage = new LocalFilesystemArtifactStorage(tempDir.toString());
+
+        assertThrows(IllegalStateException.class, () -> storage.createStreaming("broken.puml", Duration.ofDays(1), out -> {
+            out.write("@startuml\n");
+            throw new java.io.IOException("render failed");
+        }));
+
+        assertFalse(Files.exists(tempDir.resolve("broken.puml")));
+        try (var files = Files.list(tempDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void statReportsTheContentHashRecordedAtWriteTime() throws Exception {
+        LocalFilesystemArtifactStorage storage = new LocalFilesystemArtifactStorage(tempDir.toString());
+        ArtifactMetadata created = storage.create("diagram.puml", "@startuml\n@enduml", Duration.ofDays(1));
+        ArtifactMetadata streamed = storage.createStreaming("streamed.puml", Duration.ofDays(1), out -> out.write("@startuml\n@enduml"));
+
+        ArtifactMetadata stat = storage.stat("diagram.puml");
+        assertEquals(created, stat);
+        assertEquals(64, stat.contentHash().length());
+        assertEquals(stat.contentHash(), streamed.contentHash());
+        assertThrows(ArtifactNotFoundException.class, () -> storage.stat("missing.puml"));
+
+        Files.delete(tempDir.resolve(".artifact-index.journal"));
+        LocalFilesystemArtifactStorage recovered = new LocalFilesystemArtifactStorage(tempDir.toString());
+        assertEquals(stat.contentHash(), recovered.stat("diagram.puml").contentHash());
+    }
+
+    @Test
+    void indexSurvivesRestartWithoutReadingSidecars() throws Exception {
+        LocalFilesystemArtifactStorage storage = new LocalFilesystemArtifactStorage(tempDir.toString());
+        storage.create("b.puml", "b", Duration.ofDays(1));
+        storage.create("a.puml", "a", Duration.ofMinutes(-1));
+        storage.create("c.puml", "c", Duration.ofDays(1));
+        assertTrue(storage.delete("c.puml"));
+
+        // Indexed entries whose file is unchanged are trusted, so a rewritten sidecar is not re-read.
+        Files.writeString(tempDir.resolve("b.puml.retention"), Instant.now().minus(Duration.ofDays(1)).toString());
+        LocalFilesystemArtifactStorage restarted = new LocalFilesystemArtifactStorage(tempDir.toString());
+
+        assertEquals(storage.list(), restarted.list());
+        assertEquals(List.of("a.puml", "b.puml"), restarted.list().stream().map(ArtifactMetadata::artifactId).toList());
+        assertEquals(List.of("a.puml"), restarted.expireOlderThan(Duration.ZERO));
+        assertEquals(List.of("b.puml"), restarted.list().stream().map(ArtifactMetadata::artifactId).toList());
+    }
+
+    @Test
+    void restartReconcilesTheIndexWithTheDirectory() throws Exception {
+        LocalFilesystemArtifactStorage storage = new LocalFilesystemArtifactStorage(tempDir.toString());
+        storage.create("kept.puml", "kept", Duration.ofDays(1));
+        storage.create("removed.puml", "removed", Duration.ofDays(1));
+
+        Files.delete(tempDir.resolve("removed.puml"));
+        Files.writeString(tempDir.resolve("copied.puml"), "copied");
+        Files.writeString(tempDir.resolve("copied.puml.retention"), Instant.now().minus(Duration.ofMinutes(1)).toString());
+        Files.writeString(tempDir.resolve(".stale.puml123.partial"), "half");
+        Files.setLastModifiedTime(tempDir.resolve(".stale.puml123.partial"), FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+        Files.writeString(tempDir.resolve(".artifact-index.journal"), "P\ttorn", StandardOpenOption.APPEND);
+
+        LocalFilesystemArtifactStorage restarted = new LocalFilesystemArtifactStorage(tempDir.toString());
+
+        assertEquals(List.of("copied.puml", "kept.puml"), restarted.list().stream().map(ArtifactMetadata::artifactId).toList());
+        assertThrows(ArtifactExpiredException.class, () -> restarted.read("copied.puml"));
+        assertEquals("kept", restarted.read("kept.puml").content());
+        assertFalse(Files.exists(tempDir.resolve(".stale.puml123.partial")));
+        assertEquals(List.of("copied.puml", "kept.puml"), new LocalFilesystemArtifactStorage(tempDir.toString()).list().stream()
+                .map(ArtifactMetadata::artifactId).toList());
+    }
+
+    @Test
+    void processesSharingTheDirectorySeeEachOthersArtifacts() throws Exception {
+        LocalFilesystemArtifactStorage server = new LocalFilesystemArtifactStorage(tempDir.toString());
+        List<String> announced = new ArrayList<>();
+        server.addCreationListener(metadata -> announced.add(metadata.artifactId()));
+        server.create("server.puml", "server", Duration.ofDays(1));
+        Path inFlight = tempDir.resolve(".render.puml123.partial");
+        Files.writeString(inFlight, "still being written");
+
+        LocalFilesystemArtifactStorage cli = new LocalFilesystemArtifactStorage(tempDir.toString());
+        cli.create("cli.puml", "cli", Duration.ofDays(1));
+
+        assertTrue(Files.exists(inFlight));
+        assertEquals("cli", server.read("cli.puml").content());
+        assertEquals(List.of("server.puml", "cli.puml"), announced);
+
+        cli.create("listed.puml", "listed", Duration.ofDays(1));
+        assertEquals(List.of("cli.puml", "listed.puml", "server.puml"), server.list().stream().map(ArtifactMetadata::artifactId).toList());
+        assertEquals(List.of("server.puml", "cli.puml", "listed.puml"), announced);
+
+        Files.writeString(tempDir.resolve("unjournaled.puml"), "unjournaled");
+        assertEquals("unjournaled", server.read("unjournaled.puml").content());
+        server.create("after.puml", "after", Duration.ofDays(1));
+        assertEquals(List.of("after.puml", "cli.puml", "listed.puml", "server.puml", "unjournaled.puml"),
+                new LocalFilesystemArtifactStorage(tempDir.toString()).list().stream().map(ArtifactMetadata::artifactId).toList());
+    }
+
+    @Test
+    void gzipModeStoresCompressedFilesAndReadsThemBackDecoded() throws Exception {
+        String content = "@startuml\n" + "node app01\n".repeat(200) + "@enduml\n";
+        ArtifactMetadata plain = new LocalFilesystemArtifactStorage(tempDir.resolve("plain").toString()).create("d.puml", content, Duration.ofDays(1));
+        LocalFilesystemArtifactStorage storage = new LocalFilesystemArtifactStorage(tempDir.toString(), "gzip");
+
+        ArtifactMetadata created = storage.create("d.puml", content, Duration.ofDays(1));
+
+        assertEquals(tempDir.resolve("d.puml.gz"), created.path());
+        assertEquals("gzip", created.contentEncoding());
+        assertEquals(Files.size(created.path()), created.sizeBytes());
+        assertTrue(created.sizeBytes() < content.length());
+        assertEquals(plain.contentHash(), created.contentHash());
+        assertEquals(content, storage.read("d.puml").content());
+        assertEquals(created, storage.stat("d.puml"));
+        assertFalse(Files.exists(tempDir.resolve("d.puml")));
+    }
+
+    @Test
+    void boundedReadStopsAtTheLimitOfDecodedBytes() {
+        LocalFilesystemArtifactStorage storage = new LocalFilesystemArtifactStorage(tempDir.toString(), "gzip");
+        storage.create("d.puml", "é".repeat(10), Duration.ofDays(1));
+
+        assertEquals("é".repeat(10), storage.readBounded("d.puml", 20).orElseThrow().content());
+        assertEquals(Optional.empty(), storage.readBounded("d.puml", 19));
+    }
+
+    @Test
+    void switchingCompressionReplacesTheOtherVariant() throws Exception {
+        new LocalFilesystemArtifactStorage(tempDir.toString()).create("d.puml", "v1", Duration.ofDays(1));
+        LocalFilesystemArtifactStorage gzip = new LocalFilesystemArtifactStorage(tempDir.toString(), "gzip");
+        assertNull(gzip.stat("d.puml").contentEncoding());
+        assertEquals("v1", gzip.read("d.puml").content());
+
+        gzip.create("d.puml", "v2", Duration.ofDays(1));
+
+        assertFalse(Files.exists(tempDir.resolve("d.puml")));
+        assertTrue(Files.exists(tempDir.resolve("d.puml.gz")));
+        assertEquals("v2", new LocalFilesystemArtifactStorage(tempDir.toString()).read("d.puml").content());
+        assertTrue(gzip.delete("d.puml"));
+        assertFalse(Files.exists(tempDir.resolve("d.puml.gz")));
+        assertFalse(Files.exists(tempDir.resolve("d.puml.retention")));
+    }
+
+    @Test
+    void rebuildWithoutJournalRecognisesCompressedArtifacts() throws Exception {
+        ArtifactMetadata created = new LocalFilesystemArtifactStorage(tempDir.toString(), "gzip").create("d.puml", "content", Duration.ofDays(1));
+        Files.delete(tempDir.resolve(".artifact-index.journal"));
+
+        LocalFilesystemArtifactStorage restarted = new LocalFilesystemArtifactStorage(tempDir.toString());
+
+        ArtifactMetadata rebuilt = restarted.stat("d.puml");
+        assertEquals(created.path(), rebuilt.path());
+        assertEquals("gzip", rebuilt.contentEncoding());
+        assertEquals(created.contentHash(), rebuilt.contentHash());
+        assertEquals("content", restarted.read("d.puml").content());
+    }
+
+    @Test
+    void rejectsArtifactIdsThatCollideWithStorageFiles() {
+        LocalFilesystemArtifactStorage storage = new LocalFilesystemArtifactStorage(tempDir.toString(), "gzip");
+
+        assertThrows(IllegalArgumentException.class, () -> storage.create("d.puml.gz", "x", Duration.ofDays(1)));
+        assertThrows(IllegalArgumentException.class, () -> storage.create("d.puml.retention", "x", Duration.ofDays(1)));
+        assertThrows(IllegalArgumentException.class, () -> new LocalFilesystemArtifactStorage(tempDir.toString(), "zstd"));
+    }
 }
@@ -1,6 +1,7 @@
 package com.jdeploy.cli;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jdeploy.service.DiagramBatchService;
 import com.jdeploy.service.DiagramGenerationService;
 import com.jdeploy.service.ManifestIngestionService;
 import com.jdeploy.service.TopologyQueryService;
@@ -15,6 +16,7 @@ import java.util.List;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -56,6 +58,26 @@ class JDeployCliCommandsTest {
         assertTrue(Files.readString(output).contains("@startuml"));
     }
 
+    @Test
+    void generateDiagrams_reportsEachSystemAndFailsWhenAnyFailed() {
+        DiagramBatchService diagramBatchService = mock(DiagramBatchService.class);
+        Path outputDir = Path.of("diagrams");
+        when(diagramBatchService.generate(List.of("billing", "ledger"), outputDir))
+                .thenReturn(new DiagramBatchService.BatchResult(2, 1, 1, 4, 20, List.of(
+                        new DiagramBatchService.SystemResult("billing", "diagrams/billing.puml", 7, null),
+                        new DiagramBatchService.SystemResult("ledger", null, 0, "SoftwareSystem not found"))));
+        when(diagramBatchService.generate(List.of(), null))
+                .thenReturn(new DiagramBatchService.BatchResult(0, 0, 0, 1, 1, List.of()));
+
+        JDeployCliCommands.GenerateDiagramsCommand command =
+                new JDeployCliCommands.GenerateDiagramsCommand(diagramBatchService, new ObjectMapper());
+
+        assertEquals(1, new CommandLine(command).execute("--system", "billing", "--system", "ledger", "--output-dir", "diagrams"));
+        assertEquals(0, new CommandLine(new JDeployCliCommands.GenerateDiagramsCommand(diagramBatchService, new ObjectMapper()))
+                .execute("--format", "JSON"));
+        verify(diagramBatchService).generate(List.of(), null);
+    }
+
     @Test
     void ingestManifest_success() throws Exception {
         ManifestIngestionService ingestionService = mock(ManifestIngestionService.class);
@@ -70,7 +92,25 @@ class JDeployCliCommandsTest {
 
         assertEquals(0, exit);
         verify(ingestionService).parseManifest(file);
-        verify(ingestionService).synchronize(any(DeploymentManifestDto.class));
+        verify(ingestionService).synchronize(any(DeploymentManifestDto.class), eq(false));
+    }
+
+    @Test
+    void ingestManifest_forceBypassesUnchangedShortCircuit() throws Exception {
+        ManifestIngestionService ingestionService = mock(ManifestIngestionService.class);
+        CliAuthenticationService auth = new CliAuthenticationService("trusted", "cli-service", "pw");
+        Path file = Files.createTempFile("manifest", ".yml");
+        when(ingestionService.parseManifest(any(Path.class))).thenReturn(mock(DeploymentManifestDto.class));
+        when(ingestionService.synchronize(any(DeploymentManifestDto.class), eq(true)))
+                .thenReturn(ManifestIngestionService.SynchronizationOutcome.INGESTED);
+
+        JDeployCliCommands.IngestManifestCommand command =
+                new JDeployCliCommands.IngestManifestCommand(ingestionService, auth);
+
+        int exit = new CommandLine(command).execute("--file", file.toString(), "--force");
+
+        assertEquals(0, exit);
+        verify(ingestionService).synchronize(any(DeploymentManifestDto.class), eq(true));
     }
 
 
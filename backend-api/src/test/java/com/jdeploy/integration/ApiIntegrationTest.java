@@ -93,6 +93,8 @@ class ApiIntegrationTest {
         assertEquals(3L, countNodes("HardwareNode"));
         assertEquals(2L, countNodes("ExecutionEnvironment"));
         assertEquals(2L, countNodes("NetworkLink"));
+        assertEquals(1L, countConnectedLinks("k8s-worker-01", "db-vm-01"));
+        assertEquals(1L, countConnectedLinks("k8s-cp-01", "k8s-worker-01"));
 
         RestTemplate readClient = authenticatedClient("reader", "reader-password");
         URI deploymentsUri = UriComponentsBuilder.fromUriString("http://localhost:" + port + "/api/subnets/deployments")
@@ -241,6 +243,28 @@ class ApiIntegrationTest {
         assertTrue(downloaded.getBody().contains("@startuml"));
     }
 
+    @Test
+    void artifactGenerationReadsSystemsAndTheWholeTopologyFromTheGraph() {
+        RestTemplate ingestClient = authenticatedClient("ingest", "ingest-password");
+        ingestClient.postForEntity("http://localhost:" + port + "/api/manifests/ingest",
+                manifest("heterogeneous-topology.yaml"), ManifestController.OperationResult.class);
+        RestTemplate generatorClient = authenticatedClient("generator", "generator-password");
+
+        String system = generatedArtifact(generatorClient, "/api/artifacts/generate/system/Billing");
+        assertTrue(system.contains("title JDeploy Deployment Topology - system Billing"));
+        assertTrue(system.contains("artifact \"billing-worker:2.1.0\""));
+        assertTrue(system.contains("node_k8s_worker_01 --> node_db_vm_01 : 1000Mbps/3ms"));
+        assertFalse(system.contains("k8s-cp-01"));
+
+        String topology = generatedArtifact(generatorClient, "/api/artifacts/generate/all");
+        assertTrue(topology.contains("frame \"10.20.0.0/24 [VLAN 210]\""));
+        assertTrue(topology.contains("node_k8s_cp_01 --> node_k8s_worker_01 : 10000Mbps/1ms"));
+
+        HttpClientErrorException.NotFound unknownSystem = assertThrows(HttpClientErrorException.NotFound.class,
+                () -> generatorClient.postForEntity("http://localhost:" + port + "/api/artifacts/generate/system/Unknown", null, String.class));
+        assertEquals(HttpStatus.NOT_FOUND, unknownSystem.getStatusCode());
+    }
+
     @Test
     void graphQualityGateFindsExplicitViolations() {
         neo4jClient.query("CREATE (:DeploymentInstance {deploymentKey:'orphan'})").run();
@@ -445,6 +469,30 @@ class ApiIntegrationTest {
                 .orElse(0L);
     }
 
+    private long countConnectedLinks(String fromHostname, String toHostname) {
+        return neo4jClient.query("""
+                        MATCH (:HardwareNode {hostname: $fromHostname})<-[:CONNECTS_FROM]-(l:NetworkLink)-[:CONNECTS_TO]->(:HardwareNode {hostname: $toHostname})
+                        RETURN count(l) AS count
+                        """)
+                .bind(fromHostname).to("fromHostname")
+                .bind(toHostname).to("toHostname")
+                .fetchAs(Long.class)
+                .mappedBy((typeSystem, record) -> record.get("count").asLong())
+                .one()
+                .orElse(0L);
+    }
+
+    private String generatedArtifact(RestTemplate generatorClient, String path) {
+        ResponseEntity<Map<String, Object>> generated = generatorClient.exchange(
+                "http://localhost:" + port + path,
+                HttpMethod.POST,
+                HttpEntity.EMPTY,
+                new ParameterizedTypeReference<>() {
+                });
+        assertEquals(HttpStatus.OK, generated.getStatusCode());
+        return generatorClient.getForObject("http://localhost:" + port + "/api/artifacts/" + generated.getBody().get("artifactId"), String.class);
+    }
+
     private long countNodes(String label) {
         return neo4jClient.query("MATCH (n:" + label + ") RETURN count(n) AS count")
                 .fetchAs(Long.class)
@@ -0,0 +1,109 @@
+package com.jdeploy.integration;
+
+import com.jdeploy.JDeployApplication;
+import com.jdeploy.schema.GraphSchemaMigrator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.neo4j.driver.summary.ProfiledPlan;
+import org.neo4j.driver.summary.ResultSummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.GenericContainer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Profiles merge-key lookups at two graph sizes to show that, with the schema migrations applied, lookup cost
+ * is an index seek and does not grow with the number of nodes sharing the label.
+ */
+@SpringBootTest(classes = JDeployApplication.class)
+class GraphSchemaLookupBenchmarkTest {
+
+    static GenericContainer<?> neo4j = new GenericContainer<>("neo4j:5")
+            .withExposedPorts(7687)
+            .withEnv("NEO4J_AUTH", "neo4j/changeit");
+
+    @BeforeAll
+    static void startNeo4jContainer() {
+        neo4j.start();
+    }
+
+    @AfterAll
+    static void stopNeo4jContainer() {
+        neo4j.stop();
+    }
+
+    @DynamicPropertySource
+    static void neo4jProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.neo4j.uri", () -> "bolt://" + neo4j.getHost() + ":" + neo4j.getMappedPort(7687));
+        registry.add("spring.neo4j.authentication.username", () -> "neo4j");
+        registry.add("spring.neo4j.authentication.password", () -> "changeit");
+        registry.add("jdeploy.security.users.ingest.username", () -> "ingest");
+        registry.add("jdeploy.security.users.ingest.password", () -> "ingest-password");
+        registry.add("jdeploy.security.users.generator.username", () -> "generator");
+        registry.add("jdeploy.security.users.generator.password", () -> "generator-password");
+        registry.add("jdeploy.security.users.reader.username", () -> "reader");
+        registry.add("jdeploy.security.users.reader.password", () -> "reader-password");
+        registry.add("jdeploy.security.password-policy.enforce", () -> "false");
+    }
+
+    @Autowired
+    private Neo4jClient neo4jClient;
+
+    @Autowired
+    private GraphSchemaMigrator migrator;
+
+    @Test
+    void startupMigrationLeavesNoSchemaDrift() {
+        assertTrue(migrator.missingElements().isEmpty());
+    }
+
+    @Test
+    void hostnameLookupCostIsIndependentOfGraphSize() {
+        neo4jClient.query("MATCH (n) DETACH DELETE n").run();
+        seedNodes(0, 1_000);
+        long smallGraphHits = profileHostnameLookup("node-500");
+
+        seedNodes(1_000, 10_000);
+        long largeGraphHits = profileHostnameLookup("node-5000");
+
+        assertEquals(smallGraphHits, largeGraphHits, "hostname lookup db hits at 1k nodes vs 10k nodes");
+    }
+
+    private void seedNodes(int from, int to) {
+        neo4jClient.query("""
+                        UNWIND range($from, $to - 1) AS i
+                        CREATE (:HardwareNode {hostname: 'node-' + i, ipAddress: '10.' + (i / 65536) + '.' + ((i / 256) % 256) + '.' + (i % 256)})
+                        """)
+                .bind(from).to("from")
+                .bind(to).to("to")
+                .run();
+    }
+
+    private long profileHostnameLookup(String hostname) {
+        ResultSummary summary = neo4jClient.query("PROFILE MATCH (n:HardwareNode {hostname: $hostname}) RETURN n.ipAddress")
+                .bind(hostname).to("hostname")
+                .run();
+        ProfiledPlan plan = summary.profile();
+        assertTrue(usesIndexSeek(plan), "expected an index seek in plan " + plan);
+        return totalDbHits(plan);
+    }
+
+    private static boolean usesIndexSeek(ProfiledPlan plan) {
+        return plan.operatorType().contains("IndexSeek")
+                || plan.children().stream().anyMatch(GraphSchemaLookupBenchmarkTest::usesIndexSeek);
+    }
+
+    private static long totalDbHits(ProfiledPlan plan) {
+        long hits = plan.dbHits();
+        for (ProfiledPlan child : plan.children()) {
+            hits += totalDbHits(child);
+        }
+        return hits;
+    }
+}
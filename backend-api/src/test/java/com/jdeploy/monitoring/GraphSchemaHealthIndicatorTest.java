@@ -0,0 +1,40 @@
+package com.jdeploy.monitoring;
+
+import com.jdeploy.schema.GraphSchemaMigrator;
+import com.jdeploy.schema.SchemaElement;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.Status;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GraphSchemaHealthIndicatorTest {
+
+    private final GraphSchemaMigrator migrator = mock(GraphSchemaMigrator.class);
+    private final GraphSchemaHealthIndicator indicator = new GraphSchemaHealthIndicator(migrator);
+
+    @Test
+    void missingSchemaElementsAreReportedAsDriftWhileStayingUp() {
+        when(migrator.missingElements()).thenReturn(List.of(SchemaElement.unique("hardware_node_hostname", "HardwareNode", "hostname")));
+
+        Health health = indicator.health();
+
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals(true, health.getDetails().get("drift"));
+        assertEquals(List.of("hardware_node_hostname"), health.getDetails().get("missing"));
+    }
+
+    @Test
+    void completeSchemaReportsNoDrift() {
+        when(migrator.missingElements()).thenReturn(List.of());
+
+        Health health = indicator.health();
+
+        assertEquals(Status.UP, health.getStatus());
+        assertEquals(false, health.getDetails().get("drift"));
+    }
+}
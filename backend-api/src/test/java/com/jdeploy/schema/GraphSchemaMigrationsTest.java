@@ -0,0 +1,66 @@
+package com.jdeploy.schema;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GraphSchemaMigrationsTest {
+
+    @Test
+    void rendersSinglePropertyUniquenessConstraint() {
+        assertEquals("CREATE CONSTRAINT subnet_cidr_unique IF NOT EXISTS FOR (n:Subnet) REQUIRE n.cidr IS UNIQUE",
+                SchemaElement.unique("subnet_cidr_unique", "Subnet", "cidr").createStatement());
+    }
+
+    @Test
+    void rendersCompositeUniquenessConstraintAsTuple() {
+        assertEquals("CREATE CONSTRAINT component_unique IF NOT EXISTS FOR (n:SoftwareComponent) REQUIRE (n.name, n.version) IS UNIQUE",
+                SchemaElement.unique("component_unique", "SoftwareComponent", "name", "version").createStatement());
+    }
+
+    @Test
+    void rendersRangeIndex() {
+        assertEquals("CREATE RANGE INDEX node_ip IF NOT EXISTS FOR (n:HardwareNode) ON (n.ipAddress)",
+                SchemaElement.rangeIndex("node_ip", "HardwareNode", "ipAddress").createStatement());
+    }
+
+    @Test
+    void migrationVersionsAreStrictlyIncreasingAndNamesUnique() {
+        List<SchemaMigration> migrations = GraphSchemaMigrations.all();
+        for (int i = 1; i < migrations.size(); i++) {
+            assertTrue(migrations.get(i).version() > migrations.get(i - 1).version());
+        }
+        Set<String> names = new HashSet<>();
+        for (SchemaElement element : GraphSchemaMigrations.expectedElements()) {
+            assertTrue(names.add(element.name()), "duplicate schema element " + element.name());
+        }
+    }
+
+    @Test
+    void coversEveryMergeKey() {
+        Set<String> covered = new HashSet<>();
+        for (SchemaElement element : GraphSchemaMigrations.expectedElements()) {
+            covered.add(element.label() + "." + String.join("+", element.properties()));
+        }
+        assertTrue(covered.containsAll(Set.of(
+                "HardwareNode.hostname",
+                "Subnet.cidr",
+                "ExecutionEnvironment.name",
+                "SoftwareSystem.name",
+                "SoftwareComponent.name+version",
+                "DeploymentInstance.deploymentKey",
+                "NetworkLink.linkKey",
+                "TopologyState.id")));
+    }
+
+    @Test
+    void rejectsElementWithoutProperties() {
+        assertThrows(IllegalArgumentException.class, () -> SchemaElement.unique("broken", "Subnet"));
+    }
+}
@@ -0,0 +1,92 @@
+package com.jdeploy.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+class AccessLogWriterTest {
+
+    @Test
+    void capacityIsRoundedUpToAPowerOfTwo() {
+        AccessLogWriter writer = new AccessLogWriter(1000, null);
+        try {
+            assertEquals(1024, writer.capacity());
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Test
+    void closeWritesEverythingStillBuffered() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AccessLogWriter writer = new AccessLogWriter(4096, registry);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(writer.submit("127.0.0.1 - - [01/Jan/2026:00:00:00 +0000] \"GET /api/topology/systems HTTP/1.1\" 200 " + i));
+        }
+
+        writer.close();
+
+        assertEquals(0, writer.pending());
+        assertEquals(0, writer.dropped());
+        assertEquals(1000.0, registry.get("jdeploy.access.log.written").functionCounter().count());
+    }
+
+    @Test
+    void linesAreDroppedAndCountedWhileTheWriterIsBlocked() throws Exception {
+        CountDownLatch appending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AppenderBase<ILoggingEvent> blockingAppender = new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                appending.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        Logger accessLogger = (Logger) LoggerFactory.getLogger("ACCESS_LOG");
+        blockingAppender.start();
+        accessLogger.addAppender(blockingAppender);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        AccessLogWriter writer = new AccessLogWriter(4, registry);
+        try {
+            assertTrue(writer.submit("line 0"));
+            assertTrue(appending.await(5, TimeUnit.SECONDS));
+            // The writer is stuck appending line 0, so the ring fills after four more lines.
+            for (int i = 1; i <= 4; i++) {
+                assertTrue(writer.submit("line " + i));
+            }
+
+            assertFalse(writer.submit("line 5"));
+            assertFalse(writer.submit("line 6"));
+            assertEquals(2, writer.dropped());
+            assertEquals(2.0, registry.get("jdeploy.access.log.dropped").functionCounter().count());
+        } finally {
+            release.countDown();
+            writer.close();
+            accessLogger.detachAppender(blockingAppender);
+        }
+        assertEquals(5.0, registry.get("jdeploy.access.log.written").functionCounter().count());
+    }
+
+    @Test
+    void nullLineIsRejected() {
+        AccessLogWriter writer = new AccessLogWriter(2, null);
+        try {
+            assertFalse(writer.submit(null));
+        } finally {
+            writer.close();
+        }
+    }
+}
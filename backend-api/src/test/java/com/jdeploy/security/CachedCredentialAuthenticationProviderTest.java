@@ -0,0 +1,108 @@
+package com.jdeploy.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+class CachedCredentialAuthenticationProviderTest {
+
+    private final AtomicInteger passwordChecks = new AtomicInteger();
+    private final InMemoryUserDetailsManager users = new InMemoryUserDetailsManager(
+            User.withUsername("reader").password("reader-password").authorities(ApiRoles.READ_ONLY).build());
+
+    @Test
+    void repeatedLoginSkipsThePasswordCheck() {
+        CachedCredentialAuthenticationProvider provider = provider(Duration.ofMinutes(1));
+
+        Authentication first = provider.authenticate(login("reader", "reader-password"));
+        Authentication second = provider.authenticate(login("reader", "reader-password"));
+
+        assertEquals(1, passwordChecks.get());
+        assertTrue(second.isAuthenticated());
+        assertEquals(first.getAuthorities(), second.getAuthorities());
+    }
+
+    @Test
+    void wrongPasswordIsNeverServedFromCache() {
+        CachedCredentialAuthenticationProvider provider = provider(Duration.ofMinutes(1));
+        provider.authenticate(login("reader", "reader-password"));
+
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(login("reader", "wrong-password")));
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(login("reader", "wrong-password")));
+        assertEquals(3, passwordChecks.get());
+        assertEquals(1, provider.size());
+    }
+
+    @Test
+    void rotatedPasswordInvalidatesCachedVerification() {
+        CachedCredentialAuthenticationProvider provider = provider(Duration.ofMinutes(1));
+        provider.authenticate(login("reader", "reader-password"));
+
+        users.updateUser(User.withUsername("reader").password("rotated-password").authorities(ApiRoles.READ_ONLY).build());
+
+        assertThrows(BadCredentialsException.class, () -> provider.authenticate(login("reader", "reader-password")));
+        assertEquals(0, provider.size());
+        assertTrue(provider.authenticate(login("reader", "rotated-password")).isAuthenticated());
+    }
+
+    @Test
+    void expiredVerificationRunsThePasswordCheckAgain() throws InterruptedException {
+        CachedCredentialAuthenticationProvider provider = provider(Duration.ofMillis(1));
+        provider.authenticate(login("reader", "reader-password"));
+        Thread.sleep(5);
+
+        provider.authenticate(login("reader", "reader-password"));
+
+        assertEquals(2, passwordChecks.get());
+    }
+
+    @Test
+    void explicitInvalidationDropsUserEntries() {
+        CachedCredentialAuthenticationProvider provider = provider(Duration.ofMinutes(1));
+        provider.authenticate(login("reader", "reader-password"));
+
+        provider.invalidate("reader");
+
+        assertEquals(0, provider.size());
+    }
+
+    private CachedCredentialAuthenticationProvider provider(Duration ttl) {
+        DaoAuthenticationProvider passwordCheck = new DaoAuthenticationProvider(users);
+        passwordCheck.setPasswordEncoder(countingEncoder());
+        return new CachedCredentialAuthenticationProvider(passwordCheck, users, 16, ttl, new SimpleMeterRegistry());
+    }
+
+    @SuppressWarnings("deprecation")
+    private PasswordEncoder countingEncoder() {
+        PasswordEncoder plain = NoOpPasswordEncoder.getInstance();
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return plain.encode(rawPassword);
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                passwordChecks.incrementAndGet();
+                return plain.matches(rawPassword, encodedPassword);
+            }
+        };
+    }
+
+    private static UsernamePasswordAuthenticationToken login(String username, String password) {
+        return UsernamePasswordAuthenticationToken.unauthenticated(username, password);
+    }
+}
@@ -11,6 +11,8 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class CommonLogFormatAccessFilterTest {
@@ -87,4 +89,30 @@ class CommonLogFormatAccessFilterTest {
         assertTrue(line.contains("\"POST /login?next=/topology  second=true HTTP/1.1\" 401 12999"));
         assertTrue(!line.contains("\n") && !line.contains("\r"));
     }
+
+    @Test
+    void reusesFormattedTimestampWithinTheSameSecond() {
+        String first = CommonLogFormatAccessFilter.timestamp(1_700_000_000_100L);
+        String second = CommonLogFormatAccessFilter.timestamp(1_700_000_000_900L);
+        String next = CommonLogFormatAccessFilter.timestamp(1_700_000_001_000L);
+
+        assertSame(first, second);
+        assertEquals(CommonLogFormatAccessFilter.COMMON_LOG_DATE_FORMAT.format(
+                java.time.Instant.ofEpochSecond(1_700_000_001L).atZone(java.time.ZoneId.systemDefault())), next);
+    }
+
+    @Test
+    void ignoresNonDigitContentLength() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/topology/systems");
+        request.setProtocol("HTTP/1.1");
+        request.setRemoteAddr("203.0.113.10");
+
+        HttpServletResponse response = mock(HttpServletResponse.class);
+        when(response.getStatus()).thenReturn(200);
+        when(response.getHeader("Content-Length")).thenReturn("unknown");
+
+        String line = CommonLogFormatAccessFilter.buildCommonLogEntry(request, response);
+
+        assertTrue(line.endsWith("\"GET /api/topology/systems HTTP/1.1\" 200 -"));
+    }
 }
@@ -1,6 +1,8 @@
 package com.jdeploy.service;
 
+import com.jdeploy.artifact.ArtifactMetadata;
 import com.jdeploy.artifact.LocalFilesystemArtifactStorage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
@@ -8,8 +10,11 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class ArtifactRetentionCleanupServiceTest {
@@ -18,19 +23,19 @@ class ArtifactRetentionCleanupServiceTest {
     Path tempDir;
 
     @Test
-    void cleanupExpiredArtifactsDeletesExpiredArtifactsAndRetentionSidecars() throws Exception {
+    void cleanupExpiredArtifactsDeletesExpiredArtifactsAndRetentionSidecars() {
         LocalFilesystemArtifactStorage storage = new LocalFilesystemArtifactStorage(tempDir.toString());
-        storage.create("cleanup-expired.puml", "expired", Duration.ofDays(1));
+        storage.create("cleanup-expired.puml", "expired", Duration.ofMinutes(-2));
 
         Path artifactPath = tempDir.resolve("cleanup-expired.puml");
         Path retentionPath = tempDir.resolve("cleanup-expired.puml.retention");
-        Files.writeString(retentionPath, Instant.now().minus(Duration.ofMinutes(2)).toString());
 
-        ArtifactRetentionCleanupService service = new ArtifactRetentionCleanupService(storage, Duration.ZERO);
+        ArtifactRetentionCleanupService service = new ArtifactRetentionCleanupService(storage, new SimpleMeterRegistry(), Duration.ZERO, 100);
         service.cleanupExpiredArtifacts();
 
         assertFalse(Files.exists(artifactPath));
         assertFalse(Files.exists(retentionPath));
+        assertEquals(0, service.pending());
     }
 
     @Test
@@ -41,11 +46,62 @@ class ArtifactRetentionCleanupServiceTest {
         Path artifactPath = tempDir.resolve("cleanup-active.puml");
         Path retentionPath = tempDir.resolve("cleanup-active.puml.retention");
 
-        ArtifactRetentionCleanupService service = new ArtifactRetentionCleanupService(storage, Duration.ZERO);
+        ArtifactRetentionCleanupService service = new ArtifactRetentionCleanupService(storage, new SimpleMeterRegistry(), Duration.ZERO, 100);
         service.cleanupExpiredArtifacts();
 
         assertTrue(Files.exists(artifactPath));
         assertTrue(Files.exists(retentionPath));
         assertTrue(storage.read("cleanup-active.puml").content().contains("active"));
+        assertEquals(1, service.pending());
+    }
+
+    @Test
+    void artifactsCreatedAfterStartupAreDeletedInBatchesOnceDueAndMetricsAreRecorded() {
+        LocalFilesystemArtifactStorage storage = new LocalFilesystemArtifactStorage(tempDir.toString());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ArtifactRetentionCleanupService service = new ArtifactRetentionCleanupService(storage, meterRegistry, Duration.ofMinutes(1), 2);
+
+        long totalBytes = 0;
+        Instant latestDeadline = Instant.MIN;
+        for (int i = 0; i < 5; i++) {
+            ArtifactMetadata created = storage.create("batch-" + i + ".puml", "content-" + i, Duration.ofHours(1));
+            totalBytes += created.sizeBytes();
+            latestDeadline = created.retentionUntil();
+        }
+        storage.create("later.puml", "later", Duration.ofDays(1));
+        assertEquals(6, service.pending());
+
+        assertEquals(List.of(), service.expireDue(latestDeadline));
+        List<String> deleted = service.expireDue(latestDeadline.plus(Duration.ofMinutes(1)));
+
+        assertEquals(List.of("batch-0.puml", "batch-1.puml", "batch-2.puml", "batch-3.puml", "batch-4.puml"), deleted);
+        assertEquals(List.of("later.puml"), storage.list().stream().map(ArtifactMetadata::artifactId).toList());
+        assertEquals(1, service.pending());
+        assertEquals(1.0, meterRegistry.get("jdeploy.artifact.expiry.pending").gauge().value());
+        assertEquals(5.0, meterRegistry.get("jdeploy.artifact.expiry.deleted").functionCounter().count());
+        assertEquals(totalBytes, meterRegistry.get("jdeploy.artifact.expiry.reclaimed").functionCounter().count());
+        assertEquals(5, meterRegistry.get("jdeploy.artifact.expiry.lag").timer().count());
+    }
+
+    @Test
+    void staleDeadlinesOfReplacedArtifactsDoNotDeleteTheReplacement() {
+        LocalFilesystemArtifactStorage storage = new LocalFilesystemArtifactStorage(tempDir.toString());
+        ArtifactRetentionCleanupService service = new ArtifactRetentionCleanupService(storage, new SimpleMeterRegistry(), Duration.ZERO, 100);
+        ArtifactMetadata original = storage.create("diagram.puml", "v1", Duration.ofMinutes(5));
+        storage.create("diagram.puml", "v2", Duration.ofDays(1));
+
+        assertEquals(List.of(), service.expireDue(original.retentionUntil().plusSeconds(1)));
+        assertEquals("v2", storage.read("diagram.puml").content());
+        assertEquals(1, service.pending());
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        LocalFilesystemArtifactStorage storage = new LocalFilesystemArtifactStorage(tempDir.toString());
+
+        assertThrows(PreconditionViolationException.class,
+                () -> new ArtifactRetentionCleanupService(storage, new SimpleMeterRegistry(), Duration.ZERO, 0));
+        assertThrows(PreconditionViolationException.class,
+                () -> new ArtifactRetentionCleanupService(storage, new SimpleMeterRegistry(), Duration.ofSeconds(-1), 10));
     }
 }
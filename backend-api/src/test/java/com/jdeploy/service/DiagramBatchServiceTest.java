@@ -0,0 +1,96 @@
+package com.jdeploy.service;
+
+import com.jdeploy.artifact.LocalFilesystemArtifactStorage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DiagramBatchServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final TopologyQueryService topologyQueryService = mock(TopologyQueryService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DiagramBatchService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void writesOneFilePerSystemFromOneQueryAndReportsMissingSystems() throws Exception {
+        when(topologyQueryService.systemDiagrams(Set.of("Billing", "Ledger", "Unknown"))).thenReturn(List.of(
+                new TopologyQueryService.SystemDiagramView("Billing", List.of("billing-api:1.0"), List.of("app01")),
+                new TopologyQueryService.SystemDiagramView("Ledger", List.of("ledger-db:2.0"), List.of("db01"))));
+        service = service(1, 1);
+
+        DiagramBatchService.BatchResult result = service.generate(List.of("Billing", "Ledger", "Unknown"), tempDir.resolve("out"));
+
+        assertEquals(3, result.requested());
+        assertEquals(2, result.generated());
+        assertEquals(1, result.failed());
+        assertEquals(List.of("Billing", "Ledger", "Unknown"), result.systems().stream().map(DiagramBatchService.SystemResult::systemName).toList());
+        assertTrue(Files.readString(tempDir.resolve("out/Billing.puml")).contains("component \"billing-api:1.0\""));
+        assertTrue(Files.readString(tempDir.resolve("out/Ledger.puml")).contains("node \"db01\""));
+        assertEquals("SoftwareSystem not found", result.systems().get(2).error());
+        verify(topologyQueryService, times(1)).systemDiagrams(anyCollection());
+        assertEquals(2, meterRegistry.get("jdeploy.artifact.batch.system.duration").timer().count());
+    }
+
+    @Test
+    void storesArtifactsForEverySystemAndKeepsCollidingFileNamesApart() throws Exception {
+        List<TopologyQueryService.SystemDiagramView> views = List.of(
+                new TopologyQueryService.SystemDiagramView("a/b", List.of(), List.of()),
+                new TopologyQueryService.SystemDiagramView("a_b", List.of(), List.of()));
+        when(topologyQueryService.systemDiagrams(Set.of())).thenReturn(views);
+        service = service(2, 1);
+
+        DiagramBatchService.BatchResult stored = service.generate(List.of(), null);
+        DiagramBatchService.BatchResult written = service.generate(List.of(), tempDir.resolve("out"));
+
+        assertEquals(2, stored.generated());
+        assertTrue(stored.systems().getFirst().output().endsWith("-system-summary-a_b.puml"));
+        assertTrue(Files.exists(tempDir.resolve("artifacts").resolve(stored.systems().getFirst().output())));
+        assertEquals(List.of(tempDir.resolve("out/a_b.puml").toString(), tempDir.resolve("out/a_b_2.puml").toString()),
+                written.systems().stream().map(DiagramBatchService.SystemResult::output).toList());
+        assertNull(written.systems().get(1).error());
+    }
+
+    @Test
+    void rejectsBlankSystemNamesAndInvalidConfiguration() {
+        service = service(1, 1);
+
+        assertThrows(PreconditionViolationException.class, () -> service.generate(List.of(" "), null));
+        assertThrows(PreconditionViolationException.class, () -> service(0, 1));
+    }
+
+    private DiagramBatchService service(int workers, int queueCapacity) {
+        DiagramGenerationService diagramGenerationService = new DiagramGenerationService(
+                new LocalFilesystemArtifactStorage(tempDir.resolve("artifacts").toString()),
+                ObservationRegistry.NOOP,
+                new OperationMetricsService(new SimpleMeterRegistry()),
+                topologyQueryService);
+        return new DiagramBatchService(topologyQueryService, diagramGenerationService, meterRegistry, workers, queueCapacity);
+    }
+}
@@ -10,12 +10,17 @@ import io.micrometer.observation.ObservationRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
+import java.io.StringWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
@@ -51,6 +56,92 @@ class DiagramGenerationServiceTest {
         assertTrue(uml.contains("node_app01 --> node_sw01 : 1000Mbps/1ms"));
     }
 
+    @Test
+    void writePlantUmlStreamsTheSameDocumentBuildPlantUmlReturns() throws Exception {
+        DiagramGenerationService service = new DiagramGenerationService(
+                new NoopStorage(),
+                ObservationRegistry.NOOP,
+                new OperationMetricsService(new SimpleMeterRegistry()),
+                mock(TopologyQueryService.class));
+        StringWriter out = new StringWriter();
+
+        service.writePlantUml(manifest(), out);
+
+        assertEquals(service.buildPlantUml(manifest()), out.toString());
+    }
+
+    @Test
+    void buildPlantUmlKeepsCollidingHostnamesDistinct() {
+        DeploymentManifestDto manifest = new DeploymentManifestDto(
+                List.of(new DeploymentManifestDto.SubnetDto("10.1.0.0/24", "edge", "internal", List.of(
+                        new DeploymentManifestDto.HardwareNodeDto("edge.01", "10.1.0.1", "PHYSICAL", List.of()),
+                        new DeploymentManifestDto.HardwareNodeDto("edge_01", "10.1.0.2", "PHYSICAL", List.of())))),
+                List.of(),
+                List.of(new DeploymentManifestDto.ExecutionEnvironmentDto("prod", "PRODUCTION")),
+                List.of(),
+                List.of(new DeploymentManifestDto.NetworkLinkDto("edge_01", "edge.01", 100, 2)));
+        DiagramGenerationService service = new DiagramGenerationService(
+                new NoopStorage(),
+                ObservationRegistry.NOOP,
+                new OperationMetricsService(new SimpleMeterRegistry()),
+                mock(TopologyQueryService.class));
+
+        String uml = service.buildPlantUml(manifest);
+
+        assertTrue(uml.contains("\"edge.01\\n10.1.0.1\" as node_edge_01 <<physical>>"));
+        assertTrue(uml.contains("\"edge_01\\n10.1.0.2\" as node_edge_01_2 <<physical>>"));
+        assertTrue(uml.contains("node_edge_01_2 --> node_edge_01 : 100Mbps/2ms"));
+    }
+
+    @Test
+    void buildPlantUmlKeepsComponentsWhoseJoinedNamesCollideDistinct() {
+        DeploymentManifestDto manifest = new DeploymentManifestDto(
+                List.of(),
+                List.of(),
+                List.of(),
+                List.of(
+                        new DeploymentManifestDto.SoftwareSystemDto("a_b", List.of(
+                                new DeploymentManifestDto.SoftwareComponentDto("c", "1", List.of()))),
+                        new DeploymentManifestDto.SoftwareSystemDto("a", List.of(
+                                new DeploymentManifestDto.SoftwareComponentDto("b_c", "1", List.of())))),
+                List.of());
+        DiagramGenerationService service = new DiagramGenerationService(
+                new NoopStorage(),
+                ObservationRegistry.NOOP,
+                new OperationMetricsService(new SimpleMeterRegistry()),
+                mock(TopologyQueryService.class));
+
+        String uml = service.buildPlantUml(manifest);
+
+        assertTrue(uml.contains("component \"c\" as component_a_b_c\n"));
+        assertTrue(uml.contains("component_a_b_c --> artifact_a_b_c_1 : packaged as"));
+        assertTrue(uml.contains("component \"b_c\" as component_a_b_c_2\n"));
+        assertTrue(uml.contains("component_a_b_c_2 --> artifact_a_b_c_1_2 : packaged as"));
+    }
+
+    @Test
+    void buildPlantUmlKeepsManifestStringsOnTheirOwnLineAndInsideTheirQuotes() {
+        DeploymentManifestDto manifest = new DeploymentManifestDto(
+                List.of(new DeploymentManifestDto.SubnetDto("10.1.0.0/24\n!include /etc/passwd", "edge", "internal", List.of(
+                        new DeploymentManifestDto.HardwareNodeDto("edge01\r\n!includeurl http://internal/", "10.1.0.1", "PHYSICAL", List.of())))),
+                List.of(),
+                List.of(),
+                List.of(new DeploymentManifestDto.SoftwareSystemDto("Billing\" as x", List.of())),
+                List.of());
+        DiagramGenerationService service = new DiagramGenerationService(
+                new NoopStorage(),
+                ObservationRegistry.NOOP,
+                new OperationMetricsService(new SimpleMeterRegistry()),
+                mock(TopologyQueryService.class));
+
+        String uml = service.buildPlantUml(manifest);
+
+        assertTrue(uml.lines().noneMatch(line -> line.strip().startsWith("!")));
+        assertTrue(uml.contains("frame \"10.1.0.0/24 !include /etc/passwd [VLAN edge]\""));
+        assertTrue(uml.contains("\"edge01  !includeurl http://internal/\\n10.1.0.1\""));
+        assertTrue(uml.contains("package \"Billing' as x\" as "));
+    }
+
     @Test
     void generateDeploymentDiagramWritesPlantUmlAndReturnsMetadata() throws Exception {
         DeploymentManifestDto manifest = manifest();
@@ -73,6 +164,23 @@ class DiagramGenerationServiceTest {
         assertTrue(fileContent.contains("@enduml"));
     }
 
+    @Test
+    void generateSystemDeploymentDiagramNamesTheArtifactAndTitleAfterTheSystem() throws Exception {
+        DiagramGenerationService service = new DiagramGenerationService(
+                new LocalFilesystemArtifactStorage(tempDir.toString()),
+                ObservationRegistry.NOOP,
+                new OperationMetricsService(new SimpleMeterRegistry()),
+                mock(TopologyQueryService.class));
+
+        ArtifactMetadata metadata = service.generateSystemDeploymentDiagram("Payments/EU", manifest());
+
+        assertTrue(metadata.artifactId().endsWith("-system-Payments_EU.puml"));
+        String fileContent = Files.readString(metadata.path());
+        assertTrue(fileContent.contains("title JDeploy Deployment Topology - system Payments/EU"));
+        assertTrue(fileContent.contains("component \"payments-api\""));
+        assertThrows(PreconditionViolationException.class, () -> service.generateSystemDeploymentDiagram(" ", manifest()));
+    }
+
     @Test
     void generateDeploymentDiagramRejectsNullManifest() {
         SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
@@ -85,6 +193,86 @@ class DiagramGenerationServiceTest {
         assertThrows(PreconditionViolationException.class, () -> service.generateDeploymentDiagram(null));
     }
 
+    @Test
+    void buildPartitionedPlantUmlWritesAnOverviewFollowedByOnePagePerSubnet() {
+        DiagramGenerationService service = new DiagramGenerationService(
+                new NoopStorage(),
+                ObservationRegistry.NOOP,
+                new OperationMetricsService(new SimpleMeterRegistry()),
+                mock(TopologyQueryService.class));
+
+        String uml = service.buildPartitionedPlantUml(twoSubnetManifest(), DiagramPartitioning.SUBNET);
+        String[] pages = uml.split("(?=@startuml)");
+
+        assertEquals(3, pages.length);
+        assertTrue(pages[0].contains("title JDeploy Deployment Topology - overview by subnet"));
+        assertTrue(pages[0].contains("rectangle \"subnet 10.0.0.0/24 [VLAN app]\\n2 nodes, 1 components\" as partition_0 [[?format=svg&page=1]]"));
+        assertTrue(pages[0].contains("rectangle \"subnet 10.0.1.0/24 [VLAN db]\\n1 nodes, 1 components\" as partition_1 [[?format=svg&page=2]]"));
+        assertTrue(pages[0].contains("partition_0 --> partition_1 : 2 links, 100Mbps min/5ms max"));
+        assertTrue(pages[1].contains("node_app01 --> node_app02 : 1000Mbps/1ms"));
+        assertFalse(pages[1].contains("db01"));
+        assertTrue(pages[2].contains("artifact \"orders-db:15\""));
+        assertFalse(pages[2].contains("orders-api"));
+    }
+
+    @Test
+    void buildPartitionedPlantUmlGroupsClustersAndSystems() {
+        DiagramGenerationService service = new DiagramGenerationService(
+                new NoopStorage(),
+                ObservationRegistry.NOOP,
+                new OperationMetricsService(new SimpleMeterRegistry()),
+                mock(TopologyQueryService.class));
+
+        String byCluster = service.buildPartitionedPlantUml(twoSubnetManifest(), DiagramPartitioning.CLUSTER);
+        String bySystem = service.buildPartitionedPlantUml(twoSubnetManifest(), DiagramPartitioning.SYSTEM);
+
+        assertTrue(byCluster.contains("\"cluster orders-k8s [KUBERNETES]\\n2 nodes, 1 components\" as partition_0"));
+        assertTrue(byCluster.contains("\"unclustered nodes\\n1 nodes, 1 components\" as partition_1"));
+        assertTrue(bySystem.contains("\"system Orders\\n3 nodes, 2 components\" as partition_0"));
+        assertFalse(bySystem.contains("partition_1"));
+    }
+
+    @Test
+    void generatePartitionedDeploymentDiagramNamesTheArtifactAfterThePartitioning() throws Exception {
+        DiagramGenerationService service = new DiagramGenerationService(
+                new LocalFilesystemArtifactStorage(tempDir.toString()),
+                ObservationRegistry.NOOP,
+                new OperationMetricsService(new SimpleMeterRegistry()),
+                mock(TopologyQueryService.class));
+
+        ArtifactMetadata metadata = service.generatePartitionedDeploymentDiagram(twoSubnetManifest(), DiagramPartitioning.fromParameter("Routing_Zone"));
+
+        assertTrue(metadata.artifactId().endsWith("-by-routing-zone.puml"));
+        assertTrue(Files.readString(metadata.path()).contains("\"routing zone internal\\n3 nodes, 2 components\" as partition_0"));
+        assertThrows(PreconditionViolationException.class, () -> DiagramPartitioning.fromParameter("datacenter"));
+    }
+
+    private DeploymentManifestDto twoSubnetManifest() {
+        return new DeploymentManifestDto(
+                List.of(
+                        new DeploymentManifestDto.SubnetDto("10.0.0.0/24", "app", "internal", List.of(
+                                new DeploymentManifestDto.HardwareNodeDto("app01", "10.0.0.10", "VIRTUAL_MACHINE", List.of()),
+                                new DeploymentManifestDto.HardwareNodeDto("app02", "10.0.0.11", "VIRTUAL_MACHINE", List.of()))),
+                        new DeploymentManifestDto.SubnetDto("10.0.1.0/24", "db", "internal", List.of(
+                                new DeploymentManifestDto.HardwareNodeDto("db01", "10.0.1.10", "PHYSICAL", List.of())))
+                ),
+                List.of(new DeploymentManifestDto.ClusterDto("orders-k8s", "KUBERNETES", List.of("app01", "app02"), List.of("orders"))),
+                List.of(new DeploymentManifestDto.ExecutionEnvironmentDto("prod", "PRODUCTION")),
+                List.of(new DeploymentManifestDto.SoftwareSystemDto("Orders", List.of(
+                        new DeploymentManifestDto.SoftwareComponentDto("orders-api", "2.0.0", List.of(
+                                new DeploymentManifestDto.DeploymentTargetDto("prod", "app01", "orders-k8s", "orders"),
+                                new DeploymentManifestDto.DeploymentTargetDto("prod", "app02", "orders-k8s", "orders"))),
+                        new DeploymentManifestDto.SoftwareComponentDto("orders-db", "15", List.of(
+                                new DeploymentManifestDto.DeploymentTargetDto("prod", "db01", null, null)))
+                ))),
+                List.of(
+                        new DeploymentManifestDto.NetworkLinkDto("app01", "app02", 1000, 1),
+                        new DeploymentManifestDto.NetworkLinkDto("app01", "db01", 1000, 2),
+                        new DeploymentManifestDto.NetworkLinkDto("app02", "db01", 100, 5)
+                )
+        );
+    }
+
     private DeploymentManifestDto manifest() {
         return new DeploymentManifestDto(
                 List.of(new DeploymentManifestDto.SubnetDto(
@@ -139,5 +327,14 @@ class DiagramGenerationServiceTest {
         public List<String> expireOlderThan(Duration maxAge) {
             return List.of();
         }
+
+        @Override
+        public Optional<ArtifactMetadata> expire(String artifactId, Instant cutoff) {
+            return Optional.empty();
+        }
+
+        @Override
+        public void addCreationListener(Consumer<ArtifactMetadata> listener) {
+        }
     }
 }
@@ -0,0 +1,201 @@
+package com.jdeploy.service;
+
+import com.jdeploy.artifact.ArtifactMetadata;
+import com.jdeploy.artifact.ArtifactStorage;
+import com.jdeploy.artifact.LocalFilesystemArtifactStorage;
+import com.jdeploy.artifact.StoredArtifact;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class DiagramRenderServiceTest {
+
+    private static final String DIAGRAM = "@startuml\nAlice -> Bob: deploy\n@enduml\n";
+
+    @TempDir
+    Path tempDir;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private DiagramRenderService service;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void rendersOncePerContentAndServesRepeatsFromTheCache() throws Exception {
+        LocalFilesystemArtifactStorage storage = new LocalFilesystemArtifactStorage(tempDir.toString());
+        storage.create("a.puml", DIAGRAM, Duration.ofDays(1));
+        storage.create("b.puml", DIAGRAM, Duration.ofDays(1));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        service = service(storage, meterRegistry, 2, 8, Duration.ofSeconds(30), DataSize.ofMegabytes(1));
+
+        DiagramRenderService.RenderedDiagram rendered = service.render("a.puml", DiagramRenderService.RenderFormat.SVG);
+
+        assertEquals(tempDir.resolve(".rendered").resolve(storage.stat("a.puml").contentHash() + ".svg"), rendered.path());
+        assertTrue(Files.readString(rendered.path()).contains("<svg"));
+        assertEquals(rendered.path(), service.render("b.puml", DiagramRenderService.RenderFormat.SVG).path());
+        assertEquals(1.0, meterRegistry.get("jdeploy.artifact.render.cache.hits").counter().count());
+        assertEquals(1, meterRegistry.get("jdeploy.artifact.render.duration").tag("format", "svg").timer().count());
+    }
+
+    @Test
+    void rendersInThePlantUmlSandboxSoIncludesCannotReadLocalFiles() throws Exception {
+        Path secret = Files.writeString(tempDir.resolve("secret.iuml"), "Alice -> LeakedSecret: read\n");
+        LocalFilesystemArtifactStorage storage = new LocalFilesystemArtifactStorage(tempDir.toString());
+        storage.create("include.puml", "@startuml\n!include " + secret + "\n@enduml\n", Duration.ofDays(1));
+        service = service(storage, new SimpleMeterRegistry(), 1, 1, Duration.ofSeconds(30), DataSize.ofMegabytes(1));
+
+        DiagramRenderService.RenderedDiagram rendered = service.render("include.puml", DiagramRenderService.RenderFormat.SVG);
+
+        assertEquals("SANDBOX", System.getProperty("PLANTUML_SECURITY_PROFILE"));
+        assertFalse(Files.readString(rendered.path()).contains("LeakedSecret"));
+    }
+
+    @Test
+    void refusesOversizedSourcesAndArtifactsWithoutADiagram() throws Exception {
+        LocalFilesystemArtifactStorage storage = new LocalFilesystemArtifactStorage(tempDir.toString());
+        storage.create("large.puml", DIAGRAM, Duration.ofDays(1));
+        storage.create("notes.txt", "no diagram here", Duration.ofDays(1));
+        service = service(storage, new SimpleMeterRegistry(), 1, 1, Duration.ofSeconds(30), DataSize.ofBytes(DIAGRAM.length() - 1));
+
+        assertThrows(PreconditionViolationException.class, () -> service.render("large.puml", DiagramRenderService.RenderFormat.PNG));
+        assertThrows(PreconditionViolationException.class, () -> service.render("notes.txt", DiagramRenderService.RenderFormat.SVG));
+        try (Stream<Path> rendered = Files.list(tempDir.resolve(".rendered"))) {
+            assertEquals(0, rendered.count());
+        }
+    }
+
+    @Test
+    void boundsTheDecodedSizeOfCompressedSources() throws Exception {
+        LocalFilesystemArtifactStorage storage = new LocalFilesystemArtifactStorage(tempDir.toString(), "gzip");
+        storage.create("small.puml", DIAGRAM, Duration.ofDays(1));
+        storage.create("inflating.puml", DIAGRAM.replace("@enduml", "' " + "x".repeat(1_000_000) + "\n@enduml"), Duration.ofDays(1));
+        assertTrue(storage.stat("inflating.puml").sizeBytes() < 64 * 1024);
+        service = service(storage, new SimpleMeterRegistry(), 1, 1, Duration.ofSeconds(30), DataSize.ofKilobytes(64));
+
+        assertTrue(Files.exists(service.render("small.puml", DiagramRenderService.RenderFormat.SVG).path()));
+        assertThrows(PreconditionViolationException.class, () -> service.render("inflating.puml", DiagramRenderService.RenderFormat.SVG));
+    }
+
+    @Test
+    void rejectsRendersBeyondTheQueueAndGivesUpAfterTheTimeout() {
+        ArtifactStorage storage = blockingStorage();
+        service = service(storage, new SimpleMeterRegistry(), 1, 1, Duration.ofSeconds(1), DataSize.ofMegabytes(1));
+
+        CompletableFuture<?> running = CompletableFuture.runAsync(() -> service.render("first.puml", DiagramRenderService.RenderFormat.SVG));
+        CompletableFuture<?> queued = CompletableFuture.runAsync(() -> service.render("second.puml", DiagramRenderService.RenderFormat.SVG));
+        awaitQueued(1);
+
+        assertThrows(DiagramRenderUnavailableException.class, () -> service.render("third.puml", DiagramRenderService.RenderFormat.SVG));
+        for (CompletableFuture<?> waiting : List.of(running, queued)) {
+            CompletionException timedOut = assertThrows(CompletionException.class, waiting::join);
+            assertInstanceOf(DiagramRenderUnavailableException.class, timedOut.getCause());
+            assertTrue(timedOut.getCause().getMessage().contains("did not finish"));
+        }
+    }
+
+    @Test
+    void retryAfterATimeoutJoinsTheRenderStillInFlight() throws Exception {
+        ArtifactStorage storage = blockingStorage();
+        service = service(storage, new SimpleMeterRegistry(), 1, 1, Duration.ofSeconds(2), DataSize.ofMegabytes(1));
+
+        assertThrows(DiagramRenderUnavailableException.class, () -> service.render("slow.puml", DiagramRenderService.RenderFormat.SVG));
+        release.countDown();
+
+        assertTrue(Files.exists(service.render("slow.puml", DiagramRenderService.RenderFormat.SVG).path()));
+        verify(storage, times(1)).readBounded(eq("slow.puml"), anyLong());
+    }
+
+    @Test
+    void sweepEvictsRendersOfContentNoArtifactReferences() {
+        LocalFilesystemArtifactStorage storage = new LocalFilesystemArtifactStorage(tempDir.toString());
+        storage.create("kept.puml", DIAGRAM, Duration.ofDays(1));
+        storage.create("deleted.puml", DIAGRAM.replace("deploy", "rollback"), Duration.ofDays(1));
+        service = service(storage, new SimpleMeterRegistry(), 1, 4, Duration.ofSeconds(30), DataSize.ofMegabytes(1));
+        Path kept = service.render("kept.puml", DiagramRenderService.RenderFormat.SVG).path();
+        Path deleted = service.render("deleted.puml", DiagramRenderService.RenderFormat.SVG).path();
+
+        storage.delete("deleted.puml");
+
+        assertEquals(1, service.evictUnreferenced());
+        assertTrue(Files.exists(kept));
+        assertFalse(Files.exists(deleted));
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        ArtifactStorage storage = mock(ArtifactStorage.class);
+
+        assertThrows(PreconditionViolationException.class,
+                () -> service(storage, new SimpleMeterRegistry(), 0, 1, Duration.ofSeconds(1), DataSize.ofMegabytes(1)));
+        assertThrows(PreconditionViolationException.class,
+                () -> service(storage, new SimpleMeterRegistry(), 1, 1, Duration.ZERO, DataSize.ofMegabytes(1)));
+        assertThrows(PreconditionViolationException.class, () -> DiagramRenderService.RenderFormat.fromParameter("gif"));
+        assertEquals(DiagramRenderService.RenderFormat.PNG, DiagramRenderService.RenderFormat.fromParameter(" PNG "));
+    }
+
+    private DiagramRenderService service(ArtifactStorage storage,
+                                         SimpleMeterRegistry meterRegistry,
+                                         int workers,
+                                         int queueCapacity,
+                                         Duration timeout,
+                                         DataSize maxSourceSize) {
+        return new DiagramRenderService(storage, meterRegistry, tempDir.resolve(".rendered").toString(),
+                workers, queueCapacity, timeout, maxSourceSize, DataSize.ofBytes(0));
+    }
+
+    private ArtifactStorage blockingStorage() {
+        ArtifactStorage storage = mock(ArtifactStorage.class);
+        when(storage.stat(anyString())).thenAnswer(invocation -> metadata(invocation.getArgument(0)));
+        when(storage.readBounded(anyString(), anyLong())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(new StoredArtifact(metadata(invocation.getArgument(0)), DIAGRAM));
+        });
+        return storage;
+    }
+
+    private ArtifactMetadata metadata(String artifactId) {
+        return new ArtifactMetadata(artifactId, tempDir.resolve(artifactId), DIAGRAM.length(), Instant.now(), Instant.now(), null,
+                artifactId.repeat(4));
+    }
+
+    private void awaitQueued(int renders) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (service.queuedRenders() < renders && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(renders, service.queuedRenders());
+    }
+}
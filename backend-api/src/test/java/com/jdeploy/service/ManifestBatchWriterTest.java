@@ -0,0 +1,71 @@
+package com.jdeploy.service;
+
+import com.jdeploy.service.dto.DeploymentManifestDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.neo4j.core.Neo4jClient;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class ManifestBatchWriterTest {
+
+    @Test
+    void upsertSubnetsAndNodesIssuesOneStatementPerBatch() {
+        Neo4jClient neo4jClient = mock(Neo4jClient.class, RETURNS_DEEP_STUBS);
+        ManifestBatchWriter writer = new ManifestBatchWriter(neo4jClient, 100);
+
+        writer.write(ManifestChangeSet.full(manifestWithNodes(250)));
+
+        // one subnet statement plus ceil(250 / 100) node statements
+        verify(neo4jClient, times(4)).query(anyString());
+    }
+
+    @Test
+    void emptySectionsIssueNoStatements() {
+        Neo4jClient neo4jClient = mock(Neo4jClient.class, RETURNS_DEEP_STUBS);
+        ManifestBatchWriter writer = new ManifestBatchWriter(neo4jClient, 100);
+        DeploymentManifestDto manifest = new DeploymentManifestDto(null, null, null, null, null);
+
+        writer.write(ManifestChangeSet.full(manifest));
+
+        verify(neo4jClient, times(0)).query(anyString());
+    }
+
+    @Test
+    void fullChangeSetKeepsLastOccurrenceOfRepeatedSubnet() {
+        DeploymentManifestDto.HardwareNodeDto first = new DeploymentManifestDto.HardwareNodeDto("app01", "10.0.0.10", "VIRTUAL_MACHINE", List.of());
+        DeploymentManifestDto.HardwareNodeDto second = new DeploymentManifestDto.HardwareNodeDto("app02", "10.0.0.11", "VIRTUAL_MACHINE", List.of());
+        DeploymentManifestDto manifest = new DeploymentManifestDto(List.of(
+                new DeploymentManifestDto.SubnetDto("10.0.0.0/24", "100", "internal", List.of(first)),
+                new DeploymentManifestDto.SubnetDto("10.0.0.0/24", "200", "internal", List.of(second))),
+                null, null, null, null);
+
+        ManifestChangeSet changeSet = ManifestChangeSet.full(manifest);
+
+        assertEquals(1, changeSet.subnets().size());
+        assertEquals("200", changeSet.subnets().getFirst().vlan());
+        assertEquals(List.of(new ManifestChangeSet.NodePlacement("10.0.0.0/24", second)), changeSet.nodes());
+    }
+
+    @Test
+    void rejectsNonPositiveBatchSize() {
+        assertThrows(PreconditionViolationException.class, () -> new ManifestBatchWriter(mock(Neo4jClient.class), 0));
+    }
+
+    private static DeploymentManifestDto manifestWithNodes(int nodeCount) {
+        List<DeploymentManifestDto.HardwareNodeDto> nodes = new ArrayList<>();
+        for (int i = 0; i < nodeCount; i++) {
+            nodes.add(new DeploymentManifestDto.HardwareNodeDto("node-" + i, "10.0." + (i / 250) + "." + (i % 250), "VIRTUAL_MACHINE", List.of()));
+        }
+        DeploymentManifestDto.SubnetDto subnet = new DeploymentManifestDto.SubnetDto("10.0.0.0/16", "100", "internal", nodes);
+        return new DeploymentManifestDto(List.of(subnet), null, null, null, null);
+    }
+}
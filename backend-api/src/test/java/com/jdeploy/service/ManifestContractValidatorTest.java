@@ -3,9 +3,11 @@ package com.jdeploy.service;
 import com.jdeploy.service.dto.DeploymentManifestDto;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class ManifestContractValidatorTest {
@@ -148,6 +150,29 @@ class ManifestContractValidatorTest {
         assertThrows(PreconditionViolationException.class, () -> validator.validateForIngestion(manifest));
     }
 
+    @Test
+    void shouldReportSystemWithoutNameInsteadOfFailing() {
+        DeploymentManifestDto manifest = new DeploymentManifestDto(
+                List.of(new DeploymentManifestDto.SubnetDto("10.0.0.0/24", "100", "A", List.of(
+                        new DeploymentManifestDto.HardwareNodeDto("node-1", "10.0.0.2", "vm", List.of("app"))
+                ))),
+                List.of(),
+                List.of(new DeploymentManifestDto.ExecutionEnvironmentDto("prod", "k8s")),
+                List.of(new DeploymentManifestDto.SoftwareSystemDto(null, List.of(
+                        new DeploymentManifestDto.SoftwareComponentDto("api", "1.0.0", List.of(
+                                new DeploymentManifestDto.DeploymentTargetDto("prod", "node-1", null, null)
+                        ))
+                ))),
+                List.of()
+        );
+
+        ManifestContractViolationException exception = assertThrows(ManifestContractViolationException.class,
+                () -> validator.validateForIngestion(manifest));
+
+        assertEquals(List.of(new ManifestContractValidator.ContractViolation("systems[0].name", "Missing software system identifier")),
+                exception.violations());
+    }
+
     @Test
     void shouldAcceptValidManifest() {
         assertDoesNotThrow(() -> validator.validateForIngestion(validManifest(List.of(
@@ -176,6 +201,52 @@ class ManifestContractValidatorTest {
         assertThrows(PreconditionViolationException.class, () -> validator.validateForIngestion(manifest));
     }
 
+    @Test
+    void shouldReportEveryViolationWithYamlPath() {
+        DeploymentManifestDto manifest = new DeploymentManifestDto(
+                List.of(new DeploymentManifestDto.SubnetDto("10.0.0.0/24", "100", "A", List.of(
+                        new DeploymentManifestDto.HardwareNodeDto("node-1", "10.0.0.2", "vm", List.of("app")),
+                        new DeploymentManifestDto.HardwareNodeDto("node-2", "10.0.0.2", "vm", List.of("app"))
+                ))),
+                List.of(),
+                List.of(new DeploymentManifestDto.ExecutionEnvironmentDto("prod", "k8s")),
+                List.of(new DeploymentManifestDto.SoftwareSystemDto("billing", List.of(
+                        new DeploymentManifestDto.SoftwareComponentDto("api", "1.0.0", List.of(
+                                new DeploymentManifestDto.DeploymentTargetDto("qa", "node-1", null, null),
+                                new DeploymentManifestDto.DeploymentTargetDto("prod", "node-missing", null, null)
+                        ))
+                ))),
+                List.of(new DeploymentManifestDto.NetworkLinkDto("node-1", "node-9", 1000, 1))
+        );
+
+        ManifestContractViolationException exception = assertThrows(ManifestContractViolationException.class,
+                () -> validator.validateForIngestion(manifest));
+
+        assertEquals(List.of(
+                "subnets[0].nodes[1].ipAddress",
+                "systems[0].components[0].deployments[0].environment",
+                "systems[0].components[0].deployments[1].hostname",
+                "links[0].toHostname"
+        ), exception.violations().stream().map(ManifestContractValidator.ContractViolation::path).toList());
+    }
+
+    @Test
+    void parallelSystemValidationKeepsDocumentOrder() {
+        List<DeploymentManifestDto.SoftwareSystemDto> systems = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            systems.add(new DeploymentManifestDto.SoftwareSystemDto("system-" + i, List.of(
+                    new DeploymentManifestDto.SoftwareComponentDto("component-" + i, "1.0.0", List.of(
+                            new DeploymentManifestDto.DeploymentTargetDto("prod", "missing-" + i, null, null)
+                    ))
+            )));
+        }
+        DeploymentManifestDto manifest = new DeploymentManifestDto(List.of(), List.of(),
+                List.of(new DeploymentManifestDto.ExecutionEnvironmentDto("prod", "k8s")), systems, List.of());
+
+        assertEquals(validator.validate(manifest), new ManifestContractValidator(true).validate(manifest));
+        assertEquals(50, validator.validate(manifest).size());
+    }
+
     private DeploymentManifestDto validManifest(List<DeploymentManifestDto.SubnetDto> subnets) {
         return new DeploymentManifestDto(
                 subnets,
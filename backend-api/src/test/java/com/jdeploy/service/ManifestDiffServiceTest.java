@@ -0,0 +1,243 @@
+package com.jdeploy.service;
+
+import com.jdeploy.service.dto.DeploymentManifestDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.neo4j.core.Neo4jClient;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ManifestDiffServiceTest {
+
+    private static final String ENVIRONMENTS = "WHERE e.name IN $names";
+    private static final String SUBNETS = "WHERE s.cidr IN $cidrs";
+    private static final String NODES = "WHERE n.hostname IN $hostnames";
+    private static final String CLUSTERS = "c.name IN $names";
+    private static final String SYSTEMS = "WHERE s.name IN $names";
+    private static final String COMPONENTS = "MATCH (c:SoftwareComponent {name: key.name";
+    private static final String DEPLOYMENTS = "MATCH (d:DeploymentInstance {deploymentKey: key})";
+    private static final String LINKS = "MATCH (l:NetworkLink {linkKey: key})";
+
+    private static final DeploymentManifestDto.SoftwareComponentDto API = new DeploymentManifestDto.SoftwareComponentDto(
+            "billing-api", "1.0", List.of(new DeploymentManifestDto.DeploymentTargetDto("prod", "app01", "k8s", "billing")));
+    private static final DeploymentManifestDto MANIFEST = new DeploymentManifestDto(
+            List.of(new DeploymentManifestDto.SubnetDto("10.0.0.0/24", "100", "internal", List.of(
+                    new DeploymentManifestDto.HardwareNodeDto("app01", "10.0.0.10", "VIRTUAL_MACHINE", List.of("web")),
+                    new DeploymentManifestDto.HardwareNodeDto("db01", "10.0.0.20", "VIRTUAL_MACHINE", List.of("db"))))),
+            List.of(new DeploymentManifestDto.ClusterDto("k8s", "KUBERNETES", List.of("app01"), List.of("billing"))),
+            List.of(new DeploymentManifestDto.ExecutionEnvironmentDto("prod", "PRODUCTION")),
+            List.of(new DeploymentManifestDto.SoftwareSystemDto("Billing", List.of(API))),
+            List.of(new DeploymentManifestDto.NetworkLinkDto("app01", "db01", 1000, 2)));
+
+    private final Neo4jClient neo4jClient = mock(Neo4jClient.class);
+    private final Map<String, List<Map<String, Object>>> graph = new LinkedHashMap<>();
+    private final ManifestDiffService diffService = new ManifestDiffService(neo4jClient);
+
+    @BeforeEach
+    void stubQueries() {
+        persistTheManifest();
+        when(neo4jClient.query(anyString())).thenAnswer(invocation -> query(invocation.getArgument(0)));
+    }
+
+    private void persistTheManifest() {
+        String deploymentKey = ManifestChangeSet.full(MANIFEST).deployments().getFirst().deploymentKey();
+        graph.put(ENVIRONMENTS, rows(row("name", "prod", "type", "PRODUCTION")));
+        graph.put(SUBNETS, rows(row("cidr", "10.0.0.0/24", "vlan", "100", "routingZone", "internal", "members", List.of("app01", "db01"))));
+        graph.put(NODES, rows(
+                row("hostname", "app01", "ipAddress", "10.0.0.10", "type", "VIRTUAL_MACHINE", "roles", List.of("web"), "subnets", List.of("10.0.0.0/24")),
+                row("hostname", "db01", "ipAddress", "10.0.0.20", "type", "VIRTUAL_MACHINE", "roles", List.of("db"), "subnets", List.of("10.0.0.0/24"))));
+        graph.put(CLUSTERS, rows(row("label", "KubernetesCluster", "name", "k8s", "type", "KUBERNETES", "members", List.of("app01"),
+                "namespaces", List.of("billing"))));
+        graph.put(SYSTEMS, rows(row("name", "Billing", "components", List.of("billing-api:1.0"))));
+        graph.put(COMPONENTS, rows(row("component", "billing-api:1.0", "deployments", List.of(deploymentKey))));
+        graph.put(DEPLOYMENTS, rows(row("deploymentKey", deploymentKey, "clusters", List.of("k8s"), "targets", List.of(
+                "TARGET_ENVIRONMENT>ExecutionEnvironment:prod", "TARGETS>ExecutionEnvironment:prod",
+                "TARGET_NODE>HardwareNode:app01", "TARGETS>HardwareNode:app01",
+                "TARGET_NAMESPACE>KubernetesNamespace:billing", "TARGETS>KubernetesNamespace:billing"))));
+        graph.put(LINKS, rows(row("linkKey", "app01->db01", "bandwidthMbps", 1000L, "latencyMs", 2L,
+                "sources", List.of("app01"), "targets", List.of("db01"))));
+    }
+
+    @Test
+    void graphMatchingTheManifestLeavesNothingToWrite() {
+        assertTrue(diffService.diff(MANIFEST).isEmpty());
+    }
+
+    @Test
+    void emptyGraphWritesTheWholeManifest() {
+        graph.replaceAll((query, rows) -> List.of());
+
+        assertEquals(ManifestChangeSet.full(MANIFEST), diffService.diff(MANIFEST));
+    }
+
+    @Test
+    void changedEnvironmentIsWritten() {
+        graph.get(ENVIRONMENTS).getFirst().put("type", "STAGING");
+
+        ManifestChangeSet changes = diffService.diff(MANIFEST);
+
+        assertEquals(MANIFEST.environments(), changes.environments());
+        assertEquals(1, changes.size());
+    }
+
+    @Test
+    void changedSubnetRewritesItsNodes() {
+        graph.get(SUBNETS).getFirst().put("vlan", "200");
+
+        ManifestChangeSet changes = diffService.diff(MANIFEST);
+
+        assertEquals(MANIFEST.subnets(), changes.subnets());
+        assertEquals(List.of("app01", "db01"), hostnames(changes));
+        assertEquals(3, changes.size());
+    }
+
+    @Test
+    void subnetThatLostANodeIsWritten() {
+        graph.get(SUBNETS).getFirst().put("members", List.of("app01"));
+
+        assertEquals(MANIFEST.subnets(), diffService.diff(MANIFEST).subnets());
+    }
+
+    @Test
+    void changedOrDetachedNodeIsWritten() {
+        graph.get(NODES).getFirst().put("ipAddress", "10.0.0.99");
+        graph.get(NODES).getLast().put("subnets", List.of());
+
+        ManifestChangeSet changes = diffService.diff(MANIFEST);
+
+        assertEquals(List.of("app01", "db01"), hostnames(changes));
+        assertEquals(2, changes.size());
+    }
+
+    @Test
+    void removedNodeIsWritten() {
+        graph.get(NODES).removeLast();
+
+        ManifestChangeSet changes = diffService.diff(MANIFEST);
+
+        assertEquals(List.of("db01"), hostnames(changes));
+        assertEquals(1, changes.size());
+    }
+
+    @Test
+    void clusterWithChangedMembersOrMissingNamespaceIsWritten() {
+        graph.get(CLUSTERS).getFirst().put("members", List.of("app01", "db01"));
+        assertEquals(MANIFEST.clusters(), diffService.diff(MANIFEST).clusters());
+
+        persistTheManifest();
+        graph.get(CLUSTERS).getFirst().put("namespaces", List.of());
+        assertEquals(MANIFEST.clusters(), diffService.diff(MANIFEST).clusters());
+
+        persistTheManifest();
+        graph.get(CLUSTERS).clear();
+        assertEquals(MANIFEST.clusters(), diffService.diff(MANIFEST).clusters());
+    }
+
+    @Test
+    void systemWithChangedComponentsIsWritten() {
+        graph.get(SYSTEMS).getFirst().put("components", List.of("billing-api:0.9"));
+        ManifestChangeSet changes = diffService.diff(MANIFEST);
+        assertEquals(MANIFEST.systems(), changes.systems());
+        assertEquals(1, changes.size());
+
+        persistTheManifest();
+        graph.get(SYSTEMS).clear();
+        assertEquals(MANIFEST.systems(), diffService.diff(MANIFEST).systems());
+    }
+
+    @Test
+    void componentThatLostADeploymentRewritesItsDeployments() {
+        graph.get(COMPONENTS).getFirst().put("deployments", List.of());
+
+        ManifestChangeSet changes = diffService.diff(MANIFEST);
+
+        assertEquals(List.of(API), changes.components());
+        assertEquals(ManifestChangeSet.full(MANIFEST).deployments(), changes.deployments());
+        assertEquals(2, changes.size());
+    }
+
+    @Test
+    void deploymentWithChangedTargetsOrClusterIsWritten() {
+        graph.get(DEPLOYMENTS).getFirst().put("clusters", List.of("other"));
+        ManifestChangeSet changes = diffService.diff(MANIFEST);
+        assertEquals(ManifestChangeSet.full(MANIFEST).deployments(), changes.deployments());
+        assertEquals(1, changes.size());
+
+        persistTheManifest();
+        graph.get(DEPLOYMENTS).getFirst().put("targets", List.of("TARGET_NODE>HardwareNode:app01"));
+        assertEquals(ManifestChangeSet.full(MANIFEST).deployments(), diffService.diff(MANIFEST).deployments());
+
+        persistTheManifest();
+        graph.get(DEPLOYMENTS).clear();
+        assertEquals(ManifestChangeSet.full(MANIFEST).deployments(), diffService.diff(MANIFEST).deployments());
+    }
+
+    @Test
+    void linkWithChangedPropertiesIsWritten() {
+        graph.get(LINKS).getFirst().put("latencyMs", 5L);
+
+        ManifestChangeSet changes = diffService.diff(MANIFEST);
+
+        assertEquals(MANIFEST.links(), changes.links());
+        assertEquals(1, changes.size());
+    }
+
+    @Test
+    void linkMissingItsEndpointEdgesIsWritten() {
+        graph.get(LINKS).getFirst().put("sources", List.of());
+        assertEquals(MANIFEST.links(), diffService.diff(MANIFEST).links());
+
+        persistTheManifest();
+        graph.get(LINKS).getFirst().put("targets", List.of());
+        assertEquals(MANIFEST.links(), diffService.diff(MANIFEST).links());
+
+        persistTheManifest();
+        graph.get(LINKS).clear();
+        assertEquals(MANIFEST.links(), diffService.diff(MANIFEST).links());
+    }
+
+    private Neo4jClient.UnboundRunnableSpec query(String cypher) {
+        List<Map<String, Object>> rows = graph.entrySet().stream()
+                .filter(entry -> cypher.contains(entry.getKey()))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Unexpected query " + cypher));
+        Neo4jClient.UnboundRunnableSpec spec = mock(Neo4jClient.UnboundRunnableSpec.class);
+        Neo4jClient.OngoingBindSpec<?, ?> binding = mock(Neo4jClient.OngoingBindSpec.class);
+        Neo4jClient.RecordFetchSpec<?> fetch = mock(Neo4jClient.RecordFetchSpec.class);
+        doReturn(binding).when(spec).bind(any());
+        doReturn(spec).when(binding).to(anyString());
+        doReturn(fetch).when(spec).fetch();
+        doReturn(List.copyOf(rows)).when(fetch).all();
+        return spec;
+    }
+
+    private static List<String> hostnames(ManifestChangeSet changes) {
+        return changes.nodes().stream().map(placement -> placement.node().hostname()).toList();
+    }
+
+    @SafeVarargs
+    private static List<Map<String, Object>> rows(Map<String, Object>... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+
+    private static Map<String, Object> row(Object... keysAndValues) {
+        Map<String, Object> row = new HashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            row.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return row;
+    }
+}
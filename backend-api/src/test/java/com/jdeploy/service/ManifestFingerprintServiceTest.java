@@ -0,0 +1,37 @@
+package com.jdeploy.service;
+
+import com.jdeploy.service.dto.DeploymentManifestDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.neo4j.core.Neo4jClient;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.mock;
+
+class ManifestFingerprintServiceTest {
+
+    private final ManifestFingerprintService service = new ManifestFingerprintService(mock(Neo4jClient.class));
+
+    @Test
+    void fingerprintIsStableForEquivalentManifests() {
+        assertEquals(service.fingerprint(manifest(1000)), service.fingerprint(manifest(1000)));
+        assertEquals(64, service.fingerprint(manifest(1000)).length());
+    }
+
+    @Test
+    void fingerprintChangesWhenManifestContentChanges() {
+        assertNotEquals(service.fingerprint(manifest(1000)), service.fingerprint(manifest(100)));
+    }
+
+    private static DeploymentManifestDto manifest(int bandwidthMbps) {
+        return new DeploymentManifestDto(
+                List.of(new DeploymentManifestDto.SubnetDto("10.0.0.0/24", "100", "internal",
+                        List.of(new DeploymentManifestDto.HardwareNodeDto("app01", "10.0.0.10", "VIRTUAL_MACHINE", List.of("web"))))),
+                null,
+                List.of(new DeploymentManifestDto.ExecutionEnvironmentDto("prod", "PRODUCTION")),
+                null,
+                List.of(new DeploymentManifestDto.NetworkLinkDto("app01", "app01", bandwidthMbps, 1)));
+    }
+}
@@ -0,0 +1,139 @@
+package com.jdeploy.service;
+
+import com.jdeploy.service.dto.DeploymentManifestDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ManifestIngestionJobServiceTest {
+
+    private final ManifestIngestionService ingestionService = mock(ManifestIngestionService.class);
+    private final ManifestContractValidator contractValidator = mock(ManifestContractValidator.class);
+    private final CountDownLatch running = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private ManifestIngestionJobService jobService;
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        if (jobService != null) {
+            jobService.shutdown();
+        }
+    }
+
+    @Test
+    void completedJobReportsOutcomeAndStageTimings() throws Exception {
+        when(ingestionService.parseManifest(anyString())).thenReturn(emptyManifest());
+        when(ingestionService.synchronize(any(), anyBoolean())).thenReturn(ManifestIngestionService.SynchronizationOutcome.INGESTED);
+        jobService = newJobService(1, 4);
+
+        ManifestIngestionJobService.IngestionJobStatus submitted = jobService.submit("subnets: []", false);
+        ManifestIngestionJobService.IngestionJobStatus finished = awaitFinished(submitted.jobId());
+
+        assertEquals(ManifestIngestionJobService.JobState.SUCCEEDED, finished.state());
+        assertEquals(List.of("parse", "validate", "synchronize"), List.copyOf(finished.stageMillis().keySet()));
+    }
+
+    @Test
+    void failedJobReportsError() throws Exception {
+        when(ingestionService.parseManifest(anyString())).thenThrow(new IllegalArgumentException("Invalid manifest YAML"));
+        jobService = newJobService(1, 4);
+
+        ManifestIngestionJobService.IngestionJobStatus finished = awaitFinished(jobService.submit("not: [yaml", false).jobId());
+
+        assertEquals(ManifestIngestionJobService.JobState.FAILED, finished.state());
+        assertEquals("Invalid manifest YAML", finished.error());
+        assertEquals(List.of("parse"), List.copyOf(finished.stageMillis().keySet()));
+    }
+
+    @Test
+    void errorFailsTheJobInsteadOfLeavingItRunning() throws Exception {
+        when(ingestionService.parseManifest(anyString())).thenThrow(new StackOverflowError());
+        jobService = newJobService(1, 4);
+
+        ManifestIngestionJobService.IngestionJobStatus finished = awaitFinished(jobService.submit("subnets: []", false).jobId());
+
+        assertEquals(ManifestIngestionJobService.JobState.FAILED, finished.state());
+        assertEquals("java.lang.StackOverflowError", finished.error());
+    }
+
+    @Test
+    void identicalQueuedManifestsShareOneJob() {
+        blockWorkers();
+        jobService = newJobService(1, 4);
+        jobService.submit("blocker", false);
+
+        ManifestIngestionJobService.IngestionJobStatus first = jobService.submit("subnets: []", false);
+        ManifestIngestionJobService.IngestionJobStatus second = jobService.submit("subnets: []", false);
+        ManifestIngestionJobService.IngestionJobStatus forced = jobService.submit("subnets: []", true);
+
+        assertEquals(first.jobId(), second.jobId());
+        assertEquals(1, second.coalescedSubmissions());
+        assertNotEquals(first.jobId(), forced.jobId());
+    }
+
+    @Test
+    void rejectsSubmissionsWhenQueueIsFull() {
+        blockWorkers();
+        jobService = newJobService(1, 1);
+        jobService.submit("running", false);
+        awaitRunning();
+        jobService.submit("queued", false);
+
+        assertThrows(IngestionQueueFullException.class, () -> jobService.submit("overflow", false));
+    }
+
+    private ManifestIngestionJobService newJobService(int workers, int queueCapacity) {
+        return new ManifestIngestionJobService(ingestionService, contractValidator,
+                new OperationMetricsService(new SimpleMeterRegistry()), workers, queueCapacity, 10);
+    }
+
+    private void blockWorkers() {
+        when(ingestionService.parseManifest(anyString())).thenAnswer(invocation -> {
+            running.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return emptyManifest();
+        });
+    }
+
+    private void awaitRunning() {
+        try {
+            assertTrue(running.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private ManifestIngestionJobService.IngestionJobStatus awaitFinished(String jobId) throws InterruptedException {
+        Instant deadline = Instant.now().plus(Duration.ofSeconds(5));
+        while (Instant.now().isBefore(deadline)) {
+            ManifestIngestionJobService.IngestionJobStatus status = jobService.status(jobId).orElseThrow();
+            if (status.finishedAt() != null) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Job " + jobId + " did not finish");
+    }
+
+    private static DeploymentManifestDto emptyManifest() {
+        return new DeploymentManifestDto(null, null, null, null, null);
+    }
+}
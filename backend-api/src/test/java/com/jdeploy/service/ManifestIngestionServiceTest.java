@@ -1,63 +1,104 @@
 package com.jdeploy.service;
 
+import com.jdeploy.api.dto.TopologyUpdateDtos;
 import com.jdeploy.service.dto.DeploymentManifestDto;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 class ManifestIngestionServiceTest {
 
+    private static final String MANIFEST = """
+            subnets:
+              - cidr: 10.0.0.0/24
+                vlan: app
+                routingZone: internal
+                nodes:
+                  - hostname: app01
+                    ipAddress: 10.0.0.10
+                    type: VIRTUAL_MACHINE
+                    roles: [kubernetes]
+            environments:
+              - name: prod
+                type: PRODUCTION
+            clusters:
+              - name: prod-k8s
+                type: KUBERNETES
+                nodes: [app01]
+                namespaces: [payments]
+            systems:
+              - name: Payments
+                components:
+                  - name: payments-api
+                    version: 1.2.3
+                    deployments:
+                      - environment: prod
+                        hostname: app01
+                        cluster: prod-k8s
+                        namespace: payments
+            links:
+              - fromHostname: app01
+                toHostname: app01
+                bandwidthMbps: 1000
+                latencyMs: 1
+            """;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ObservationRegistry observationRegistry = ObservationRegistry.create();
+    private final Neo4jClient neo4jClient = mock(Neo4jClient.class);
+    private final ManifestBatchWriter batchWriter = mock(ManifestBatchWriter.class);
+    private final ManifestFingerprintService fingerprintService = mock(ManifestFingerprintService.class);
+    private final AtomicReference<String> storedFingerprint = new AtomicReference<>();
+    private final List<Object> events = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void stubGraph() {
+        when(neo4jClient.query(anyString())).thenAnswer(invocation -> runnableQuery());
+        when(fingerprintService.fingerprint(any())).thenReturn("fingerprint");
+        when(fingerprintService.lastSynchronizedFingerprint())
+                .thenAnswer(invocation -> Optional.ofNullable(storedFingerprint.get()));
+        doAnswer(invocation -> {
+            storedFingerprint.set(invocation.getArgument(0));
+            return null;
+        }).when(fingerprintService).recordSynchronized(anyString());
+        doAnswer(invocation -> {
+            storedFingerprint.set(null);
+            return null;
+        }).when(fingerprintService).invalidate();
+    }
+
     @Test
     void parseManifestReadsYamlIntoDto() {
-        String yaml = """
-                subnets:
-                  - cidr: 10.0.0.0/24
-                    vlan: app
-                    routingZone: internal
-                    nodes:
-                      - hostname: app01
-                        ipAddress: 10.0.0.10
-                        type: VIRTUAL_MACHINE
-                        roles: [kubernetes]
-                environments:
-                  - name: prod
-                    type: PRODUCTION
-                clusters:
-                  - name: prod-k8s
-                    type: KUBERNETES
-                    nodes: [app01]
-                    namespaces: [payments]
-                systems:
-                  - name: Payments
-                    components:
-                      - name: payments-api
-                        version: 1.2.3
-                        deployments:
-                          - environment: prod
-                            hostname: app01
-                            cluster: prod-k8s
-                            namespace: payments
-                links:
-                  - fromHostname: app01
-                    toHostname: app01
-                    bandwidthMbps: 1000
-                    latencyMs: 1
-                """;
-
-        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
-        ObservationRegistry observationRegistry = ObservationRegistry.create();
-        ManifestParserService parserService = new ManifestParserService(meterRegistry, observationRegistry);
-        ManifestIngestionService service = new ManifestIngestionService(
-                parserService,
-                mock(Neo4jClient.class),
-                observationRegistry,
-                new OperationMetricsService(meterRegistry));
-        DeploymentManifestDto manifest = service.parseManifest(yaml);
+        ManifestIngestionService service = newService();
+        DeploymentManifestDto manifest = service.parseManifest(MANIFEST);
 
         assertEquals(1, manifest.subnets().size());
         assertEquals(1, manifest.clusters().size());
@@ -68,15 +109,126 @@ class ManifestIngestionServiceTest {
 
     @Test
     void parseManifestRejectsBlankYaml() {
-        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
-        ObservationRegistry observationRegistry = ObservationRegistry.create();
-        ManifestParserService parserService = new ManifestParserService(meterRegistry, observationRegistry);
-        ManifestIngestionService service = new ManifestIngestionService(
-                parserService,
-                mock(Neo4jClient.class),
-                observationRegistry,
-                new OperationMetricsService(meterRegistry));
+        ManifestIngestionService service = newService();
 
         assertThrows(PreconditionViolationException.class, () -> service.parseManifest("  "));
     }
+
+    @Test
+    void matchingFingerprintIsReportedUnchangedWithoutWriting() {
+        ManifestIngestionService service = newService();
+        DeploymentManifestDto manifest = service.parseManifest(MANIFEST);
+
+        assertEquals(ManifestIngestionService.SynchronizationOutcome.INGESTED, service.synchronize(manifest));
+        assertEquals(ManifestIngestionService.SynchronizationOutcome.UNCHANGED, service.synchronize(manifest));
+
+        verify(batchWriter, times(1)).write(any());
+        verify(fingerprintService, times(1)).recordSynchronized("fingerprint");
+        assertEquals(1, events.size());
+        assertEquals(1.0, meterRegistry.get("jdeploy.ingestion.unchanged").counter().count());
+    }
+
+    @Test
+    void forcedSynchronizationRewritesAMatchingManifest() {
+        ManifestIngestionService service = newService();
+        DeploymentManifestDto manifest = service.parseManifest(MANIFEST);
+
+        service.synchronize(manifest);
+        assertEquals(ManifestIngestionService.SynchronizationOutcome.INGESTED, service.synchronize(manifest, true));
+
+        verify(batchWriter, times(2)).write(any());
+        assertEquals(2, events.size());
+    }
+
+    @Test
+    void topologyEditMakesTheNextIdenticalIngestWriteAgain() {
+        Neo4jClient mutationClient = mock(Neo4jClient.class, RETURNS_DEEP_STUBS);
+        when(mutationClient.query(anyString()).bind(any()).to(anyString()).fetchAs(Boolean.class).mappedBy(any()).one())
+                .thenReturn(Optional.of(true));
+        when(mutationClient.query(anyString()).bind(any()).to(anyString()).bind(any()).to(anyString())
+                .fetchAs(Boolean.class).mappedBy(any()).one())
+                .thenReturn(Optional.of(true));
+        TopologyMutationService mutationService = new TopologyMutationService(mutationClient, fingerprintService, events::add);
+        ManifestIngestionService service = newService();
+        DeploymentManifestDto manifest = service.parseManifest(MANIFEST);
+
+        service.synchronize(manifest);
+        mutationService.updateSubnet("10.0.0.0/24", new TopologyUpdateDtos.SubnetUpdateRequest("10.0.0.0/24", "edge", "internal"));
+
+        assertEquals(ManifestIngestionService.SynchronizationOutcome.INGESTED, service.synchronize(manifest));
+        verify(fingerprintService).invalidate();
+        verify(batchWriter, times(2)).write(any());
+    }
+
+    @Test
+    void synchronousIngestWaitsForTheSynchronizingJob() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger synchronizing = new AtomicInteger();
+        AtomicInteger maxSynchronizing = new AtomicInteger();
+        doAnswer(invocation -> {
+            maxSynchronizing.accumulateAndGet(synchronizing.incrementAndGet(), Math::max);
+            writing.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            synchronizing.decrementAndGet();
+            return null;
+        }).when(batchWriter).write(any());
+        ManifestIngestionService service = newService();
+        ManifestIngestionJobService jobService = new ManifestIngestionJobService(service, mock(ManifestContractValidator.class),
+                new OperationMetricsService(meterRegistry), 1, 4, 10);
+        try {
+            String jobId = jobService.submit(MANIFEST, false).jobId();
+            assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+            CompletableFuture<ManifestIngestionService.SynchronizationOutcome> direct =
+                    CompletableFuture.supplyAsync(() -> service.synchronize(service.parseManifest(MANIFEST), true));
+            Thread.sleep(200);
+            assertFalse(direct.isDone());
+            verify(batchWriter, times(1)).write(any());
+
+            release.countDown();
+            assertEquals(ManifestIngestionService.SynchronizationOutcome.INGESTED, direct.get(5, TimeUnit.SECONDS));
+            assertEquals(ManifestIngestionJobService.JobState.SUCCEEDED, awaitFinished(jobService, jobId));
+            verify(batchWriter, times(2)).write(any());
+            assertEquals(1, maxSynchronizing.get());
+        } finally {
+            release.countDown();
+            jobService.shutdown();
+        }
+    }
+
+    private ManifestIngestionService newService() {
+        return new ManifestIngestionService(
+                new ManifestParserService(meterRegistry, observationRegistry),
+                neo4jClient,
+                batchWriter,
+                new ManifestDiffService(neo4jClient),
+                fingerprintService,
+                observationRegistry,
+                new OperationMetricsService(meterRegistry),
+                events::add,
+                mock(PlatformTransactionManager.class),
+                ManifestIngestionService.IngestionMode.FULL);
+    }
+
+    private Neo4jClient.UnboundRunnableSpec runnableQuery() {
+        Neo4jClient.UnboundRunnableSpec spec = mock(Neo4jClient.UnboundRunnableSpec.class);
+        Neo4jClient.OngoingBindSpec<?, ?> binding = mock(Neo4jClient.OngoingBindSpec.class);
+        doReturn(binding).when(spec).bind(any());
+        doReturn(spec).when(binding).to(anyString());
+        return spec;
+    }
+
+    private static ManifestIngestionJobService.JobState awaitFinished(ManifestIngestionJobService jobService, String jobId)
+            throws InterruptedException {
+        Instant deadline = Instant.now().plus(Duration.ofSeconds(5));
+        while (Instant.now().isBefore(deadline)) {
+            ManifestIngestionJobService.IngestionJobStatus status = jobService.status(jobId).orElseThrow();
+            if (status.finishedAt() != null) {
+                return status.state();
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Job " + jobId + " did not finish");
+    }
 }
@@ -1,21 +1,122 @@
 package com.jdeploy.service;
 
+import com.jdeploy.service.dto.DeploymentManifestDto;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.micrometer.observation.ObservationRegistry;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class ManifestParserServiceTest {
 
+    private static final String MANIFEST = """
+            subnets:
+              - cidr: 10.0.0.0/24
+                vlan: app
+                routingZone: internal
+                nodes:
+                  - hostname: app01
+                    ipAddress: 10.0.0.10
+                    type: VIRTUAL_MACHINE
+            environments:
+              - name: prod
+                type: PRODUCTION
+            systems:
+              - name: Payments
+                components:
+                  - name: payments-api
+                    version: 1.2.3
+                    deployments:
+                      - environment: prod
+                        hostname: app01
+            links:
+              - fromHostname: app01
+                toHostname: app01
+                bandwidthMbps: 1000
+                latencyMs: 1
+            """;
+
+    private final ManifestParserService parserService = new ManifestParserService(new SimpleMeterRegistry(), ObservationRegistry.create());
+
     @Test
     void parseManifestReportsYamlLocationForMalformedContent() {
-        ManifestParserService parserService = new ManifestParserService(new SimpleMeterRegistry(), ObservationRegistry.create());
-
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
                 () -> parserService.parseManifest("systems:\n - name: billing\n   components: [\n"));
 
         assertTrue(exception.getMessage().contains("Malformed manifest yaml at line"));
     }
+
+    @Test
+    void streamingParseMatchesStringParse() {
+        assertEquals(parserService.parseManifest(MANIFEST), parserService.parseManifest(stream(MANIFEST)));
+    }
+
+    @Test
+    void streamingParseEmitsEntriesInDocumentOrder() {
+        List<String> events = new ArrayList<>();
+        parserService.parseManifest(stream(MANIFEST), new ManifestSectionHandler() {
+            @Override
+            public void subnet(DeploymentManifestDto.SubnetDto subnet) {
+                events.add("subnet:" + subnet.cidr());
+            }
+
+            @Override
+            public void system(DeploymentManifestDto.SoftwareSystemDto system) {
+                events.add("system:" + system.name());
+            }
+
+            @Override
+            public void link(DeploymentManifestDto.NetworkLinkDto link) {
+                events.add("link:" + link.fromHostname());
+            }
+        });
+
+        assertEquals(List.of("subnet:10.0.0.0/24", "system:Payments", "link:app01"), events);
+    }
+
+    @Test
+    void streamingParseRejectsUnknownSection() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> parserService.parseManifest(stream("subnets: []\nservers: []\n")));
+
+        assertTrue(exception.getMessage().contains("Unrecognized manifest section \"servers\""));
+    }
+
+    @Test
+    void streamingParseRejectsRepeatedSection() {
+        ManifestContractViolationException exception = assertThrows(ManifestContractViolationException.class,
+                () -> parserService.parseManifest(stream(MANIFEST + """
+                        environments:
+                          - name: staging
+                            type: STAGING
+                        """)));
+
+        assertEquals(List.of(new ManifestContractValidator.ContractViolation("environments", "Duplicate manifest section \"environments\"")),
+                exception.violations());
+    }
+
+    @Test
+    void streamingParseReportsYamlLocationForMalformedEntry() {
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> parserService.parseManifest(stream("systems:\n - name: billing\n   components: [\n")));
+
+        assertTrue(exception.getMessage().contains("Malformed manifest yaml at line"));
+    }
+
+    @Test
+    void streamingParseRejectsEmptyDocument() {
+        assertThrows(PreconditionViolationException.class, () -> parserService.parseManifest(stream("")));
+    }
+
+    private static InputStream stream(String yaml) {
+        return new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8));
+    }
 }
@@ -0,0 +1,64 @@
+package com.jdeploy.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class PlantUmlAliasesTest {
+
+    @Test
+    void sanitizeReplacesEveryNonAliasCharacter() {
+        assertEquals("10_0_0_0_24", PlantUmlAliases.sanitize("10.0.0.0/24"));
+        assertEquals("payments_api_1_2_3", PlantUmlAliases.sanitize("payments-api:1.2.3"));
+        assertEquals("h_st", PlantUmlAliases.sanitize("h😀st"));
+    }
+
+    @Test
+    void sanitizeReturnsValidIdentifiersUnchanged() {
+        String hostname = "app_01";
+        assertSame(hostname, PlantUmlAliases.sanitize(hostname));
+    }
+
+    @Test
+    void repeatedIdentifierReusesItsAlias() {
+        PlantUmlAliases aliases = new PlantUmlAliases();
+
+        String first = aliases.node("app-01");
+
+        assertSame(first, aliases.node("app-01"));
+        assertEquals("node_app_01", first);
+    }
+
+    @Test
+    void collidingIdentifiersGetSuffixesInEncounterOrder() {
+        PlantUmlAliases aliases = new PlantUmlAliases();
+
+        assertEquals("node_a_b", aliases.node("a.b"));
+        assertEquals("node_a_b_2", aliases.node("a_b"));
+        assertEquals("node_a_b_3", aliases.node("a-b"));
+        assertEquals("node_a_b_2_2", aliases.node("a_b_2"));
+        assertEquals("node_a_b", aliases.node("a.b"));
+    }
+
+    @Test
+    void multiPartIdentifiersAreKeyedOnTheTupleOfNames() {
+        PlantUmlAliases aliases = new PlantUmlAliases();
+
+        String first = aliases.alias(PlantUmlAliases.Kind.COMPONENT, "a_b", "c");
+        String second = aliases.alias(PlantUmlAliases.Kind.COMPONENT, "a", "b_c");
+
+        assertEquals("component_a_b_c", first);
+        assertEquals("component_a_b_c_2", second);
+        assertSame(first, aliases.alias(PlantUmlAliases.Kind.COMPONENT, "a_b", "c"));
+        assertSame(second, aliases.alias(PlantUmlAliases.Kind.COMPONENT, "a", "b_c"));
+    }
+
+    @Test
+    void kindsUseSeparatePrefixes() {
+        PlantUmlAliases aliases = new PlantUmlAliases();
+
+        assertEquals("node_core", aliases.node("core"));
+        assertEquals("system_core", aliases.alias(PlantUmlAliases.Kind.SYSTEM, "core"));
+    }
+}
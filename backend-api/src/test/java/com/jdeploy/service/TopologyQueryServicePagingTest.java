@@ -0,0 +1,118 @@
+package com.jdeploy.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.neo4j.core.Neo4jClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TopologyQueryServicePagingTest {
+
+    private TopologyQueryService queryService;
+
+    @BeforeEach
+    void setUp() {
+        TopologySnapshot snapshot = TopologySnapshot.builder()
+                .subnet("s1", "10.0.0.0/24", "100", "internal")
+                .subnet("s2", "10.0.1.0/24", "200", "internal")
+                .hardwareNode("n1", "app02", "10.0.0.12", "VIRTUAL_MACHINE")
+                .hardwareNode("n2", "app01", "10.0.0.11", "VIRTUAL_MACHINE")
+                .hardwareNode("n3", "app03", "10.0.0.13", "VIRTUAL_MACHINE")
+                .system("sys1", "Payments")
+                .system("sys2", "Billing")
+                .system("sys3", "Ledger")
+                .deployment("d1", "prod@app01:payments-worker:1.0.0")
+                .deployment("d2", "prod@app01:payments-api:1.2.3")
+                .deployment("d3", "prod@app02:payments-api:1.2.3")
+                .relationship("CONTAINS_NODE", "s1", "n1")
+                .relationship("CONTAINS_NODE", "s1", "n2")
+                .relationship("CONTAINS_NODE", "s1", "n3")
+                .relationship("CONTAINS_NODE", "s2", "n2")
+                .relationship("TARGETS", "d1", "n2")
+                .relationship("TARGETS", "d2", "n2")
+                .relationship("TARGETS", "d3", "n1")
+                .build(0);
+        TopologyGeneration generation = new TopologyGeneration(mock(Neo4jClient.class, RETURNS_DEEP_STUBS), Duration.ofMinutes(5));
+        TopologySnapshotService snapshotService = mock(TopologySnapshotService.class);
+        when(snapshotService.current()).thenReturn(snapshot);
+        queryService = new TopologyQueryService(mock(Neo4jClient.class), snapshotService,
+                new TopologyReadCache(generation, new SimpleMeterRegistry(), true, 10, Duration.ofMinutes(5)),
+                TopologyQueryService.ReadSource.SNAPSHOT);
+    }
+
+    @Test
+    void pagesFollowTheSortKeyUntilTheCursorRunsOut() {
+        TopologyQueryService.KeysetPage<TopologyQueryService.SystemSummary> first = queryService.systems(null, 2);
+        assertEquals(List.of("Billing", "Ledger"), first.items().stream().map(TopologyQueryService.SystemSummary::name).toList());
+        assertEquals("Ledger", first.nextCursor());
+
+        TopologyQueryService.KeysetPage<TopologyQueryService.SystemSummary> second = queryService.systems(first.nextCursor(), 2);
+        assertEquals(List.of("Payments"), second.items().stream().map(TopologyQueryService.SystemSummary::name).toList());
+        assertNull(second.nextCursor());
+    }
+
+    @Test
+    void exactlyFullLastPageHasNoCursor() {
+        assertNull(queryService.hardwareNodes("app01|10.0.1.0/24", 2).nextCursor());
+    }
+
+    @Test
+    void hardwareNodePagesReturnTheRowsOfTheUnpagedList() {
+        List<TopologyQueryService.NodeSummary> paged = new ArrayList<>();
+        String after = null;
+        do {
+            TopologyQueryService.KeysetPage<TopologyQueryService.NodeSummary> page = queryService.hardwareNodes(after, 1);
+            paged.addAll(page.items());
+            after = page.nextCursor();
+        } while (after != null);
+
+        assertEquals(List.of("app01|10.0.0.0/24", "app01|10.0.1.0/24", "app02|10.0.0.0/24", "app03|10.0.0.0/24"),
+                paged.stream().map(node -> node.hostname() + "|" + node.subnetCidr()).toList());
+        assertEquals(queryService.hardwareNodes(), paged);
+    }
+
+    @Test
+    void deploymentCursorOrdersByHostnameThenDeploymentKey() {
+        TopologyQueryService.KeysetPage<TopologyQueryService.DeploymentView> first = queryService.deploymentsBySubnet("10.0.0.0/24", null, 1);
+        assertEquals("prod@app01:payments-api:1.2.3", first.items().getFirst().deploymentKey());
+        assertEquals("app01|prod@app01:payments-api:1.2.3", first.nextCursor());
+
+        TopologyQueryService.KeysetPage<TopologyQueryService.DeploymentView> rest = queryService.deploymentsBySubnet("10.0.0.0/24", first.nextCursor(), 10);
+        assertEquals(List.of("prod@app01:payments-worker:1.0.0", "prod@app02:payments-api:1.2.3"),
+                rest.items().stream().map(TopologyQueryService.DeploymentView::deploymentKey).toList());
+    }
+
+    @Test
+    void streamStartsAfterTheCursor() {
+        List<String> hostnames = new ArrayList<>();
+        queryService.streamHardwareNodes("app01|10.0.0.0/24", node -> hostnames.add(node.hostname()));
+
+        assertEquals(List.of("app01", "app02", "app03"), hostnames);
+    }
+
+    @Test
+    void systemDiagramsSelectRequestedSystemsOrAllInNameOrder() {
+        assertEquals(List.of("Ledger", "Payments"), queryService.systemDiagrams(List.of("Payments", "Ledger", "Unknown")).stream()
+                .map(TopologyQueryService.SystemDiagramView::systemName).toList());
+        assertEquals(List.of("Billing", "Ledger", "Payments"), queryService.systemDiagrams(List.of()).stream()
+                .map(TopologyQueryService.SystemDiagramView::systemName).toList());
+    }
+
+    @Test
+    void rejectsOutOfRangeLimitAndMalformedCursor() {
+        assertThrows(PreconditionViolationException.class, () -> queryService.subnets(null, 0));
+        assertThrows(PreconditionViolationException.class, () -> queryService.subnets(null, TopologyQueryService.MAX_PAGE_LIMIT + 1));
+        assertThrows(PreconditionViolationException.class, () -> queryService.deploymentsBySubnet("10.0.0.0/24", "app01", 10));
+        assertThrows(PreconditionViolationException.class, () -> queryService.hardwareNodes("app01", 10));
+    }
+}
@@ -0,0 +1,120 @@
+package com.jdeploy.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.neo4j.core.Neo4jClient;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TopologyReadCacheTest {
+
+    private final TopologyGeneration generation = new TopologyGeneration(mock(Neo4jClient.class, RETURNS_DEEP_STUBS), Duration.ofMinutes(5));
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void repeatedReadIsServedFromCache() {
+        TopologyReadCache cache = cache(10, Duration.ofMinutes(5));
+
+        assertEquals("value-1", cache.get("systems", null, this::load));
+        assertEquals("value-1", cache.get("systems", null, this::load));
+
+        TopologyReadCache.CacheStats stats = cache.stats();
+        assertEquals(1, loads.get());
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.entries().getFirst().hits());
+    }
+
+    @Test
+    void topologyChangeInvalidatesEntries() {
+        TopologyReadCache cache = cache(10, Duration.ofMinutes(5));
+        cache.get("impactByNode", "app01", this::load);
+
+        TopologyChangedEvent event = new TopologyChangedEvent("synchronize");
+        generation.onTopologyChanged(event);
+        cache.onTopologyChanged(event);
+
+        assertEquals(0, cache.size());
+        assertEquals("value-2", cache.get("impactByNode", "app01", this::load));
+        assertEquals(1, cache.stats().invalidations());
+        assertEquals(1, cache.stats().generation());
+    }
+
+    @Test
+    void writeOfAnotherProcessInvalidatesEntriesOnceTheCounterIsPolled() {
+        Neo4jClient neo4jClient = mock(Neo4jClient.class, RETURNS_DEEP_STUBS);
+        when(neo4jClient.query(anyString()).bind(any()).to(anyString()).fetchAs(Long.class).mappedBy(any()).one())
+                .thenReturn(Optional.of(3L), Optional.of(3L), Optional.of(4L));
+        TopologyReadCache cache = new TopologyReadCache(new TopologyGeneration(neo4jClient, Duration.ZERO),
+                new SimpleMeterRegistry(), true, 10, Duration.ofMinutes(5));
+
+        cache.get("systems", null, this::load);
+
+        assertEquals("value-2", cache.get("systems", null, this::load));
+        assertEquals(1, cache.stats().invalidations());
+        assertEquals(1, cache.stats().generation());
+    }
+
+    @Test
+    void resultLoadedAcrossATopologyChangeIsNotCached() {
+        TopologyReadCache cache = cache(10, Duration.ofMinutes(5));
+
+        cache.get("systems", null, () -> {
+            generation.onTopologyChanged(new TopologyChangedEvent("updateNode"));
+            return load();
+        });
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedAtCapacity() {
+        TopologyReadCache cache = cache(2, Duration.ofMinutes(5));
+        cache.get("impactByNode", "a", this::load);
+        cache.get("impactByNode", "b", this::load);
+        cache.get("impactByNode", "a", this::load);
+        cache.get("impactByNode", "c", this::load);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.stats().evictions());
+        cache.get("impactByNode", "a", this::load);
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void expiredEntryIsReloaded() throws InterruptedException {
+        TopologyReadCache cache = cache(10, Duration.ofMillis(1));
+        cache.get("subnets", null, this::load);
+        Thread.sleep(5);
+
+        assertEquals("value-2", cache.get("subnets", null, this::load));
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    void disabledCacheAlwaysLoads() {
+        TopologyReadCache cache = new TopologyReadCache(generation, new SimpleMeterRegistry(), false, 10, Duration.ofMinutes(5));
+        cache.get("systems", null, this::load);
+        cache.get("systems", null, this::load);
+
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+
+    private TopologyReadCache cache(int maxEntries, Duration ttl) {
+        return new TopologyReadCache(generation, new SimpleMeterRegistry(), true, maxEntries, ttl);
+    }
+
+    private String load() {
+        return "value-" + loads.incrementAndGet();
+    }
+}
@@ -0,0 +1,82 @@
+package com.jdeploy.service;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class TopologySnapshotServiceTest {
+
+    private final TopologyGeneration generation = new TopologyGeneration(mock(Neo4jClient.class, RETURNS_DEEP_STUBS), Duration.ofMinutes(5));
+    private final AtomicInteger loads = new AtomicInteger();
+    private final CountDownLatch rebuilding = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final TopologySnapshotService service = new TopologySnapshotService(mock(Neo4jClient.class), generation,
+            mock(PlatformTransactionManager.class)) {
+        @Override
+        TopologySnapshot load(long targetGeneration) {
+            if (loads.incrementAndGet() == 2) {
+                rebuilding.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return TopologySnapshot.builder().build(targetGeneration);
+        }
+    };
+
+    @Test
+    void snapshotIsReusedUntilTheGenerationMoves() {
+        TopologySnapshot first = service.current();
+
+        assertSame(first, service.current());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void readersKeepThePreviousSnapshotWhileOneReaderRebuildsIt() throws Exception {
+        TopologySnapshot first = service.current();
+        generation.onTopologyChanged(new TopologyChangedEvent("synchronize"));
+
+        CompletableFuture<TopologySnapshot> rebuilt = CompletableFuture.supplyAsync(service::current);
+        assertTrue(rebuilding.await(5, TimeUnit.SECONDS));
+        assertSame(first, service.current());
+        release.countDown();
+
+        assertEquals(1, rebuilt.get(5, TimeUnit.SECONDS).generation());
+        assertSame(rebuilt.get(), service.current());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void snapshotIsReadInOneReadOnlyTransaction() {
+        PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+        TopologySnapshotService loading = new TopologySnapshotService(mock(Neo4jClient.class, RETURNS_DEEP_STUBS),
+                generation, transactionManager);
+
+        loading.current();
+
+        ArgumentCaptor<TransactionDefinition> definition = ArgumentCaptor.forClass(TransactionDefinition.class);
+        verify(transactionManager).getTransaction(definition.capture());
+        assertTrue(definition.getValue().isReadOnly());
+        verify(transactionManager).commit(any());
+    }
+}
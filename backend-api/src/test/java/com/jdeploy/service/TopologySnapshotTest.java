@@ -0,0 +1,82 @@
+package com.jdeploy.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TopologySnapshotTest {
+
+    private final TopologySnapshot snapshot = TopologySnapshot.builder()
+            .subnet("s1", "10.0.0.0/24", "100", "internal")
+            .hardwareNode("n1", "app02", "10.0.0.12", "VIRTUAL_MACHINE")
+            .hardwareNode("n2", "app01", "10.0.0.11", "VIRTUAL_MACHINE")
+            .hardwareNode("n3", "db01", "10.0.1.10", "PHYSICAL")
+            .environment("e1", "prod", "PRODUCTION")
+            .system("sys1", "Payments")
+            .component("c1", "payments-api", "1.2.3")
+            .component("c2", "payments-worker", "1.0.0")
+            .deployment("d1", "prod@app01:payments-api:1.2.3")
+            .deployment("d2", "prod@app02:payments-worker:1.0.0")
+            .cluster("k1", "KubernetesCluster", "prod-k8s")
+            .cluster("g1", "GridCluster", "db-grid")
+            .networkLink("l1")
+            .relationship("CONTAINS_NODE", "s1", "n1")
+            .relationship("CONTAINS_NODE", "s1", "n2")
+            .relationship("HAS_COMPONENT", "sys1", "c2")
+            .relationship("HAS_COMPONENT", "sys1", "c1")
+            .relationship("HAS_DEPLOYMENT", "c1", "d1")
+            .relationship("HAS_DEPLOYMENT", "c2", "d2")
+            .relationship("TARGETS", "d1", "n2")
+            .relationship("TARGETS", "d1", "e1")
+            .relationship("TARGETS", "d2", "n1")
+            .relationship("HAS_NODE", "k1", "n1")
+            .relationship("HAS_NODE", "k1", "n2")
+            .relationship("HAS_NODE", "g1", "n3")
+            .relationship("CONNECTS_FROM", "l1", "n2")
+            .relationship("CONNECTS_TO", "l1", "n3")
+            .build(7);
+
+    @Test
+    void deploymentsBySubnetAreOrderedByHostname() {
+        assertEquals(List.of(
+                new TopologyQueryService.DeploymentView("app01", "prod@app01:payments-api:1.2.3"),
+                new TopologyQueryService.DeploymentView("app02", "prod@app02:payments-worker:1.0.0")
+        ), snapshot.deploymentsBySubnet("10.0.0.0/24"));
+        assertTrue(snapshot.deploymentsBySubnet("192.168.0.0/16").isEmpty());
+    }
+
+    @Test
+    void impactByNodeFollowsLinksToPeerClusters() {
+        assertEquals(List.of(new TopologyQueryService.ImpactView(
+                "payments-api",
+                "prod@app01:payments-api:1.2.3",
+                List.of("db01"),
+                List.of("KubernetesCluster:prod-k8s"),
+                List.of("GridCluster:db-grid")
+        )), snapshot.impactByNode("app01"));
+    }
+
+    @Test
+    void systemDiagramListsSortedComponentsAndTargetNodes() {
+        assertEquals(new TopologyQueryService.SystemDiagramView("Payments",
+                        List.of("payments-api:1.2.3", "payments-worker:1.0.0"),
+                        List.of("app01", "app02")),
+                snapshot.systemDiagram("Payments"));
+    }
+
+    @Test
+    void listViewsAreSortedAndCounted() {
+        assertEquals(List.of(new TopologyQueryService.SystemSummary("Payments", 2)), snapshot.systems());
+        assertEquals(List.of(new TopologyQueryService.SubnetSummary("10.0.0.0/24", "100", "internal", 2)), snapshot.subnets());
+        assertEquals(List.of(
+                new TopologyQueryService.NodeSummary("app01", "10.0.0.11", "VIRTUAL_MACHINE", "10.0.0.0/24"),
+                new TopologyQueryService.NodeSummary("app02", "10.0.0.12", "VIRTUAL_MACHINE", "10.0.0.0/24"),
+                new TopologyQueryService.NodeSummary("db01", "10.0.1.10", "PHYSICAL", null)
+        ), snapshot.hardwareNodes());
+        assertEquals(List.of(new TopologyQueryService.EnvironmentSummary("prod", "PRODUCTION")), snapshot.environments());
+        assertEquals(7, snapshot.generation());
+    }
+}
@@ -0,0 +1,52 @@
+package com.jdeploy.benchmarks;
+
+import com.jdeploy.security.CommonLogFormatAccessFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link CommonLogFormatAccessFilter#buildCommonLogEntry} alone. Runs on several threads since the
+ * filter keeps per-thread buffers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class CommonLogEntryBenchmark {
+
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        request = new MockHttpServletRequest("GET", "/api/topology/subnets/10.0.0.0%2F24/deployments");
+        request.setQueryString("after=host-00042&limit=100");
+        request.setRemoteAddr("192.0.2.10");
+        request.setProtocol("HTTP/1.1");
+        response = new MockHttpServletResponse();
+        response.setStatus(200);
+        response.setHeader(HttpHeaders.CONTENT_LENGTH, "18342");
+    }
+
+    @Benchmark
+    public String buildCommonLogEntry() {
+        return CommonLogFormatAccessFilter.buildCommonLogEntry(request, response);
+    }
+}
@@ -0,0 +1,46 @@
+package com.jdeploy.benchmarks;
+
+import com.jdeploy.service.ManifestParserService;
+import com.jdeploy.service.dto.DeploymentManifestDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ManifestParsingBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int deployments;
+
+    private ManifestParserService parser;
+    private String yaml;
+
+    @Setup
+    public void setUp() {
+        parser = new ManifestParserService(new SimpleMeterRegistry(), ObservationRegistry.NOOP);
+        yaml = SyntheticManifestGenerator.toYaml(
+                SyntheticManifestGenerator.generate(SyntheticManifestGenerator.Shape.forDeployments(deployments)));
+    }
+
+    @Benchmark
+    public DeploymentManifestDto parseManifest() {
+        return parser.parseManifest(yaml);
+    }
+}
@@ -0,0 +1,46 @@
+package com.jdeploy.benchmarks;
+
+import com.jdeploy.service.ManifestContractValidator;
+import com.jdeploy.service.dto.DeploymentManifestDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ManifestValidationBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int deployments;
+
+    @Param({"false", "true"})
+    private boolean parallelSystems;
+
+    private ManifestContractValidator validator;
+    private DeploymentManifestDto manifest;
+
+    @Setup
+    public void setUp() {
+        validator = new ManifestContractValidator(parallelSystems);
+        manifest = SyntheticManifestGenerator.generate(SyntheticManifestGenerator.Shape.forDeployments(deployments));
+    }
+
+    @Benchmark
+    public void validateForIngestion() {
+        validator.validateForIngestion(manifest);
+    }
+}
@@ -0,0 +1,67 @@
+package com.jdeploy.benchmarks;
+
+import com.jdeploy.service.PlantUmlAliases;
+import com.jdeploy.service.dto.DeploymentManifestDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the former per-reference {@code replaceAll} aliasing with the {@link PlantUmlAliases} table, replaying
+ * the hostname references one {@code buildPlantUml} render makes: one per node declaration, one per deployment
+ * and two per link.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlantUmlAliasBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int deployments;
+
+    private List<String> hostnameReferences;
+
+    @Setup
+    public void setUp() {
+        DeploymentManifestDto manifest = SyntheticManifestGenerator.generate(SyntheticManifestGenerator.Shape.forDeployments(deployments));
+        hostnameReferences = new ArrayList<>();
+        manifest.subnets().forEach(subnet -> subnet.nodes().forEach(node -> hostnameReferences.add(node.hostname())));
+        manifest.systems().forEach(system -> system.components().forEach(component ->
+                component.deployments().forEach(target -> hostnameReferences.add(target.hostname()))));
+        manifest.links().forEach(link -> {
+            hostnameReferences.add(link.fromHostname());
+            hostnameReferences.add(link.toHostname());
+        });
+    }
+
+    @Benchmark
+    public void regexPerReference(Blackhole blackhole) {
+        for (String hostname : hostnameReferences) {
+            blackhole.consume("node_" + hostname.replaceAll("[^a-zA-Z0-9_]", "_"));
+        }
+    }
+
+    @Benchmark
+    public void aliasTable(Blackhole blackhole) {
+        PlantUmlAliases aliases = new PlantUmlAliases();
+        for (String hostname : hostnameReferences) {
+            blackhole.consume(aliases.node(hostname));
+        }
+    }
+}
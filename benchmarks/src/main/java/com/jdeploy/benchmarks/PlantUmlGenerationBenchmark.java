@@ -0,0 +1,98 @@
+package com.jdeploy.benchmarks;
+
+import com.jdeploy.artifact.LocalFilesystemArtifactStorage;
+import com.jdeploy.service.DiagramGenerationService;
+import com.jdeploy.service.OperationMetricsService;
+import com.jdeploy.service.TopologyGeneration;
+import com.jdeploy.service.TopologyQueryService;
+import com.jdeploy.service.TopologyReadCache;
+import com.jdeploy.service.TopologySnapshot;
+import com.jdeploy.service.TopologySnapshotService;
+import com.jdeploy.service.dto.DeploymentManifestDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures PlantUML text generation only. {@code buildSystemPlantUml} reads from an in-memory
+ * {@link TopologySnapshot} of the synthetic manifest, so no database round trip is included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlantUmlGenerationBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    private int deployments;
+
+    private DiagramGenerationService diagramGenerationService;
+    private DeploymentManifestDto manifest;
+    private String systemName;
+
+    @Setup
+    public void setUp() throws IOException {
+        manifest = SyntheticManifestGenerator.generate(SyntheticManifestGenerator.Shape.forDeployments(deployments));
+        systemName = SyntheticManifestGenerator.systemName(0);
+
+        TopologySnapshot snapshot = SyntheticManifestGenerator.toSnapshot(manifest);
+        Neo4jClient unusedClient = (Neo4jClient) Proxy.newProxyInstance(
+                Neo4jClient.class.getClassLoader(),
+                new Class<?>[]{Neo4jClient.class},
+                (proxy, method, args) -> {
+                    throw new UnsupportedOperationException("Benchmarks read from the topology snapshot only");
+                });
+        TopologyGeneration generation = new TopologyGeneration(unusedClient, Duration.ofMinutes(5));
+        PlatformTransactionManager unusedTransactions = (PlatformTransactionManager) Proxy.newProxyInstance(
+                PlatformTransactionManager.class.getClassLoader(),
+                new Class<?>[]{PlatformTransactionManager.class},
+                (proxy, method, args) -> {
+                    throw new UnsupportedOperationException("Benchmarks read from the topology snapshot only");
+                });
+        TopologySnapshotService snapshotService = new TopologySnapshotService(unusedClient, generation, unusedTransactions) {
+            @Override
+            public TopologySnapshot current() {
+                return snapshot;
+            }
+        };
+        TopologyQueryService queryService = new TopologyQueryService(unusedClient, snapshotService,
+                new TopologyReadCache(generation, new SimpleMeterRegistry(), false, 1, Duration.ofMinutes(5)),
+                TopologyQueryService.ReadSource.SNAPSHOT);
+
+        diagramGenerationService = new DiagramGenerationService(
+                new LocalFilesystemArtifactStorage(Files.createTempDirectory("jdeploy-bench").toString()),
+                ObservationRegistry.NOOP,
+                new OperationMetricsService(new SimpleMeterRegistry()),
+                queryService);
+    }
+
+    @Benchmark
+    public String buildPlantUml() {
+        return diagramGenerationService.buildPlantUml(manifest);
+    }
+
+    @Benchmark
+    public String buildSystemPlantUml() {
+        return diagramGenerationService.buildSystemPlantUml(systemName);
+    }
+}
@@ -0,0 +1,181 @@
+package com.jdeploy.benchmarks;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.jdeploy.service.TopologySnapshot;
+import com.jdeploy.service.dto.DeploymentManifestDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds deterministic deployment manifests of a requested size. The same {@link Shape} always yields the same
+ * manifest, so benchmark runs on different commits measure identical inputs.
+ */
+public final class SyntheticManifestGenerator {
+
+    private static final int MAX_NODES_PER_SUBNET = 250;
+    private static final List<String> NODE_TYPES = List.of("VIRTUAL_MACHINE", "PHYSICAL", "KUBERNETES_WORKER");
+    private static final List<DeploymentManifestDto.ExecutionEnvironmentDto> ENVIRONMENTS = List.of(
+            new DeploymentManifestDto.ExecutionEnvironmentDto("dev", "DEVELOPMENT"),
+            new DeploymentManifestDto.ExecutionEnvironmentDto("staging", "STAGING"),
+            new DeploymentManifestDto.ExecutionEnvironmentDto("prod", "PRODUCTION"));
+
+    private SyntheticManifestGenerator() {
+    }
+
+    /**
+     * Size and seed of a synthetic manifest. Nodes are spread evenly over subnets, components over systems and
+     * deployments over components; deployment hosts, environments and link endpoints are drawn from {@code seed}.
+     */
+    public record Shape(int subnets,
+                        int nodes,
+                        int systems,
+                        int componentsPerSystem,
+                        int deployments,
+                        int links,
+                        long seed) {
+
+        public Shape {
+            if (subnets < 1 || nodes < 1 || systems < 1 || componentsPerSystem < 1) {
+                throw new IllegalArgumentException("subnets, nodes, systems and componentsPerSystem must be positive");
+            }
+            if (deployments < 0 || links < 0) {
+                throw new IllegalArgumentException("deployments and links must not be negative");
+            }
+            if (nodes > subnets * MAX_NODES_PER_SUBNET) {
+                throw new IllegalArgumentException("at most " + MAX_NODES_PER_SUBNET + " nodes fit in one subnet");
+            }
+        }
+
+        /**
+         * A shape with roughly ten deployments per node and per component, the ratio seen in production manifests.
+         */
+        public static Shape forDeployments(int deployments) {
+            int nodes = Math.max(4, deployments / 10);
+            int subnets = Math.max(1, (nodes + 199) / 200);
+            int systems = Math.max(1, deployments / 100);
+            return new Shape(subnets, nodes, systems, 10, deployments, nodes, 42L);
+        }
+    }
+
+    public static DeploymentManifestDto generate(Shape shape) {
+        Random random = new Random(shape.seed());
+
+        List<String> hostnames = new ArrayList<>(shape.nodes());
+        List<List<DeploymentManifestDto.HardwareNodeDto>> subnetNodes = new ArrayList<>(shape.subnets());
+        for (int s = 0; s < shape.subnets(); s++) {
+            subnetNodes.add(new ArrayList<>());
+        }
+        for (int n = 0; n < shape.nodes(); n++) {
+            int subnet = n % shape.subnets();
+            int host = subnetNodes.get(subnet).size() + 1;
+            String hostname = "host-%05d".formatted(n);
+            hostnames.add(hostname);
+            subnetNodes.get(subnet).add(new DeploymentManifestDto.HardwareNodeDto(
+                    hostname,
+                    subnetPrefix(subnet) + host,
+                    NODE_TYPES.get(random.nextInt(NODE_TYPES.size())),
+                    List.of("app")));
+        }
+
+        List<DeploymentManifestDto.SubnetDto> subnets = new ArrayList<>(shape.subnets());
+        for (int s = 0; s < shape.subnets(); s++) {
+            subnets.add(new DeploymentManifestDto.SubnetDto(
+                    subnetPrefix(s) + "0/24",
+                    String.valueOf(100 + s),
+                    "zone-" + (s % 4),
+                    subnetNodes.get(s)));
+        }
+
+        int componentCount = shape.systems() * shape.componentsPerSystem();
+        List<List<DeploymentManifestDto.DeploymentTargetDto>> componentDeployments = new ArrayList<>(componentCount);
+        for (int c = 0; c < componentCount; c++) {
+            componentDeployments.add(new ArrayList<>());
+        }
+        for (int d = 0; d < shape.deployments(); d++) {
+            componentDeployments.get(d % componentCount).add(new DeploymentManifestDto.DeploymentTargetDto(
+                    ENVIRONMENTS.get(random.nextInt(ENVIRONMENTS.size())).name(),
+                    hostnames.get(random.nextInt(hostnames.size())),
+                    null,
+                    null));
+        }
+
+        List<DeploymentManifestDto.SoftwareSystemDto> systems = new ArrayList<>(shape.systems());
+        for (int s = 0; s < shape.systems(); s++) {
+            List<DeploymentManifestDto.SoftwareComponentDto> components = new ArrayList<>(shape.componentsPerSystem());
+            for (int c = 0; c < shape.componentsPerSystem(); c++) {
+                int component = s * shape.componentsPerSystem() + c;
+                components.add(new DeploymentManifestDto.SoftwareComponentDto(
+                        "component-%05d".formatted(component),
+                        "1." + (component % 10) + ".0",
+                        componentDeployments.get(component)));
+            }
+            systems.add(new DeploymentManifestDto.SoftwareSystemDto(systemName(s), components));
+        }
+
+        List<DeploymentManifestDto.NetworkLinkDto> links = new ArrayList<>(shape.links());
+        for (int l = 0; l < shape.links(); l++) {
+            links.add(new DeploymentManifestDto.NetworkLinkDto(
+                    hostnames.get(random.nextInt(hostnames.size())),
+                    hostnames.get(random.nextInt(hostnames.size())),
+                    100 * (1 + random.nextInt(100)),
+                    1 + random.nextInt(50)));
+        }
+
+        return new DeploymentManifestDto(subnets, List.of(), ENVIRONMENTS, systems, links);
+    }
+
+    public static String systemName(int index) {
+        return "system-%04d".formatted(index);
+    }
+
+    public static String toYaml(DeploymentManifestDto manifest) {
+        ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory())
+                .setDefaultPropertyInclusion(JsonInclude.Include.NON_NULL);
+        try {
+            return yamlMapper.writeValueAsString(manifest);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Unable to render synthetic manifest as yaml", ex);
+        }
+    }
+
+    /**
+     * The topology the manifest would produce after ingestion, in the shape the snapshot read path serves it.
+     */
+    public static TopologySnapshot toSnapshot(DeploymentManifestDto manifest) {
+        TopologySnapshot.Builder builder = TopologySnapshot.builder();
+        for (DeploymentManifestDto.ExecutionEnvironmentDto environment : manifest.environments()) {
+            builder.environment("env:" + environment.name(), environment.name(), environment.type());
+        }
+        for (DeploymentManifestDto.SubnetDto subnet : manifest.subnets()) {
+            builder.subnet("subnet:" + subnet.cidr(), subnet.cidr(), subnet.vlan(), subnet.routingZone());
+            for (DeploymentManifestDto.HardwareNodeDto node : subnet.nodes()) {
+                builder.hardwareNode("node:" + node.hostname(), node.hostname(), node.ipAddress(), node.type())
+                        .relationship("CONTAINS_NODE", "subnet:" + subnet.cidr(), "node:" + node.hostname());
+            }
+        }
+        for (DeploymentManifestDto.SoftwareSystemDto system : manifest.systems()) {
+            builder.system("system:" + system.name(), system.name());
+            for (DeploymentManifestDto.SoftwareComponentDto component : system.components()) {
+                String componentKey = component.name() + ":" + component.version();
+                builder.component("component:" + componentKey, component.name(), component.version())
+                        .relationship("HAS_COMPONENT", "system:" + system.name(), "component:" + componentKey);
+                for (DeploymentManifestDto.DeploymentTargetDto target : component.deployments()) {
+                    String deploymentKey = target.environment() + "@" + target.hostname() + ":" + componentKey;
+                    builder.deployment("deployment:" + deploymentKey, deploymentKey)
+                            .relationship("HAS_DEPLOYMENT", "component:" + componentKey, "deployment:" + deploymentKey)
+                            .relationship("TARGETS", "deployment:" + deploymentKey, "node:" + target.hostname());
+                }
+            }
+        }
+        return builder.build(0);
+    }
+
+    private static String subnetPrefix(int subnet) {
+        return "10." + (subnet / 256) + "." + (subnet % 256) + ".";
+    }
+}
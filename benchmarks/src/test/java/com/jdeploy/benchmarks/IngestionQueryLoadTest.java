@@ -0,0 +1,336 @@
+package com.jdeploy.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.jdeploy.JDeployApplication;
+import com.jdeploy.service.dto.DeploymentManifestDto;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.GenericContainer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * End-to-end performance run against a real Neo4j: ingests synthetic manifests of growing size through
+ * {@code POST /api/manifests/ingest}, then drives the topology read endpoints from several threads at once and
+ * writes ingestion throughput, per-stage ingestion latency and per-endpoint read latency histograms to a JSON
+ * report.
+ * <p>
+ * Only runs when {@code jdeploy.load-test.enabled=true}; {@code mvn -pl benchmarks -am -Pload-test verify}
+ * sets that and writes the report to {@code benchmarks/target/load-test/report.json}. Sizes, reader threads and
+ * read duration can be overridden with {@code jdeploy.load-test.sizes}, {@code jdeploy.load-test.threads} and
+ * {@code jdeploy.load-test.read-duration}; any backend property (for example
+ * {@code jdeploy.topology.read-source}) can be passed the same way to compare configurations.
+ */
+@SpringBootTest(classes = JDeployApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EnabledIfSystemProperty(named = "jdeploy.load-test.enabled", matches = "true")
+class IngestionQueryLoadTest {
+
+    private static final List<String> INGESTION_STAGES = List.of("jdeploy.manifest.parse", "jdeploy.manifest.synchronize");
+    private static final Duration[] LATENCY_BUCKETS = Arrays.stream(new long[]{1, 2, 5, 10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000})
+            .mapToObj(Duration::ofMillis)
+            .toArray(Duration[]::new);
+
+    static GenericContainer<?> neo4j = new GenericContainer<>("neo4j:5")
+            .withExposedPorts(7687)
+            .withEnv("NEO4J_AUTH", "neo4j/changeit");
+
+    @BeforeAll
+    static void startNeo4jContainer() {
+        neo4j.start();
+    }
+
+    @AfterAll
+    static void stopNeo4jContainer() {
+        neo4j.stop();
+    }
+
+    @DynamicPropertySource
+    static void neo4jProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.neo4j.uri", () -> "bolt://" + neo4j.getHost() + ":" + neo4j.getMappedPort(7687));
+        registry.add("spring.neo4j.authentication.username", () -> "neo4j");
+        registry.add("spring.neo4j.authentication.password", () -> "changeit");
+        registry.add("jdeploy.security.users.ingest.username", () -> "ingest");
+        registry.add("jdeploy.security.users.ingest.password", () -> "ingest-password");
+        registry.add("jdeploy.security.users.generator.username", () -> "generator");
+        registry.add("jdeploy.security.users.generator.password", () -> "generator-password");
+        registry.add("jdeploy.security.users.reader.username", () -> "reader");
+        registry.add("jdeploy.security.users.reader.password", () -> "reader-password");
+        registry.add("jdeploy.security.password-policy.enforce", () -> "false");
+    }
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+    @Autowired
+    private Neo4jClient neo4jClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @LocalServerPort
+    int port;
+
+    @Test
+    void ingestGrowingManifestsAndMeasureConcurrentReads() throws Exception {
+        List<Integer> sizes = Arrays.stream(System.getProperty("jdeploy.load-test.sizes", "1000,10000,100000").split(","))
+                .map(String::trim)
+                .map(Integer::parseInt)
+                .toList();
+        int threads = Integer.getInteger("jdeploy.load-test.threads", 8);
+        Duration readDuration = Duration.parse(System.getProperty("jdeploy.load-test.read-duration", "PT30S"));
+
+        List<SizeResult> results = new ArrayList<>();
+        for (int deployments : sizes) {
+            neo4jClient.query("MATCH (n) DETACH DELETE n").run();
+            SyntheticManifestGenerator.Shape shape = SyntheticManifestGenerator.Shape.forDeployments(deployments);
+            DeploymentManifestDto manifest = SyntheticManifestGenerator.generate(shape);
+            String yaml = SyntheticManifestGenerator.toYaml(manifest);
+
+            IngestionResult ingestion = ingest(yaml, deployments);
+            Map<String, EndpointResult> reads = hammerReads(readEndpoints(manifest), threads, readDuration);
+            results.add(new SizeResult(deployments, shape.nodes(), shape.systems(), yaml.length(), ingestion, reads));
+        }
+
+        Report report = new Report(Instant.now().toString(), Runtime.version().toString(),
+                Runtime.getRuntime().availableProcessors(), threads, readDuration.toMillis(), results);
+        Path reportPath = Path.of(System.getProperty("jdeploy.load-test.report", "target/load-test/report.json"));
+        writeReport(report, reportPath);
+        System.out.println("load test report written to " + reportPath.toAbsolutePath());
+
+        for (SizeResult result : results) {
+            result.reads().forEach((endpoint, latency) ->
+                    assertEquals(0, latency.errors(), endpoint + " failed at " + result.deployments() + " deployments"));
+        }
+    }
+
+    private IngestionResult ingest(String yaml, int deployments) throws IOException, InterruptedException {
+        Map<String, StageTotals> before = stageTotals();
+        HttpRequest request = HttpRequest.newBuilder(uri("/api/manifests/ingest?force=true"))
+                .header("Authorization", basic("ingest", "ingest-password"))
+                .header("Content-Type", "application/x-yaml")
+                .timeout(Duration.ofMinutes(30))
+                .POST(HttpRequest.BodyPublishers.ofString(yaml))
+                .build();
+        long started = System.nanoTime();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        double totalMillis = (System.nanoTime() - started) / 1_000_000.0;
+        assertEquals(200, response.statusCode(), response.body());
+
+        Map<String, Double> stageMillis = new LinkedHashMap<>();
+        Map<String, StageTotals> after = stageTotals();
+        for (String stage : INGESTION_STAGES) {
+            stageMillis.put(stage, after.get(stage).totalMillis() - before.get(stage).totalMillis());
+        }
+        return new IngestionResult(totalMillis, deployments / (totalMillis / 1_000.0), stageMillis);
+    }
+
+    private Map<String, StageTotals> stageTotals() {
+        Map<String, StageTotals> totals = new LinkedHashMap<>();
+        for (String stage : INGESTION_STAGES) {
+            double millis = 0;
+            long count = 0;
+            for (Timer timer : meterRegistry.find(stage).timers()) {
+                millis += timer.totalTime(TimeUnit.MILLISECONDS);
+                count += timer.count();
+            }
+            totals.put(stage, new StageTotals(millis, count));
+        }
+        return totals;
+    }
+
+    private Map<String, Function<Random, String>> readEndpoints(DeploymentManifestDto manifest) {
+        List<String> hostnames = manifest.subnets().stream()
+                .flatMap(subnet -> subnet.nodes().stream())
+                .map(DeploymentManifestDto.HardwareNodeDto::hostname)
+                .toList();
+        List<String> cidrs = manifest.subnets().stream().map(DeploymentManifestDto.SubnetDto::cidr).toList();
+        List<String> systems = manifest.systems().stream().map(DeploymentManifestDto.SoftwareSystemDto::name).toList();
+
+        Map<String, Function<Random, String>> endpoints = new LinkedHashMap<>();
+        endpoints.put("GET /api/topology/systems", random -> "/api/topology/systems?limit=100");
+        endpoints.put("GET /api/topology/hardware-nodes", random -> "/api/topology/hardware-nodes?limit=100");
+        endpoints.put("GET /api/topology/subnets", random -> "/api/topology/subnets");
+        endpoints.put("GET /api/topology/environments", random -> "/api/topology/environments");
+        endpoints.put("GET /api/topology/systems/{name}", random -> "/api/topology/systems/" + pick(random, systems));
+        endpoints.put("GET /api/topology/nodes/{hostname}", random -> "/api/topology/nodes/" + pick(random, hostnames));
+        endpoints.put("GET /api/subnets/deployments", random -> "/api/subnets/deployments?subnetId=" + encode(pick(random, cidrs)));
+        endpoints.put("GET /api/impact/node/{nodeId}", random -> "/api/impact/node/" + pick(random, hostnames));
+        endpoints.put("GET /api/impact/node/{nodeId}/systems", random -> "/api/impact/node/" + pick(random, hostnames) + "/systems");
+        endpoints.put("GET /api/diagrams/system/{systemId}", random -> "/api/diagrams/system/" + pick(random, systems));
+        return endpoints;
+    }
+
+    private Map<String, EndpointResult> hammerReads(Map<String, Function<Random, String>> endpoints,
+                                                    int threads,
+                                                    Duration duration) throws Exception {
+        SimpleMeterRegistry latencies = new SimpleMeterRegistry();
+        Map<String, Timer> timers = new LinkedHashMap<>();
+        Map<String, AtomicLong> errors = new LinkedHashMap<>();
+        for (String endpoint : endpoints.keySet()) {
+            timers.put(endpoint, Timer.builder("load.read")
+                    .tag("endpoint", endpoint)
+                    .publishPercentiles(0.5, 0.9, 0.99, 0.999)
+                    .serviceLevelObjectives(LATENCY_BUCKETS)
+                    .distributionStatisticExpiry(duration.plusMinutes(5))
+                    .register(latencies));
+            errors.put(endpoint, new AtomicLong());
+        }
+        List<String> names = List.copyOf(endpoints.keySet());
+        String authorization = basic("reader", "reader-password");
+        long deadline = System.nanoTime() + duration.toNanos();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Random random = new Random(t);
+                workers.add(executor.submit(() -> {
+                    while (System.nanoTime() < deadline) {
+                        String endpoint = names.get(random.nextInt(names.size()));
+                        HttpRequest request = HttpRequest.newBuilder(uri(endpoints.get(endpoint).apply(random)))
+                                .header("Authorization", authorization)
+                                .timeout(Duration.ofSeconds(30))
+                                .GET()
+                                .build();
+                        long started = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 300) {
+                                errors.get(endpoint).incrementAndGet();
+                            }
+                        } catch (IOException ex) {
+                            errors.get(endpoint).incrementAndGet();
+                        }
+                        timers.get(endpoint).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<String, EndpointResult> results = new LinkedHashMap<>();
+        timers.forEach((endpoint, timer) ->
+                results.put(endpoint, EndpointResult.of(timer.takeSnapshot(), errors.get(endpoint).get(), duration)));
+        return results;
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static String pick(Random random, List<String> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String basic(String username, String password) {
+        return "Basic " + Base64.getEncoder().encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeReport(Report report, Path reportPath) throws IOException {
+        Path parent = reportPath.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(reportPath.toFile(), report);
+    }
+
+    private record StageTotals(double totalMillis, long count) {
+    }
+
+    record Report(String finishedAt,
+                  String javaVersion,
+                  int availableProcessors,
+                  int readerThreads,
+                  long readDurationMillis,
+                  List<SizeResult> sizes) {
+    }
+
+    record SizeResult(int deployments,
+                      int nodes,
+                      int systems,
+                      int manifestBytes,
+                      IngestionResult ingestion,
+                      Map<String, EndpointResult> reads) {
+    }
+
+    record IngestionResult(double totalMillis, double deploymentsPerSecond, Map<String, Double> stageMillis) {
+    }
+
+    /**
+     * Latency summary for one endpoint. {@code histogram} maps each bucket's upper bound in milliseconds to the
+     * cumulative number of requests at or below it.
+     */
+    record EndpointResult(long requests,
+                          long errors,
+                          double requestsPerSecond,
+                          double meanMillis,
+                          double maxMillis,
+                          Map<String, Double> percentileMillis,
+                          Map<String, Double> histogram) {
+
+        static EndpointResult of(HistogramSnapshot snapshot, long errors, Duration duration) {
+            Map<String, Double> percentiles = new LinkedHashMap<>();
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                percentiles.put(String.valueOf(percentile.percentile()), percentile.value(TimeUnit.MILLISECONDS));
+            }
+            Map<String, Double> histogram = new LinkedHashMap<>();
+            for (CountAtBucket bucket : snapshot.histogramCounts()) {
+                histogram.put(String.valueOf((long) bucket.bucket(TimeUnit.MILLISECONDS)), bucket.count());
+            }
+            return new EndpointResult(snapshot.count(), errors, snapshot.count() / (duration.toMillis() / 1_000.0),
+                    snapshot.mean(TimeUnit.MILLISECONDS), snapshot.max(TimeUnit.MILLISECONDS), percentiles, histogram);
+        }
+    }
+}
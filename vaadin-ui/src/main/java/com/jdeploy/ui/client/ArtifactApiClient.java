@@ -23,6 +23,16 @@ public class ArtifactApiClient {
                 .body(ArtifactMetadata.class);
     }
 
+    /**
+     * Generates the deployment diagram of one system from the stored topology.
+     */
+    public ArtifactMetadata generateForSystem(String systemName) {
+        return restClient.post()
+                .uri("/api/artifacts/generate/system/{name}", systemName)
+                .retrieve()
+                .body(ArtifactMetadata.class);
+    }
+
     public byte[] download(String artifactId) {
         return restClient.get()
                 .uri("/api/artifacts/{artifactId}", artifactId)
@@ -33,4 +43,11 @@ public class ArtifactApiClient {
     public String downloadUrl(String artifactId) {
         return "/api/artifacts/" + artifactId;
     }
+
+    /**
+     * Link to the artifact rendered server-side as {@code svg} or {@code png}.
+     */
+    public String renderUrl(String artifactId, String format) {
+        return downloadUrl(artifactId) + "?format=" + format;
+    }
 }
@@ -1,5 +1,6 @@
 package com.jdeploy.ui.view;
 
+import com.jdeploy.artifact.ArtifactMetadata;
 import com.jdeploy.ui.client.ArtifactApiClient;
 import com.jdeploy.ui.client.TopologyApiClient;
 import com.jdeploy.ui.security.VaadinActionAuthorizationService;
@@ -7,9 +8,10 @@ import com.vaadin.flow.component.Component;
 import com.vaadin.flow.component.button.Button;
 import com.vaadin.flow.component.combobox.ComboBox;
 import com.vaadin.flow.component.html.Pre;
-import com.vaadin.flow.component.textfield.TextArea;
 import org.junit.jupiter.api.Test;
 
+import java.nio.file.Path;
+import java.time.Instant;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -29,12 +31,13 @@ class DiagramViewTest {
         when(topologyApiClient.systems()).thenReturn(java.util.List.of(new TopologyApiClient.SoftwareSystemView("Billing", 2)));
         when(topologyApiClient.systemDiagram("Billing"))
                 .thenReturn(new TopologyApiClient.SystemDiagramView("Billing", java.util.List.of("billing-api"), java.util.List.of("node-a-01")));
+        when(artifactApiClient.generateForSystem("Billing"))
+                .thenReturn(new ArtifactMetadata("billing.puml", Path.of("billing.puml"), 42, Instant.now(), Instant.now(), null));
 
         DiagramView view = new DiagramView(topologyApiClient, artifactApiClient, authorizationService);
 
         Button generate = (Button) findById(view, DiagramView.GENERATE_BUTTON_ID).orElseThrow();
         ComboBox<String> selector = (ComboBox<String>) findById(view, DiagramView.SYSTEM_SELECTOR_ID).orElseThrow();
-        TextArea manifest = (TextArea) findById(view, DiagramView.MANIFEST_TEXTAREA_ID).orElseThrow();
         Pre preview = (Pre) findById(view, DiagramView.PREVIEW_PANEL_ID).orElseThrow();
 
         assertFalse(generate.isEnabled());
@@ -42,8 +45,11 @@ class DiagramViewTest {
 
         verify(topologyApiClient).systemDiagram("Billing");
         assertTrue(preview.getText().contains("System: Billing"));
-        assertTrue(manifest.getValue().contains("- name: Billing"));
         assertTrue(generate.isEnabled());
+
+        generate.click();
+
+        verify(artifactApiClient).generateForSystem("Billing");
     }
 
     private Optional<Component> findById(Component root, String id) {